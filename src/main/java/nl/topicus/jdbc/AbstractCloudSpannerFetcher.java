@@ -10,27 +10,40 @@ public abstract class AbstractCloudSpannerFetcher extends AbstractCloudSpannerWr
 {
 	private int fetchSize = 1;
 
+	private boolean fetchSizeSet = false;
+
 	private int direction = ResultSet.FETCH_FORWARD;
 
 	/**
 	 * 
 	 * @param direction
 	 *            The fetch direction to use. Only
-	 *            {@link ResultSet#FETCH_FORWARD} is supported.
+	 *            {@link ResultSet#FETCH_FORWARD} is supported, unless this
+	 *            object is scrollable.
 	 * @throws SQLException
 	 *             Thrown if any other fetch direction than
-	 *             {@link ResultSet#FETCH_FORWARD} is supplied
+	 *             {@link ResultSet#FETCH_FORWARD} is supplied for an object
+	 *             that is not scrollable
 	 */
 	public void setFetchDirection(int direction) throws SQLException
 	{
-		if (direction != ResultSet.FETCH_FORWARD)
+		if (isScrollable())
+		{
+			if (direction != ResultSet.FETCH_FORWARD && direction != ResultSet.FETCH_REVERSE
+					&& direction != ResultSet.FETCH_UNKNOWN)
+				throw new SQLException("Invalid fetch direction: " + direction);
+		}
+		else if (direction != ResultSet.FETCH_FORWARD)
+		{
 			throw new SQLFeatureNotSupportedException("Only FETCH_FORWARD is supported");
+		}
 		this.direction = direction;
 	}
 
 	/**
 	 * 
-	 * @return Always returns {@link ResultSet#FETCH_FORWARD}
+	 * @return The fetch direction, which is always
+	 *         {@link ResultSet#FETCH_FORWARD} if this object is not scrollable
 	 * @throws SQLException
 	 *             Cannot be thrown by this method, but is added to the method
 	 *             signature in order to comply with the interfaces that will be
@@ -38,11 +51,22 @@ public abstract class AbstractCloudSpannerFetcher extends AbstractCloudSpannerWr
 	 */
 	public int getFetchDirection() throws SQLException
 	{
-		if (this.direction != ResultSet.FETCH_FORWARD)
+		if (this.direction != ResultSet.FETCH_FORWARD && !isScrollable())
 			throw new SQLFeatureNotSupportedException("Only FETCH_FORWARD is supported");
 		return this.direction;
 	}
 
+	/**
+	 * 
+	 * @return true if the result sets of this object can be scrolled. Fetch
+	 *         directions other than {@link ResultSet#FETCH_FORWARD} are only
+	 *         accepted for scrollable result sets.
+	 */
+	protected boolean isScrollable()
+	{
+		return false;
+	}
+
 	/**
 	 * 
 	 * @param rows
@@ -56,6 +80,17 @@ public abstract class AbstractCloudSpannerFetcher extends AbstractCloudSpannerWr
 		if (rows < 1)
 			throw new SQLException("rows cannot be less than 1");
 		this.fetchSize = rows;
+		this.fetchSizeSet = true;
+	}
+
+	/**
+	 * 
+	 * @return true if the fetch size of this object has been set explicitly
+	 *         by calling {@link #setFetchSize(int)}
+	 */
+	protected boolean isFetchSizeSet()
+	{
+		return fetchSizeSet;
 	}
 
 	/**
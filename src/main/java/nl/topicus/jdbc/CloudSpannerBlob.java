@@ -0,0 +1,181 @@
+package nl.topicus.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import com.google.cloud.ByteArray;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * Read-only implementation of java.sql.Blob for Google Cloud Spanner. The
+ * {@link Blob} is a view over the {@link ByteArray} that was returned by Cloud
+ * Spanner. The value is not copied when the blob is created or streamed, and
+ * partial reads only copy the requested bytes.
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerBlob implements Blob
+{
+	private static final String FREE_EXCEPTION = "free() has been called, blob is no longer available";
+
+	private static final String READ_ONLY = "Blobs returned by Google Cloud Spanner are read-only";
+
+	private ByteArray value;
+
+	public CloudSpannerBlob(ByteArray value)
+	{
+		Preconditions.checkNotNull(value);
+		this.value = value;
+	}
+
+	private void checkFree() throws SQLException
+	{
+		if (value == null)
+		{
+			throw new CloudSpannerSQLException(FREE_EXCEPTION, Code.FAILED_PRECONDITION);
+		}
+	}
+
+	/**
+	 * Checks that the given one-based position and length are valid for this
+	 * blob
+	 *
+	 * @return The number of bytes that are available from the given position,
+	 *         with a maximum of length
+	 */
+	private int checkRange(long pos, long length) throws SQLException
+	{
+		checkFree();
+		if (pos < 1 || pos > value.length() + 1L)
+			throw new CloudSpannerSQLException("Invalid position: " + pos, Code.INVALID_ARGUMENT);
+		if (length < 0)
+			throw new CloudSpannerSQLException("Invalid length: " + length, Code.INVALID_ARGUMENT);
+		return (int) Math.min(length, value.length() - (pos - 1));
+	}
+
+	/**
+	 *
+	 * @return The underlying value of this blob
+	 * @throws SQLException
+	 *             if free() has been called on this blob
+	 */
+	public ByteArray getValue() throws SQLException
+	{
+		checkFree();
+		return value;
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		checkFree();
+		return value.length();
+	}
+
+	@Override
+	public byte[] getBytes(long pos, int length) throws SQLException
+	{
+		int count = checkRange(pos, length);
+		byte[] res = new byte[count];
+		ByteBuffer buffer = value.asReadOnlyByteBuffer();
+		buffer.position((int) pos - 1);
+		buffer.get(res);
+		return res;
+	}
+
+	@Override
+	public InputStream getBinaryStream() throws SQLException
+	{
+		checkFree();
+		return value.asInputStream();
+	}
+
+	@Override
+	public InputStream getBinaryStream(long pos, long length) throws SQLException
+	{
+		int count = checkRange(pos, length);
+		InputStream res = value.asInputStream();
+		try
+		{
+			ByteStreams.skipFully(res, pos - 1);
+		}
+		catch (IOException e)
+		{
+			throw new CloudSpannerSQLException("Could not position stream: " + e.getMessage(), Code.INTERNAL, e);
+		}
+		return ByteStreams.limit(res, count);
+	}
+
+	@Override
+	public long position(byte[] pattern, long start) throws SQLException
+	{
+		checkRange(start, 0);
+		ByteBuffer buffer = value.asReadOnlyByteBuffer();
+		int last = value.length() - pattern.length;
+		for (int index = (int) start - 1; index <= last; index++)
+		{
+			if (matches(buffer, index, pattern))
+				return index + 1L;
+		}
+		return -1L;
+	}
+
+	private static boolean matches(ByteBuffer buffer, int index, byte[] pattern)
+	{
+		for (int i = 0; i < pattern.length; i++)
+		{
+			if (buffer.get(index + i) != pattern[i])
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public long position(Blob pattern, long start) throws SQLException
+	{
+		if (pattern.length() > Integer.MAX_VALUE)
+			return -1L;
+		return position(pattern.getBytes(1L, (int) pattern.length()), start);
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public OutputStream setBinaryStream(long pos) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public void truncate(long len) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		this.value = null;
+	}
+
+}
@@ -0,0 +1,191 @@
+package nl.topicus.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Clob;
+import java.sql.NClob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CharSource;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * Read-only implementation of java.sql.Clob and java.sql.NClob for Google
+ * Cloud Spanner. The {@link Clob} is a view over the {@link String} that was
+ * returned by Cloud Spanner. Readers and streams read directly from the
+ * string, and streams encode the characters while they are read instead of
+ * encoding the whole value up front.
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerClob implements NClob
+{
+	private static final String FREE_EXCEPTION = "free() has been called, clob is no longer available";
+
+	private static final String READ_ONLY = "Clobs returned by Google Cloud Spanner are read-only";
+
+	private String value;
+
+	public CloudSpannerClob(String value)
+	{
+		Preconditions.checkNotNull(value);
+		this.value = value;
+	}
+
+	private void checkFree() throws SQLException
+	{
+		if (value == null)
+		{
+			throw new CloudSpannerSQLException(FREE_EXCEPTION, Code.FAILED_PRECONDITION);
+		}
+	}
+
+	/**
+	 * Checks that the given one-based position and length are valid for this
+	 * clob
+	 *
+	 * @return The number of characters that are available from the given
+	 *         position, with a maximum of length
+	 */
+	private int checkRange(long pos, long length) throws SQLException
+	{
+		checkFree();
+		if (pos < 1 || pos > value.length() + 1L)
+			throw new CloudSpannerSQLException("Invalid position: " + pos, Code.INVALID_ARGUMENT);
+		if (length < 0)
+			throw new CloudSpannerSQLException("Invalid length: " + length, Code.INVALID_ARGUMENT);
+		return (int) Math.min(length, value.length() - (pos - 1));
+	}
+
+	/**
+	 * Creates an {@link InputStream} that encodes the given characters using
+	 * the given charset while the stream is being read
+	 *
+	 * @param value
+	 *            The characters to encode
+	 * @param charset
+	 *            The charset to use
+	 * @return A stream that returns the encoded characters
+	 */
+	public static InputStream createInputStream(CharSequence value, Charset charset)
+	{
+		try
+		{
+			return CharSource.wrap(value).asByteSource(charset).openStream();
+		}
+		catch (IOException e)
+		{
+			// Should not happen, as the source is an in-memory char sequence
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		checkFree();
+		return value.length();
+	}
+
+	@Override
+	public String getSubString(long pos, int length) throws SQLException
+	{
+		int count = checkRange(pos, length);
+		int start = (int) pos - 1;
+		return value.substring(start, start + count);
+	}
+
+	@Override
+	public Reader getCharacterStream() throws SQLException
+	{
+		checkFree();
+		return new StringReader(value);
+	}
+
+	@Override
+	public Reader getCharacterStream(long pos, long length) throws SQLException
+	{
+		int count = checkRange(pos, length);
+		int start = (int) pos - 1;
+		try
+		{
+			return CharSource.wrap(CharBuffer.wrap(value, start, start + count)).openStream();
+		}
+		catch (IOException e)
+		{
+			throw new CloudSpannerSQLException("Could not open reader: " + e.getMessage(), Code.INTERNAL, e);
+		}
+	}
+
+	@Override
+	public InputStream getAsciiStream() throws SQLException
+	{
+		checkFree();
+		return createInputStream(value, StandardCharsets.US_ASCII);
+	}
+
+	@Override
+	public long position(String searchstr, long start) throws SQLException
+	{
+		checkRange(start, 0);
+		int index = value.indexOf(searchstr, (int) start - 1);
+		return index == -1 ? -1L : index + 1L;
+	}
+
+	@Override
+	public long position(Clob searchstr, long start) throws SQLException
+	{
+		if (searchstr.length() > Integer.MAX_VALUE)
+			return -1L;
+		return position(searchstr.getSubString(1L, (int) searchstr.length()), start);
+	}
+
+	@Override
+	public int setString(long pos, String str) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public int setString(long pos, String str, int offset, int len) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public OutputStream setAsciiStream(long pos) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public Writer setCharacterStream(long pos) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public void truncate(long len) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(READ_ONLY);
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		this.value = null;
+	}
+
+}
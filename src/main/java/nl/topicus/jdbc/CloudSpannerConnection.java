@@ -11,15 +11,19 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.json.JSONException;
@@ -32,17 +36,20 @@ import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.auth.oauth2.UserCredentials;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.BatchClient;
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
 import com.google.cloud.spanner.DatabaseAdminClient;
 import com.google.cloud.spanner.DatabaseClient;
 import com.google.cloud.spanner.DatabaseId;
 import com.google.cloud.spanner.Instance;
 import com.google.cloud.spanner.Operation;
+import com.google.cloud.spanner.PartitionOptions;
 import com.google.cloud.spanner.ResultSets;
 import com.google.cloud.spanner.Spanner;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerOptions;
 import com.google.cloud.spanner.SpannerOptions.Builder;
 import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.spanner.Type;
 import com.google.cloud.spanner.Type.StructField;
 import com.google.cloud.spanner.Value;
@@ -53,10 +60,14 @@ import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
 
 import nl.topicus.jdbc.MetaDataStore.TableKeyMetaData;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.resultset.CloudSpannerPartitionResultSet;
 import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
 import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
 import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.transaction.CloudSpannerPartitionToken;
 import nl.topicus.jdbc.transaction.CloudSpannerTransaction;
+import nl.topicus.jdbc.transaction.MutationLimitPolicy;
+import nl.topicus.jdbc.transaction.TransactionRetryMetrics;
 
 /**
  * JDBC Driver for Google Cloud Spanner.
@@ -97,6 +108,8 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 
 	private DatabaseClient dbClient;
 
+	private DatabaseId databaseId;
+
 	private DatabaseAdminClient adminClient;
 
 	private boolean autoCommit = true;
@@ -115,6 +128,12 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 
 	private final RunningOperationsStore operations = new RunningOperationsStore();
 
+	/**
+	 * The plan of the DDL script that was last executed by
+	 * {@link #executeDDLScript(List)}
+	 */
+	private DdlBatchPlan lastDdlBatchPlan;
+
 	private final String url;
 
 	private final Properties suppliedProperties;
@@ -132,6 +151,38 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 	private boolean originalReportDefaultSchemaAsNull = true;
 	private boolean reportDefaultSchemaAsNull = true;
 
+	private boolean originalCoalesceMutations;
+	private boolean coalesceMutations;
+
+	private boolean originalPrefetchRows;
+	private boolean prefetchRows;
+
+	private boolean originalCachedDatabaseMetaData;
+	private boolean cachedDatabaseMetaData;
+
+	/**
+	 * The timestamp bound to use for single-use reads, read-only transactions
+	 * and batch read-only transactions
+	 */
+	private TimestampBound originalReadStaleness = TimestampBound.strong();
+	private TimestampBound readStaleness = TimestampBound.strong();
+
+	/**
+	 * The number of partitions to read in parallel in batch read-only mode.
+	 * Values of 1 or less mean that one result set per partition is returned
+	 */
+	private int originalBatchReadOnlyParallelism;
+	private int batchReadOnlyParallelism;
+
+	/**
+	 * The policy to apply when the mutations of a read/write transaction
+	 * approach or exceed the commit limits of Cloud Spanner
+	 */
+	private MutationLimitPolicy originalMutationLimitPolicy = MutationLimitPolicy.NONE;
+	private MutationLimitPolicy mutationLimitPolicy = MutationLimitPolicy.NONE;
+
+	private SQLWarning warnings;
+
 	private String simulateProductName;
 	private Integer simulateMajorVersion;
 	private Integer simulateMinorVersion;
@@ -142,6 +193,18 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 
 	private MetaDataStore metaDataStore;
 
+	/**
+	 * The cache of schema snapshots. Connections that are opened by the driver
+	 * share the cache of the driver.
+	 */
+	private final SchemaSnapshotCache schemaCache;
+
+	/**
+	 * The maximum age in seconds of the schema snapshot that is used by this
+	 * connection
+	 */
+	private int schemaCacheTTL = SchemaSnapshotCache.DEFAULT_TTL_SECONDS;
+
 	private static int nextConnectionID = 1;
 
 	private final Logger logger;
@@ -165,6 +228,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		this.dbClient = dbClient;
 		this.transaction = new CloudSpannerTransaction(dbClient, batchClient, this);
 		this.metaDataStore = new MetaDataStore(this);
+		this.schemaCache = new SchemaSnapshotCache();
 	}
 
 	@VisibleForTesting
@@ -177,6 +241,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		this.logger = null;
 		this.transaction = new CloudSpannerTransaction(null, null, this);
 		this.metaDataStore = new MetaDataStore(this);
+		this.schemaCache = new SchemaSnapshotCache();
 	}
 
 	CloudSpannerConnection(CloudSpannerDriver driver, String url, CloudSpannerDatabaseSpecification database,
@@ -186,6 +251,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		this.database = database;
 		this.url = url;
 		this.suppliedProperties = suppliedProperties;
+		this.schemaCache = driver == null ? new SchemaSnapshotCache() : driver.getSchemaCache();
 
 		int logLevel = CloudSpannerDriver.getLogLevel();
 		synchronized (CloudSpannerConnection.class)
@@ -224,10 +290,9 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 
 			SpannerOptions options = builder.build();
 			spanner = options.getService();
-			dbClient = spanner
-					.getDatabaseClient(DatabaseId.of(options.getProjectId(), database.instance, database.database));
-			BatchClient batchClient = spanner
-					.getBatchClient(DatabaseId.of(options.getProjectId(), database.instance, database.database));
+			databaseId = DatabaseId.of(options.getProjectId(), database.instance, database.database);
+			dbClient = spanner.getDatabaseClient(databaseId);
+			BatchClient batchClient = spanner.getBatchClient(databaseId);
 			adminClient = spanner.getDatabaseAdminClient();
 			transaction = new CloudSpannerTransaction(dbClient, batchClient, this);
 			metaDataStore = new MetaDataStore(this);
@@ -244,6 +309,46 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		}
 	}
 
+	/**
+	 * Creates a new connection that shares the {@link Spanner} instance, and
+	 * thereby the sessions of the {@link DatabaseClient}, of an open
+	 * connection to the same database
+	 * 
+	 * @param driver
+	 *            The driver that opened the shared connection
+	 * @param url
+	 *            The url of the new connection
+	 * @param shared
+	 *            The open connection to share the {@link Spanner} instance
+	 *            with
+	 * @param suppliedProperties
+	 *            The properties of the new connection
+	 */
+	CloudSpannerConnection(CloudSpannerDriver driver, String url, CloudSpannerConnection shared,
+			Properties suppliedProperties)
+	{
+		this.driver = driver;
+		this.database = shared.database;
+		this.url = url;
+		this.suppliedProperties = suppliedProperties;
+		this.schemaCache = shared.schemaCache;
+
+		int logLevel = CloudSpannerDriver.getLogLevel();
+		synchronized (CloudSpannerConnection.class)
+		{
+			logger = new Logger(nextConnectionID++);
+			logger.setLogLevel(logLevel);
+		}
+
+		this.spanner = shared.spanner;
+		this.clientId = shared.clientId;
+		this.databaseId = shared.databaseId;
+		this.dbClient = shared.dbClient;
+		this.adminClient = shared.adminClient;
+		this.transaction = new CloudSpannerTransaction(dbClient, spanner.getBatchClient(databaseId), this);
+		this.metaDataStore = new MetaDataStore(this);
+	}
+
 	public static GoogleCredentials getCredentialsFromOAuthToken(String oauthToken)
 	{
 		GoogleCredentials credentials = null;
@@ -295,6 +400,11 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		return spanner;
 	}
 
+	CloudSpannerDriver getDriver()
+	{
+		return driver;
+	}
+
 	public String getSimulateProductName()
 	{
 		return simulateProductName;
@@ -344,6 +454,81 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 	 *             If an error occurs during the execution of the statement.
 	 */
 	public Void executeDDL(List<String> inputSql) throws SQLException
+	{
+		executeDDL(inputSql, asyncDdlOperations);
+		return null;
+	}
+
+	/**
+	 * Executes one or more DDL-statements as one schema update and waits for
+	 * the update to finish, regardless of the AsyncDdlOperations and
+	 * AutoBatchDdlOperations settings of this connection. If a transaction is
+	 * running, it is committed first.
+	 * 
+	 * @param sql
+	 *            The DDL-statements to execute
+	 * @throws SQLException
+	 *             If the statements could not be executed
+	 */
+	public void executeDDLAndWait(List<String> sql) throws SQLException
+	{
+		executeDDL(sql, false);
+	}
+
+	/**
+	 * Execute a DDL script in the minimum number of schema updates. The
+	 * statements are ordered according to their dependencies and grouped into
+	 * batches by a {@link DdlBatchPlan}. All batches except the last are
+	 * executed synchronously, as later batches depend on them. The last batch
+	 * is executed asynchronously if the connection is in AsyncDdlOperations
+	 * mode. The estimated and actual execution time of each batch can be
+	 * queried with {@link #getDdlBatchPlan(CloudSpannerStatement)}. Calling
+	 * this method will also automatically commit the currently running
+	 * transaction.
+	 * 
+	 * @param sql
+	 *            The DDL-statements of the script
+	 * @return The number of batches that were executed
+	 * @throws SQLException
+	 *             If an error occurs during the execution of the script. The
+	 *             batches that follow the failed batch are not executed.
+	 */
+	public int executeDDLScript(List<String> sql) throws SQLException
+	{
+		DdlBatchPlan plan = DdlBatchPlan.create(sql, this::getSchemaSnapshot);
+		lastDdlBatchPlan = plan;
+		plan.execute((batch, last) -> executeDDL(batch, last && asyncDdlOperations));
+		return plan.getBatches().size();
+	}
+
+	/**
+	 * Returns the execution plan of the DDL-statements that are currently
+	 * batched by AutoBatchDdlOperations. If no statements are batched, the
+	 * plan of the last script that was executed by
+	 * {@link #executeDDLScript(List)} is returned, including the actual
+	 * execution time of each batch.
+	 * 
+	 * @param statement
+	 *            The statement that requested the plan
+	 * @return A ResultSet with one row per DDL-statement
+	 * @throws SQLException
+	 *             If the current schema could not be loaded
+	 */
+	public ResultSet getDdlBatchPlan(CloudSpannerStatement statement) throws SQLException
+	{
+		DdlBatchPlan plan = lastDdlBatchPlan;
+		if (!autoBatchedDdlOperations.isEmpty() || plan == null)
+			plan = DdlBatchPlan.create(autoBatchedDdlOperations, this::getSchemaSnapshot);
+		return plan.getResultSet(statement);
+	}
+
+	/**
+	 * Execute one or more DDL-statements as one schema update
+	 * 
+	 * @return A future that is completed when the statements have been
+	 *         applied
+	 */
+	private CompletableFuture<?> executeDDL(List<String> inputSql, boolean async) throws SQLException
 	{
 		if (!getAutoCommit())
 			commit();
@@ -355,9 +540,12 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 			{
 				Operation<Void, UpdateDatabaseDdlMetadata> operation = adminClient.updateDatabaseDdl(database.instance,
 						database.database, sql, null);
-				if (asyncDdlOperations)
+				CompletableFuture<?> done;
+				if (async)
 				{
-					operations.addOperation(sql, operation);
+					// The schema changes when the operation has finished
+					done = operations.addOperation(sql, operation)
+							.whenComplete((op, e) -> schemaCache.invalidate(getSchemaCacheKey()));
 				}
 				else
 				{
@@ -366,28 +554,33 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 						operation = operation.waitFor();
 					}
 					while (!operation.isDone());
+					done = CompletableFuture.completedFuture(operation);
 				}
-				return operation.getResult();
+				operation.getResult();
+				return done;
 			}
 			catch (SpannerException e)
 			{
 				throw new CloudSpannerSQLException(
 						"Could not execute DDL statement(s) " + String.join("\n;\n", sql) + ": " + e.getMessage(), e);
 			}
+			finally
+			{
+				// Also invalidate if the statements failed, as some of them
+				// might have been applied
+				schemaCache.invalidate(getSchemaCacheKey());
+			}
 		}
-		return null;
+		return CompletableFuture.completedFuture(null);
 	}
 
 	private List<String> getActualSql(List<String> sql) throws SQLException
 	{
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
 		List<String> actualSql = new ArrayList<>(sql.size());
-		for (DDLStatement statement : statements)
+		for (DDLStatement statement : DDLStatement.getStatementsToExecute(this, statements))
 		{
-			if (statement.shouldExecute(this))
-			{
-				actualSql.add(statement.getSql());
-			}
+			actualSql.add(statement.getSql());
 		}
 		return actualSql;
 	}
@@ -416,6 +609,72 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		operations.waitForOperations();
 	}
 
+	/**
+	 * Partition the given query using the current batch read-only transaction
+	 * and return a portable token for each partition. The tokens can be
+	 * executed on other connections to the same database, for example in
+	 * other threads or processes, using
+	 * {@link #executePartitionToken(String)}. All partitions will read from
+	 * the same consistent snapshot. The batch read-only transaction of this
+	 * connection should not be committed or rolled back until all partitions
+	 * have been executed.
+	 * 
+	 * @param sql
+	 *            The query to partition
+	 * @return A list of Base64 encoded partition tokens
+	 * @throws SQLException
+	 *             If the connection is not in batch read-only mode, or if the
+	 *             query could not be partitioned
+	 */
+	@Override
+	public List<String> createPartitionTokens(String sql) throws SQLException
+	{
+		checkClosed();
+		if (!isBatchReadOnly())
+			throw new CloudSpannerSQLException("Partition tokens can only be created in batch read-only mode",
+					Code.FAILED_PRECONDITION);
+		try
+		{
+			List<CloudSpannerPartitionToken> tokens = getTransaction().partitionQueryTokens(
+					PartitionOptions.getDefaultInstance(), com.google.cloud.spanner.Statement.of(sql));
+			List<String> res = new ArrayList<>(tokens.size());
+			for (CloudSpannerPartitionToken token : tokens)
+				res.add(token.serialize());
+			return res;
+		}
+		catch (SpannerException e)
+		{
+			throw new CloudSpannerSQLException(e);
+		}
+	}
+
+	/**
+	 * Execute a partition token that was created by
+	 * {@link #createPartitionTokens(String)} on this or any other connection
+	 * to the same database. The partition is executed lazily when the result
+	 * set is first accessed.
+	 * 
+	 * @param token
+	 *            The partition token to execute
+	 * @return A {@link ResultSet} containing the results of the partition
+	 * @throws SQLException
+	 *             If the token is invalid
+	 */
+	@Override
+	public CloudSpannerPartitionResultSet executePartitionToken(String token) throws SQLException
+	{
+		checkClosed();
+		CloudSpannerPartitionToken partitionToken = CloudSpannerPartitionToken.deserialize(token);
+		BatchReadOnlyTransaction batchTransaction = getTransaction()
+				.getBatchReadOnlyTransaction(partitionToken.getTransactionId());
+		// The statement is only used by the result set, and is closed together
+		// with the result set
+		CloudSpannerStatement statement = createStatement();
+		statement.closeOnCompletion();
+		return new CloudSpannerPartitionResultSet(statement, batchTransaction, partitionToken.getPartition(),
+				partitionToken.getSql());
+	}
+
 	/**
 	 * Returns a ResultSet containing all asynchronous DDL-operations started by
 	 * this connection. It does not contain DDL-operations that have been
@@ -511,6 +770,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		if (closed)
 			return;
 		getTransaction().rollback();
+		operations.close();
 		closed = true;
 		driver.closeConnection(this);
 	}
@@ -577,11 +837,27 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		return Connection.TRANSACTION_SERIALIZABLE;
 	}
 
+	/**
+	 * Scroll-sensitive result sets are not supported, as Cloud Spanner does
+	 * not support cursors. A scroll-insensitive result set is returned
+	 * instead, and a warning is added to the connection.
+	 */
+	private int getSupportedResultSetType(int resultSetType)
+	{
+		if (resultSetType == ResultSet.TYPE_SCROLL_SENSITIVE)
+		{
+			addWarning(new SQLWarning(
+					"TYPE_SCROLL_SENSITIVE is not supported, a TYPE_SCROLL_INSENSITIVE result set will be returned"));
+			return ResultSet.TYPE_SCROLL_INSENSITIVE;
+		}
+		return resultSetType;
+	}
+
 	@Override
 	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException
 	{
 		checkClosed();
-		return new CloudSpannerStatement(this, dbClient);
+		return new CloudSpannerStatement(this, dbClient, getSupportedResultSetType(resultSetType));
 	}
 
 	@Override
@@ -589,7 +865,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 			throws SQLException
 	{
 		checkClosed();
-		return new CloudSpannerPreparedStatement(sql, this, dbClient);
+		return new CloudSpannerPreparedStatement(sql, this, dbClient, getSupportedResultSetType(resultSetType));
 	}
 
 	@Override
@@ -597,7 +873,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 			throws SQLException
 	{
 		checkClosed();
-		return new CloudSpannerStatement(this, dbClient);
+		return new CloudSpannerStatement(this, dbClient, getSupportedResultSetType(resultSetType));
 	}
 
 	@Override
@@ -605,7 +881,7 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 			int resultSetHoldability) throws SQLException
 	{
 		checkClosed();
-		return new CloudSpannerPreparedStatement(sql, this, dbClient);
+		return new CloudSpannerPreparedStatement(sql, this, dbClient, getSupportedResultSetType(resultSetType));
 	}
 
 	@Override
@@ -635,6 +911,15 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		return url;
 	}
 
+	/**
+	 *
+	 * @return The id of the database this connection is connected to
+	 */
+	public DatabaseId getDatabaseId()
+	{
+		return databaseId;
+	}
+
 	@Override
 	public String getClientId()
 	{
@@ -668,6 +953,85 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		return metaDataStore.getTable(name);
 	}
 
+	private String getSchemaCacheKey()
+	{
+		return databaseId == null ? "" : databaseId.getName();
+	}
+
+	/**
+	 * Returns a snapshot of the schema of the database of this connection.
+	 * The snapshot is shared with all other connections of the driver to the
+	 * same database. It is reloaded when it is older than the SchemaCacheTTL of
+	 * this connection, and after a DDL statement has been executed on a
+	 * connection of the driver.
+	 * 
+	 * @return The schema snapshot of the database
+	 * @throws SQLException
+	 *             If the schema could not be loaded
+	 */
+	public SchemaSnapshot getSchemaSnapshot() throws SQLException
+	{
+		return schemaCache.get(getSchemaCacheKey(), TimeUnit.SECONDS.toNanos(schemaCacheTTL),
+				this::loadSchemaSnapshot);
+	}
+
+	/**
+	 * Loads the schema snapshot from INFORMATION_SCHEMA, also if the meta data
+	 * of this connection is served from the snapshot
+	 */
+	private SchemaSnapshot loadSchemaSnapshot() throws SQLException
+	{
+		return SchemaSnapshot.load(new CloudSpannerDatabaseMetaData(this, false));
+	}
+
+	/**
+	 * Returns a table from the schema snapshot of the database. The snapshot
+	 * is reloaded once if it does not contain the table, as the table might
+	 * have been created by another client after the snapshot was loaded.
+	 * 
+	 * @param name
+	 *            The name of the table
+	 * @return The table, or null if the database does not contain a table
+	 *         with the given name
+	 * @throws SQLException
+	 *             If the schema could not be loaded
+	 */
+	public SchemaSnapshot.Table getSchemaTable(String name) throws SQLException
+	{
+		if (name == null)
+			return null;
+		SchemaSnapshot snapshot = getSchemaSnapshot();
+		SchemaSnapshot.Table table = snapshot.getTable(name);
+		if (table == null)
+		{
+			table = schemaCache.reload(getSchemaCacheKey(), snapshot, this::loadSchemaSnapshot).getTable(name);
+		}
+		return table;
+	}
+
+	public int getSchemaCacheTTL()
+	{
+		return schemaCacheTTL;
+	}
+
+	/**
+	 * Sets the maximum age of the schema snapshot that is used by this
+	 * connection. A value of 0 means that the schema is reloaded every time it
+	 * is used.
+	 * 
+	 * @param seconds
+	 *            The maximum age in seconds
+	 * @throws SQLException
+	 *             If the value is negative
+	 */
+	public void setSchemaCacheTTL(int seconds) throws SQLException
+	{
+		if (seconds < 0)
+			throw new CloudSpannerSQLException("Invalid value for SchemaCacheTTL: " + seconds,
+					Code.INVALID_ARGUMENT);
+		this.schemaCacheTTL = seconds;
+	}
+
 	@Override
 	public Properties getSuppliedProperties()
 	{
@@ -767,6 +1131,107 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		this.originalReportDefaultSchemaAsNull = reportDefaultSchemaAsNull;
 	}
 
+	@Override
+	public boolean isCoalesceMutations()
+	{
+		return coalesceMutations;
+	}
+
+	/**
+	 * Coalesce the mutations of read/write transactions on the same row. This
+	 * setting is applied to transactions that are started after this call.
+	 * 
+	 * @param coalesceMutations
+	 *            true if successive mutations on the same row should be merged
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 */
+	@Override
+	public int setCoalesceMutations(boolean coalesceMutations)
+	{
+		this.coalesceMutations = coalesceMutations;
+		return 1;
+	}
+
+	boolean isOriginalCoalesceMutations()
+	{
+		return originalCoalesceMutations;
+	}
+
+	void setOriginalCoalesceMutations(boolean coalesceMutations)
+	{
+		this.originalCoalesceMutations = coalesceMutations;
+	}
+
+	@Override
+	public boolean isPrefetchRows()
+	{
+		return prefetchRows;
+	}
+
+	/**
+	 * Read the rows of query results ahead on a background thread. The
+	 * statement fetch size determines the maximum number of rows that are read
+	 * ahead. This setting is applied to queries that are executed after this
+	 * call.
+	 * 
+	 * @param prefetchRows
+	 *            true if rows should be read ahead
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 */
+	@Override
+	public int setPrefetchRows(boolean prefetchRows)
+	{
+		this.prefetchRows = prefetchRows;
+		return 1;
+	}
+
+	boolean isOriginalPrefetchRows()
+	{
+		return originalPrefetchRows;
+	}
+
+	void setOriginalPrefetchRows(boolean prefetchRows)
+	{
+		this.originalPrefetchRows = prefetchRows;
+	}
+
+	@Override
+	public boolean isCachedDatabaseMetaData()
+	{
+		return cachedDatabaseMetaData;
+	}
+
+	/**
+	 * Answer the DatabaseMetaData methods getTables, getColumns,
+	 * getPrimaryKeys, getIndexInfo, getImportedKeys and getExportedKeys for the
+	 * default schema from the schema snapshot of the database, see
+	 * {@link #getSchemaSnapshot()}.
+	 * 
+	 * @param cachedDatabaseMetaData
+	 *            true if the meta data should be served from the schema
+	 *            snapshot
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 */
+	@Override
+	public int setCachedDatabaseMetaData(boolean cachedDatabaseMetaData)
+	{
+		this.cachedDatabaseMetaData = cachedDatabaseMetaData;
+		return 1;
+	}
+
+	boolean isOriginalCachedDatabaseMetaData()
+	{
+		return originalCachedDatabaseMetaData;
+	}
+
+	void setOriginalCachedDatabaseMetaData(boolean cachedDatabaseMetaData)
+	{
+		this.originalCachedDatabaseMetaData = cachedDatabaseMetaData;
+	}
+
 	/**
 	 * Set a dynamic connection property, such as AsyncDdlOperations
 	 * 
@@ -781,6 +1246,12 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 	 */
 	public int setDynamicConnectionProperty(String propertyName, String propertyValue) throws SQLException
 	{
+		if (isReadStalenessProperty(propertyName))
+			return setReadStaleness(TimestampBoundParser.parse(propertyValue));
+		if (isBatchReadOnlyParallelismProperty(propertyName))
+			return setBatchReadOnlyParallelism(parseParallelism(propertyValue));
+		if (isMutationLimitPolicyProperty(propertyName))
+			return setMutationLimitPolicy(parseMutationLimitPolicy(propertyValue));
 		return getPropertySetter(propertyName).apply(Boolean.valueOf(propertyValue));
 	}
 
@@ -797,9 +1268,85 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 	 */
 	public int resetDynamicConnectionProperty(String propertyName) throws SQLException
 	{
+		if (isReadStalenessProperty(propertyName))
+			return setReadStaleness(getOriginalReadStaleness());
+		if (isBatchReadOnlyParallelismProperty(propertyName))
+			return setBatchReadOnlyParallelism(getOriginalBatchReadOnlyParallelism());
+		if (isMutationLimitPolicyProperty(propertyName))
+			return setMutationLimitPolicy(getOriginalMutationLimitPolicy());
 		return getPropertySetter(propertyName).apply(getOriginalValueGetter(propertyName).get());
 	}
 
+	/**
+	 * Resets all dynamic connection properties to their original values and
+	 * discards any auto-batched DDL statements, the plan of the last DDL
+	 * script and the list of asynchronous DDL-operations, so that a pooled
+	 * connection does not show the DDL state of a previous user. This method
+	 * should only be called when no transaction is running.
+	 */
+	void resetDynamicConnectionProperties()
+	{
+		clearAutoBatchedDdlOperations();
+		lastDdlBatchPlan = null;
+		operations.clear();
+		allowExtendedMode = originalAllowExtendedMode;
+		asyncDdlOperations = originalAsyncDdlOperations;
+		autoBatchDdlOperations = originalAutoBatchDdlOperations;
+		reportDefaultSchemaAsNull = originalReportDefaultSchemaAsNull;
+		batchReadOnly = originalBatchReadOnly;
+		coalesceMutations = originalCoalesceMutations;
+		prefetchRows = originalPrefetchRows;
+		cachedDatabaseMetaData = originalCachedDatabaseMetaData;
+		readStaleness = originalReadStaleness;
+		batchReadOnlyParallelism = originalBatchReadOnlyParallelism;
+		mutationLimitPolicy = originalMutationLimitPolicy;
+	}
+
+	private static boolean isReadStalenessProperty(String propertyName)
+	{
+		return propertyName.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.READ_STALENESS));
+	}
+
+	private static boolean isBatchReadOnlyParallelismProperty(String propertyName)
+	{
+		return propertyName.equalsIgnoreCase(
+				ConnectionProperties.getPropertyName(ConnectionProperties.BATCH_READ_ONLY_PARALLELISM));
+	}
+
+	private static boolean isMutationLimitPolicyProperty(String propertyName)
+	{
+		return propertyName.equalsIgnoreCase(
+				ConnectionProperties.getPropertyName(ConnectionProperties.MUTATION_LIMIT_POLICY));
+	}
+
+	static MutationLimitPolicy parseMutationLimitPolicy(String value) throws SQLException
+	{
+		if (value == null || value.trim().isEmpty())
+			return MutationLimitPolicy.NONE;
+		try
+		{
+			return MutationLimitPolicy.valueOf(value.trim().toUpperCase());
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new CloudSpannerSQLException("Invalid value for MutationLimitPolicy: " + value
+					+ ". Expected one of " + Arrays.toString(MutationLimitPolicy.values()), Code.INVALID_ARGUMENT, e);
+		}
+	}
+
+	private static int parseParallelism(String value) throws SQLException
+	{
+		try
+		{
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new CloudSpannerSQLException("Invalid value for BatchReadOnlyParallelism: " + value,
+					Code.INVALID_ARGUMENT, e);
+		}
+	}
+
 	private Supplier<Boolean> getOriginalValueGetter(String propertyName)
 	{
 		if (propertyName
@@ -827,6 +1374,20 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		{
 			return this::isOriginalBatchReadOnly;
 		}
+		if (propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.COALESCE_MUTATIONS)))
+		{
+			return this::isOriginalCoalesceMutations;
+		}
+		if (propertyName.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.PREFETCH_ROWS)))
+		{
+			return this::isOriginalPrefetchRows;
+		}
+		if (propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.CACHED_DATABASE_META_DATA)))
+		{
+			return this::isOriginalCachedDatabaseMetaData;
+		}
 		// Return a no-op to avoid null checks
 		return () -> false;
 	}
@@ -864,6 +1425,20 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		{
 			return this::setBatchReadOnly;
 		}
+		if (propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.COALESCE_MUTATIONS)))
+		{
+			return this::setCoalesceMutations;
+		}
+		if (propertyName.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.PREFETCH_ROWS)))
+		{
+			return this::setPrefetchRows;
+		}
+		if (propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.CACHED_DATABASE_META_DATA)))
+		{
+			return this::setCachedDatabaseMetaData;
+		}
 		// Return a no-op to avoid null checks
 		return x -> 0;
 	}
@@ -906,6 +1481,39 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.BATCH_READ_ONLY_MODE),
 					String.valueOf(isBatchReadOnly()));
 		}
+		if (propertyName == null || propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.COALESCE_MUTATIONS)))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.COALESCE_MUTATIONS),
+					String.valueOf(isCoalesceMutations()));
+		}
+		if (propertyName == null || propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.PREFETCH_ROWS)))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.PREFETCH_ROWS),
+					String.valueOf(isPrefetchRows()));
+		}
+		if (propertyName == null || propertyName
+				.equalsIgnoreCase(ConnectionProperties.getPropertyName(ConnectionProperties.CACHED_DATABASE_META_DATA)))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.CACHED_DATABASE_META_DATA),
+					String.valueOf(isCachedDatabaseMetaData()));
+		}
+		if (propertyName == null || isReadStalenessProperty(propertyName))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.READ_STALENESS),
+					TimestampBoundParser.format(getReadStaleness()));
+		}
+		if (propertyName == null || isBatchReadOnlyParallelismProperty(propertyName))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.BATCH_READ_ONLY_PARALLELISM),
+					String.valueOf(getBatchReadOnlyParallelism()));
+		}
+		if (propertyName == null || isMutationLimitPolicyProperty(propertyName))
+		{
+			values.put(ConnectionProperties.getPropertyName(ConnectionProperties.MUTATION_LIMIT_POLICY),
+					getMutationLimitPolicy().name());
+		}
 		return createResultSet(statement, values);
 	}
 
@@ -944,6 +1552,18 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		return transaction == null ? null : transaction.getReadTimestamp();
 	}
 
+	/**
+	 * 
+	 * @return The number of read/write transactions on this connection that
+	 *         were aborted by Cloud Spanner and retried by the driver, and the
+	 *         time that was spent on these retries
+	 */
+	@Override
+	public TransactionRetryMetrics getTransactionRetryMetrics()
+	{
+		return transaction.getRetryMetrics();
+	}
+
 	/**
 	 * 
 	 * @return A new connection with the same URL and properties as this
@@ -1097,6 +1717,148 @@ public class CloudSpannerConnection extends AbstractCloudSpannerConnection
 		this.originalBatchReadOnly = originalBatchReadOnly;
 	}
 
+	@Override
+	public TimestampBound getReadStaleness()
+	{
+		return readStaleness;
+	}
+
+	/**
+	 * Set the timestamp bound to use for single-use reads (queries in
+	 * autocommit mode), read-only transactions and batch read-only
+	 * transactions. The new value is used for the next read-only transaction
+	 * that is started on this connection. Bounded staleness
+	 * (MAX_STALENESS/MIN_READ_TIMESTAMP) can only be used for single-use reads.
+	 * 
+	 * @param readStaleness
+	 *            The timestamp bound to use. null means strong reads
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 * @throws SQLException
+	 *             Throws {@link SQLException} if the connection is closed
+	 */
+	@Override
+	public int setReadStaleness(TimestampBound readStaleness) throws SQLException
+	{
+		checkClosed();
+		this.readStaleness = readStaleness == null ? TimestampBound.strong() : readStaleness;
+		return 1;
+	}
+
+	@Override
+	public int getBatchReadOnlyParallelism()
+	{
+		return batchReadOnlyParallelism;
+	}
+
+	/**
+	 * Set the number of partitions that should be read in parallel in batch
+	 * read-only mode. If the value is greater than 1, all partitions of a
+	 * query will be executed in parallel and returned as one unordered result
+	 * set.
+	 * 
+	 * @param parallelism
+	 *            The maximum number of partitions to read in parallel
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 * @throws SQLException
+	 *             Throws {@link SQLException} if the connection is closed
+	 */
+	@Override
+	public int setBatchReadOnlyParallelism(int parallelism) throws SQLException
+	{
+		checkClosed();
+		this.batchReadOnlyParallelism = parallelism;
+		return 1;
+	}
+
+	int getOriginalBatchReadOnlyParallelism()
+	{
+		return originalBatchReadOnlyParallelism;
+	}
+
+	void setOriginalBatchReadOnlyParallelism(int originalBatchReadOnlyParallelism)
+	{
+		this.originalBatchReadOnlyParallelism = originalBatchReadOnlyParallelism;
+	}
+
+	@Override
+	public MutationLimitPolicy getMutationLimitPolicy()
+	{
+		return mutationLimitPolicy;
+	}
+
+	/**
+	 * Set the policy to apply when the mutations of a read/write transaction
+	 * approach or exceed the commit limits of Cloud Spanner. The policy is
+	 * applied to transactions that are started after this call.
+	 * 
+	 * @param policy
+	 *            The policy to apply. null means {@link MutationLimitPolicy#NONE}
+	 * @return 1 (this complies with the normal behaviour of executeUpdate(...)
+	 *         methods)
+	 * @throws SQLException
+	 *             Throws {@link SQLException} if the connection is closed
+	 */
+	@Override
+	public int setMutationLimitPolicy(MutationLimitPolicy policy) throws SQLException
+	{
+		checkClosed();
+		this.mutationLimitPolicy = policy == null ? MutationLimitPolicy.NONE : policy;
+		return 1;
+	}
+
+	MutationLimitPolicy getOriginalMutationLimitPolicy()
+	{
+		return originalMutationLimitPolicy;
+	}
+
+	void setOriginalMutationLimitPolicy(MutationLimitPolicy originalMutationLimitPolicy)
+	{
+		this.originalMutationLimitPolicy = originalMutationLimitPolicy == null ? MutationLimitPolicy.NONE
+				: originalMutationLimitPolicy;
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		checkClosed();
+		return warnings;
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		checkClosed();
+		warnings = null;
+	}
+
+	/**
+	 * Add a warning to the warnings of this connection
+	 * 
+	 * @param warning
+	 *            The warning to add
+	 */
+	public void addWarning(SQLWarning warning)
+	{
+		if (logger != null)
+			logger.info(warning.getMessage());
+		if (warnings == null)
+			warnings = warning;
+		else
+			warnings.setNextWarning(warning);
+	}
+
+	TimestampBound getOriginalReadStaleness()
+	{
+		return originalReadStaleness;
+	}
+
+	void setOriginalReadStaleness(TimestampBound originalReadStaleness)
+	{
+		this.originalReadStaleness = originalReadStaleness == null ? TimestampBound.strong() : originalReadStaleness;
+	}
+
 	private void checkSavepointPossible() throws SQLException
 	{
 		checkClosed();
@@ -88,12 +88,12 @@ public class CloudSpannerDataSource extends AbstractCloudSpannerWrapper implemen
 		return getConnection();
 	}
 
-	private String getURL()
+	String getURL()
 	{
 		return URL;
 	}
 
-	private Properties getProperties()
+	Properties getProperties()
 	{
 		Properties info = new Properties();
 		setProperty(info, stripEqualsSign(ConnectionProperties.PROJECT_URL_PART), getProjectId());
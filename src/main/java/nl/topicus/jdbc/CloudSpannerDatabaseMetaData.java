@@ -23,9 +23,22 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 
 	private CloudSpannerConnection connection;
 
+	/**
+	 * false if this meta data should always query INFORMATION_SCHEMA, also if
+	 * the connection uses cached database meta data. This is used to load the
+	 * schema snapshot itself.
+	 */
+	private final boolean allowSchemaSnapshot;
+
 	CloudSpannerDatabaseMetaData(CloudSpannerConnection connection)
+	{
+		this(connection, true);
+	}
+
+	CloudSpannerDatabaseMetaData(CloudSpannerConnection connection, boolean allowSchemaSnapshot)
 	{
 		this.connection = connection;
+		this.allowSchemaSnapshot = allowSchemaSnapshot;
 	}
 
 	@Override
@@ -780,6 +793,24 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 		return statement;
 	}
 
+	/**
+	 * 
+	 * @param schemaPattern
+	 *            The schema search pattern of the meta data call
+	 * @return The meta data of the schema snapshot of the database if the
+	 *         connection uses cached database meta data and the call includes
+	 *         the default schema, otherwise null
+	 * @throws SQLException
+	 *             If the schema snapshot could not be loaded
+	 */
+	private SchemaSnapshotMetaData getSchemaSnapshotMetaData(String schemaPattern) throws SQLException
+	{
+		if (allowSchemaSnapshot && connection.isCachedDatabaseMetaData()
+				&& SchemaSnapshotMetaData.matchesDefaultSchema(schemaPattern))
+			return new SchemaSnapshotMetaData(connection.getSchemaSnapshot(), connection.createStatement());
+		return null;
+	}
+
 	private String getCatalogSchemaTableWhereClause(String alias, String catalog, String schema, String table)
 	{
 		StringBuilder res = new StringBuilder();
@@ -796,6 +827,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	public ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern, String[] types)
 			throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schemaPattern);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getTables(catalog, schemaPattern, tableNamePattern);
 		String sql = CloudSpannerDatabaseMetaDataConstants.SELECT_TABLES_COLUMNS
 				+ CloudSpannerDatabaseMetaDataConstants.FROM_TABLES_T
 				+ CloudSpannerDatabaseMetaDataConstants.WHERE_1_EQUALS_1;
@@ -832,6 +866,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	public ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern)
 			throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schemaPattern);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getColumns(catalog, schemaPattern, tableNamePattern, columnNamePattern);
 		String sql = CloudSpannerDatabaseMetaDataConstants.GET_COLUMNS;
 		sql = sql + getCatalogSchemaTableWhereClause("C", catalog, schemaPattern, tableNamePattern);
 		if (columnNamePattern != null)
@@ -899,6 +936,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	@Override
 	public ResultSet getPrimaryKeys(String catalog, String schema, String table) throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schema);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getPrimaryKeys(catalog, schema, table);
 		String sql = "SELECT IDX.TABLE_CATALOG AS TABLE_CAT, IDX.TABLE_SCHEMA AS TABLE_SCHEM, IDX.TABLE_NAME AS TABLE_NAME, COLS.COLUMN_NAME AS COLUMN_NAME, ORDINAL_POSITION AS KEY_SEQ, IDX.INDEX_NAME AS PK_NAME "
 				+ "FROM INFORMATION_SCHEMA.INDEXES IDX "
 				+ "INNER JOIN INFORMATION_SCHEMA.INDEX_COLUMNS COLS ON IDX.TABLE_CATALOG=COLS.TABLE_CATALOG AND IDX.TABLE_SCHEMA=COLS.TABLE_SCHEMA AND IDX.TABLE_NAME=COLS.TABLE_NAME AND IDX.INDEX_NAME=COLS.INDEX_NAME "
@@ -913,6 +953,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	@Override
 	public ResultSet getImportedKeys(String catalog, String schema, String table) throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schema);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getImportedKeys(catalog, schema, table);
 		String sql = "SELECT PARENT.TABLE_CATALOG AS PKTABLE_CAT, PARENT.TABLE_SCHEMA AS PKTABLE_SCHEM, PARENT.TABLE_NAME AS PKTABLE_NAME, COL.COLUMN_NAME AS PKCOLUMN_NAME, CHILD.TABLE_CATALOG AS FKTABLE_CAT, CHILD.TABLE_SCHEMA AS FKTABLE_SCHEM, CHILD.TABLE_NAME AS FKTABLE_NAME, COL.COLUMN_NAME FKCOLUMN_NAME, COL.ORDINAL_POSITION AS KEY_SEQ, 3 AS UPDATE_RULE, CASE WHEN CHILD.ON_DELETE_ACTION = 'CASCADE' THEN 0 ELSE 3 END AS DELETE_RULE, NULL AS FK_NAME, INDEXES.INDEX_NAME AS PK_NAME, 7 AS DEFERRABILITY "
 				+ "FROM INFORMATION_SCHEMA.TABLES CHILD "
 				+ "INNER JOIN INFORMATION_SCHEMA.TABLES PARENT ON CHILD.TABLE_CATALOG=PARENT.TABLE_CATALOG AND CHILD.TABLE_SCHEMA=PARENT.TABLE_SCHEMA AND CHILD.PARENT_TABLE_NAME=PARENT.TABLE_NAME "
@@ -930,6 +973,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	@Override
 	public ResultSet getExportedKeys(String catalog, String schema, String table) throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schema);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getExportedKeys(catalog, schema, table);
 		String sql = "SELECT "
 				+ "NULL AS PKTABLE_CAT, NULL AS PKTABLE_SCHEM, PARENT.TABLE_NAME AS PKTABLE_NAME, PARENT_INDEX_COLUMNS.COLUMN_NAME AS PKCOLUMN_NAME, "
 				+ "NULL AS FKTABLE_CAT, NULL AS FKTABLE_SCHEM, CHILD.TABLE_NAME AS FKTABLE_NAME, PARENT_INDEX_COLUMNS.COLUMN_NAME AS FKCOLUMN_NAME, "
@@ -978,6 +1024,9 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	private ResultSet getIndexInfo(String catalog, String schema, String table, String indexName, boolean unique)
 			throws SQLException
 	{
+		SchemaSnapshotMetaData snapshotMetaData = getSchemaSnapshotMetaData(schema);
+		if (snapshotMetaData != null)
+			return snapshotMetaData.getIndexInfo(catalog, schema, table, indexName, unique);
 		String sql = CloudSpannerDatabaseMetaDataConstants.GET_INDEX_INFO;
 
 		sql = sql + getCatalogSchemaTableWhereClause("IDX", catalog, schema, table);
@@ -994,13 +1043,13 @@ public class CloudSpannerDatabaseMetaData extends AbstractCloudSpannerDatabaseMe
 	@Override
 	public boolean supportsResultSetType(int type) throws SQLException
 	{
-		return type == ResultSet.TYPE_FORWARD_ONLY;
+		return type == ResultSet.TYPE_FORWARD_ONLY || type == ResultSet.TYPE_SCROLL_INSENSITIVE;
 	}
 
 	@Override
 	public boolean supportsResultSetConcurrency(int type, int concurrency) throws SQLException
 	{
-		return type == ResultSet.TYPE_FORWARD_ONLY && concurrency == ResultSet.CONCUR_READ_ONLY;
+		return supportsResultSetType(type) && concurrency == ResultSet.CONCUR_READ_ONLY;
 	}
 
 	@Override
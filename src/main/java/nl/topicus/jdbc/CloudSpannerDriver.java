@@ -12,8 +12,10 @@ import java.util.Map;
 import java.util.Properties;
 
 import com.google.cloud.spanner.Spanner;
+import com.google.cloud.spanner.TimestampBound;
 
 import nl.topicus.jdbc.CloudSpannerConnection.CloudSpannerDatabaseSpecification;
+import nl.topicus.jdbc.transaction.MutationLimitPolicy;
 
 public class CloudSpannerDriver implements Driver
 {
@@ -47,6 +49,12 @@ public class CloudSpannerDriver implements Driver
 	 */
 	private Map<Spanner, List<CloudSpannerConnection>> connections = new HashMap<>();
 
+	/**
+	 * The schema snapshots of the databases that connections have been opened
+	 * to. The snapshots are shared by all connections of this driver.
+	 */
+	private final SchemaSnapshotCache schemaCache = new SchemaSnapshotCache();
+
 	/**
 	 * Connects to a Google Cloud Spanner database.
 	 * 
@@ -72,11 +80,66 @@ public class CloudSpannerDriver implements Driver
 		ConnectionProperties properties = ConnectionProperties.parse(url);
 		// Get connection properties from properties
 		properties.setAdditionalConnectionProperties(info);
+		TimestampBound readStaleness = TimestampBoundParser.parse(properties.readStaleness);
+		MutationLimitPolicy mutationLimitPolicy = CloudSpannerConnection
+				.parseMutationLimitPolicy(properties.mutationLimitPolicy);
 
 		CloudSpannerDatabaseSpecification database = new CloudSpannerDatabaseSpecification(properties.project,
 				properties.instance, properties.database);
 		CloudSpannerConnection connection = new CloudSpannerConnection(this, url, database, properties.keyFile,
 				properties.oauthToken, info);
+		configure(connection, properties, readStaleness, mutationLimitPolicy);
+		registerConnection(connection);
+
+		return connection;
+	}
+
+	/**
+	 * Connects to the same Google Cloud Spanner database as an open connection
+	 * of this driver, sharing the {@link Spanner} instance and session pool of
+	 * that connection. The {@link Spanner} instance is closed when the last
+	 * connection that uses it is closed.
+	 * 
+	 * @param url
+	 *            Connection URL of the new connection. The url must point to
+	 *            the same database and use the same credentials as the shared
+	 *            connection.
+	 * @param info
+	 *            Additional connection properties that will be set on the new
+	 *            connection
+	 * @param shared
+	 *            The connection to share the {@link Spanner} instance with. If
+	 *            this connection has already been closed, a new
+	 *            {@link Spanner} instance is created.
+	 * @return An open {@link CloudSpannerConnection}
+	 * @throws SQLException
+	 *             if an error occurs while connecting to Google Cloud Spanner
+	 */
+	CloudSpannerConnection connect(String url, Properties info, CloudSpannerConnection shared) throws SQLException
+	{
+		if (!acceptsURL(url))
+			return null;
+		ConnectionProperties properties = ConnectionProperties.parse(url);
+		properties.setAdditionalConnectionProperties(info);
+		TimestampBound readStaleness = TimestampBoundParser.parse(properties.readStaleness);
+		MutationLimitPolicy mutationLimitPolicy = CloudSpannerConnection
+				.parseMutationLimitPolicy(properties.mutationLimitPolicy);
+		synchronized (this)
+		{
+			if (connections.containsKey(shared.getSpanner()))
+			{
+				CloudSpannerConnection connection = new CloudSpannerConnection(this, url, shared, info);
+				configure(connection, properties, readStaleness, mutationLimitPolicy);
+				registerConnection(connection);
+				return connection;
+			}
+		}
+		return connect(url, info);
+	}
+
+	private void configure(CloudSpannerConnection connection, ConnectionProperties properties,
+			TimestampBound readStaleness, MutationLimitPolicy mutationLimitPolicy) throws SQLException
+	{
 		connection.setSimulateProductName(properties.productName);
 		connection.setSimulateMajorVersion(properties.majorVersion);
 		connection.setSimulateMinorVersion(properties.minorVersion);
@@ -90,12 +153,31 @@ public class CloudSpannerDriver implements Driver
 		connection.setOriginalReportDefaultSchemaAsNull(properties.reportDefaultSchemaAsNull);
 		connection.setBatchReadOnly(properties.batchReadOnlyMode);
 		connection.setOriginalBatchReadOnly(properties.batchReadOnlyMode);
-		registerConnection(connection);
+		connection.setReadStaleness(readStaleness);
+		connection.setOriginalReadStaleness(readStaleness);
+		connection.setCoalesceMutations(properties.coalesceMutations);
+		connection.setOriginalCoalesceMutations(properties.coalesceMutations);
+		connection.setMutationLimitPolicy(mutationLimitPolicy);
+		connection.setOriginalMutationLimitPolicy(mutationLimitPolicy);
+		connection.setPrefetchRows(properties.prefetchRows);
+		connection.setOriginalPrefetchRows(properties.prefetchRows);
+		connection.setCachedDatabaseMetaData(properties.cachedDatabaseMetaData);
+		connection.setOriginalCachedDatabaseMetaData(properties.cachedDatabaseMetaData);
+		if (properties.batchReadOnlyParallelism != null)
+		{
+			connection.setBatchReadOnlyParallelism(properties.batchReadOnlyParallelism);
+			connection.setOriginalBatchReadOnlyParallelism(properties.batchReadOnlyParallelism);
+		}
+		if (properties.schemaCacheTTL != null)
+			connection.setSchemaCacheTTL(properties.schemaCacheTTL);
+	}
 
-		return connection;
+	SchemaSnapshotCache getSchemaCache()
+	{
+		return schemaCache;
 	}
 
-	private void registerConnection(CloudSpannerConnection connection)
+	private synchronized void registerConnection(CloudSpannerConnection connection)
 	{
 		List<CloudSpannerConnection> list = connections.get(connection.getSpanner());
 		if (list == null)
@@ -108,18 +190,23 @@ public class CloudSpannerDriver implements Driver
 
 	void closeConnection(CloudSpannerConnection connection)
 	{
-		List<CloudSpannerConnection> list = connections.get(connection.getSpanner());
-		if (list == null)
-			throw new IllegalStateException("Connection is not registered");
-		if (!list.remove(connection))
-			throw new IllegalStateException("Connection is not registered");
-
-		if (list.isEmpty())
+		Spanner spanner = connection.getSpanner();
+		synchronized (this)
 		{
-			Spanner spanner = connection.getSpanner();
+			List<CloudSpannerConnection> list = connections.get(spanner);
+			if (list == null)
+				throw new IllegalStateException("Connection is not registered");
+			if (!list.remove(connection))
+				throw new IllegalStateException("Connection is not registered");
+			if (!list.isEmpty())
+				return;
 			connections.remove(spanner);
-			spanner.close();
 		}
+		// Closing the Spanner instance waits for its sessions to be closed,
+		// which should not block other threads that open or close connections.
+		// New connections cannot share this instance, as it has already been
+		// removed from the registered connections.
+		spanner.close();
 	}
 
 	@Override
@@ -1,15 +1,8 @@
 package nl.topicus.jdbc;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.sql.CallableStatement;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.sql.Statement;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -56,7 +49,7 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 {
 	private final List<ConnectionEventListener> listeners = new LinkedList<>();
 	private Connection con;
-	private ConnectionHandler last;
+	private PooledConnectionHandle last;
 	private final boolean autoCommit;
 	private final boolean isXA;
 
@@ -113,7 +106,7 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 	{
 		if (last != null)
 		{
-			last.close();
+			last.invalidate();
 			if (!con.isClosed() && !con.getAutoCommit())
 			{
 				try
@@ -170,7 +163,7 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 			// Package spec section 6.2.3
 			if (last != null)
 			{
-				last.close();
+				last.invalidate();
 				if (!con.getAutoCommit())
 				{
 					rollbackAndIgnoreException();
@@ -191,13 +184,23 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 			fireConnectionFatalError(sqlException);
 			throw (SQLException) sqlException.fillInStackTrace();
 		}
-		ConnectionHandler handler = new ConnectionHandler(con);
-		last = handler;
+		last = new PooledConnectionHandle(this, con);
+		return last;
+	}
 
-		ICloudSpannerConnection proxyCon = (ICloudSpannerConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
-				new Class[] { Connection.class, ICloudSpannerConnection.class }, handler);
-		last.setProxy(proxyCon);
-		return proxyCon;
+	boolean isXA()
+	{
+		return isXA;
+	}
+
+	/**
+	 * Called by the handle that was handed out to a client when the client
+	 * closes it.
+	 */
+	void handleClosed()
+	{
+		last = null;
+		fireConnectionClosed();
 	}
 
 	private void rollbackAndIgnoreException()
@@ -280,7 +283,7 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 	 * @param e
 	 *            the SQLException to consider
 	 */
-	private void fireConnectionError(SQLException e)
+	void fireConnectionError(SQLException e)
 	{
 		Code code = Code.UNKNOWN;
 		if (e instanceof CloudSpannerSQLException)
@@ -294,282 +297,6 @@ public class CloudSpannerPooledConnection implements PooledConnection, AutoClose
 		fireConnectionFatalError(e);
 	}
 
-	/**
-	 * Instead of declaring a class implementing Connection, which would have to
-	 * be updated for every JDK rev, use a dynamic proxy to handle all calls
-	 * through the Connection interface. This is the part that requires JDK 1.3
-	 * or higher, though JDK 1.2 could be supported with a 3rd-party proxy
-	 * package.
-	 */
-	private class ConnectionHandler implements InvocationHandler
-	{
-		private Connection con;
-		private Connection proxy; // the Connection the client is currently
-									// using, which is a proxy
-		private boolean automatic = false;
-
-		public ConnectionHandler(Connection con)
-		{
-			this.con = con;
-		}
-
-		@Override
-		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
-		{
-			final String methodName = method.getName();
-			// From Object
-			if (method.getDeclaringClass().equals(Object.class))
-			{
-				return handleInvokeObjectMethod(method, args);
-			}
-
-			// All the rest is from the Connection or PGConnection interface
-			if (methodName.equals("isClosed"))
-			{
-				return con == null || con.isClosed();
-			}
-			if (methodName.equals("close"))
-			{
-				return handleInvokeClose();
-			}
-			if (con == null || con.isClosed())
-			{
-				throw new CloudSpannerSQLException(automatic
-						? "Connection has been closed automatically because a new connection was opened for the same PooledConnection or the PooledConnection has been closed."
-						: "Connection has been closed.", Code.FAILED_PRECONDITION);
-			}
-
-			// From here on in, we invoke via reflection, catch exceptions,
-			// and check if they're fatal before rethrowing.
-			try
-			{
-				if (methodName.equals("createStatement"))
-				{
-					Statement st = (Statement) method.invoke(con, args);
-					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { Statement.class },
-							new StatementHandler(this, st));
-				}
-				else if (methodName.equals("prepareCall"))
-				{
-					Statement st = (Statement) method.invoke(con, args);
-					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { CallableStatement.class },
-							new StatementHandler(this, st));
-				}
-				else if (methodName.equals("prepareStatement"))
-				{
-					Statement st = (Statement) method.invoke(con, args);
-					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { PreparedStatement.class },
-							new StatementHandler(this, st));
-				}
-				else
-				{
-					return method.invoke(con, args);
-				}
-			}
-			catch (final InvocationTargetException ite)
-			{
-				final Throwable te = ite.getTargetException();
-				if (te instanceof SQLException)
-				{
-					fireConnectionError((SQLException) te); // Tell listeners
-															// about exception
-															// if it's fatal
-				}
-				throw te;
-			}
-		}
-
-		private Object handleInvokeObjectMethod(Method method, Object[] args) throws Throwable
-		{
-			final String methodName = method.getName();
-			if (methodName.equals("toString"))
-			{
-				return "Pooled connection wrapping physical connection " + con;
-			}
-			if (methodName.equals("equals"))
-			{
-				return proxy == args[0];
-			}
-			if (methodName.equals("hashCode"))
-			{
-				return System.identityHashCode(proxy);
-			}
-			try
-			{
-				return method.invoke(con, args);
-			}
-			catch (InvocationTargetException e)
-			{
-				throw e.getTargetException();
-			}
-		}
-
-		private Object handleInvokeClose() throws SQLException
-		{
-			// we are already closed and a double close
-			// is not an error.
-			if (con == null)
-			{
-				return null;
-			}
-
-			SQLException ex = null;
-			if (!con.isClosed())
-			{
-				if (!isXA && !con.getAutoCommit())
-				{
-					try
-					{
-						con.rollback();
-					}
-					catch (SQLException e)
-					{
-						ex = e;
-					}
-				}
-				con.clearWarnings();
-			}
-			con = null;
-			this.proxy = null;
-			last = null;
-			fireConnectionClosed();
-			if (ex != null)
-			{
-				throw ex;
-			}
-			return null;
-		}
-
-		Connection getProxy()
-		{
-			return proxy;
-		}
-
-		void setProxy(Connection proxy)
-		{
-			this.proxy = proxy;
-		}
-
-		public void close()
-		{
-			if (con != null)
-			{
-				automatic = true;
-			}
-			con = null;
-			proxy = null;
-			// No close event fired here: see JDBC 2.0 Optional Package spec
-			// section 6.3
-		}
-
-		@SuppressWarnings("unused")
-		public boolean isClosed()
-		{
-			return con == null;
-		}
-	}
-
-	/**
-	 * Instead of declaring classes implementing Statement, PreparedStatement,
-	 * and CallableStatement, which would have to be updated for every JDK rev,
-	 * use a dynamic proxy to handle all calls through the Statement interfaces.
-	 * This is the part that requires JDK 1.3 or higher, though JDK 1.2 could be
-	 * supported with a 3rd-party proxy package.
-	 *
-	 * The StatementHandler is required in order to return the proper Connection
-	 * proxy for the getConnection method.
-	 */
-	private class StatementHandler implements InvocationHandler
-	{
-		private ConnectionHandler con;
-		private Statement st;
-
-		public StatementHandler(ConnectionHandler con, Statement st)
-		{
-			this.con = con;
-			this.st = st;
-		}
-
-		@Override
-		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
-		{
-			final String methodName = method.getName();
-			// From Object
-			if (method.getDeclaringClass().equals(Object.class))
-			{
-				return handleInvokeObjectMethod(proxy, method, args);
-			}
-
-			// All the rest is from the Statement interface
-			if (methodName.equals("isClosed"))
-			{
-				return st == null || st.isClosed();
-			}
-			if (methodName.equals("close"))
-			{
-				return handleInvokeClose();
-			}
-			if (st == null || st.isClosed())
-			{
-				throw new CloudSpannerSQLException("Statement has been closed.", Code.FAILED_PRECONDITION);
-			}
-			if (methodName.equals("getConnection"))
-			{
-				return con.getProxy(); // the proxied connection, not a physical
-										// connection
-			}
-
-			// Delegate the call to the proxied Statement.
-			try
-			{
-				return method.invoke(st, args);
-			}
-			catch (final InvocationTargetException ite)
-			{
-				final Throwable te = ite.getTargetException();
-				if (te instanceof SQLException)
-				{
-					fireConnectionError((SQLException) te); // Tell listeners
-															// about exception
-															// if it's fatal
-				}
-				throw te;
-			}
-		}
-
-		private Object handleInvokeObjectMethod(Object proxy, Method method, Object[] args)
-				throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-		{
-			final String methodName = method.getName();
-			if (methodName.equals("toString"))
-			{
-				return "Pooled statement wrapping physical statement " + st;
-			}
-			if (methodName.equals("hashCode"))
-			{
-				return System.identityHashCode(proxy);
-			}
-			if (methodName.equals("equals"))
-			{
-				return proxy == args[0];
-			}
-			return method.invoke(st, args);
-		}
-
-		private Object handleInvokeClose() throws SQLException
-		{
-			if (st == null || st.isClosed())
-			{
-				return null;
-			}
-			con = null;
-			final Statement oldSt = st;
-			st = null;
-			oldSt.close();
-			return null;
-		}
-	}
-
 	/**
 	 * This implementation does nothing as the driver does not support pooled
 	 * statements.
@@ -0,0 +1,590 @@
+package nl.topicus.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * A {@link javax.sql.DataSource} that keeps its own pool of physical
+ * connections to a Google Cloud Spanner database. All physical connections of
+ * the pool share one {@link com.google.cloud.spanner.Spanner} instance, and
+ * thereby one {@link com.google.cloud.spanner.DatabaseClient} and its pool of
+ * sessions.
+ *
+ * Borrowing and returning a connection does not take any locks. A thread first
+ * tries to reuse the connection it returned last, and otherwise scans the pool
+ * for an idle connection starting at a position that depends on the thread.
+ * The dynamic connection properties, read-only mode and auto-commit mode of a
+ * connection are reset when it is returned to the pool. Connections that have
+ * been idle longer than the idle timeout or that are older than the maximum
+ * lifetime are closed by a background task.
+ *
+ * The pool should be closed by calling {@link #close()} when it is no longer
+ * needed.
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerPoolingDataSource extends CloudSpannerDataSource implements AutoCloseable
+{
+	static final long HOUSEKEEPING_PERIOD_MILLIS = 30000L;
+
+	private static final int IDLE = 0;
+
+	private static final int IN_USE = 1;
+
+	private static final int REMOVED = 2;
+
+	/**
+	 * Holder of the scheduler of the housekeeping tasks, so that the thread is
+	 * only created when the first pool is used
+	 */
+	private static final class Housekeeper
+	{
+		private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, "Google Cloud Spanner JDBC Connection Pool Housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		private Housekeeper()
+		{
+		}
+	}
+
+	private final class PoolEntry implements ConnectionEventListener
+	{
+		private final CloudSpannerConnection connection;
+
+		private final CloudSpannerPooledConnection pooledConnection;
+
+		private final AtomicInteger state = new AtomicInteger(IN_USE);
+
+		private final long created = System.currentTimeMillis();
+
+		private volatile long lastReturned = created;
+
+		private volatile boolean broken;
+
+		private PoolEntry(CloudSpannerConnection connection)
+		{
+			this.connection = connection;
+			this.pooledConnection = new CloudSpannerPooledConnection(connection, defaultAutoCommit);
+			this.pooledConnection.addConnectionEventListener(this);
+		}
+
+		private boolean isExpired(long now)
+		{
+			return maxLifetime > 0L && now - created > maxLifetime;
+		}
+
+		private boolean isIdleTooLong(long now)
+		{
+			return idleTimeout > 0L && now - lastReturned > idleTimeout;
+		}
+
+		@Override
+		public void connectionClosed(ConnectionEvent event)
+		{
+			release(this);
+		}
+
+		@Override
+		public void connectionErrorOccurred(ConnectionEvent event)
+		{
+			// The connection is closed when it is returned to the pool
+			broken = true;
+		}
+	}
+
+	private int maxPoolSize = 10;
+
+	private long connectionTimeout = 30000L;
+
+	private long idleTimeout = 600000L;
+
+	private long maxLifetime = 1800000L;
+
+	private boolean defaultAutoCommit = true;
+
+	/**
+	 * All physical connections of the pool. The array is replaced when a
+	 * connection is added or removed, so that borrowing a connection can scan
+	 * it without locking.
+	 */
+	private volatile PoolEntry[] entries = new PoolEntry[0];
+
+	/**
+	 * The number of physical connections in the pool, including connections
+	 * that are being created
+	 */
+	private final AtomicInteger totalConnections = new AtomicInteger();
+
+	private final ThreadLocal<PoolEntry> lastUsed = new ThreadLocal<>();
+
+	private volatile Semaphore permits;
+
+	private volatile boolean closed;
+
+	private ScheduledFuture<?> housekeeping;
+
+	/**
+	 *
+	 * @return A description of this data source
+	 */
+	public String getDescription()
+	{
+		return "PoolingDataSource from " + nl.topicus.jdbc.CloudSpannerDriver.getVersion();
+	}
+
+	/**
+	 * Gets a connection from the pool, opening a new physical connection if
+	 * there is no idle connection and the pool has not reached its maximum
+	 * size. If the pool has reached its maximum size, this method waits at
+	 * most the connection timeout for a connection to be returned. Closing the
+	 * connection returns it to the pool.
+	 *
+	 * @throws java.sql.SQLException
+	 *             If no connection became available within the connection
+	 *             timeout, or if a new physical connection could not be
+	 *             opened.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		checkClosed();
+		Semaphore available = getPermits();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeout);
+		try
+		{
+			if (!available.tryAcquire(connectionTimeout, TimeUnit.MILLISECONDS))
+				throw createTimeoutException();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new CloudSpannerSQLException("Interrupted while waiting for a connection", Code.CANCELLED, e);
+		}
+		try
+		{
+			PoolEntry entry = acquire(deadline);
+			try
+			{
+				return entry.pooledConnection.getConnection();
+			}
+			catch (SQLException e)
+			{
+				remove(entry);
+				throw e;
+			}
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			available.release();
+			throw e;
+		}
+	}
+
+	private CloudSpannerSQLException createTimeoutException()
+	{
+		return new CloudSpannerSQLException(
+				"Timeout while waiting for a connection. All " + maxPoolSize + " connections are in use.",
+				Code.RESOURCE_EXHAUSTED);
+	}
+
+	private Semaphore getPermits()
+	{
+		Semaphore res = permits;
+		if (res == null)
+		{
+			synchronized (this)
+			{
+				res = permits;
+				if (res == null)
+				{
+					res = new Semaphore(maxPoolSize);
+					permits = res;
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Claims an idle connection or creates a new one. The caller must hold a
+	 * permit, which guarantees that there is an idle connection or room for a
+	 * new one, although a connection that is being returned or evicted by
+	 * another thread might not be available yet. The method gives up at the
+	 * given deadline.
+	 */
+	private PoolEntry acquire(long deadline) throws SQLException
+	{
+		PoolEntry entry = lastUsed.get();
+		if (entry != null && claim(entry))
+			return entry;
+		while (true)
+		{
+			PoolEntry[] current = entries;
+			int start = current.length == 0 ? 0 : (int) (Thread.currentThread().getId() % current.length);
+			for (int index = 0; index < current.length; index++)
+			{
+				entry = current[(start + index) % current.length];
+				if (claim(entry))
+					return entry;
+			}
+			int total = totalConnections.get();
+			if (total < maxPoolSize)
+			{
+				if (totalConnections.compareAndSet(total, total + 1))
+					return create();
+			}
+			else
+			{
+				// Another thread is returning or evicting a connection
+				if (System.nanoTime() - deadline > 0L)
+					throw createTimeoutException();
+				Thread.yield();
+			}
+			checkClosed();
+		}
+	}
+
+	private boolean claim(PoolEntry entry)
+	{
+		if (!entry.state.compareAndSet(IDLE, IN_USE))
+			return false;
+		if (entry.isExpired(System.currentTimeMillis()))
+		{
+			remove(entry);
+			return false;
+		}
+		return true;
+	}
+
+	private PoolEntry create() throws SQLException
+	{
+		try
+		{
+			PoolEntry entry = new PoolEntry(openPhysicalConnection());
+			add(entry);
+			return entry;
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			totalConnections.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a new physical connection that shares the Spanner instance of the
+	 * connections that are already in the pool
+	 */
+	private CloudSpannerConnection openPhysicalConnection() throws SQLException
+	{
+		for (PoolEntry entry : entries)
+		{
+			if (entry.state.get() != REMOVED && entry.connection.getDriver() != null)
+				return entry.connection.getDriver().connect(getURL(), getProperties(), entry.connection);
+		}
+		return (CloudSpannerConnection) DriverManager.getConnection(getURL(), getProperties());
+	}
+
+	private synchronized void add(PoolEntry entry)
+	{
+		PoolEntry[] current = entries;
+		PoolEntry[] res = new PoolEntry[current.length + 1];
+		System.arraycopy(current, 0, res, 0, current.length);
+		res[current.length] = entry;
+		entries = res;
+		if (housekeeping == null && !closed)
+		{
+			housekeeping = Housekeeper.SCHEDULER.scheduleAtFixedRate(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+					HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private synchronized void delete(PoolEntry entry)
+	{
+		PoolEntry[] current = entries;
+		for (int index = 0; index < current.length; index++)
+		{
+			if (current[index] == entry)
+			{
+				PoolEntry[] res = new PoolEntry[current.length - 1];
+				System.arraycopy(current, 0, res, 0, index);
+				System.arraycopy(current, index + 1, res, index, current.length - index - 1);
+				entries = res;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns a connection to the pool. This method is called when the client
+	 * closes the connection that it got from the pool.
+	 */
+	private void release(PoolEntry entry)
+	{
+		try
+		{
+			if (entry.broken || closed || entry.isExpired(System.currentTimeMillis()))
+			{
+				remove(entry);
+				return;
+			}
+			try
+			{
+				reset(entry.connection);
+			}
+			catch (SQLException e)
+			{
+				remove(entry);
+				return;
+			}
+			entry.lastReturned = System.currentTimeMillis();
+			entry.state.set(IDLE);
+			lastUsed.set(entry);
+		}
+		finally
+		{
+			permits.release();
+		}
+	}
+
+	/**
+	 * Resets the state of a connection that has been returned to the pool.
+	 * Running transactions have already been rolled back, and auto-commit mode
+	 * is set when the connection is handed out again. The transaction
+	 * isolation level does not need to be reset, as Cloud Spanner only
+	 * supports {@link Connection#TRANSACTION_SERIALIZABLE}.
+	 */
+	private void reset(CloudSpannerConnection connection) throws SQLException
+	{
+		if (connection.isReadOnly())
+			connection.setReadOnly(false);
+		connection.resetDynamicConnectionProperties();
+	}
+
+	private void remove(PoolEntry entry)
+	{
+		if (entry.state.getAndSet(REMOVED) != REMOVED)
+			discard(entry);
+	}
+
+	private void discard(PoolEntry entry)
+	{
+		delete(entry);
+		totalConnections.decrementAndGet();
+		try
+		{
+			entry.pooledConnection.close();
+		}
+		catch (SQLException e)
+		{
+			// ignore, the connection is no longer used
+		}
+	}
+
+	/**
+	 * Closes all idle connections that have been idle longer than the idle
+	 * timeout or that are older than the maximum lifetime
+	 */
+	void housekeep()
+	{
+		long now = System.currentTimeMillis();
+		for (PoolEntry entry : entries)
+		{
+			if ((entry.isIdleTooLong(now) || entry.isExpired(now)) && entry.state.compareAndSet(IDLE, REMOVED))
+				discard(entry);
+		}
+	}
+
+	/**
+	 * Closes all idle connections of the pool. Connections that are in use
+	 * are closed when they are returned to the pool.
+	 */
+	@Override
+	public void close()
+	{
+		synchronized (this)
+		{
+			closed = true;
+			if (housekeeping != null)
+			{
+				housekeeping.cancel(false);
+				housekeeping = null;
+			}
+		}
+		for (PoolEntry entry : entries)
+		{
+			if (entry.state.compareAndSet(IDLE, REMOVED))
+				discard(entry);
+		}
+	}
+
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	private void checkClosed() throws SQLException
+	{
+		if (closed)
+			throw new CloudSpannerSQLException("This data source has been closed", Code.FAILED_PRECONDITION);
+	}
+
+	/**
+	 *
+	 * @return The number of physical connections in the pool
+	 */
+	public int getTotalConnections()
+	{
+		return entries.length;
+	}
+
+	/**
+	 *
+	 * @return The number of connections that are currently in use
+	 */
+	public int getActiveConnections()
+	{
+		return count(IN_USE);
+	}
+
+	/**
+	 *
+	 * @return The number of connections that are currently idle
+	 */
+	public int getIdleConnections()
+	{
+		return count(IDLE);
+	}
+
+	private int count(int state)
+	{
+		int res = 0;
+		for (PoolEntry entry : entries)
+		{
+			if (entry.state.get() == state)
+				res++;
+		}
+		return res;
+	}
+
+	public int getMaxPoolSize()
+	{
+		return maxPoolSize;
+	}
+
+	/**
+	 * Sets the maximum number of physical connections of the pool. The default
+	 * is 10. The maximum cannot be changed after the first connection has been
+	 * requested.
+	 *
+	 * @param maxPoolSize
+	 *            The maximum number of connections
+	 * @throws IllegalStateException
+	 *             If a connection has already been requested from the pool
+	 */
+	public synchronized void setMaxPoolSize(int maxPoolSize)
+	{
+		if (maxPoolSize < 1)
+			throw new IllegalArgumentException("maxPoolSize must be at least 1");
+		if (permits != null)
+			throw new IllegalStateException("maxPoolSize cannot be changed after the pool has been used");
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	public long getConnectionTimeout()
+	{
+		return connectionTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of milliseconds to wait for a connection if all
+	 * connections are in use. The default is 30 seconds.
+	 *
+	 * @param connectionTimeout
+	 *            The timeout in milliseconds
+	 */
+	public void setConnectionTimeout(long connectionTimeout)
+	{
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public long getIdleTimeout()
+	{
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the number of milliseconds after which an idle connection is
+	 * closed. The default is 10 minutes. A value of 0 means that idle
+	 * connections are never closed.
+	 *
+	 * @param idleTimeout
+	 *            The idle timeout in milliseconds
+	 */
+	public void setIdleTimeout(long idleTimeout)
+	{
+		this.idleTimeout = idleTimeout;
+	}
+
+	public long getMaxLifetime()
+	{
+		return maxLifetime;
+	}
+
+	/**
+	 * Sets the maximum age in milliseconds of a physical connection. Older
+	 * connections are closed when they are idle. The default is 30 minutes. A
+	 * value of 0 means that there is no maximum lifetime.
+	 *
+	 * @param maxLifetime
+	 *            The maximum lifetime in milliseconds
+	 */
+	public void setMaxLifetime(long maxLifetime)
+	{
+		this.maxLifetime = maxLifetime;
+	}
+
+	/**
+	 * Gets whether connections supplied by this pool will have autoCommit
+	 * turned on by default. The default value is <tt>true</tt>.
+	 *
+	 * @return true if connections supplied by this pool will have autoCommit
+	 */
+	public boolean isDefaultAutoCommit()
+	{
+		return defaultAutoCommit;
+	}
+
+	/**
+	 * Sets whether connections supplied by this pool will have autoCommit
+	 * turned on by default. Changing the value only affects new physical
+	 * connections.
+	 *
+	 * @param defaultAutoCommit
+	 *            whether connections supplied by this pool will have autoCommit
+	 */
+	public void setDefaultAutoCommit(boolean defaultAutoCommit)
+	{
+		this.defaultAutoCommit = defaultAutoCommit;
+	}
+
+}
@@ -10,7 +10,7 @@ import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 
 final class ConnectionProperties
 {
-	public static final int NUMBER_OF_PROPERTIES = 13;
+	public static final int NUMBER_OF_PROPERTIES = 20;
 
 	static String getPropertyName(String propertyPart)
 	{
@@ -36,6 +36,13 @@ final class ConnectionProperties
 	static final String AUTO_BATCH_DDL_OPERATIONS = "AutoBatchDdlOperations=";
 	static final String REPORT_DEFAULT_SCHEMA_AS_NULL = "ReportDefaultSchemaAsNull=";
 	static final String BATCH_READ_ONLY_MODE = "BatchReadOnlyMode=";
+	static final String READ_STALENESS = "ReadStaleness=";
+	static final String BATCH_READ_ONLY_PARALLELISM = "BatchReadOnlyParallelism=";
+	static final String COALESCE_MUTATIONS = "CoalesceMutations=";
+	static final String MUTATION_LIMIT_POLICY = "MutationLimitPolicy=";
+	static final String PREFETCH_ROWS = "PrefetchRows=";
+	static final String SCHEMA_CACHE_TTL = "SchemaCacheTTL=";
+	static final String CACHED_DATABASE_META_DATA = "CachedDatabaseMetaData=";
 
 	String project = null;
 	String instance = null;
@@ -50,6 +57,13 @@ final class ConnectionProperties
 	boolean autoBatchDdlOperations = false;
 	boolean reportDefaultSchemaAsNull = true;
 	boolean batchReadOnlyMode = false;
+	String readStaleness = null;
+	Integer batchReadOnlyParallelism = null;
+	boolean coalesceMutations = false;
+	String mutationLimitPolicy = null;
+	boolean prefetchRows = false;
+	Integer schemaCacheTTL = null;
+	boolean cachedDatabaseMetaData = false;
 
 	static ConnectionProperties parse(String url) throws SQLException
 	{
@@ -90,6 +104,22 @@ final class ConnectionProperties
 							.valueOf(conPart.substring(REPORT_DEFAULT_SCHEMA_AS_NULL.length()));
 				else if (conPartLower.startsWith(BATCH_READ_ONLY_MODE.toLowerCase()))
 					res.batchReadOnlyMode = Boolean.valueOf(conPart.substring(BATCH_READ_ONLY_MODE.length()));
+				else if (conPartLower.startsWith(READ_STALENESS.toLowerCase()))
+					res.readStaleness = conPart.substring(READ_STALENESS.length());
+				else if (conPartLower.startsWith(BATCH_READ_ONLY_PARALLELISM.toLowerCase()))
+					res.batchReadOnlyParallelism = parseInteger(
+							conPart.substring(BATCH_READ_ONLY_PARALLELISM.length()));
+				else if (conPartLower.startsWith(COALESCE_MUTATIONS.toLowerCase()))
+					res.coalesceMutations = Boolean.valueOf(conPart.substring(COALESCE_MUTATIONS.length()));
+				else if (conPartLower.startsWith(MUTATION_LIMIT_POLICY.toLowerCase()))
+					res.mutationLimitPolicy = conPart.substring(MUTATION_LIMIT_POLICY.length());
+				else if (conPartLower.startsWith(PREFETCH_ROWS.toLowerCase()))
+					res.prefetchRows = Boolean.valueOf(conPart.substring(PREFETCH_ROWS.length()));
+				else if (conPartLower.startsWith(SCHEMA_CACHE_TTL.toLowerCase()))
+					res.schemaCacheTTL = parseInteger(conPart.substring(SCHEMA_CACHE_TTL.length()));
+				else if (conPartLower.startsWith(CACHED_DATABASE_META_DATA.toLowerCase()))
+					res.cachedDatabaseMetaData = Boolean
+							.valueOf(conPart.substring(CACHED_DATABASE_META_DATA.length()));
 				else
 					throw new CloudSpannerSQLException("Unknown URL parameter " + conPart, Code.INVALID_ARGUMENT);
 			}
@@ -162,6 +192,26 @@ final class ConnectionProperties
 			batchReadOnlyMode = Boolean.valueOf(lowerCaseInfo.getProperty(
 					BATCH_READ_ONLY_MODE.substring(0, BATCH_READ_ONLY_MODE.length() - 1).toLowerCase(),
 					String.valueOf(batchReadOnlyMode)));
+			readStaleness = lowerCaseInfo.getProperty(
+					READ_STALENESS.substring(0, READ_STALENESS.length() - 1).toLowerCase(), readStaleness);
+			batchReadOnlyParallelism = parseInteger(lowerCaseInfo.getProperty(
+					BATCH_READ_ONLY_PARALLELISM.substring(0, BATCH_READ_ONLY_PARALLELISM.length() - 1).toLowerCase(),
+					defaultString(batchReadOnlyParallelism)));
+			coalesceMutations = Boolean.valueOf(lowerCaseInfo.getProperty(
+					COALESCE_MUTATIONS.substring(0, COALESCE_MUTATIONS.length() - 1).toLowerCase(),
+					String.valueOf(coalesceMutations)));
+			mutationLimitPolicy = lowerCaseInfo.getProperty(
+					MUTATION_LIMIT_POLICY.substring(0, MUTATION_LIMIT_POLICY.length() - 1).toLowerCase(),
+					mutationLimitPolicy);
+			prefetchRows = Boolean.valueOf(
+					lowerCaseInfo.getProperty(PREFETCH_ROWS.substring(0, PREFETCH_ROWS.length() - 1).toLowerCase(),
+							String.valueOf(prefetchRows)));
+			schemaCacheTTL = parseInteger(lowerCaseInfo.getProperty(
+					SCHEMA_CACHE_TTL.substring(0, SCHEMA_CACHE_TTL.length() - 1).toLowerCase(),
+					defaultString(schemaCacheTTL)));
+			cachedDatabaseMetaData = Boolean.valueOf(lowerCaseInfo.getProperty(
+					CACHED_DATABASE_META_DATA.substring(0, CACHED_DATABASE_META_DATA.length() - 1).toLowerCase(),
+					String.valueOf(cachedDatabaseMetaData)));
 			if (!CloudSpannerDriver.logLevelSet)
 				CloudSpannerDriver.setLogLevel(CloudSpannerDriver.OFF);
 		}
@@ -208,6 +258,28 @@ final class ConnectionProperties
 		res[12] = new DriverPropertyInfo(BATCH_READ_ONLY_MODE.substring(0, BATCH_READ_ONLY_MODE.length() - 1),
 				String.valueOf(batchReadOnlyMode));
 		res[12].description = "Run queries in batch-read-only-mode. Use this mode when downloading large amounts of data from Cloud Spanner in combination with the methods Statement#execute(String) or PreparedStatement#execute()";
+		res[13] = new DriverPropertyInfo(READ_STALENESS.substring(0, READ_STALENESS.length() - 1), readStaleness);
+		res[13].description = "The staleness to use for queries in autocommit mode, read-only transactions and batch read-only transactions. Possible values are STRONG (default), MAX_STALENESS:<duration>, EXACT_STALENESS:<duration>, MIN_READ_TIMESTAMP:<timestamp> and READ_TIMESTAMP:<timestamp>, for example EXACT_STALENESS:10s. MAX_STALENESS and MIN_READ_TIMESTAMP can only be used for queries in autocommit mode.";
+		res[14] = new DriverPropertyInfo(
+				BATCH_READ_ONLY_PARALLELISM.substring(0, BATCH_READ_ONLY_PARALLELISM.length() - 1),
+				defaultString(batchReadOnlyParallelism));
+		res[14].description = "The number of partitions that should be read in parallel in batch read-only mode. When set to a value greater than 1, all partitions of a query are executed in parallel and returned as one unordered result set. When not set or set to 1 or less (default), the driver will return one result set per partition.";
+		res[15] = new DriverPropertyInfo(COALESCE_MUTATIONS.substring(0, COALESCE_MUTATIONS.length() - 1),
+				String.valueOf(coalesceMutations));
+		res[15].description = "Coalesce the mutations of a read/write transaction on the same row. When set to true, successive inserts and updates of the same row are merged into one mutation, and inserts and updates that are directly followed by a delete of the same row are removed from the transaction. Constraint violations that would have been caused by removed mutations are not reported. Default is false.";
+		res[16] = new DriverPropertyInfo(MUTATION_LIMIT_POLICY.substring(0, MUTATION_LIMIT_POLICY.length() - 1),
+				mutationLimitPolicy);
+		res[16].description = "What to do when the mutations of a read/write transaction approach or exceed the commit limits of Cloud Spanner. Possible values are NONE (default, the transaction fails on commit), WARN (add a warning to the connection), REJECT (reject the statement that would exceed the limits) and SPLIT (commit the mutations in multiple batches in separate transactions). SPLIT means that the commit is NOT atomic: if one of the batches fails, the batches before it remain committed, the batches after it are not committed, and a CloudSpannerPartialCommitException is thrown.";
+		res[17] = new DriverPropertyInfo(PREFETCH_ROWS.substring(0, PREFETCH_ROWS.length() - 1),
+				String.valueOf(prefetchRows));
+		res[17].description = "Read the rows of query results ahead on a background thread. When set to true, up to 256 rows of a result set are read ahead while the client is processing the current row. Use Statement#setFetchSize(int) to set a different number of rows to read ahead. Default is false.";
+		res[18] = new DriverPropertyInfo(SCHEMA_CACHE_TTL.substring(0, SCHEMA_CACHE_TTL.length() - 1),
+				defaultString(schemaCacheTTL));
+		res[18].description = "The maximum age in seconds of the schema information (tables, columns, keys and indices) that the driver caches for each database. The cache is shared by all connections to the same database and is also refreshed after a DDL statement has been executed by the driver. A value of 0 means that the schema is read every time it is needed. Default is 300.";
+		res[19] = new DriverPropertyInfo(
+				CACHED_DATABASE_META_DATA.substring(0, CACHED_DATABASE_META_DATA.length() - 1),
+				String.valueOf(cachedDatabaseMetaData));
+		res[19].description = "Answer the DatabaseMetaData methods getTables, getColumns, getPrimaryKeys, getIndexInfo, getImportedKeys and getExportedKeys for the default schema from the cached schema of the database instead of querying INFORMATION_SCHEMA. The cached schema is refreshed according to SchemaCacheTTL and after a DDL statement has been executed by the driver. Default is false.";
 
 		return res;
 	}
@@ -6,12 +6,18 @@ import java.io.StringReader;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.google.rpc.Code;
 
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
 
 class DDLStatement
 {
@@ -38,35 +44,71 @@ class DDLStatement
 		UNKNOWN
 		{
 			@Override
-			boolean exists(CloudSpannerConnection connection, String objectName) throws SQLException
+			Set<String> getExisting(CloudSpannerConnection connection, Set<String> objectNames) throws SQLException
 			{
-				return false;
+				return new HashSet<>();
 			}
 		},
 		TABLE
 		{
 			@Override
-			boolean exists(CloudSpannerConnection connection, String objectName) throws SQLException
+			Set<String> getExisting(CloudSpannerConnection connection, Set<String> objectNames) throws SQLException
 			{
-				try (ResultSet rs = connection.getMetaData().getTables("", "", objectName, null))
-				{
-					return rs.next();
-				}
+				return queryExisting(connection, "SELECT TABLE_NAME AS NAME FROM INFORMATION_SCHEMA.TABLES "
+						+ "WHERE TABLE_CATALOG='' AND TABLE_SCHEMA='' AND UPPER(TABLE_NAME) IN ", objectNames);
 			}
 		},
 		INDEX
 		{
 			@Override
-			boolean exists(CloudSpannerConnection connection, String objectName) throws SQLException
+			Set<String> getExisting(CloudSpannerConnection connection, Set<String> objectNames) throws SQLException
 			{
-				try (ResultSet rs = connection.getMetaData().getIndexInfo("", "", objectName))
-				{
-					return rs.next();
-				}
+				return queryExisting(connection, "SELECT INDEX_NAME AS NAME FROM INFORMATION_SCHEMA.INDEXES "
+						+ "WHERE TABLE_CATALOG='' AND TABLE_SCHEMA='' AND UPPER(INDEX_NAME) IN ", objectNames);
 			}
 		};
 
-		abstract boolean exists(CloudSpannerConnection connection, String objectName) throws SQLException;
+		/**
+		 * Checks the existence of a number of objects with one query
+		 * 
+		 * @param connection
+		 *            The connection to use for the query
+		 * @param objectNames
+		 *            The names of the objects to check in upper case
+		 * @return The names in upper case of the objects that exist
+		 * @throws SQLException
+		 *             If the query fails
+		 */
+		abstract Set<String> getExisting(CloudSpannerConnection connection, Set<String> objectNames)
+				throws SQLException;
+
+		private static Set<String> queryExisting(CloudSpannerConnection connection, String sqlWithoutInList,
+				Set<String> objectNames) throws SQLException
+		{
+			Set<String> res = new HashSet<>();
+			if (objectNames.isEmpty())
+				return res;
+			String sql = sqlWithoutInList + "(" + String.join(", ", Collections.nCopies(objectNames.size(), "?"))
+					+ ")";
+			try (CloudSpannerPreparedStatement statement = connection.prepareStatement(sql))
+			{
+				statement.setForceSingleUseReadContext(true);
+				int paramIndex = 1;
+				for (String name : objectNames)
+				{
+					statement.setString(paramIndex, name);
+					paramIndex++;
+				}
+				try (ResultSet rs = statement.executeQuery())
+				{
+					while (rs.next())
+					{
+						res.add(rs.getString("NAME").toUpperCase());
+					}
+				}
+			}
+			return res;
+		}
 	}
 
 	enum ExistsStatement
@@ -243,18 +285,75 @@ class DDLStatement
 		return res;
 	}
 
-	boolean shouldExecute(CloudSpannerConnection connection) throws SQLException
+	/**
+	 * Returns the statements of a batch that should be executed. The existence
+	 * of the tables and indices of all IF [NOT] EXISTS clauses in the batch is
+	 * checked with at most one query for tables and one query for indices.
+	 * The effect of earlier statements in the batch is taken into account, so
+	 * that for example a DROP TABLE IF EXISTS after a CREATE TABLE of the same
+	 * table in the same batch is executed.
+	 * 
+	 * @param connection
+	 *            The connection to use to check the existence of the objects
+	 * @param statements
+	 *            The statements of the batch in execution order
+	 * @return The statements that should be executed
+	 * @throws SQLException
+	 *             If an exists clause is invalid for its statement, or if the
+	 *             existence of the objects could not be checked
+	 */
+	static List<DDLStatement> getStatementsToExecute(CloudSpannerConnection connection,
+			List<DDLStatement> statements) throws SQLException
+	{
+		Map<ObjectType, Set<String>> existing = new EnumMap<>(ObjectType.class);
+		for (ObjectType objectType : ObjectType.values())
+		{
+			existing.put(objectType, new HashSet<>());
+		}
+		for (DDLStatement statement : statements)
+		{
+			if (statement.hasExistsStatement())
+				existing.get(statement.getObjectType()).add(statement.getObjectName().toUpperCase());
+		}
+		for (Map.Entry<ObjectType, Set<String>> entry : existing.entrySet())
+		{
+			entry.setValue(entry.getKey().getExisting(connection, entry.getValue()));
+		}
+		List<DDLStatement> res = new ArrayList<>(statements.size());
+		for (DDLStatement statement : statements)
+		{
+			Set<String> names = existing.get(statement.getObjectType());
+			String name = statement.getObjectName().toUpperCase();
+			if (!statement.hasExistsStatement() || statement.getExistsStatement().shouldExecute(names.contains(name)))
+			{
+				res.add(statement);
+				if (statement.getCommand() == Command.CREATE)
+					names.add(name);
+				else if (statement.getCommand() == Command.DROP)
+					names.remove(name);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * 
+	 * @return true if this statement contains a valid IF [NOT] EXISTS clause
+	 * @throws SQLException
+	 *             If the exists clause is not valid for the command of this
+	 *             statement
+	 */
+	private boolean hasExistsStatement() throws SQLException
 	{
 		if (getExistsStatement() == null || getExistsStatement() == ExistsStatement.NONE)
-			return true;
+			return false;
 		if (getExistsStatement() == ExistsStatement.IF_NOT_EXISTS && getCommand() == Command.DROP)
 			throw new CloudSpannerSQLException("Invalid argument: Cannot use 'IF NOT EXISTS' when dropping an object",
 					Code.INVALID_ARGUMENT);
 		if (getExistsStatement() == ExistsStatement.IF_EXISTS && getCommand() == Command.CREATE)
 			throw new CloudSpannerSQLException("Invalid argument: Cannot use 'IF EXISTS' when creating an object",
 					Code.INVALID_ARGUMENT);
-
-		return getExistsStatement().shouldExecute(getObjectType().exists(connection, getObjectName()));
+		return true;
 	}
 
 	Command getCommand()
@@ -0,0 +1,548 @@
+package nl.topicus.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.cloud.spanner.Value;
+
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * Plan for the execution of a DDL script. Each call to updateDatabaseDdl
+ * creates at least one new schema version, so the statements of a script are
+ * executed in as few batches as possible. The statements are first ordered so
+ * that:
+ * <ul>
+ * <li>Interleaved parent tables are created before their child tables</li>
+ * <li>Tables are created before their indices and before they are altered</li>
+ * <li>Indices are dropped before their tables, and interleaved child tables
+ * are dropped before their parent tables</li>
+ * <li>All other statements that reference the same table or index keep their
+ * order in the script</li>
+ * </ul>
+ * The ordered statements are then grouped into batches. A new batch is only
+ * started when a statement creates a table or index with the name of a table
+ * or index that is dropped earlier in the current batch.
+ * <p>
+ * The execution time of each batch is estimated from the number of
+ * statements and the number of statements that need to backfill or validate
+ * existing data, such as creating an index on an existing table. The actual
+ * execution time is registered when the plan is executed.
+ *
+ * @author loite
+ *
+ */
+final class DdlBatchPlan
+{
+	/**
+	 * Estimated fixed duration of a schema update operation
+	 */
+	static final long BATCH_OVERHEAD_MILLIS = 10000L;
+
+	/**
+	 * Estimated duration of a statement that does not need to read existing
+	 * data
+	 */
+	static final long STATEMENT_MILLIS = 2000L;
+
+	/**
+	 * Estimated duration of a statement that backfills or validates existing
+	 * data. The actual duration depends on the amount of data.
+	 */
+	static final long BACKFILL_MILLIS = 60000L;
+
+	private static final String NAME = "(`[^`]+`|[A-Za-z_][A-Za-z0-9_]*)";
+
+	private static final Pattern CREATE_TABLE = Pattern
+			.compile("(?is)^\\s*CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME);
+
+	private static final Pattern INTERLEAVE_IN_PARENT = Pattern.compile("(?is)INTERLEAVE\\s+IN\\s+PARENT\\s+" + NAME);
+
+	private static final Pattern CREATE_INDEX = Pattern.compile(
+			"(?is)^\\s*CREATE\\s+(?:(?:UNIQUE|NULL_FILTERED)\\s+)*INDEX\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME
+					+ "\\s+ON\\s+" + NAME);
+
+	private static final Pattern INTERLEAVE_IN = Pattern.compile("(?is),\\s*INTERLEAVE\\s+IN\\s+" + NAME);
+
+	private static final Pattern ALTER_TABLE = Pattern.compile("(?is)^\\s*ALTER\\s+TABLE\\s+" + NAME);
+
+	private static final Pattern ALTER_COLUMN = Pattern.compile("(?is)\\bALTER\\s+COLUMN\\b");
+
+	private static final Pattern DROP_TABLE = Pattern
+			.compile("(?is)^\\s*DROP\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?" + NAME);
+
+	private static final Pattern DROP_INDEX = Pattern
+			.compile("(?is)^\\s*DROP\\s+INDEX\\s+(?:IF\\s+EXISTS\\s+)?" + NAME);
+
+	enum Kind
+	{
+		CREATE_TABLE, ALTER_TABLE, DROP_TABLE, CREATE_INDEX, DROP_INDEX, OTHER;
+	}
+
+	/**
+	 * Executes one batch of a plan
+	 */
+	@FunctionalInterface
+	interface BatchExecutor
+	{
+		/**
+		 * @param sql
+		 *            The statements of the batch
+		 * @param last
+		 *            true if this is the last batch of the plan
+		 * @return A future that is completed when the batch has been applied
+		 */
+		CompletableFuture<?> execute(List<String> sql, boolean last) throws SQLException;
+	}
+
+	static final class PlannedStatement
+	{
+		private final int position;
+
+		private final String sql;
+
+		private final Kind kind;
+
+		/**
+		 * The name of the table or index in upper case
+		 */
+		private final String name;
+
+		/**
+		 * The table of the statement in upper case: the table itself for
+		 * table statements and the indexed table for index statements
+		 */
+		private String table;
+
+		/**
+		 * The interleaved parent of a table, or the table that an index is
+		 * interleaved in, in upper case
+		 */
+		private String parent;
+
+		private boolean backfill;
+
+		private PlannedStatement(int position, String sql, Kind kind, String name)
+		{
+			this.position = position;
+			this.sql = sql;
+			this.kind = kind;
+			this.name = name;
+		}
+
+		String getSql()
+		{
+			return sql;
+		}
+
+		Kind getKind()
+		{
+			return kind;
+		}
+
+		boolean isBackfill()
+		{
+			return backfill;
+		}
+	}
+
+	static final class Batch
+	{
+		private final List<PlannedStatement> statements = new ArrayList<>();
+
+		private long actualMillis = -1L;
+
+		List<PlannedStatement> getStatements()
+		{
+			return Collections.unmodifiableList(statements);
+		}
+
+		List<String> getSql()
+		{
+			List<String> res = new ArrayList<>(statements.size());
+			for (PlannedStatement statement : statements)
+			{
+				res.add(statement.sql);
+			}
+			return res;
+		}
+
+		long getEstimatedMillis()
+		{
+			long res = BATCH_OVERHEAD_MILLIS;
+			for (PlannedStatement statement : statements)
+			{
+				res += statement.backfill ? BACKFILL_MILLIS : STATEMENT_MILLIS;
+			}
+			return res;
+		}
+
+		/**
+		 *
+		 * @return The actual execution time of this batch, or -1 if the batch
+		 *         has not finished
+		 */
+		synchronized long getActualMillis()
+		{
+			return actualMillis;
+		}
+
+		private synchronized void setActualMillis(long actualMillis)
+		{
+			this.actualMillis = actualMillis;
+		}
+	}
+
+	private final List<Batch> batches;
+
+	private DdlBatchPlan(List<Batch> batches)
+	{
+		this.batches = batches;
+	}
+
+	/**
+	 * Creates a plan for a DDL script
+	 *
+	 * @param sql
+	 *            The statements of the script
+	 * @param schema
+	 *            Loader of the current schema of the database. The schema is
+	 *            only loaded if the script drops tables or indices, in order
+	 *            to determine the order in which they should be dropped.
+	 * @return The plan for the script
+	 * @throws SQLException
+	 *             If the schema could not be loaded
+	 */
+	static DdlBatchPlan create(List<String> sql, SchemaSnapshotCache.SnapshotLoader schema) throws SQLException
+	{
+		List<PlannedStatement> statements = new ArrayList<>(sql.size());
+		boolean drops = false;
+		for (int position = 0; position < sql.size(); position++)
+		{
+			PlannedStatement statement = parse(position, sql.get(position));
+			drops = drops || statement.kind == Kind.DROP_TABLE || statement.kind == Kind.DROP_INDEX;
+			statements.add(statement);
+		}
+		resolveTables(statements, drops ? schema.load() : null);
+		return new DdlBatchPlan(group(order(statements)));
+	}
+
+	private static String getName(Matcher matcher, int group)
+	{
+		String name = matcher.group(group);
+		if (name.startsWith("`"))
+			name = name.substring(1, name.length() - 1);
+		return name.toUpperCase();
+	}
+
+	private static PlannedStatement parse(int position, String sql)
+	{
+		Matcher matcher;
+		if ((matcher = CREATE_TABLE.matcher(sql)).find())
+		{
+			PlannedStatement res = new PlannedStatement(position, sql, Kind.CREATE_TABLE, getName(matcher, 1));
+			res.table = res.name;
+			Matcher parent = INTERLEAVE_IN_PARENT.matcher(sql);
+			if (parent.find())
+				res.parent = getName(parent, 1);
+			return res;
+		}
+		if ((matcher = CREATE_INDEX.matcher(sql)).find())
+		{
+			PlannedStatement res = new PlannedStatement(position, sql, Kind.CREATE_INDEX, getName(matcher, 1));
+			res.table = getName(matcher, 2);
+			Matcher parent = INTERLEAVE_IN.matcher(sql);
+			if (parent.find())
+				res.parent = getName(parent, 1);
+			return res;
+		}
+		if ((matcher = ALTER_TABLE.matcher(sql)).find())
+		{
+			PlannedStatement res = new PlannedStatement(position, sql, Kind.ALTER_TABLE, getName(matcher, 1));
+			res.table = res.name;
+			res.backfill = ALTER_COLUMN.matcher(sql).find();
+			return res;
+		}
+		if ((matcher = DROP_TABLE.matcher(sql)).find())
+		{
+			PlannedStatement res = new PlannedStatement(position, sql, Kind.DROP_TABLE, getName(matcher, 1));
+			res.table = res.name;
+			return res;
+		}
+		if ((matcher = DROP_INDEX.matcher(sql)).find())
+			return new PlannedStatement(position, sql, Kind.DROP_INDEX, getName(matcher, 1));
+		return new PlannedStatement(position, sql, Kind.OTHER, null);
+	}
+
+	/**
+	 * Determines the tables of dropped indices and the parents of dropped
+	 * tables, and which new indices need to backfill existing data
+	 */
+	private static void resolveTables(List<PlannedStatement> statements, SchemaSnapshot schema)
+	{
+		Map<String, String> indexTables = new HashMap<>();
+		Set<String> createdTables = new HashSet<>();
+		for (PlannedStatement statement : statements)
+		{
+			if (statement.kind == Kind.CREATE_TABLE)
+				createdTables.add(statement.name);
+		}
+		for (PlannedStatement statement : statements)
+		{
+			if (statement.kind == Kind.CREATE_INDEX)
+			{
+				// Indices on tables that are created by the script are
+				// executed after the table and do not need to backfill
+				indexTables.putIfAbsent(statement.name, statement.table);
+				statement.backfill = !createdTables.contains(statement.table);
+			}
+		}
+		if (schema != null)
+		{
+			for (SchemaSnapshot.Table table : schema.getTables())
+			{
+				for (String index : table.getIndices().keySet())
+				{
+					indexTables.putIfAbsent(index.toUpperCase(), table.getName().toUpperCase());
+				}
+			}
+		}
+		for (PlannedStatement statement : statements)
+		{
+			if (statement.kind == Kind.DROP_INDEX)
+			{
+				statement.table = indexTables.get(statement.name);
+			}
+			else if (statement.kind == Kind.DROP_TABLE && schema != null)
+			{
+				SchemaSnapshot.Table table = schema.getTable(statement.name);
+				if (table != null && table.getParentTable() != null)
+					statement.parent = table.getParentTable().toUpperCase();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return true if <code>first</code> must be executed before
+	 *         <code>second</code> because of the structure of the schema,
+	 *         regardless of their order in the script
+	 */
+	private static boolean mustPrecede(PlannedStatement first, PlannedStatement second,
+			Map<String, Integer> creates)
+	{
+		if (first.kind == Kind.CREATE_TABLE && creates.get(first.name) == 1)
+		{
+			// Parents before children, tables before their indices and
+			// alterations
+			return first.name.equals(second.parent)
+					|| (first.name.equals(second.table)
+							&& (second.kind == Kind.CREATE_INDEX || second.kind == Kind.ALTER_TABLE));
+		}
+		if (second.kind == Kind.DROP_TABLE)
+		{
+			// Indices and children before their tables
+			return (first.kind == Kind.DROP_INDEX && second.name.equals(first.table))
+					|| (first.kind == Kind.DROP_TABLE && second.name.equals(first.parent));
+		}
+		return false;
+	}
+
+	/**
+	 *
+	 * @return true if the statements reference the same table or index
+	 */
+	private static boolean isRelated(PlannedStatement first, PlannedStatement second)
+	{
+		if (first.kind == Kind.OTHER || second.kind == Kind.OTHER)
+			return true;
+		return (first.table != null && first.table.equals(second.table))
+				|| (first.name != null && first.name.equals(second.name));
+	}
+
+	/**
+	 * Orders the statements according to their dependencies. Independent
+	 * statements keep their order in the script. Contradictory dependencies
+	 * are resolved in favour of the order in the script.
+	 */
+	private static List<PlannedStatement> order(List<PlannedStatement> statements)
+	{
+		int size = statements.size();
+		Map<String, Integer> creates = new HashMap<>();
+		for (PlannedStatement statement : statements)
+		{
+			if (statement.kind == Kind.CREATE_TABLE)
+				creates.merge(statement.name, 1, Integer::sum);
+		}
+		List<List<Integer>> successors = new ArrayList<>(size);
+		int[] predecessors = new int[size];
+		for (int index = 0; index < size; index++)
+		{
+			successors.add(new ArrayList<>());
+		}
+		for (int first = 0; first < size; first++)
+		{
+			for (int second = first + 1; second < size; second++)
+			{
+				PlannedStatement a = statements.get(first);
+				PlannedStatement b = statements.get(second);
+				int from = -1;
+				int to = -1;
+				if (mustPrecede(b, a, creates))
+				{
+					from = second;
+					to = first;
+				}
+				else if (mustPrecede(a, b, creates) || isRelated(a, b))
+				{
+					from = first;
+					to = second;
+				}
+				if (from > -1)
+				{
+					successors.get(from).add(to);
+					predecessors[to]++;
+				}
+			}
+		}
+		PriorityQueue<Integer> ready = new PriorityQueue<>();
+		for (int index = 0; index < size; index++)
+		{
+			if (predecessors[index] == 0)
+				ready.add(index);
+		}
+		List<PlannedStatement> res = new ArrayList<>(size);
+		boolean[] done = new boolean[size];
+		while (res.size() < size)
+		{
+			int next;
+			if (ready.isEmpty())
+			{
+				// Circular dependency: continue with the first remaining
+				// statement in the script
+				next = 0;
+				while (done[next])
+					next++;
+			}
+			else
+			{
+				next = ready.poll();
+				if (done[next])
+					continue;
+			}
+			done[next] = true;
+			res.add(statements.get(next));
+			for (int successor : successors.get(next))
+			{
+				predecessors[successor]--;
+				if (predecessors[successor] == 0 && !done[successor])
+					ready.add(successor);
+			}
+		}
+		return res;
+	}
+
+	private static List<Batch> group(List<PlannedStatement> statements)
+	{
+		List<Batch> res = new ArrayList<>();
+		Batch batch = new Batch();
+		Set<String> dropped = new HashSet<>();
+		for (PlannedStatement statement : statements)
+		{
+			boolean create = statement.kind == Kind.CREATE_TABLE || statement.kind == Kind.CREATE_INDEX;
+			if (create && dropped.contains(statement.name))
+			{
+				res.add(batch);
+				batch = new Batch();
+				dropped.clear();
+			}
+			if (statement.kind == Kind.DROP_TABLE || statement.kind == Kind.DROP_INDEX)
+				dropped.add(statement.name);
+			batch.statements.add(statement);
+		}
+		if (!batch.statements.isEmpty())
+			res.add(batch);
+		return res;
+	}
+
+	List<Batch> getBatches()
+	{
+		return Collections.unmodifiableList(batches);
+	}
+
+	long getEstimatedMillis()
+	{
+		long res = 0L;
+		for (Batch batch : batches)
+		{
+			res += batch.getEstimatedMillis();
+		}
+		return res;
+	}
+
+	/**
+	 * Executes the batches of this plan in order and registers the actual
+	 * execution time of each batch when it has been applied
+	 *
+	 * @param executor
+	 *            The executor of the batches
+	 * @throws SQLException
+	 *             If a batch fails. The remaining batches are not executed.
+	 */
+	void execute(BatchExecutor executor) throws SQLException
+	{
+		for (int index = 0; index < batches.size(); index++)
+		{
+			Batch batch = batches.get(index);
+			long start = System.nanoTime();
+			executor.execute(batch.getSql(), index == batches.size() - 1).whenComplete((result, error) -> batch
+					.setActualMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+		}
+	}
+
+	/**
+	 *
+	 * @return A result set with one row per statement of this plan in
+	 *         execution order, with the estimated and actual execution time
+	 *         of the batch of the statement
+	 */
+	ResultSet getResultSet(CloudSpannerStatement statement)
+	{
+		List<Struct> rows = new ArrayList<>();
+		for (int index = 0; index < batches.size(); index++)
+		{
+			Batch batch = batches.get(index);
+			long actual = batch.getActualMillis();
+			for (PlannedStatement planned : batch.statements)
+			{
+				rows.add(Struct.newBuilder().add("BATCH", Value.int64(index + 1L))
+						.add("STATEMENT", Value.string(planned.sql)).add("BACKFILL", Value.bool(planned.backfill))
+						.add("ESTIMATED_MILLIS", Value.int64(batch.getEstimatedMillis()))
+						.add("ACTUAL_MILLIS", Value.int64(actual < 0L ? null : actual)).build());
+			}
+		}
+		com.google.cloud.spanner.ResultSet rs = ResultSets.forRows(Type.struct(StructField.of("BATCH", Type.int64()),
+				StructField.of("STATEMENT", Type.string()), StructField.of("BACKFILL", Type.bool()),
+				StructField.of("ESTIMATED_MILLIS", Type.int64()), StructField.of("ACTUAL_MILLIS", Type.int64())),
+				rows);
+		return new CloudSpannerResultSet(statement, rs, null);
+	}
+
+}
@@ -1,10 +1,16 @@
 package nl.topicus.jdbc;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Properties;
 
 import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.TimestampBound;
+
+import nl.topicus.jdbc.transaction.MutationLimitPolicy;
+import nl.topicus.jdbc.transaction.TransactionRetryMetrics;
 
 /**
  * Interface containing all extra methods that are provided by
@@ -43,12 +49,42 @@ public interface ICloudSpannerConnection extends Connection
 
 	public int setReportDefaultSchemaAsNull(boolean reportDefaultSchemaAsNull);
 
+	public boolean isCoalesceMutations();
+
+	public int setCoalesceMutations(boolean coalesceMutations);
+
+	public boolean isPrefetchRows();
+
+	public int setPrefetchRows(boolean prefetchRows);
+
+	public boolean isCachedDatabaseMetaData();
+
+	public int setCachedDatabaseMetaData(boolean cachedDatabaseMetaData);
+
 	public String getClientId();
 
 	public Timestamp getLastCommitTimestamp();
 
 	public Timestamp getReadTimestamp();
 
+	public TransactionRetryMetrics getTransactionRetryMetrics();
+
+	public TimestampBound getReadStaleness();
+
+	public int setReadStaleness(TimestampBound readStaleness) throws SQLException;
+
+	public int getBatchReadOnlyParallelism();
+
+	public int setBatchReadOnlyParallelism(int parallelism) throws SQLException;
+
+	public MutationLimitPolicy getMutationLimitPolicy();
+
+	public int setMutationLimitPolicy(MutationLimitPolicy policy) throws SQLException;
+
+	public List<String> createPartitionTokens(String sql) throws SQLException;
+
+	public ResultSet executePartitionToken(String token) throws SQLException;
+
 	public boolean isBatchReadOnly();
 
 	public int setBatchReadOnly(boolean batchReadOnly) throws SQLException;
@@ -1,17 +1,20 @@
 package nl.topicus.jdbc;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Class for storing meta data needed for translating SQL statements into Cloud
- * Spanner mutations, such as key columns and their ordinal positions
+ * Spanner mutations, such as key columns and their ordinal positions. The meta
+ * data is taken from the {@link SchemaSnapshot} of the connection, and is
+ * refreshed when the connection returns a new snapshot.
  * 
  * @author loite
  *
@@ -29,11 +32,34 @@ public class MetaDataStore
 	{
 		private final String name;
 
-		private final List<String> keyColumns = new ArrayList<>(2);
+		/**
+		 * The table in the schema snapshot that this meta data was created
+		 * from, or null if the table is not in the snapshot
+		 */
+		private final SchemaSnapshot.Table table;
 
-		TableKeyMetaData(String name)
+		private final List<String> keyColumns;
+
+		private final List<Set<String>> indexColumns;
+
+		TableKeyMetaData(String name, SchemaSnapshot.Table table)
 		{
 			this.name = name;
+			this.table = table;
+			if (table == null)
+			{
+				this.keyColumns = Collections.emptyList();
+				this.indexColumns = Collections.emptyList();
+			}
+			else
+			{
+				this.keyColumns = table.getKeyColumns();
+				this.indexColumns = new ArrayList<>(table.getIndices().size());
+				for (List<String> columns : table.getIndices().values())
+				{
+					indexColumns.add(new HashSet<>(columns));
+				}
+			}
 		}
 
 		public List<String> getKeyColumns()
@@ -41,6 +67,18 @@ public class MetaDataStore
 			return keyColumns;
 		}
 
+		/**
+		 * 
+		 * @return The columns (both key and storing columns) of each secondary
+		 *         index of this table in upper case
+		 * @throws SQLException
+		 *             If the index columns could not be loaded
+		 */
+		public List<Set<String>> getIndexColumns() throws SQLException
+		{
+			return indexColumns;
+		}
+
 		@Override
 		public boolean equals(Object o)
 		{
@@ -57,11 +95,11 @@ public class MetaDataStore
 		}
 	}
 
-	private final Connection connection;
+	private final CloudSpannerConnection connection;
 
 	private final Map<String, TableKeyMetaData> tables = new HashMap<>();
 
-	MetaDataStore(Connection connection)
+	MetaDataStore(CloudSpannerConnection connection)
 	{
 		this.connection = connection;
 	}
@@ -70,28 +108,16 @@ public class MetaDataStore
 	{
 		if (name == null)
 			return null;
+		SchemaSnapshot.Table table = connection.getSchemaTable(name);
 		TableKeyMetaData res = tables.get(name.toUpperCase());
-		if (res == null)
+		if (res == null || res.table != table)
 		{
-			res = initTable(name);
+			res = new TableKeyMetaData(name, table);
 			tables.put(name.toUpperCase(), res);
 		}
 		return res;
 	}
 
-	private TableKeyMetaData initTable(String name) throws SQLException
-	{
-		TableKeyMetaData table = new TableKeyMetaData(name);
-		try (ResultSet rs = connection.getMetaData().getPrimaryKeys(null, null, name))
-		{
-			while (rs.next())
-			{
-				table.keyColumns.add(rs.getString("COLUMN_NAME").toUpperCase());
-			}
-		}
-		return table;
-	}
-
 	void clear()
 	{
 		tables.clear();
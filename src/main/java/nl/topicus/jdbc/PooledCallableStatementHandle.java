@@ -0,0 +1,1610 @@
+package nl.topicus.jdbc;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * A callable statement that is created by a {@link PooledConnectionHandle}.
+ * 
+ * @author loite
+ */
+class PooledCallableStatementHandle extends PooledPreparedStatementHandle<CallableStatement>
+		implements CallableStatement
+{
+	PooledCallableStatementHandle(PooledConnectionHandle connection, CallableStatement st)
+	{
+		super(connection, st);
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException
+	{
+		try
+		{
+			return getDelegate().wasNull();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public String getString(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getString(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBoolean(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public byte getByte(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getByte(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public short getShort(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getShort(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getInt(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getInt(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long getLong(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getLong(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public float getFloat(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getFloat(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public double getDouble(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDouble(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	@Deprecated
+	public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBigDecimal(parameterIndex, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBytes(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Date getDate(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDate(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Time getTime(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTime(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTimestamp(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBigDecimal(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterIndex, map);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Ref getRef(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getRef(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBlob(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getClob(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Array getArray(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getArray(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Date getDate(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDate(parameterIndex, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Time getTime(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTime(parameterIndex, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTimestamp(parameterIndex, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType, typeName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType, typeName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public java.net.URL getURL(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getURL(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setURL(String parameterName, java.net.URL val) throws SQLException
+	{
+		try
+		{
+			getDelegate().setURL(parameterName, val);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNull(String parameterName, int sqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNull(parameterName, sqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBoolean(String parameterName, boolean x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBoolean(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setByte(String parameterName, byte x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setByte(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setShort(String parameterName, short x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setShort(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setInt(String parameterName, int x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setInt(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setLong(String parameterName, long x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setLong(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setFloat(String parameterName, float x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setFloat(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setDouble(String parameterName, double x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setDouble(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBigDecimal(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setString(String parameterName, String x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setString(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBytes(String parameterName, byte[] x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBytes(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setDate(String parameterName, Date x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setDate(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setTime(String parameterName, Time x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTime(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(String parameterName, Timestamp x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTimestamp(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setAsciiStream(parameterName, x, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBinaryStream(parameterName, x, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException
+	{
+		try
+		{
+			getDelegate().setObject(parameterName, x, targetSqlType, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().setObject(parameterName, x, targetSqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setObject(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setCharacterStream(parameterName, reader, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setDate(String parameterName, Date x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			getDelegate().setDate(parameterName, x, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setTime(String parameterName, Time x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTime(parameterName, x, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTimestamp(parameterName, x, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNull(String parameterName, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNull(parameterName, sqlType, typeName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public String getString(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getString(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBoolean(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public byte getByte(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getByte(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public short getShort(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getShort(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getInt(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getInt(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long getLong(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getLong(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public float getFloat(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getFloat(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public double getDouble(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDouble(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBytes(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Date getDate(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDate(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Time getTime(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTime(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTimestamp(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBigDecimal(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterName, map);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Ref getRef(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getRef(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getBlob(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getClob(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Array getArray(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getArray(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Date getDate(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getDate(parameterName, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Time getTime(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTime(parameterName, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTimestamp(parameterName, cal);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public java.net.URL getURL(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getURL(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getRowId(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getRowId(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setRowId(String parameterName, RowId x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setRowId(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNString(String parameterName, String value) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNString(parameterName, value);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNCharacterStream(parameterName, value, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, NClob value) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNClob(parameterName, value);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setClob(parameterName, reader, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBlob(parameterName, inputStream, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNClob(parameterName, reader, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNClob(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNClob(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException
+	{
+		try
+		{
+			getDelegate().setSQLXML(parameterName, xmlObject);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getSQLXML(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getSQLXML(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public String getNString(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNString(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public String getNString(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNString(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNCharacterStream(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNCharacterStream(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getCharacterStream(parameterIndex);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(String parameterName) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getCharacterStream(parameterName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, Blob x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBlob(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Clob x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setClob(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setAsciiStream(parameterName, x, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBinaryStream(parameterName, x, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			getDelegate().setCharacterStream(parameterName, reader, length);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setAsciiStream(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBinaryStream(parameterName, x);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			getDelegate().setCharacterStream(parameterName, reader);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(String parameterName, Reader value) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNCharacterStream(parameterName, value);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			getDelegate().setClob(parameterName, reader);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, InputStream inputStream) throws SQLException
+	{
+		try
+		{
+			getDelegate().setBlob(parameterName, inputStream);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNClob(parameterName, reader);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterIndex, type);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(String parameterName, Class<T> type) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getObject(parameterName, type);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException
+	{
+		try
+		{
+			getDelegate().setObject(parameterName, x, targetSqlType, scaleOrLength);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, SQLType targetSqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().setObject(parameterName, x, targetSqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, SQLType sqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, SQLType sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, SQLType sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterIndex, sqlType, typeName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, SQLType sqlType) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, SQLType sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType, scale);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, SQLType sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			getDelegate().registerOutParameter(parameterName, sqlType, typeName);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+}
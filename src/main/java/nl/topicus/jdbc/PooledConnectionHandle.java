@@ -0,0 +1,1097 @@
+package nl.topicus.jdbc;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.transaction.MutationLimitPolicy;
+import nl.topicus.jdbc.transaction.TransactionRetryMetrics;
+
+/**
+ * The connection that {@link CloudSpannerPooledConnection} hands out to a
+ * client. All calls are delegated to the physical connection, except for
+ * {@link #close()}, which returns the physical connection to the pool instead
+ * of closing it. {@link SQLException}s that are thrown by the physical
+ * connection are reported to the listeners of the pooled connection if they
+ * are fatal. Statements that are created by this connection are wrapped in the
+ * same way, so that {@link Statement#getConnection()} returns this handle
+ * instead of the physical connection.
+ * 
+ * @author loite
+ */
+class PooledConnectionHandle implements ICloudSpannerConnection
+{
+	private final CloudSpannerPooledConnection pooledConnection;
+
+	private Connection con;
+
+	private boolean automatic = false;
+
+	PooledConnectionHandle(CloudSpannerPooledConnection pooledConnection, Connection con)
+	{
+		this.pooledConnection = pooledConnection;
+		this.con = con;
+	}
+
+	private Connection getDelegate() throws SQLException
+	{
+		Connection res = con;
+		if (res == null || res.isClosed())
+		{
+			throw new CloudSpannerSQLException(automatic
+					? "Connection has been closed automatically because a new connection was opened for the same PooledConnection or the PooledConnection has been closed."
+					: "Connection has been closed.", Code.FAILED_PRECONDITION);
+		}
+		return res;
+	}
+
+	private ICloudSpannerConnection getCloudSpannerDelegate() throws SQLException
+	{
+		return (ICloudSpannerConnection) getDelegate();
+	}
+
+	/**
+	 * Used for the methods of {@link ICloudSpannerConnection} that do not
+	 * declare any checked exceptions
+	 */
+	private ICloudSpannerConnection getUncheckedCloudSpannerDelegate()
+	{
+		try
+		{
+			return getCloudSpannerDelegate();
+		}
+		catch (SQLException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Tells the listeners of the pooled connection about the exception if it
+	 * is fatal
+	 */
+	<E extends SQLException> E connectionError(E e)
+	{
+		pooledConnection.fireConnectionError(e);
+		return e;
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException
+	{
+		return con == null || con.isClosed();
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		// we are already closed and a double close
+		// is not an error.
+		if (con == null)
+			return;
+
+		SQLException ex = null;
+		if (!con.isClosed())
+		{
+			if (!pooledConnection.isXA() && !con.getAutoCommit())
+			{
+				try
+				{
+					con.rollback();
+				}
+				catch (SQLException e)
+				{
+					ex = e;
+				}
+			}
+			con.clearWarnings();
+		}
+		con = null;
+		pooledConnection.handleClosed();
+		if (ex != null)
+			throw ex;
+	}
+
+	/**
+	 * Closes this handle without closing the physical connection, because a
+	 * new handle was requested or the pooled connection was closed. No close
+	 * event is fired: see JDBC 2.0 Optional Package spec section 6.3
+	 */
+	void invalidate()
+	{
+		if (con != null)
+			automatic = true;
+		con = null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Pooled connection wrapping physical connection " + con;
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException
+	{
+		try
+		{
+			return new PooledStatementHandle<>(this, getDelegate().createStatement());
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this, getDelegate().prepareStatement(sql));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatementHandle(this, getDelegate().prepareCall(sql));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException
+	{
+		try
+		{
+			return getDelegate().nativeSQL(sql);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException
+	{
+		try
+		{
+			getDelegate().setAutoCommit(autoCommit);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getAutoCommit();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void commit() throws SQLException
+	{
+		try
+		{
+			getDelegate().commit();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void rollback() throws SQLException
+	{
+		try
+		{
+			getDelegate().rollback();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getMetaData();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException
+	{
+		try
+		{
+			getDelegate().setReadOnly(readOnly);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException
+	{
+		try
+		{
+			return getDelegate().isReadOnly();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException
+	{
+		try
+		{
+			getDelegate().setCatalog(catalog);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public String getCatalog() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getCatalog();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTransactionIsolation(level);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTransactionIsolation();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getWarnings();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		try
+		{
+			getDelegate().clearWarnings();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		try
+		{
+			return new PooledStatementHandle<>(this,
+					getDelegate().createStatement(resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+			throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this,
+					getDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatementHandle(this,
+					getDelegate().prepareCall(sql, resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getTypeMap();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			getDelegate().setTypeMap(map);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException
+	{
+		try
+		{
+			getDelegate().setHoldability(holdability);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public int getHoldability() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getHoldability();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException
+	{
+		try
+		{
+			return getDelegate().setSavepoint();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException
+	{
+		try
+		{
+			return getDelegate().setSavepoint(name);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException
+	{
+		try
+		{
+			getDelegate().rollback(savepoint);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException
+	{
+		try
+		{
+			getDelegate().releaseSavepoint(savepoint);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+			throws SQLException
+	{
+		try
+		{
+			return new PooledStatementHandle<>(this,
+					getDelegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+			int resultSetHoldability) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this,
+					getDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+			int resultSetHoldability) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatementHandle(this,
+					getDelegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this, getDelegate().prepareStatement(sql, autoGeneratedKeys));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this, getDelegate().prepareStatement(sql, columnIndexes));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatementHandle<>(this, getDelegate().prepareStatement(sql, columnNames));
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Clob createClob() throws SQLException
+	{
+		try
+		{
+			return getDelegate().createClob();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException
+	{
+		try
+		{
+			return getDelegate().createBlob();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException
+	{
+		try
+		{
+			return getDelegate().createNClob();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException
+	{
+		try
+		{
+			return getDelegate().createSQLXML();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException
+	{
+		try
+		{
+			return getDelegate().isValid(timeout);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException
+	{
+		try
+		{
+			getDelegate().setClientInfo(name, value);
+		}
+		catch (SQLClientInfoException e)
+		{
+			throw connectionError(e);
+		}
+		catch (SQLException e)
+		{
+			// the connection has been closed
+			throw new SQLClientInfoException(e.getMessage(), e.getSQLState(), e.getErrorCode(), null, e);
+		}
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException
+	{
+		try
+		{
+			getDelegate().setClientInfo(properties);
+		}
+		catch (SQLClientInfoException e)
+		{
+			throw connectionError(e);
+		}
+		catch (SQLException e)
+		{
+			// the connection has been closed
+			throw new SQLClientInfoException(e.getMessage(), e.getSQLState(), e.getErrorCode(), null, e);
+		}
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getClientInfo(name);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getClientInfo();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException
+	{
+		try
+		{
+			return getDelegate().createArrayOf(typeName, elements);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException
+	{
+		try
+		{
+			return getDelegate().createStruct(typeName, attributes);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException
+	{
+		try
+		{
+			getDelegate().setSchema(schema);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public String getSchema() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getSchema();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void abort(Executor executor) throws SQLException
+	{
+		try
+		{
+			getDelegate().abort(executor);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException
+	{
+		try
+		{
+			getDelegate().setNetworkTimeout(executor, milliseconds);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getNetworkTimeout();
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		try
+		{
+			return getDelegate().unwrap(iface);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		try
+		{
+			return getDelegate().isWrapperFor(iface);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public String getUrl()
+	{
+		return getUncheckedCloudSpannerDelegate().getUrl();
+	}
+
+	@Override
+	public String getProductName()
+	{
+		return getUncheckedCloudSpannerDelegate().getProductName();
+	}
+
+	@Override
+	public void setSimulateProductName(String productName)
+	{
+		getUncheckedCloudSpannerDelegate().setSimulateProductName(productName);
+	}
+
+	@Override
+	public void setSimulateMajorVersion(Integer majorVersion)
+	{
+		getUncheckedCloudSpannerDelegate().setSimulateMajorVersion(majorVersion);
+	}
+
+	@Override
+	public void setSimulateMinorVersion(Integer minorVersion)
+	{
+		getUncheckedCloudSpannerDelegate().setSimulateMinorVersion(minorVersion);
+	}
+
+	@Override
+	public Properties getSuppliedProperties()
+	{
+		return getUncheckedCloudSpannerDelegate().getSuppliedProperties();
+	}
+
+	@Override
+	public boolean isAllowExtendedMode()
+	{
+		return getUncheckedCloudSpannerDelegate().isAllowExtendedMode();
+	}
+
+	@Override
+	public int setAllowExtendedMode(boolean allowExtendedMode)
+	{
+		return getUncheckedCloudSpannerDelegate().setAllowExtendedMode(allowExtendedMode);
+	}
+
+	@Override
+	public boolean isAsyncDdlOperations()
+	{
+		return getUncheckedCloudSpannerDelegate().isAsyncDdlOperations();
+	}
+
+	@Override
+	public int setAsyncDdlOperations(boolean asyncDdlOperations)
+	{
+		return getUncheckedCloudSpannerDelegate().setAsyncDdlOperations(asyncDdlOperations);
+	}
+
+	@Override
+	public boolean isAutoBatchDdlOperations()
+	{
+		return getUncheckedCloudSpannerDelegate().isAutoBatchDdlOperations();
+	}
+
+	@Override
+	public int setAutoBatchDdlOperations(boolean autoBatchDdlOperations)
+	{
+		return getUncheckedCloudSpannerDelegate().setAutoBatchDdlOperations(autoBatchDdlOperations);
+	}
+
+	@Override
+	public boolean isReportDefaultSchemaAsNull()
+	{
+		return getUncheckedCloudSpannerDelegate().isReportDefaultSchemaAsNull();
+	}
+
+	@Override
+	public int setReportDefaultSchemaAsNull(boolean reportDefaultSchemaAsNull)
+	{
+		return getUncheckedCloudSpannerDelegate().setReportDefaultSchemaAsNull(reportDefaultSchemaAsNull);
+	}
+
+	@Override
+	public boolean isCoalesceMutations()
+	{
+		return getUncheckedCloudSpannerDelegate().isCoalesceMutations();
+	}
+
+	@Override
+	public int setCoalesceMutations(boolean coalesceMutations)
+	{
+		return getUncheckedCloudSpannerDelegate().setCoalesceMutations(coalesceMutations);
+	}
+
+	@Override
+	public boolean isPrefetchRows()
+	{
+		return getUncheckedCloudSpannerDelegate().isPrefetchRows();
+	}
+
+	@Override
+	public int setPrefetchRows(boolean prefetchRows)
+	{
+		return getUncheckedCloudSpannerDelegate().setPrefetchRows(prefetchRows);
+	}
+
+	@Override
+	public boolean isCachedDatabaseMetaData()
+	{
+		return getUncheckedCloudSpannerDelegate().isCachedDatabaseMetaData();
+	}
+
+	@Override
+	public int setCachedDatabaseMetaData(boolean cachedDatabaseMetaData)
+	{
+		return getUncheckedCloudSpannerDelegate().setCachedDatabaseMetaData(cachedDatabaseMetaData);
+	}
+
+	@Override
+	public String getClientId()
+	{
+		return getUncheckedCloudSpannerDelegate().getClientId();
+	}
+
+	@Override
+	public Timestamp getLastCommitTimestamp()
+	{
+		return getUncheckedCloudSpannerDelegate().getLastCommitTimestamp();
+	}
+
+	@Override
+	public Timestamp getReadTimestamp()
+	{
+		return getUncheckedCloudSpannerDelegate().getReadTimestamp();
+	}
+
+	@Override
+	public TransactionRetryMetrics getTransactionRetryMetrics()
+	{
+		return getUncheckedCloudSpannerDelegate().getTransactionRetryMetrics();
+	}
+
+	@Override
+	public TimestampBound getReadStaleness()
+	{
+		return getUncheckedCloudSpannerDelegate().getReadStaleness();
+	}
+
+	@Override
+	public int setReadStaleness(TimestampBound readStaleness) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().setReadStaleness(readStaleness);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public int getBatchReadOnlyParallelism()
+	{
+		return getUncheckedCloudSpannerDelegate().getBatchReadOnlyParallelism();
+	}
+
+	@Override
+	public int setBatchReadOnlyParallelism(int parallelism) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().setBatchReadOnlyParallelism(parallelism);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public MutationLimitPolicy getMutationLimitPolicy()
+	{
+		return getUncheckedCloudSpannerDelegate().getMutationLimitPolicy();
+	}
+
+	@Override
+	public int setMutationLimitPolicy(MutationLimitPolicy policy) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().setMutationLimitPolicy(policy);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public List<String> createPartitionTokens(String sql) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().createPartitionTokens(sql);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public ResultSet executePartitionToken(String token) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().executePartitionToken(token);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+	@Override
+	public boolean isBatchReadOnly()
+	{
+		return getUncheckedCloudSpannerDelegate().isBatchReadOnly();
+	}
+
+	@Override
+	public int setBatchReadOnly(boolean batchReadOnly) throws SQLException
+	{
+		try
+		{
+			return getCloudSpannerDelegate().setBatchReadOnly(batchReadOnly);
+		}
+		catch (SQLException e)
+		{
+			throw connectionError(e);
+		}
+	}
+
+}
@@ -0,0 +1,720 @@
+package nl.topicus.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * A statement that is created by a {@link PooledConnectionHandle}. All calls
+ * are delegated to the physical statement, except for
+ * {@link #getConnection()}, which returns the connection handle instead of the
+ * physical connection. {@link SQLException}s that are thrown by the physical
+ * statement are reported to the listeners of the pooled connection if they
+ * are fatal.
+ * 
+ * @author loite
+ *
+ * @param <S>
+ *            The type of the physical statement
+ */
+class PooledStatementHandle<S extends Statement> implements Statement
+{
+	private PooledConnectionHandle connection;
+
+	private S st;
+
+	PooledStatementHandle(PooledConnectionHandle connection, S st)
+	{
+		this.connection = connection;
+		this.st = st;
+	}
+
+	S getDelegate() throws SQLException
+	{
+		S res = st;
+		if (res == null || res.isClosed())
+			throw new CloudSpannerSQLException("Statement has been closed.", Code.FAILED_PRECONDITION);
+		return res;
+	}
+
+	<E extends SQLException> E statementError(E e)
+	{
+		PooledConnectionHandle res = connection;
+		return res == null ? e : res.connectionError(e);
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException
+	{
+		return st == null || st.isClosed();
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		if (st == null || st.isClosed())
+			return;
+		connection = null;
+		final S oldSt = st;
+		st = null;
+		oldSt.close();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		getDelegate();
+		// the connection handle, not the physical connection
+		return connection;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Pooled statement wrapping physical statement " + st;
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeQuery(sql);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeUpdate(sql);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getMaxFieldSize();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException
+	{
+		try
+		{
+			getDelegate().setMaxFieldSize(max);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getMaxRows();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException
+	{
+		try
+		{
+			getDelegate().setMaxRows(max);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException
+	{
+		try
+		{
+			getDelegate().setEscapeProcessing(enable);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getQueryTimeout();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException
+	{
+		try
+		{
+			getDelegate().setQueryTimeout(seconds);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void cancel() throws SQLException
+	{
+		try
+		{
+			getDelegate().cancel();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getWarnings();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException
+	{
+		try
+		{
+			getDelegate().clearWarnings();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException
+	{
+		try
+		{
+			getDelegate().setCursorName(name);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException
+	{
+		try
+		{
+			return getDelegate().execute(sql);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getResultSet();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getUpdateCount();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getMoreResults();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException
+	{
+		try
+		{
+			getDelegate().setFetchDirection(direction);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getFetchDirection();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException
+	{
+		try
+		{
+			getDelegate().setFetchSize(rows);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getFetchSize();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getResultSetConcurrency();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getResultSetType();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException
+	{
+		try
+		{
+			getDelegate().addBatch(sql);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void clearBatch() throws SQLException
+	{
+		try
+		{
+			getDelegate().clearBatch();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeBatch();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException
+	{
+		try
+		{
+			return getDelegate().getMoreResults(current);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getGeneratedKeys();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeUpdate(sql, autoGeneratedKeys);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeUpdate(sql, columnIndexes);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeUpdate(sql, columnNames);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return getDelegate().execute(sql, autoGeneratedKeys);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return getDelegate().execute(sql, columnIndexes);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return getDelegate().execute(sql, columnNames);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getResultSetHoldability();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException
+	{
+		try
+		{
+			getDelegate().setPoolable(poolable);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException
+	{
+		try
+		{
+			return getDelegate().isPoolable();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException
+	{
+		try
+		{
+			getDelegate().closeOnCompletion();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException
+	{
+		try
+		{
+			return getDelegate().isCloseOnCompletion();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getLargeUpdateCount();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException
+	{
+		try
+		{
+			getDelegate().setLargeMaxRows(max);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException
+	{
+		try
+		{
+			return getDelegate().getLargeMaxRows();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeLargeBatch();
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeLargeUpdate(sql);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeLargeUpdate(sql, autoGeneratedKeys);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeLargeUpdate(sql, columnIndexes);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return getDelegate().executeLargeUpdate(sql, columnNames);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		try
+		{
+			return getDelegate().unwrap(iface);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		try
+		{
+			return getDelegate().isWrapperFor(iface);
+		}
+		catch (SQLException e)
+		{
+			throw statementError(e);
+		}
+	}
+
+}
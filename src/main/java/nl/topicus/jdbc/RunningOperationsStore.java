@@ -4,10 +4,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.Operation;
 import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.Type;
 import com.google.cloud.spanner.Type.StructField;
@@ -21,20 +29,57 @@ import nl.topicus.jdbc.statement.CloudSpannerStatement;
 
 /**
  * This class maintains a list of all long running (DDL-)operations of a
- * connection.
- * 
+ * connection. The status of each operation is polled in the background on a
+ * scheduler that is shared by all connections, starting with a short interval
+ * that is doubled after each poll up to a maximum. Each operation has a future
+ * that is completed as soon as the operation has finished.
+ *
  * @author loite
  *
  */
 class RunningOperationsStore
 {
+	static final long INITIAL_POLL_DELAY_MILLIS = 100L;
+
+	static final long MAX_POLL_DELAY_MILLIS = 1000L;
+
+	private static final int POLLER_THREADS = 4;
+
+	/**
+	 * Holder of the shared scheduler, so that the threads are only created
+	 * when the first asynchronous DDL-operation is added
+	 */
+	private static final class Poller
+	{
+		private static final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(POLLER_THREADS,
+				r ->
+				{
+					Thread thread = new Thread(r,
+							"Google Cloud Spanner JDBC DDL Operation Poller-" + threadNumber.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		private Poller()
+		{
+		}
+	}
+
 	private static final class DdlOperation
 	{
 		private final Timestamp timeStarted;
 
 		private final List<String> sql;
 
-		private Operation<Void, UpdateDatabaseDdlMetadata> operation;
+		private volatile Operation<Void, UpdateDatabaseDdlMetadata> operation;
+
+		private final CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> done = new CompletableFuture<>();
+
+		private long pollDelay = INITIAL_POLL_DELAY_MILLIS;
+
+		private ScheduledFuture<?> nextPoll;
 
 		private DdlOperation(Timestamp timeStarted, List<String> sql,
 				Operation<Void, UpdateDatabaseDdlMetadata> operation)
@@ -44,6 +89,53 @@ class RunningOperationsStore
 			this.operation = operation;
 		}
 
+		/**
+		 * Reloads the status of the operation and completes the future of the
+		 * operation if it has finished. A retryable failure to reload the
+		 * status is ignored, so that the status is reloaded again at the next
+		 * poll. Any other failure completes the future exceptionally.
+		 */
+		private synchronized void refresh()
+		{
+			if (done.isDone())
+				return;
+			try
+			{
+				operation = operation.reload();
+				if (operation.isDone())
+					done.complete(operation);
+			}
+			catch (SpannerException e)
+			{
+				if (!e.isRetryable())
+					done.completeExceptionally(e);
+			}
+			catch (RuntimeException e)
+			{
+				done.completeExceptionally(e);
+			}
+		}
+
+		private void poll()
+		{
+			refresh();
+			schedulePoll();
+		}
+
+		private synchronized void schedulePoll()
+		{
+			if (done.isDone())
+				return;
+			nextPoll = Poller.SCHEDULER.schedule(this::poll, pollDelay, TimeUnit.MILLISECONDS);
+			pollDelay = Math.min(pollDelay * 2, MAX_POLL_DELAY_MILLIS);
+		}
+
+		private synchronized void cancel()
+		{
+			if (nextPoll != null)
+				nextPoll.cancel(false);
+			done.cancel(false);
+		}
 	}
 
 	private List<DdlOperation> operations = new ArrayList<>();
@@ -52,19 +144,63 @@ class RunningOperationsStore
 	{
 	}
 
-	void addOperation(List<String> sql, Operation<Void, UpdateDatabaseDdlMetadata> operation)
+	/**
+	 * Adds an operation to this store and starts polling its status
+	 *
+	 * @param sql
+	 *            The DDL-statements of the operation
+	 * @param operation
+	 *            The operation that was returned by Cloud Spanner
+	 * @return A future that is completed with the finished operation when the
+	 *         operation is done, or completed exceptionally if the status of
+	 *         the operation could not be retrieved
+	 */
+	CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> addOperation(List<String> sql,
+			Operation<Void, UpdateDatabaseDdlMetadata> operation)
 	{
-		operations.add(new DdlOperation(Timestamp.now(), sql, operation));
+		DdlOperation op = new DdlOperation(Timestamp.now(), sql, operation);
+		operations.add(op);
+		if (operation.isDone())
+			op.done.complete(operation);
+		else
+			op.schedulePoll();
+		return op.done;
+	}
+
+	/**
+	 * Refreshes the status of all unfinished operations in parallel
+	 */
+	private void refresh()
+	{
+		List<DdlOperation> pending = new ArrayList<>(operations.size());
+		for (DdlOperation op : operations)
+		{
+			if (!op.done.isDone())
+				pending.add(op);
+		}
+		if (pending.size() == 1)
+		{
+			pending.get(0).refresh();
+		}
+		else if (!pending.isEmpty())
+		{
+			CompletableFuture<?>[] refreshes = new CompletableFuture<?>[pending.size()];
+			for (int index = 0; index < refreshes.length; index++)
+			{
+				refreshes[index] = CompletableFuture.runAsync(pending.get(index)::refresh, Poller.SCHEDULER);
+			}
+			CompletableFuture.allOf(refreshes).join();
+		}
 	}
 
 	int clearFinishedOperations()
 	{
+		refresh();
 		int count = 0;
 		int index = 0;
 		while (index < operations.size())
 		{
 			DdlOperation op = operations.get(index);
-			op.operation = op.operation.reload();
 			if (op.operation.isDone())
 			{
 				operations.remove(index);
@@ -80,42 +216,61 @@ class RunningOperationsStore
 
 	void waitForOperations() throws SQLException
 	{
-		boolean finished = false;
-		while (!finished)
+		for (DdlOperation op : new ArrayList<>(operations))
 		{
-			finished = true;
-			for (DdlOperation op : operations)
-			{
-				op.operation = op.operation.reload();
-				if (!op.operation.isDone())
-				{
-					finished = false;
-					break;
-				}
-			}
 			try
 			{
-				Thread.sleep(1000l);
+				op.done.get();
 			}
 			catch (InterruptedException e)
 			{
 				Thread.currentThread().interrupt();
 				throw new CloudSpannerSQLException("Wait for DDL-operations interrupted", Code.CANCELLED, e);
 			}
+			catch (ExecutionException e)
+			{
+				String message = "Could not get the status of DDL-operation " + op.operation.getName() + ": "
+						+ e.getCause().getMessage();
+				if (e.getCause() instanceof SpannerException)
+					throw new CloudSpannerSQLException(message, (SpannerException) e.getCause());
+				throw new CloudSpannerSQLException(message, Code.UNKNOWN, e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Stops polling the status of the operations in this store and removes
+	 * all operations, including operations that are still running on Cloud
+	 * Spanner
+	 */
+	void clear()
+	{
+		close();
+		operations.clear();
+	}
+
+	/**
+	 * Stops polling the status of the operations in this store
+	 */
+	void close()
+	{
+		for (DdlOperation op : operations)
+		{
+			op.cancel();
 		}
 	}
 
 	/**
-	 * 
+	 *
 	 * @return A result set of all DDL operations that have been issued on this
 	 *         connection since the last clear operation.
 	 */
 	ResultSet getOperations(CloudSpannerStatement statement)
 	{
+		refresh();
 		List<Struct> rows = new ArrayList<>(operations.size());
 		for (DdlOperation op : operations)
 		{
-			op.operation = op.operation.reload();
 			String exception = null;
 			try
 			{
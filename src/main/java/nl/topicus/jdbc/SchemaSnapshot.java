@@ -0,0 +1,424 @@
+package nl.topicus.jdbc;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the schema of a Cloud Spanner database: the tables,
+ * their columns, primary keys, secondary indices and interleaving. A snapshot
+ * is loaded in bulk with three INFORMATION_SCHEMA queries and is shared by all
+ * connections of the driver to the same database, see
+ * {@link SchemaSnapshotCache}. All names are matched case-insensitively.
+ *
+ * @author loite
+ *
+ */
+public final class SchemaSnapshot
+{
+	private static final String PRIMARY_KEY_INDEX = "PRIMARY_KEY";
+
+	/**
+	 * The default schema is the only schema that contains user tables
+	 */
+	private static final String DEFAULT_SCHEMA = "";
+
+	/**
+	 * The value of DELETE_RULE in {@link DatabaseMetaData#getImportedKeys}
+	 * for interleaved tables with ON DELETE CASCADE
+	 */
+	private static final int DELETE_RULE_CASCADE = DatabaseMetaData.importedKeyCascade;
+
+	/**
+	 * A column of a table
+	 */
+	public static final class Column
+	{
+		private final String name;
+
+		private final int dataType;
+
+		private final String typeName;
+
+		private final int columnSize;
+
+		private final int nullable;
+
+		private Column(String name, int dataType, String typeName, int columnSize, int nullable)
+		{
+			this.name = name;
+			this.dataType = dataType;
+			this.typeName = typeName;
+			this.columnSize = columnSize;
+			this.nullable = nullable;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 *
+		 * @return The type of the column as defined in {@link java.sql.Types}
+		 */
+		public int getDataType()
+		{
+			return dataType;
+		}
+
+		/**
+		 *
+		 * @return The Cloud Spanner type of the column, for example
+		 *         STRING(100)
+		 */
+		public String getTypeName()
+		{
+			return typeName;
+		}
+
+		/**
+		 *
+		 * @return The maximum length of a STRING or BYTES column, or 0 if the
+		 *         column has no maximum length
+		 */
+		public int getColumnSize()
+		{
+			return columnSize;
+		}
+
+		/**
+		 *
+		 * @return One of the nullability constants of
+		 *         {@link DatabaseMetaData}
+		 */
+		public int getNullable()
+		{
+			return nullable;
+		}
+	}
+
+	/**
+	 * A column of an index
+	 */
+	public static final class IndexColumn
+	{
+		private final String name;
+
+		private final Integer ordinalPosition;
+
+		private final String ordering;
+
+		private IndexColumn(String name, Integer ordinalPosition, String ordering)
+		{
+			this.name = name;
+			this.ordinalPosition = ordinalPosition;
+			this.ordering = ordering;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 *
+		 * @return The position of the column in the index key, or null if
+		 *         this is a storing column
+		 */
+		public Integer getOrdinalPosition()
+		{
+			return ordinalPosition;
+		}
+
+		/**
+		 *
+		 * @return A for ascending or D for descending key columns, or null if
+		 *         this is a storing column
+		 */
+		public String getOrdering()
+		{
+			return ordering;
+		}
+	}
+
+	/**
+	 * An index of a table, including the primary key
+	 */
+	public static final class Index
+	{
+		private final String name;
+
+		private final boolean unique;
+
+		private final List<IndexColumn> columns = new ArrayList<>();
+
+		private Index(String name, boolean unique)
+		{
+			this.name = name;
+			this.unique = unique;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public boolean isUnique()
+		{
+			return unique;
+		}
+
+		public boolean isPrimaryKey()
+		{
+			return PRIMARY_KEY_INDEX.equalsIgnoreCase(name);
+		}
+
+		/**
+		 *
+		 * @return The key and storing columns of the index
+		 */
+		public List<IndexColumn> getColumns()
+		{
+			return Collections.unmodifiableList(columns);
+		}
+	}
+
+	/**
+	 * A table with its columns, primary key, secondary indices and parent
+	 * table
+	 */
+	public static final class Table
+	{
+		private final String name;
+
+		private final Map<String, Column> columns = new LinkedHashMap<>();
+
+		private final List<String> keyColumns = new ArrayList<>(2);
+
+		private final Map<String, List<String>> indices = new LinkedHashMap<>();
+
+		private final Map<String, Index> indexInfo = new LinkedHashMap<>();
+
+		private int numberOfIndexColumns;
+
+		private String parentTable;
+
+		private boolean cascadeOnDelete;
+
+		private Table(String name)
+		{
+			this.name = name;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 *
+		 * @return The columns of the table in ordinal order
+		 */
+		public Collection<Column> getColumns()
+		{
+			return Collections.unmodifiableCollection(columns.values());
+		}
+
+		/**
+		 *
+		 * @param name
+		 *            The name of the column
+		 * @return The column with the given name, or null if the table does
+		 *         not contain a column with that name
+		 */
+		public Column getColumn(String name)
+		{
+			return name == null ? null : columns.get(name.toUpperCase());
+		}
+
+		/**
+		 *
+		 * @return The primary key columns of the table in upper case and in
+		 *         key order
+		 */
+		public List<String> getKeyColumns()
+		{
+			return Collections.unmodifiableList(keyColumns);
+		}
+
+		/**
+		 *
+		 * @return The columns (both key and storing columns) of each secondary
+		 *         index of the table in upper case by index name
+		 */
+		public Map<String, List<String>> getIndices()
+		{
+			return Collections.unmodifiableMap(indices);
+		}
+
+		/**
+		 *
+		 * @return All indices of the table, including the primary key
+		 */
+		public Collection<Index> getIndexInfo()
+		{
+			return Collections.unmodifiableCollection(indexInfo.values());
+		}
+
+		/**
+		 *
+		 * @return The total number of columns of all indices of the table,
+		 *         including the primary key
+		 */
+		public int getNumberOfIndexColumns()
+		{
+			return numberOfIndexColumns;
+		}
+
+		/**
+		 *
+		 * @return The name of the table that this table is interleaved in, or
+		 *         null if this table is not interleaved
+		 */
+		public String getParentTable()
+		{
+			return parentTable;
+		}
+
+		/**
+		 *
+		 * @return true if this table is interleaved with ON DELETE CASCADE
+		 */
+		public boolean isCascadeOnDelete()
+		{
+			return cascadeOnDelete;
+		}
+	}
+
+	private final Map<String, Table> tables;
+
+	private final long loadedAt;
+
+	private SchemaSnapshot(Map<String, Table> tables)
+	{
+		this.tables = tables;
+		this.loadedAt = System.nanoTime();
+	}
+
+	/**
+	 * Loads a snapshot of the schema of a database
+	 *
+	 * @param metaData
+	 *            The meta data of a connection to the database
+	 * @return The schema snapshot
+	 * @throws SQLException
+	 *             If the meta data of the database could not be read
+	 */
+	public static SchemaSnapshot load(DatabaseMetaData metaData) throws SQLException
+	{
+		Map<String, Table> tables = new LinkedHashMap<>();
+		try (ResultSet rs = metaData.getColumns(null, DEFAULT_SCHEMA, null, null))
+		{
+			while (rs.next())
+			{
+				String tableName = rs.getString("TABLE_NAME");
+				Table table = tables.computeIfAbsent(tableName.toUpperCase(), key -> new Table(tableName));
+				String name = rs.getString("COLUMN_NAME");
+				table.columns.put(name.toUpperCase(), new Column(name, rs.getInt("DATA_TYPE"),
+						rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"), rs.getInt("NULLABLE")));
+			}
+		}
+		loadIndices(metaData, tables);
+		loadInterleaving(metaData, tables);
+		return new SchemaSnapshot(Collections.unmodifiableMap(tables));
+	}
+
+	private static void loadIndices(DatabaseMetaData metaData, Map<String, Table> tables) throws SQLException
+	{
+		Map<Table, Map<Integer, String>> keys = new LinkedHashMap<>();
+		try (ResultSet rs = metaData.getIndexInfo(null, DEFAULT_SCHEMA, null, false, false))
+		{
+			while (rs.next())
+			{
+				Table table = tables.get(rs.getString("TABLE_NAME").toUpperCase());
+				if (table == null)
+					continue;
+				table.numberOfIndexColumns++;
+				String index = rs.getString("INDEX_NAME");
+				String columnName = rs.getString("COLUMN_NAME");
+				String column = columnName.toUpperCase();
+				int ordinalPosition = rs.getInt("ORDINAL_POSITION");
+				Integer position = rs.wasNull() ? null : ordinalPosition;
+				boolean unique = !rs.getBoolean("NON_UNIQUE");
+				table.indexInfo.computeIfAbsent(index, i -> new Index(index, unique)).columns
+						.add(new IndexColumn(columnName, position, rs.getString("ASC_OR_DESC")));
+				if (PRIMARY_KEY_INDEX.equalsIgnoreCase(index))
+					keys.computeIfAbsent(table, t -> new TreeMap<>()).put(ordinalPosition, column);
+				else
+					table.indices.computeIfAbsent(index, i -> new ArrayList<>()).add(column);
+			}
+		}
+		for (Map.Entry<Table, Map<Integer, String>> entry : keys.entrySet())
+		{
+			entry.getKey().keyColumns.addAll(entry.getValue().values());
+		}
+	}
+
+	private static void loadInterleaving(DatabaseMetaData metaData, Map<String, Table> tables) throws SQLException
+	{
+		try (ResultSet rs = metaData.getImportedKeys(null, DEFAULT_SCHEMA, null))
+		{
+			while (rs.next())
+			{
+				Table table = tables.get(rs.getString("FKTABLE_NAME").toUpperCase());
+				if (table != null && table.parentTable == null)
+				{
+					table.parentTable = rs.getString("PKTABLE_NAME");
+					table.cascadeOnDelete = rs.getInt("DELETE_RULE") == DELETE_RULE_CASCADE;
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param name
+	 *            The name of the table
+	 * @return The table with the given name, or null if the database does
+	 *         not contain a table with that name
+	 */
+	public Table getTable(String name)
+	{
+		return name == null ? null : tables.get(name.toUpperCase());
+	}
+
+	/**
+	 *
+	 * @return All tables of the database
+	 */
+	public Collection<Table> getTables()
+	{
+		return tables.values();
+	}
+
+	/**
+	 *
+	 * @param nanos
+	 *            A duration in nanoseconds
+	 * @return true if this snapshot was loaded at least the given duration
+	 *         ago
+	 */
+	boolean isOlderThan(long nanos)
+	{
+		return System.nanoTime() - loadedAt >= nanos;
+	}
+
+}
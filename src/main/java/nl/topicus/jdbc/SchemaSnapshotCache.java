@@ -0,0 +1,112 @@
+package nl.topicus.jdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of {@link SchemaSnapshot}s by database. The driver keeps one cache
+ * that is shared by all its connections. A snapshot is reloaded when it is
+ * older than the time to live of the connection that requests it, and it is
+ * dropped when a DDL statement is executed on the database.
+ *
+ * @author loite
+ *
+ */
+final class SchemaSnapshotCache
+{
+	/**
+	 * The default time to live of a schema snapshot in seconds
+	 */
+	static final int DEFAULT_TTL_SECONDS = 300;
+
+	@FunctionalInterface
+	interface SnapshotLoader
+	{
+		SchemaSnapshot load() throws SQLException;
+	}
+
+	/**
+	 * Holder of the current snapshot of a database. A new holder is registered
+	 * when the snapshot of a database is invalidated, so that a snapshot that
+	 * was being loaded at that moment is not registered afterwards.
+	 */
+	private static final class Entry
+	{
+		private final SchemaSnapshot snapshot;
+
+		private Entry(SchemaSnapshot snapshot)
+		{
+			this.snapshot = snapshot;
+		}
+	}
+
+	private static final Entry EMPTY = new Entry(null);
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the snapshot of the given database, loading it if there is no
+	 * snapshot or if the current snapshot is too old
+	 *
+	 * @param database
+	 *            The name of the database
+	 * @param ttlNanos
+	 *            The maximum age of the snapshot in nanoseconds
+	 * @param loader
+	 *            The loader to use if the snapshot needs to be (re)loaded
+	 * @return The snapshot of the database
+	 * @throws SQLException
+	 *             If the snapshot could not be loaded
+	 */
+	SchemaSnapshot get(String database, long ttlNanos, SnapshotLoader loader) throws SQLException
+	{
+		Entry entry = entries.computeIfAbsent(database, key -> EMPTY);
+		if (entry.snapshot != null && !entry.snapshot.isOlderThan(ttlNanos))
+			return entry.snapshot;
+		return load(database, entry, loader);
+	}
+
+	/**
+	 * Reloads the snapshot of the given database, unless it has already been
+	 * reloaded since the given snapshot was returned
+	 *
+	 * @param database
+	 *            The name of the database
+	 * @param outdated
+	 *            The snapshot that is known to be outdated
+	 * @param loader
+	 *            The loader to use to reload the snapshot
+	 * @return The reloaded snapshot of the database
+	 * @throws SQLException
+	 *             If the snapshot could not be loaded
+	 */
+	SchemaSnapshot reload(String database, SchemaSnapshot outdated, SnapshotLoader loader) throws SQLException
+	{
+		Entry entry = entries.computeIfAbsent(database, key -> EMPTY);
+		if (entry.snapshot != null && entry.snapshot != outdated)
+			return entry.snapshot;
+		return load(database, entry, loader);
+	}
+
+	private SchemaSnapshot load(String database, Entry entry, SnapshotLoader loader) throws SQLException
+	{
+		SchemaSnapshot snapshot = loader.load();
+		// Only register the new snapshot if the database has not been
+		// invalidated while the snapshot was being loaded
+		entries.replace(database, entry, new Entry(snapshot));
+		return snapshot;
+	}
+
+	/**
+	 * Drops the snapshot of the given database
+	 *
+	 * @param database
+	 *            The name of the database
+	 */
+	void invalidate(String database)
+	{
+		entries.put(database, new Entry(null));
+	}
+
+}
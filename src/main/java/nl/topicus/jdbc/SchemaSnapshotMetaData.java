@@ -0,0 +1,367 @@
+package nl.topicus.jdbc;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.cloud.spanner.Value;
+
+import nl.topicus.jdbc.SchemaSnapshot.Index;
+import nl.topicus.jdbc.SchemaSnapshot.IndexColumn;
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * Creates the result sets of {@link CloudSpannerDatabaseMetaData} from a
+ * {@link SchemaSnapshot} instead of querying INFORMATION_SCHEMA. The result
+ * sets contain the same columns in the same order as the result sets of the
+ * INFORMATION_SCHEMA queries. Search patterns are matched in the same way as
+ * by the queries: case-insensitive, with % and _ as wildcards and \ as escape
+ * character. A snapshot only contains the tables in the default schema, so
+ * tables in INFORMATION_SCHEMA and SPANNER_SYS are never returned.
+ *
+ * @author loite
+ *
+ */
+final class SchemaSnapshotMetaData
+{
+	private static final String DEFAULT_CATALOG = "";
+
+	private static final String DEFAULT_SCHEMA = "";
+
+	private static final String TABLE_TYPE = "TABLE";
+
+	private static final String PRIMARY_KEY_NAME = "PRIMARY_KEY";
+
+	private static final List<StructField> TABLES_FIELDS = Arrays.asList(StructField.of("TABLE_CAT", Type.string()),
+			StructField.of("TABLE_SCHEM", Type.string()), StructField.of("TABLE_NAME", Type.string()),
+			StructField.of("TABLE_TYPE", Type.string()), StructField.of("REMARKS", Type.string()),
+			StructField.of("TYPE_CAT", Type.string()), StructField.of("TYPE_SCHEM", Type.string()),
+			StructField.of("TYPE_NAME", Type.string()), StructField.of("SELF_REFERENCING_COL_NAME", Type.string()),
+			StructField.of("REF_GENERATION", Type.string()));
+
+	private static final List<StructField> COLUMNS_FIELDS = Arrays.asList(StructField.of("TABLE_CAT", Type.string()),
+			StructField.of("TABLE_SCHEM", Type.string()), StructField.of("TABLE_NAME", Type.string()),
+			StructField.of("COLUMN_NAME", Type.string()), StructField.of("DATA_TYPE", Type.int64()),
+			StructField.of("TYPE_NAME", Type.string()), StructField.of("COLUMN_SIZE", Type.int64()),
+			StructField.of("BUFFER_LENGTH", Type.int64()), StructField.of("DECIMAL_DIGITS", Type.int64()),
+			StructField.of("NUM_PREC_RADIX", Type.int64()), StructField.of("NULLABLE", Type.int64()),
+			StructField.of("REMARKS", Type.string()), StructField.of("COLUMN_DEF", Type.string()),
+			StructField.of("SQL_DATA_TYPE", Type.int64()), StructField.of("SQL_DATETIME_SUB", Type.int64()),
+			StructField.of("CHAR_OCTET_LENGTH", Type.int64()), StructField.of("ORDINAL_POSITION", Type.int64()),
+			StructField.of("IS_NULLABLE", Type.string()), StructField.of("SCOPE_CATALOG", Type.string()),
+			StructField.of("SCOPE_SCHEMA", Type.string()), StructField.of("SCOPE_TABLE", Type.string()),
+			StructField.of("SOURCE_DATA_TYPE", Type.int64()), StructField.of("IS_AUTOINCREMENT", Type.string()),
+			StructField.of("IS_GENERATEDCOLUMN", Type.string()));
+
+	private static final List<StructField> PRIMARY_KEYS_FIELDS = Arrays.asList(
+			StructField.of("TABLE_CAT", Type.string()), StructField.of("TABLE_SCHEM", Type.string()),
+			StructField.of("TABLE_NAME", Type.string()), StructField.of("COLUMN_NAME", Type.string()),
+			StructField.of("KEY_SEQ", Type.int64()), StructField.of("PK_NAME", Type.string()));
+
+	private static final List<StructField> INDEX_INFO_FIELDS = Arrays.asList(
+			StructField.of("TABLE_CAT", Type.string()), StructField.of("TABLE_SCHEM", Type.string()),
+			StructField.of("TABLE_NAME", Type.string()), StructField.of("NON_UNIQUE", Type.bool()),
+			StructField.of("INDEX_QUALIFIER", Type.string()), StructField.of("INDEX_NAME", Type.string()),
+			StructField.of("TYPE", Type.int64()), StructField.of("ORDINAL_POSITION", Type.int64()),
+			StructField.of("COLUMN_NAME", Type.string()), StructField.of("ASC_OR_DESC", Type.string()),
+			StructField.of("CARDINALITY", Type.int64()), StructField.of("PAGES", Type.int64()),
+			StructField.of("FILTER_CONDITION", Type.string()));
+
+	private static final List<StructField> KEYS_FIELDS = Arrays.asList(StructField.of("PKTABLE_CAT", Type.string()),
+			StructField.of("PKTABLE_SCHEM", Type.string()), StructField.of("PKTABLE_NAME", Type.string()),
+			StructField.of("PKCOLUMN_NAME", Type.string()), StructField.of("FKTABLE_CAT", Type.string()),
+			StructField.of("FKTABLE_SCHEM", Type.string()), StructField.of("FKTABLE_NAME", Type.string()),
+			StructField.of("FKCOLUMN_NAME", Type.string()), StructField.of("KEY_SEQ", Type.int64()),
+			StructField.of("UPDATE_RULE", Type.int64()), StructField.of("DELETE_RULE", Type.int64()),
+			StructField.of("FK_NAME", Type.string()), StructField.of("PK_NAME", Type.string()),
+			StructField.of("DEFERRABILITY", Type.int64()));
+
+	/**
+	 * Orders index columns in the same way as INFORMATION_SCHEMA: storing
+	 * columns (without ordinal position) first
+	 */
+	private static final Comparator<IndexColumn> INDEX_COLUMN_ORDER = Comparator
+			.comparing(IndexColumn::getOrdinalPosition, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final SchemaSnapshot snapshot;
+
+	private final CloudSpannerStatement statement;
+
+	SchemaSnapshotMetaData(SchemaSnapshot snapshot, CloudSpannerStatement statement)
+	{
+		this.snapshot = snapshot;
+		this.statement = statement;
+	}
+
+	/**
+	 * Converts a search pattern to a predicate that matches names in the same
+	 * way as <code>UPPER(name) LIKE UPPER(pattern)</code>
+	 *
+	 * @param pattern
+	 *            The search pattern, or null to match all names
+	 * @return A predicate that returns true for the names that match the
+	 *         pattern
+	 */
+	static Predicate<String> compile(String pattern)
+	{
+		if (pattern == null)
+			return name -> true;
+		String upper = pattern.toUpperCase();
+		if (upper.indexOf('%') == -1 && upper.indexOf('_') == -1 && upper.indexOf('\\') == -1)
+			return name -> name != null && upper.equals(name.toUpperCase());
+		StringBuilder regex = new StringBuilder(upper.length() * 2);
+		for (int index = 0; index < upper.length(); index++)
+		{
+			char c = upper.charAt(index);
+			if (c == '\\' && index + 1 < upper.length())
+			{
+				index++;
+				regex.append(Pattern.quote(String.valueOf(upper.charAt(index))));
+			}
+			else if (c == '%')
+				regex.append(".*");
+			else if (c == '_')
+				regex.append('.');
+			else
+				regex.append(Pattern.quote(String.valueOf(c)));
+		}
+		Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+		return name -> name != null && compiled.matcher(name.toUpperCase()).matches();
+	}
+
+	/**
+	 *
+	 * @param schemaPattern
+	 *            A schema search pattern
+	 * @return true if the default schema matches the given pattern. The meta
+	 *         data of other schemas cannot be served from a snapshot.
+	 */
+	static boolean matchesDefaultSchema(String schemaPattern)
+	{
+		return compile(schemaPattern).test(DEFAULT_SCHEMA);
+	}
+
+	/**
+	 *
+	 * @return The tables of the snapshot in the default catalog and schema
+	 *         that match the given patterns, ordered by name
+	 */
+	private List<SchemaSnapshot.Table> findTables(String catalog, String schemaPattern, String tableNamePattern)
+	{
+		if (!compile(catalog).test(DEFAULT_CATALOG) || !matchesDefaultSchema(schemaPattern))
+			return new ArrayList<>();
+		Predicate<String> tableName = compile(tableNamePattern);
+		return snapshot.getTables().stream().filter(table -> tableName.test(table.getName()))
+				.sorted(Comparator.comparing(SchemaSnapshot.Table::getName)).collect(Collectors.toList());
+	}
+
+	private ResultSet createResultSet(List<StructField> fields, List<Struct> rows)
+	{
+		return new CloudSpannerResultSet(statement, ResultSets.forRows(Type.struct(fields), rows), null);
+	}
+
+	private static Value string(String value)
+	{
+		return Value.string(value);
+	}
+
+	private static Value int64(Integer value)
+	{
+		return Value.int64(value == null ? null : value.longValue());
+	}
+
+	ResultSet getTables(String catalog, String schemaPattern, String tableNamePattern)
+	{
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table table : findTables(catalog, schemaPattern, tableNamePattern))
+		{
+			rows.add(Struct.newBuilder().add("TABLE_CAT", string(null)).add("TABLE_SCHEM", string(null))
+					.add("TABLE_NAME", string(table.getName())).add("TABLE_TYPE", string(TABLE_TYPE))
+					.add("REMARKS", string(null)).add("TYPE_CAT", string(null)).add("TYPE_SCHEM", string(null))
+					.add("TYPE_NAME", string(null)).add("SELF_REFERENCING_COL_NAME", string(null))
+					.add("REF_GENERATION", string(null)).build());
+		}
+		return createResultSet(TABLES_FIELDS, rows);
+	}
+
+	ResultSet getColumns(String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern)
+	{
+		Predicate<String> columnName = compile(columnNamePattern);
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table table : findTables(catalog, schemaPattern, tableNamePattern))
+		{
+			int ordinalPosition = 0;
+			for (SchemaSnapshot.Column column : table.getColumns())
+			{
+				ordinalPosition++;
+				if (!columnName.test(column.getName()))
+					continue;
+				rows.add(Struct.newBuilder().add("TABLE_CAT", string(DEFAULT_CATALOG))
+						.add("TABLE_SCHEM", string(DEFAULT_SCHEMA)).add("TABLE_NAME", string(table.getName()))
+						.add("COLUMN_NAME", string(column.getName())).add("DATA_TYPE", int64(column.getDataType()))
+						.add("TYPE_NAME", string(column.getTypeName()))
+						.add("COLUMN_SIZE", int64(column.getColumnSize())).add("BUFFER_LENGTH", int64(0))
+						.add("DECIMAL_DIGITS", int64(null)).add("NUM_PREC_RADIX", int64(0))
+						.add("NULLABLE", int64(column.getNullable())).add("REMARKS", string(null))
+						.add("COLUMN_DEF", string(null)).add("SQL_DATA_TYPE", int64(0))
+						.add("SQL_DATETIME_SUB", int64(0)).add("CHAR_OCTET_LENGTH", int64(0))
+						.add("ORDINAL_POSITION", int64(ordinalPosition))
+						.add("IS_NULLABLE", string(getIsNullable(column.getNullable())))
+						.add("SCOPE_CATALOG", string(null)).add("SCOPE_SCHEMA", string(null))
+						.add("SCOPE_TABLE", string(null)).add("SOURCE_DATA_TYPE", int64(null))
+						.add("IS_AUTOINCREMENT", string("NO")).add("IS_GENERATEDCOLUMN", string("NO")).build());
+			}
+		}
+		return createResultSet(COLUMNS_FIELDS, rows);
+	}
+
+	private static String getIsNullable(int nullable)
+	{
+		switch (nullable)
+		{
+		case DatabaseMetaData.columnNullable:
+			return "YES";
+		case DatabaseMetaData.columnNoNulls:
+			return "NO";
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 *
+	 * @return The primary key columns of the table with their original names
+	 *         in key order
+	 */
+	private static List<IndexColumn> getPrimaryKeyColumns(SchemaSnapshot.Table table)
+	{
+		for (Index index : table.getIndexInfo())
+		{
+			if (index.isPrimaryKey())
+				return index.getColumns().stream().sorted(INDEX_COLUMN_ORDER).collect(Collectors.toList());
+		}
+		return new ArrayList<>();
+	}
+
+	ResultSet getPrimaryKeys(String catalog, String schema, String tableNamePattern)
+	{
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table table : findTables(catalog, schema, tableNamePattern))
+		{
+			for (IndexColumn column : getPrimaryKeyColumns(table))
+			{
+				rows.add(Struct.newBuilder().add("TABLE_CAT", string(DEFAULT_CATALOG))
+						.add("TABLE_SCHEM", string(DEFAULT_SCHEMA)).add("TABLE_NAME", string(table.getName()))
+						.add("COLUMN_NAME", string(column.getName()))
+						.add("KEY_SEQ", int64(column.getOrdinalPosition())).add("PK_NAME", string(PRIMARY_KEY_NAME))
+						.build());
+			}
+		}
+		// The INFORMATION_SCHEMA query orders by key sequence only
+		rows.sort(Comparator.comparing(row -> row.getLong("KEY_SEQ")));
+		return createResultSet(PRIMARY_KEYS_FIELDS, rows);
+	}
+
+	ResultSet getIndexInfo(String catalog, String schema, String tableNamePattern, String indexNamePattern,
+			boolean unique)
+	{
+		Predicate<String> indexName = compile(indexNamePattern);
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table table : findTables(catalog, schema, tableNamePattern))
+		{
+			for (Index index : table.getIndexInfo())
+			{
+				if ((unique && !index.isUnique()) || !indexName.test(index.getName()))
+					continue;
+				for (IndexColumn column : index.getColumns())
+				{
+					rows.add(Struct.newBuilder().add("TABLE_CAT", string(DEFAULT_CATALOG))
+							.add("TABLE_SCHEM", string(DEFAULT_SCHEMA)).add("TABLE_NAME", string(table.getName()))
+							.add("NON_UNIQUE", Value.bool(!index.isUnique())).add("INDEX_QUALIFIER", string(null))
+							.add("INDEX_NAME", string(index.getName()))
+							.add("TYPE", int64((int) DatabaseMetaData.tableIndexOther))
+							.add("ORDINAL_POSITION", int64(column.getOrdinalPosition()))
+							.add("COLUMN_NAME", string(column.getName()))
+							.add("ASC_OR_DESC", string(column.getOrdering())).add("CARDINALITY", int64(-1))
+							.add("PAGES", int64(-1)).add("FILTER_CONDITION", string(null)).build());
+				}
+			}
+		}
+		// Same order as the INFORMATION_SCHEMA query: IS_UNIQUE, INDEX_NAME,
+		// ORDINAL_POSITION
+		rows.sort(Comparator.comparing((Struct row) -> !row.getBoolean("NON_UNIQUE"))
+				.thenComparing(row -> row.getString("INDEX_NAME"))
+				.thenComparing(row -> row.isNull("ORDINAL_POSITION") ? null : row.getLong("ORDINAL_POSITION"),
+						Comparator.nullsFirst(Comparator.naturalOrder())));
+		return createResultSet(INDEX_INFO_FIELDS, rows);
+	}
+
+	/**
+	 * Adds the rows for the interleaving of the given child table in the given
+	 * parent table
+	 */
+	private static void addKeyRows(List<Struct> rows, SchemaSnapshot.Table parent, SchemaSnapshot.Table child,
+			String catalog, String schema)
+	{
+		int deleteRule = child.isCascadeOnDelete() ? DatabaseMetaData.importedKeyCascade
+				: DatabaseMetaData.importedKeyNoAction;
+		for (IndexColumn column : getPrimaryKeyColumns(parent))
+		{
+			rows.add(Struct.newBuilder().add("PKTABLE_CAT", string(catalog)).add("PKTABLE_SCHEM", string(schema))
+					.add("PKTABLE_NAME", string(parent.getName())).add("PKCOLUMN_NAME", string(column.getName()))
+					.add("FKTABLE_CAT", string(catalog)).add("FKTABLE_SCHEM", string(schema))
+					.add("FKTABLE_NAME", string(child.getName())).add("FKCOLUMN_NAME", string(column.getName()))
+					.add("KEY_SEQ", int64(column.getOrdinalPosition()))
+					.add("UPDATE_RULE", int64(DatabaseMetaData.importedKeyNoAction))
+					.add("DELETE_RULE", int64(deleteRule)).add("FK_NAME", string(null))
+					.add("PK_NAME", string(PRIMARY_KEY_NAME))
+					.add("DEFERRABILITY", int64(DatabaseMetaData.importedKeyNotDeferrable)).build());
+		}
+	}
+
+	ResultSet getImportedKeys(String catalog, String schema, String tableNamePattern)
+	{
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table child : findTables(catalog, schema, tableNamePattern))
+		{
+			SchemaSnapshot.Table parent = snapshot.getTable(child.getParentTable());
+			if (parent != null)
+				addKeyRows(rows, parent, child, DEFAULT_CATALOG, DEFAULT_SCHEMA);
+		}
+		// Same order as the INFORMATION_SCHEMA query: parent table and key
+		// sequence
+		rows.sort(Comparator.comparing((Struct row) -> row.getString("PKTABLE_NAME"))
+				.thenComparing(row -> row.getLong("KEY_SEQ")));
+		return createResultSet(KEYS_FIELDS, rows);
+	}
+
+	ResultSet getExportedKeys(String catalog, String schema, String tableNamePattern)
+	{
+		List<Struct> rows = new ArrayList<>();
+		for (SchemaSnapshot.Table parent : findTables(catalog, schema, tableNamePattern))
+		{
+			for (SchemaSnapshot.Table child : snapshot.getTables())
+			{
+				if (parent.getName().equalsIgnoreCase(child.getParentTable()))
+					addKeyRows(rows, parent, child, null, null);
+			}
+		}
+		// Same order as the INFORMATION_SCHEMA query: child table and key
+		// sequence
+		rows.sort(Comparator.comparing((Struct row) -> row.getString("FKTABLE_NAME"))
+				.thenComparing(row -> row.getLong("KEY_SEQ")));
+		return createResultSet(KEYS_FIELDS, rows);
+	}
+
+}
@@ -0,0 +1,194 @@
+package nl.topicus.jdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.TimestampBound.Mode;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * Converts {@link TimestampBound}s to and from the string representation that
+ * is used for the ReadStaleness connection property and the
+ * SET_READ_STALENESS statement. The following formats are supported:
+ * <ul>
+ * <li>STRONG</li>
+ * <li>MAX_STALENESS &lt;duration&gt;</li>
+ * <li>EXACT_STALENESS &lt;duration&gt;</li>
+ * <li>MIN_READ_TIMESTAMP &lt;timestamp&gt;</li>
+ * <li>READ_TIMESTAMP &lt;timestamp&gt;</li>
+ * </ul>
+ * The mode and the value may be separated by a space, a colon or an equals
+ * sign. A duration is a whole number followed by one of the units ns, us, ms,
+ * s, m or h (for example 10s or 500ms). A duration without a unit is
+ * interpreted as seconds. Timestamps must be specified in RFC 3339 format
+ * (for example 2018-03-01T10:15:00Z).
+ *
+ * @author loite
+ *
+ */
+public final class TimestampBoundParser
+{
+	private static final Pattern BOUND_PATTERN = Pattern.compile("^\\s*(\\w+)(?:[\\s:=]+(.*?))?\\s*$");
+
+	private static final Pattern DURATION_PATTERN = Pattern.compile("^(\\d+)(ns|us|ms|s|m|h)?$",
+			Pattern.CASE_INSENSITIVE);
+
+	private TimestampBoundParser()
+	{
+	}
+
+	/**
+	 *
+	 * @param value
+	 *            The string representation of a timestamp bound. A null or
+	 *            empty value is interpreted as STRONG.
+	 * @return The corresponding {@link TimestampBound}
+	 * @throws SQLException
+	 *             If the value is not a valid timestamp bound
+	 */
+	public static TimestampBound parse(String value) throws SQLException
+	{
+		if (value == null || value.trim().isEmpty())
+			return TimestampBound.strong();
+		Matcher matcher = BOUND_PATTERN.matcher(value);
+		if (!matcher.matches())
+			throw invalid(value);
+		Mode mode;
+		try
+		{
+			mode = Mode.valueOf(matcher.group(1).toUpperCase());
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw invalid(value);
+		}
+		String argument = matcher.group(2);
+		if (mode == Mode.STRONG)
+		{
+			if (argument != null && !argument.isEmpty())
+				throw invalid(value);
+			return TimestampBound.strong();
+		}
+		if (argument == null || argument.isEmpty())
+			throw invalid(value);
+		switch (mode)
+		{
+		case MAX_STALENESS:
+			return TimestampBound.ofMaxStaleness(parseDuration(value, argument), TimeUnit.NANOSECONDS);
+		case EXACT_STALENESS:
+			return TimestampBound.ofExactStaleness(parseDuration(value, argument), TimeUnit.NANOSECONDS);
+		case MIN_READ_TIMESTAMP:
+			return TimestampBound.ofMinReadTimestamp(parseTimestamp(value, argument));
+		case READ_TIMESTAMP:
+			return TimestampBound.ofReadTimestamp(parseTimestamp(value, argument));
+		default:
+			throw invalid(value);
+		}
+	}
+
+	/**
+	 *
+	 * @param bound
+	 *            The timestamp bound to format
+	 * @return A string representation of the timestamp bound that can be
+	 *         parsed by {@link #parse(String)}
+	 */
+	public static String format(TimestampBound bound)
+	{
+		if (bound == null)
+			return Mode.STRONG.name();
+		switch (bound.getMode())
+		{
+		case MAX_STALENESS:
+			return bound.getMode().name() + " " + formatDuration(bound.getMaxStaleness(TimeUnit.NANOSECONDS));
+		case EXACT_STALENESS:
+			return bound.getMode().name() + " " + formatDuration(bound.getExactStaleness(TimeUnit.NANOSECONDS));
+		case MIN_READ_TIMESTAMP:
+			return bound.getMode().name() + " " + bound.getMinReadTimestamp().toString();
+		case READ_TIMESTAMP:
+			return bound.getMode().name() + " " + bound.getReadTimestamp().toString();
+		case STRONG:
+		default:
+			return Mode.STRONG.name();
+		}
+	}
+
+	/**
+	 *
+	 * @param bound
+	 *            The bound to check
+	 * @return true if the given bound may be used for multi-use read-only
+	 *         transactions. Bounded staleness (MAX_STALENESS and
+	 *         MIN_READ_TIMESTAMP) may only be used for single-use reads.
+	 */
+	public static boolean isValidForMultiUse(TimestampBound bound)
+	{
+		return bound.getMode() != Mode.MAX_STALENESS && bound.getMode() != Mode.MIN_READ_TIMESTAMP;
+	}
+
+	private static long parseDuration(String value, String duration) throws SQLException
+	{
+		Matcher matcher = DURATION_PATTERN.matcher(duration);
+		if (!matcher.matches())
+			throw invalid(value);
+		long amount = Long.parseLong(matcher.group(1));
+		String unit = matcher.group(2) == null ? "s" : matcher.group(2).toLowerCase();
+		switch (unit)
+		{
+		case "ns":
+			return amount;
+		case "us":
+			return TimeUnit.MICROSECONDS.toNanos(amount);
+		case "ms":
+			return TimeUnit.MILLISECONDS.toNanos(amount);
+		case "m":
+			return TimeUnit.MINUTES.toNanos(amount);
+		case "h":
+			return TimeUnit.HOURS.toNanos(amount);
+		case "s":
+		default:
+			return TimeUnit.SECONDS.toNanos(amount);
+		}
+	}
+
+	private static String formatDuration(long nanos)
+	{
+		if (nanos % TimeUnit.HOURS.toNanos(1L) == 0L && nanos > 0L)
+			return TimeUnit.NANOSECONDS.toHours(nanos) + "h";
+		if (nanos % TimeUnit.MINUTES.toNanos(1L) == 0L && nanos > 0L)
+			return TimeUnit.NANOSECONDS.toMinutes(nanos) + "m";
+		if (nanos % TimeUnit.SECONDS.toNanos(1L) == 0L)
+			return TimeUnit.NANOSECONDS.toSeconds(nanos) + "s";
+		if (nanos % TimeUnit.MILLISECONDS.toNanos(1L) == 0L)
+			return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+		if (nanos % TimeUnit.MICROSECONDS.toNanos(1L) == 0L)
+			return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+		return nanos + "ns";
+	}
+
+	private static Timestamp parseTimestamp(String value, String timestamp) throws SQLException
+	{
+		try
+		{
+			return Timestamp.parseTimestamp(timestamp);
+		}
+		catch (RuntimeException e)
+		{
+			throw new CloudSpannerSQLException("Invalid timestamp bound: " + value, Code.INVALID_ARGUMENT, e);
+		}
+	}
+
+	private static CloudSpannerSQLException invalid(String value)
+	{
+		return new CloudSpannerSQLException("Invalid timestamp bound: " + value
+				+ ". Expected one of STRONG, MAX_STALENESS <duration>, EXACT_STALENESS <duration>, MIN_READ_TIMESTAMP <timestamp> or READ_TIMESTAMP <timestamp>",
+				Code.INVALID_ARGUMENT);
+	}
+
+}
@@ -0,0 +1,64 @@
+package nl.topicus.jdbc.exception;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.SpannerException;
+
+/**
+ * Thrown when the commit of a transaction that was split into multiple batches
+ * by {@link nl.topicus.jdbc.transaction.MutationLimitPolicy#SPLIT} fails after
+ * one or more batches have already been committed. The committed batches
+ * cannot be rolled back, and the batches that follow the failed batch have not
+ * been committed.
+ * 
+ * @author loite
+ *
+ */
+public class CloudSpannerPartialCommitException extends CloudSpannerSQLException
+{
+	private static final long serialVersionUID = 1L;
+
+	private final int committedBatches;
+
+	private final int totalBatches;
+
+	private final transient Timestamp commitTimestamp;
+
+	public CloudSpannerPartialCommitException(int committedBatches, int totalBatches, Timestamp commitTimestamp,
+			SpannerException cause)
+	{
+		super("The commit was split into " + totalBatches + " batches. Batch 1 to " + committedBatches
+				+ " were committed at " + commitTimestamp + ", batch " + (committedBatches + 1) + " to "
+				+ totalBatches + " were not committed: " + cause.getMessage(), cause);
+		this.committedBatches = committedBatches;
+		this.totalBatches = totalBatches;
+		this.commitTimestamp = commitTimestamp;
+	}
+
+	/**
+	 * 
+	 * @return The number of batches that were committed
+	 */
+	public int getCommittedBatches()
+	{
+		return committedBatches;
+	}
+
+	/**
+	 * 
+	 * @return The total number of batches of the commit
+	 */
+	public int getTotalBatches()
+	{
+		return totalBatches;
+	}
+
+	/**
+	 * 
+	 * @return The commit timestamp of the last batch that was committed
+	 */
+	public Timestamp getCommitTimestamp()
+	{
+		return commitTimestamp;
+	}
+
+}
@@ -347,36 +347,12 @@ abstract class AbstractCloudSpannerResultSet extends AbstractCloudSpannerFetcher
 		throw new SQLFeatureNotSupportedException();
 	}
 
-	@Override
-	public Blob getBlob(int columnIndex) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
-	@Override
-	public Clob getClob(int columnIndex) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
 	@Override
 	public Ref getRef(String columnLabel) throws SQLException
 	{
 		throw new SQLFeatureNotSupportedException();
 	}
 
-	@Override
-	public Blob getBlob(String columnLabel) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
-	@Override
-	public Clob getClob(String columnLabel) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
 	@Override
 	public void updateRef(int columnIndex, Ref x) throws SQLException
 	{
@@ -473,18 +449,6 @@ abstract class AbstractCloudSpannerResultSet extends AbstractCloudSpannerFetcher
 		throw new SQLFeatureNotSupportedException();
 	}
 
-	@Override
-	public NClob getNClob(int columnIndex) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
-	@Override
-	public NClob getNClob(String columnLabel) throws SQLException
-	{
-		throw new SQLFeatureNotSupportedException();
-	}
-
 	@Override
 	public SQLXML getSQLXML(int columnIndex) throws SQLException
 	{
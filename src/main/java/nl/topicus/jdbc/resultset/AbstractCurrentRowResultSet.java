@@ -0,0 +1,136 @@
+package nl.topicus.jdbc.resultset;
+
+import java.util.List;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.AbstractStructReader;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Struct;
+
+/**
+ * Base class for {@link ResultSet}s that keep the current row as a
+ * {@link Struct}. All getters are delegated to the current row.
+ *
+ * @author loite
+ *
+ */
+abstract class AbstractCurrentRowResultSet extends AbstractStructReader implements ResultSet
+{
+
+	@Override
+	public boolean isNull(int columnIndex)
+	{
+		return getCurrentRowAsStruct().isNull(columnIndex);
+	}
+
+	@Override
+	protected boolean getBooleanInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getBoolean(columnIndex);
+	}
+
+	@Override
+	protected long getLongInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getLong(columnIndex);
+	}
+
+	@Override
+	protected double getDoubleInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getDouble(columnIndex);
+	}
+
+	@Override
+	protected String getStringInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getString(columnIndex);
+	}
+
+	@Override
+	protected ByteArray getBytesInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getBytes(columnIndex);
+	}
+
+	@Override
+	protected Timestamp getTimestampInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getTimestamp(columnIndex);
+	}
+
+	@Override
+	protected Date getDateInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getDate(columnIndex);
+	}
+
+	@Override
+	protected boolean[] getBooleanArrayInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getBooleanArray(columnIndex);
+	}
+
+	@Override
+	protected List<Boolean> getBooleanListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getBooleanList(columnIndex);
+	}
+
+	@Override
+	protected long[] getLongArrayInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getLongArray(columnIndex);
+	}
+
+	@Override
+	protected List<Long> getLongListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getLongList(columnIndex);
+	}
+
+	@Override
+	protected double[] getDoubleArrayInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getDoubleArray(columnIndex);
+	}
+
+	@Override
+	protected List<Double> getDoubleListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getDoubleList(columnIndex);
+	}
+
+	@Override
+	protected List<String> getStringListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getStringList(columnIndex);
+	}
+
+	@Override
+	protected List<ByteArray> getBytesListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getBytesList(columnIndex);
+	}
+
+	@Override
+	protected List<Timestamp> getTimestampListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getTimestampList(columnIndex);
+	}
+
+	@Override
+	protected List<Date> getDateListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getDateList(columnIndex);
+	}
+
+	@Override
+	protected List<Struct> getStructListInternal(int columnIndex)
+	{
+		return getCurrentRowAsStruct().getStructList(columnIndex);
+	}
+
+}
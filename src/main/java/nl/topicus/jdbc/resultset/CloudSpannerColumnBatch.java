@@ -0,0 +1,482 @@
+package nl.topicus.jdbc.resultset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.cloud.spanner.StructReader;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.base.Preconditions;
+
+/**
+ * A batch of rows of a result set in columnar form. Each column of the result
+ * set is stored in a {@link Column} that holds the values of that column for
+ * all rows in the batch:
+ * <ul>
+ * <li>INT64, FLOAT64 and BOOL columns are stored in primitive arrays</li>
+ * <li>STRING and BYTES columns are stored in one data buffer with an offset
+ * per row. Strings are stored as UTF-8.</li>
+ * <li>Other columns (DATE, TIMESTAMP and ARRAY) are stored as the objects that
+ * are returned by Cloud Spanner</li>
+ * </ul>
+ * Null values are registered in a bitmap per column. Batches are created by
+ * {@link CloudSpannerResultSet#nextBatch(int)}.
+ *
+ * @author loite
+ *
+ */
+public final class CloudSpannerColumnBatch
+{
+	/**
+	 * The values of one column of a {@link CloudSpannerColumnBatch}
+	 */
+	public abstract static class Column
+	{
+		private final String name;
+
+		private final Type type;
+
+		/**
+		 * Bit i is set if the value of row i is null
+		 */
+		private final long[] nulls;
+
+		private Column(String name, Type type, int capacity)
+		{
+			this.name = name;
+			this.type = type;
+			this.nulls = new long[(capacity + 63) >>> 6];
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public Type getType()
+		{
+			return type;
+		}
+
+		/**
+		 *
+		 * @return The null bitmap of this column. Bit <code>i % 64</code> of
+		 *         element <code>i / 64</code> is set if the value of row
+		 *         <code>i</code> is null. The array may be longer than needed
+		 *         for the number of rows in the batch.
+		 */
+		public long[] getNullBitmap()
+		{
+			return nulls;
+		}
+
+		/**
+		 *
+		 * @param row
+		 *            The zero-based index of the row in the batch
+		 * @return true if the value of the given row is null
+		 */
+		public boolean isNull(int row)
+		{
+			return (nulls[row >>> 6] & (1L << row)) != 0L;
+		}
+
+		private void read(StructReader reader, int column, int row)
+		{
+			if (reader.isNull(column))
+				nulls[row >>> 6] |= 1L << row;
+			else
+				readValue(reader, column, row);
+			endRow(row);
+		}
+
+		abstract void readValue(StructReader reader, int column, int row);
+
+		/**
+		 * Called after the value of a row has been read, also if the value was
+		 * null
+		 */
+		void endRow(int row)
+		{
+			// default is no-op
+		}
+	}
+
+	/**
+	 * Column for INT64 values
+	 */
+	public static final class LongColumn extends Column
+	{
+		private final long[] values;
+
+		private LongColumn(String name, Type type, int capacity)
+		{
+			super(name, type, capacity);
+			this.values = new long[capacity];
+		}
+
+		/**
+		 *
+		 * @return The values of this column. The value of a null row is 0.
+		 */
+		public long[] getValues()
+		{
+			return values;
+		}
+
+		@Override
+		void readValue(StructReader reader, int column, int row)
+		{
+			values[row] = reader.getLong(column);
+		}
+	}
+
+	/**
+	 * Column for FLOAT64 values
+	 */
+	public static final class DoubleColumn extends Column
+	{
+		private final double[] values;
+
+		private DoubleColumn(String name, Type type, int capacity)
+		{
+			super(name, type, capacity);
+			this.values = new double[capacity];
+		}
+
+		/**
+		 *
+		 * @return The values of this column. The value of a null row is 0.
+		 */
+		public double[] getValues()
+		{
+			return values;
+		}
+
+		@Override
+		void readValue(StructReader reader, int column, int row)
+		{
+			values[row] = reader.getDouble(column);
+		}
+	}
+
+	/**
+	 * Column for BOOL values
+	 */
+	public static final class BooleanColumn extends Column
+	{
+		private final boolean[] values;
+
+		private BooleanColumn(String name, Type type, int capacity)
+		{
+			super(name, type, capacity);
+			this.values = new boolean[capacity];
+		}
+
+		/**
+		 *
+		 * @return The values of this column. The value of a null row is false.
+		 */
+		public boolean[] getValues()
+		{
+			return values;
+		}
+
+		@Override
+		void readValue(StructReader reader, int column, int row)
+		{
+			values[row] = reader.getBoolean(column);
+		}
+	}
+
+	/**
+	 * Column for STRING and BYTES values. The value of row <code>i</code> is
+	 * stored in the data buffer from <code>offsets[i]</code> (inclusive) to
+	 * <code>offsets[i + 1]</code> (exclusive). Null values have a length of 0.
+	 */
+	public static final class BinaryColumn extends Column
+	{
+		private static final int INITIAL_BYTES_PER_ROW = 16;
+
+		private final int[] offsets;
+
+		private final boolean string;
+
+		private final CharsetEncoder encoder;
+
+		private byte[] data;
+
+		private int size;
+
+		private BinaryColumn(String name, Type type, int capacity)
+		{
+			super(name, type, capacity);
+			this.offsets = new int[capacity + 1];
+			this.string = type.getCode() == Type.Code.STRING;
+			// Replace malformed input in the same way as String.getBytes(UTF_8)
+			this.encoder = string ? StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE) : null;
+			this.data = new byte[Math.max(capacity * INITIAL_BYTES_PER_ROW, INITIAL_BYTES_PER_ROW)];
+		}
+
+		/**
+		 *
+		 * @return The start offsets of the values in the data buffer. The
+		 *         array contains one more element than the number of rows, so
+		 *         that the end offset of the last row can be read from it.
+		 */
+		public int[] getOffsets()
+		{
+			return offsets;
+		}
+
+		/**
+		 *
+		 * @return The data buffer. Only the bytes up to the end offset of the
+		 *         last row are used.
+		 */
+		public byte[] getData()
+		{
+			return data;
+		}
+
+		/**
+		 *
+		 * @param row
+		 *            The zero-based index of the row
+		 * @return The length in bytes of the value of the given row
+		 */
+		public int getLength(int row)
+		{
+			return offsets[row + 1] - offsets[row];
+		}
+
+		/**
+		 * Convenience method that decodes the value of a row of a STRING
+		 * column
+		 *
+		 * @param row
+		 *            The zero-based index of the row
+		 * @return The string value of the row, or null
+		 */
+		public String getString(int row)
+		{
+			if (isNull(row))
+				return null;
+			return new String(data, offsets[row], getLength(row), StandardCharsets.UTF_8);
+		}
+
+		private void ensureCapacity(int required)
+		{
+			if (required > data.length)
+				data = Arrays.copyOf(data, Math.max(required, data.length * 2));
+		}
+
+		@Override
+		void readValue(StructReader reader, int column, int row)
+		{
+			if (string)
+				encode(reader.getString(column));
+			else
+				copy(reader, column);
+		}
+
+		private void copy(StructReader reader, int column)
+		{
+			com.google.cloud.ByteArray value = reader.getBytes(column);
+			ensureCapacity(size + value.length());
+			value.copyTo(ByteBuffer.wrap(data, size, value.length()));
+			size += value.length();
+		}
+
+		/**
+		 * Encodes the given value directly into the data buffer
+		 */
+		private void encode(String value)
+		{
+			CharBuffer chars = CharBuffer.wrap(value);
+			encoder.reset();
+			// Reserve room for the most common case of one byte per character
+			ensureCapacity(size + value.length());
+			CoderResult result;
+			do
+			{
+				ByteBuffer buffer = ByteBuffer.wrap(data, size, data.length - size);
+				result = encoder.encode(chars, buffer, true);
+				if (!result.isOverflow())
+					result = encoder.flush(buffer);
+				size = buffer.position();
+				if (result.isOverflow())
+					ensureCapacity(data.length + 1);
+			}
+			while (result.isOverflow());
+		}
+
+		@Override
+		void endRow(int row)
+		{
+			offsets[row + 1] = size;
+		}
+	}
+
+	/**
+	 * Column for values of types that do not have a specific columnar
+	 * representation (DATE, TIMESTAMP and ARRAY). The values are stored as the
+	 * objects that are returned by Cloud Spanner.
+	 */
+	public static final class ObjectColumn extends Column
+	{
+		private final Object[] values;
+
+		private ObjectColumn(String name, Type type, int capacity)
+		{
+			super(name, type, capacity);
+			this.values = new Object[capacity];
+		}
+
+		/**
+		 *
+		 * @return The values of this column. The value of a null row is null.
+		 */
+		public Object[] getValues()
+		{
+			return values;
+		}
+
+		@Override
+		void readValue(StructReader reader, int column, int row)
+		{
+			values[row] = CloudSpannerColumnBatch.readObject(reader, column, getType());
+		}
+	}
+
+	private final Column[] columns;
+
+	private final int capacity;
+
+	private int rowCount;
+
+	CloudSpannerColumnBatch(Type rowType, int capacity)
+	{
+		Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+		List<StructField> fields = rowType.getStructFields();
+		this.capacity = capacity;
+		this.columns = new Column[fields.size()];
+		for (int index = 0; index < columns.length; index++)
+		{
+			columns[index] = createColumn(fields.get(index), capacity);
+		}
+	}
+
+	private static Column createColumn(StructField field, int capacity)
+	{
+		switch (field.getType().getCode())
+		{
+		case INT64:
+			return new LongColumn(field.getName(), field.getType(), capacity);
+		case FLOAT64:
+			return new DoubleColumn(field.getName(), field.getType(), capacity);
+		case BOOL:
+			return new BooleanColumn(field.getName(), field.getType(), capacity);
+		case STRING:
+		case BYTES:
+			return new BinaryColumn(field.getName(), field.getType(), capacity);
+		default:
+			return new ObjectColumn(field.getName(), field.getType(), capacity);
+		}
+	}
+
+	private static Object readObject(StructReader reader, int column, Type type)
+	{
+		switch (type.getCode())
+		{
+		case DATE:
+			return reader.getDate(column);
+		case TIMESTAMP:
+			return reader.getTimestamp(column);
+		case ARRAY:
+			return readArray(reader, column, type.getArrayElementType());
+		default:
+			throw new IllegalArgumentException("Unsupported type: " + type);
+		}
+	}
+
+	private static Object readArray(StructReader reader, int column, Type elementType)
+	{
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			return reader.getBooleanList(column);
+		case INT64:
+			return reader.getLongList(column);
+		case FLOAT64:
+			return reader.getDoubleList(column);
+		case STRING:
+			return reader.getStringList(column);
+		case BYTES:
+			return reader.getBytesList(column);
+		case DATE:
+			return reader.getDateList(column);
+		case TIMESTAMP:
+			return reader.getTimestampList(column);
+		case STRUCT:
+			return reader.getStructList(column);
+		default:
+			throw new IllegalArgumentException("Unsupported array type: " + elementType);
+		}
+	}
+
+	/**
+	 * Copies the values of the current row of the given reader to this batch
+	 *
+	 * @return true if the batch is full after adding the row
+	 */
+	boolean addRow(StructReader reader)
+	{
+		Preconditions.checkState(rowCount < capacity, "batch is full");
+		for (int index = 0; index < columns.length; index++)
+		{
+			columns[index].read(reader, index, rowCount);
+		}
+		rowCount++;
+		return rowCount == capacity;
+	}
+
+	/**
+	 *
+	 * @return The number of rows in this batch
+	 */
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+
+	public int getColumnCount()
+	{
+		return columns.length;
+	}
+
+	/**
+	 *
+	 * @param index
+	 *            The zero-based index of the column
+	 * @return The column at the given index
+	 */
+	public Column getColumn(int index)
+	{
+		return columns[index];
+	}
+
+	public List<Column> getColumns()
+	{
+		return Collections.unmodifiableList(Arrays.asList(columns));
+	}
+
+}
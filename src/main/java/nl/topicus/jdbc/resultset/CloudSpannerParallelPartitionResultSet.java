@@ -0,0 +1,29 @@
+package nl.topicus.jdbc.resultset;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.Partition;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * A specialized version of a {@link ResultSet} that contains the merged
+ * results of all partitions of a partitioned query. The partitions are
+ * executed in parallel, and the rows are returned in the order in which they
+ * are received, i.e. the result set is unordered.
+ * 
+ * @author loite
+ *
+ */
+public class CloudSpannerParallelPartitionResultSet extends CloudSpannerResultSet
+{
+
+	public CloudSpannerParallelPartitionResultSet(CloudSpannerStatement statement,
+			BatchReadOnlyTransaction transaction, List<Partition> partitions, int parallelism, String sql)
+	{
+		super(statement, new ParallelPartitionResultSet(transaction, partitions, parallelism), sql);
+	}
+
+}
@@ -21,12 +21,15 @@ public class CloudSpannerPartitionResultSet extends CloudSpannerResultSet
 
 	private final BatchReadOnlyTransaction transaction;
 
+	private final CloudSpannerStatement statement;
+
 	private boolean executed = false;
 
 	public CloudSpannerPartitionResultSet(CloudSpannerStatement statement, BatchReadOnlyTransaction transaction,
 			Partition partition, String sql)
 	{
 		super(statement, sql);
+		this.statement = statement;
 		this.transaction = transaction;
 		this.partition = partition;
 	}
@@ -52,6 +55,19 @@ public class CloudSpannerPartitionResultSet extends CloudSpannerResultSet
 		return super.findColumn(columnLabel);
 	}
 
+	/**
+	 * Closes this result set, and also closes the statement of this result set
+	 * if {@link CloudSpannerStatement#closeOnCompletion()} has been called on
+	 * it
+	 */
+	@Override
+	public void close() throws SQLException
+	{
+		super.close();
+		if (statement != null && statement.isCloseOnCompletion())
+			statement.close();
+	}
+
 	private void ensureOpenAndExecuted() throws SQLException
 	{
 		ensureOpen();
@@ -0,0 +1,45 @@
+package nl.topicus.jdbc.resultset;
+
+import java.sql.ResultSet;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * A specialized version of a {@link ResultSet} that reads up to
+ * <code>fetchSize</code> rows ahead on a background thread, so that the
+ * processing of rows by the client and the streaming of rows from Cloud
+ * Spanner can overlap.
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerPrefetchingResultSet extends CloudSpannerResultSet
+{
+	/**
+	 * The number of rows that are read ahead if the fetch size of the
+	 * statement has not been set
+	 */
+	public static final int DEFAULT_PREFETCH_SIZE = 256;
+
+	public CloudSpannerPrefetchingResultSet(CloudSpannerStatement statement,
+			com.google.cloud.spanner.ResultSet resultSet, int fetchSize, String sql)
+	{
+		super(statement, prefetch(resultSet, fetchSize), sql);
+	}
+
+	/**
+	 * 
+	 * @param resultSet
+	 *            The result set to read the rows from
+	 * @param fetchSize
+	 *            The maximum number of rows to read ahead
+	 * @return A result set that reads the rows of the given result set on a
+	 *         background thread
+	 */
+	public static com.google.cloud.spanner.ResultSet prefetch(com.google.cloud.spanner.ResultSet resultSet,
+			int fetchSize)
+	{
+		return new PrefetchingResultSet(resultSet, fetchSize);
+	}
+
+}
@@ -1,6 +1,5 @@
 package nl.topicus.jdbc.resultset;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
@@ -11,13 +10,17 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.Date;
+import java.sql.NClob;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +29,8 @@ import com.google.cloud.spanner.Type;
 import com.google.cloud.spanner.Type.Code;
 
 import nl.topicus.jdbc.CloudSpannerArray;
+import nl.topicus.jdbc.CloudSpannerBlob;
+import nl.topicus.jdbc.CloudSpannerClob;
 import nl.topicus.jdbc.CloudSpannerDataType;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 import nl.topicus.jdbc.statement.CloudSpannerStatement;
@@ -35,6 +40,8 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 {
 	private com.google.cloud.spanner.ResultSet resultSet;
 
+	private ColumnDescriptors columns;
+
 	private boolean closed = false;
 
 	private boolean wasNull = false;
@@ -70,6 +77,7 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	void setResultSet(com.google.cloud.spanner.ResultSet rs)
 	{
 		this.resultSet = rs;
+		this.columns = null;
 	}
 
 	@Override
@@ -107,6 +115,8 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	public boolean next() throws SQLException
 	{
 		ensureOpen();
+		if (isScrollable())
+			return moveTo(currentRowIndex + 1);
 		if (!beforeFirst && nextCalledForMetaData)
 		{
 			nextCalledForMetaData = false;
@@ -132,6 +142,111 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 		return currentRowIndex + 1;
 	}
 
+	@Override
+	protected boolean isScrollable()
+	{
+		return resultSet instanceof ScrollInsensitiveResultSet;
+	}
+
+	@Override
+	public int getType() throws SQLException
+	{
+		return isScrollable() ? ResultSet.TYPE_SCROLL_INSENSITIVE : super.getType();
+	}
+
+	private ScrollInsensitiveResultSet getScrollInsensitiveResultSet() throws SQLException
+	{
+		ensureOpen();
+		return (ScrollInsensitiveResultSet) resultSet;
+	}
+
+	/**
+	 * Moves the cursor of a scroll-insensitive result set to the given row
+	 * 
+	 * @param rowIndex
+	 *            The zero-based index of the row
+	 * @return true if the cursor is on a row
+	 * @throws SQLException
+	 *             if the result set is closed
+	 */
+	private boolean moveTo(int rowIndex) throws SQLException
+	{
+		ScrollInsensitiveResultSet rs = getScrollInsensitiveResultSet();
+		boolean res = rs.moveTo(rowIndex);
+		currentRowIndex = rs.getPosition();
+		beforeFirst = currentRowIndex < 0;
+		afterLast = !res && !beforeFirst;
+		return res;
+	}
+
+	@Override
+	public boolean absolute(int row) throws SQLException
+	{
+		if (!isScrollable())
+			return super.absolute(row);
+		if (row >= 0)
+			return moveTo(row - 1);
+		return moveTo(getScrollInsensitiveResultSet().getRowCount() + row);
+	}
+
+	@Override
+	public boolean relative(int rows) throws SQLException
+	{
+		if (!isScrollable())
+			return super.relative(rows);
+		return moveTo(currentRowIndex + rows);
+	}
+
+	@Override
+	public boolean previous() throws SQLException
+	{
+		if (!isScrollable())
+			return super.previous();
+		return moveTo(currentRowIndex - 1);
+	}
+
+	@Override
+	public boolean first() throws SQLException
+	{
+		if (!isScrollable())
+			return super.first();
+		return moveTo(0);
+	}
+
+	@Override
+	public boolean last() throws SQLException
+	{
+		if (!isScrollable())
+			return super.last();
+		return moveTo(getScrollInsensitiveResultSet().getRowCount() - 1);
+	}
+
+	@Override
+	public void beforeFirst() throws SQLException
+	{
+		if (!isScrollable())
+			super.beforeFirst();
+		else
+			moveTo(-1);
+	}
+
+	@Override
+	public void afterLast() throws SQLException
+	{
+		if (!isScrollable())
+			super.afterLast();
+		else
+			moveTo(getScrollInsensitiveResultSet().getRowCount());
+	}
+
+	@Override
+	public boolean isLast() throws SQLException
+	{
+		if (!isScrollable())
+			return super.isLast();
+		return getScrollInsensitiveResultSet().isLast();
+	}
+
 	@Override
 	public void close() throws SQLException
 	{
@@ -143,39 +258,44 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public String getString(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null : resultSet.getString(columnIndex - 1);
+		return readString(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public URL getURL(int columnIndex) throws SQLException
 	{
+		return readURL(checkColumnIndex(columnIndex));
+	}
+
+	private URL readURL(int index) throws SQLException
+	{
+		String url = readString(index);
 		try
 		{
-			return isNull(columnIndex) ? null : new URL(resultSet.getString(columnIndex - 1));
+			return url == null ? null : new URL(url);
 		}
 		catch (MalformedURLException e)
 		{
-			throw new CloudSpannerSQLException("Invalid URL: " + resultSet.getString(columnIndex - 1),
-					com.google.rpc.Code.INVALID_ARGUMENT);
+			throw new CloudSpannerSQLException("Invalid URL: " + url, com.google.rpc.Code.INVALID_ARGUMENT);
 		}
 	}
 
 	@Override
 	public boolean getBoolean(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? false : resultSet.getBoolean(columnIndex - 1);
+		return readBoolean(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public long getLong(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : resultSet.getLong(columnIndex - 1);
+		return readLong(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public double getDouble(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : resultSet.getDouble(columnIndex - 1);
+		return readDouble(checkColumnIndex(columnIndex));
 	}
 
 	private BigDecimal toBigDecimal(double d)
@@ -193,107 +313,100 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException
 	{
-		return isNull(columnIndex) ? null : toBigDecimal(resultSet.getDouble(columnIndex - 1), scale);
+		return readBigDecimal(checkColumnIndex(columnIndex), scale);
 	}
 
 	@Override
 	public byte[] getBytes(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null : resultSet.getBytes(columnIndex - 1).toByteArray();
+		return readBytes(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public Date getDate(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null : CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(columnIndex - 1));
+		return readDate(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public Time getTime(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null
-				: CloudSpannerConversionUtil.toSqlTime(resultSet.getTimestamp(columnIndex - 1));
+		return readTime(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public Timestamp getTimestamp(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null : resultSet.getTimestamp(columnIndex - 1).toSqlTimestamp();
+		return readTimestamp(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public String getString(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : resultSet.getString(columnLabel);
+		return readString(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public URL getURL(String columnLabel) throws SQLException
 	{
-		try
-		{
-			return isNull(columnLabel) ? null : new URL(resultSet.getString(columnLabel));
-		}
-		catch (MalformedURLException e)
-		{
-			throw new CloudSpannerSQLException("Invalid URL: " + resultSet.getString(columnLabel),
-					com.google.rpc.Code.INVALID_ARGUMENT);
-		}
+		return readURL(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public boolean getBoolean(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? false : resultSet.getBoolean(columnLabel);
+		return readBoolean(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public long getLong(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : resultSet.getLong(columnLabel);
+		return readLong(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public double getDouble(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : resultSet.getDouble(columnLabel);
+		return readDouble(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException
 	{
-		return isNull(columnLabel) ? null : toBigDecimal(resultSet.getDouble(columnLabel), scale);
+		return readBigDecimal(findValidColumn(columnLabel), scale);
 	}
 
 	@Override
 	public byte[] getBytes(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : resultSet.getBytes(columnLabel).toByteArray();
+		return readBytes(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Date getDate(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(columnLabel));
+		return readDate(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Time getTime(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : CloudSpannerConversionUtil.toSqlTime(resultSet.getTimestamp(columnLabel));
+		return readTime(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Timestamp getTimestamp(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : resultSet.getTimestamp(columnLabel).toSqlTimestamp();
+		return readTimestamp(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public CloudSpannerResultSetMetaData getMetaData() throws SQLException
 	{
 		ensureOpen();
-		if (beforeFirst)
+		// The type of a scroll-insensitive result set is known without moving
+		// the cursor
+		if (beforeFirst && !isScrollable())
 		{
 			nextCalledForMetaDataResult = resultSet.next();
 			afterLast = !nextCalledForMetaDataResult;
@@ -307,43 +420,229 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	public int findColumn(String columnLabel) throws SQLException
 	{
 		ensureOpen();
-		try
+		return getColumnIndex(columnLabel);
+	}
+
+	/**
+	 *
+	 * @return The descriptors of the columns of this result set. The
+	 *         descriptors are computed the first time they are needed
+	 */
+	ColumnDescriptors getColumns()
+	{
+		if (columns == null)
+			columns = new ColumnDescriptors(resultSet.getType());
+		return columns;
+	}
+
+	/**
+	 * Maps the current row to an instance of the class of the given mapper.
+	 * The columns of this result set are bound to the setters of the class
+	 * once, and the values are read directly from the underlying Cloud Spanner
+	 * result set.
+	 * 
+	 * @param mapper
+	 *            The mapper to use, see {@link CloudSpannerRowMapper#of(Class)}
+	 * @return A new object with the values of the current row
+	 * @throws SQLException
+	 *             if the result set is closed or not positioned on a row
+	 */
+	public <T> T mapRow(CloudSpannerRowMapper<T> mapper) throws SQLException
+	{
+		ensureOpenAndInValidPosition();
+		return mapper.map(getColumns(), resultSet);
+	}
+
+	/**
+	 * Maps all remaining rows of this result set to instances of the class of
+	 * the given mapper. The cursor is positioned after the last row when this
+	 * method returns.
+	 * 
+	 * @param mapper
+	 *            The mapper to use, see {@link CloudSpannerRowMapper#of(Class)}
+	 * @return A list containing an object for each remaining row
+	 * @throws SQLException
+	 *             if the result set is closed or an error occurs while reading
+	 *             the rows
+	 */
+	public <T> List<T> mapRows(CloudSpannerRowMapper<T> mapper) throws SQLException
+	{
+		List<T> res = new ArrayList<>();
+		while (next())
 		{
-			return resultSet.getColumnIndex(columnLabel) + 1;
+			res.add(mapRow(mapper));
 		}
-		catch (IllegalArgumentException e)
+		return res;
+	}
+
+	/**
+	 * Reads the next rows of this result set into a columnar batch. INT64,
+	 * FLOAT64 and BOOL values are copied into primitive arrays, and STRING and
+	 * BYTES values into one data buffer per column, so that the values are not
+	 * boxed. The cursor is positioned on the last row that was read into the
+	 * batch.
+	 * 
+	 * @param maxRows
+	 *            The maximum number of rows to read into the batch
+	 * @return A batch containing at most maxRows rows, or null if there are no
+	 *         more rows
+	 * @throws SQLException
+	 *             if maxRows is not positive, or if the result set is closed or
+	 *             an error occurs while reading the rows
+	 */
+	public CloudSpannerColumnBatch nextBatch(int maxRows) throws SQLException
+	{
+		ensureOpen();
+		if (maxRows <= 0)
+			throw new CloudSpannerSQLException("maxRows must be positive", com.google.rpc.Code.INVALID_ARGUMENT);
+		CloudSpannerColumnBatch batch = null;
+		boolean full = false;
+		while (!full && next())
 		{
-			throw new CloudSpannerSQLException("Column not found: " + columnLabel, com.google.rpc.Code.INVALID_ARGUMENT,
-					e);
+			if (batch == null)
+				batch = new CloudSpannerColumnBatch(resultSet.getType(), maxRows);
+			full = batch.addRow(resultSet);
 		}
+		return batch;
+	}
+
+	/**
+	 *
+	 * @param columnLabel
+	 *            The case-insensitive label of the column
+	 * @return The one-based index of the first column with the given label
+	 * @throws SQLException
+	 *             If there is no column with the given label
+	 */
+	private int getColumnIndex(String columnLabel) throws SQLException
+	{
+		int index = getColumns().getColumnIndex(columnLabel);
+		if (index < 0)
+			throw new CloudSpannerSQLException("Column not found: " + columnLabel, com.google.rpc.Code.INVALID_ARGUMENT);
+		return index + 1;
+	}
+
+	/**
+	 * Checks that the result set is open and positioned on a row. This check
+	 * is done once for each call to a getter, after which the value is read
+	 * with one of the read methods.
+	 * 
+	 * @param columnIndex
+	 *            The one-based index of the column
+	 * @return The zero-based index of the column
+	 * @throws SQLException
+	 *             if the result set is closed or not positioned on a row
+	 */
+	private int checkColumnIndex(int columnIndex) throws SQLException
+	{
+		ensureOpenAndInValidPosition();
+		return columnIndex - 1;
 	}
 
-	private boolean isNull(int columnIndex) throws SQLException
+	/**
+	 * 
+	 * @param columnLabel
+	 *            The case-insensitive label of the column
+	 * @return The zero-based index of the column
+	 * @throws SQLException
+	 *             if the result set is closed or not positioned on a row, or
+	 *             if there is no column with the given label
+	 */
+	private int findValidColumn(String columnLabel) throws SQLException
 	{
 		ensureOpenAndInValidPosition();
-		boolean res = resultSet.isNull(columnIndex - 1);
-		wasNull = res;
-		return res;
+		return getColumnIndex(columnLabel) - 1;
 	}
 
-	private boolean isNull(String columnName) throws SQLException
+	// The read methods take a zero-based column index that has already been
+	// checked by checkColumnIndex or findValidColumn
+	private boolean isNull(int index)
 	{
-		ensureOpenAndInValidPosition();
-		boolean res = resultSet.isNull(columnName);
+		boolean res = resultSet.isNull(index);
 		wasNull = res;
 		return res;
 	}
 
+	private String readString(int index)
+	{
+		return isNull(index) ? null : resultSet.getString(index);
+	}
+
+	private boolean readBoolean(int index)
+	{
+		return isNull(index) ? false : resultSet.getBoolean(index);
+	}
+
+	private long readLong(int index)
+	{
+		return isNull(index) ? 0 : resultSet.getLong(index);
+	}
+
+	private double readDouble(int index)
+	{
+		return isNull(index) ? 0 : resultSet.getDouble(index);
+	}
+
+	private BigDecimal readBigDecimal(int index)
+	{
+		return isNull(index) ? null : toBigDecimal(resultSet.getDouble(index));
+	}
+
+	private BigDecimal readBigDecimal(int index, int scale)
+	{
+		return isNull(index) ? null : toBigDecimal(resultSet.getDouble(index), scale);
+	}
+
+	private byte[] readBytes(int index)
+	{
+		return isNull(index) ? null : resultSet.getBytes(index).toByteArray();
+	}
+
+	private Date readDate(int index)
+	{
+		return isNull(index) ? null : CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(index));
+	}
+
+	private Date readDate(int index, Calendar cal)
+	{
+		return isNull(index) ? null : CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(index), cal);
+	}
+
+	private Time readTime(int index)
+	{
+		return isNull(index) ? null : CloudSpannerConversionUtil.toSqlTime(resultSet.getTimestamp(index));
+	}
+
+	private Timestamp readTimestamp(int index)
+	{
+		return isNull(index) ? null : resultSet.getTimestamp(index).toSqlTimestamp();
+	}
+
+	private InputStream readBinaryStream(int index)
+	{
+		return isNull(index) ? null : resultSet.getBytes(index).asInputStream();
+	}
+
+	private Blob readBlob(int index)
+	{
+		return isNull(index) ? null : new CloudSpannerBlob(resultSet.getBytes(index));
+	}
+
+	private NClob readClob(int index)
+	{
+		return isNull(index) ? null : new CloudSpannerClob(resultSet.getString(index));
+	}
+
 	@Override
 	public BigDecimal getBigDecimal(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? null : toBigDecimal(resultSet.getDouble(columnIndex - 1));
+		return readBigDecimal(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public BigDecimal getBigDecimal(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? null : toBigDecimal(resultSet.getDouble(columnLabel));
+		return readBigDecimal(findValidColumn(columnLabel));
 	}
 
 	@Override
@@ -356,39 +655,37 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public Date getDate(int columnIndex, Calendar cal) throws SQLException
 	{
-		return isNull(columnIndex) ? null
-				: CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(columnIndex - 1), cal);
+		return readDate(checkColumnIndex(columnIndex), cal);
 	}
 
 	@Override
 	public Date getDate(String columnLabel, Calendar cal) throws SQLException
 	{
-		return isNull(columnLabel) ? null : CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(columnLabel), cal);
+		return readDate(findValidColumn(columnLabel), cal);
 	}
 
 	@Override
 	public Time getTime(int columnIndex, Calendar cal) throws SQLException
 	{
-		return isNull(columnIndex) ? null
-				: CloudSpannerConversionUtil.toSqlTime(resultSet.getTimestamp(columnIndex - 1));
+		return readTime(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public Time getTime(String columnLabel, Calendar cal) throws SQLException
 	{
-		return isNull(columnLabel) ? null : CloudSpannerConversionUtil.toSqlTime(resultSet.getTimestamp(columnLabel));
+		return readTime(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException
 	{
-		return isNull(columnIndex) ? null : resultSet.getTimestamp(columnIndex - 1).toSqlTimestamp();
+		return readTimestamp(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException
 	{
-		return isNull(columnLabel) ? null : resultSet.getTimestamp(columnLabel).toSqlTimestamp();
+		return readTimestamp(findValidColumn(columnLabel));
 	}
 
 	@Override
@@ -400,112 +697,118 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public byte getByte(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : (byte) resultSet.getLong(columnIndex - 1);
+		return (byte) readLong(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public short getShort(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : (short) resultSet.getLong(columnIndex - 1);
+		return (short) readLong(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public int getInt(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : (int) resultSet.getLong(columnIndex - 1);
+		return (int) readLong(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public float getFloat(int columnIndex) throws SQLException
 	{
-		return isNull(columnIndex) ? 0 : (float) resultSet.getDouble(columnIndex - 1);
+		return (float) readDouble(checkColumnIndex(columnIndex));
 	}
 
 	@Override
 	public byte getByte(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : (byte) resultSet.getLong(columnLabel);
+		return (byte) readLong(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public short getShort(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : (short) resultSet.getLong(columnLabel);
+		return (short) readLong(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public int getInt(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : (int) resultSet.getLong(columnLabel);
+		return (int) readLong(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public float getFloat(String columnLabel) throws SQLException
 	{
-		return isNull(columnLabel) ? 0 : (float) resultSet.getDouble(columnLabel);
+		return (float) readDouble(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Object getObject(String columnLabel) throws SQLException
 	{
-		Type type = resultSet.getColumnType(columnLabel);
-		return isNull(columnLabel) ? null : getObject(type, columnLabel);
+		return readObject(findValidColumn(columnLabel));
 	}
 
 	@Override
 	public Object getObject(int columnIndex) throws SQLException
 	{
-		Type type = resultSet.getColumnType(columnIndex - 1);
-		return isNull(columnIndex) ? null : getObject(type, columnIndex);
+		return readObject(checkColumnIndex(columnIndex));
 	}
 
-	private Object getObject(Type type, String columnLabel) throws SQLException
+	private Object readObject(int index) throws SQLException
 	{
-		return getObject(type, resultSet.getColumnIndex(columnLabel) + 1);
-	}
-
-	private Object getObject(Type type, int columnIndex) throws SQLException
-	{
-		if (type == Type.bool())
-			return getBoolean(columnIndex);
-		if (type == Type.bytes())
-			return getBytes(columnIndex);
-		if (type == Type.date())
-			return getDate(columnIndex);
-		if (type == Type.float64())
-			return getDouble(columnIndex);
-		if (type == Type.int64())
-			return getLong(columnIndex);
-		if (type == Type.string())
-			return getString(columnIndex);
-		if (type == Type.timestamp())
-			return getTimestamp(columnIndex);
-		if (type.getCode() == Code.ARRAY)
-			return getArray(columnIndex);
-		throw new CloudSpannerSQLException("Unknown type: " + type.toString(), com.google.rpc.Code.INVALID_ARGUMENT);
+		if (isNull(index))
+			return null;
+		Code code = getColumns().getCode(index);
+		switch (code)
+		{
+		case BOOL:
+			return resultSet.getBoolean(index);
+		case BYTES:
+			return resultSet.getBytes(index).toByteArray();
+		case DATE:
+			return CloudSpannerConversionUtil.toSqlDate(resultSet.getDate(index));
+		case FLOAT64:
+			return resultSet.getDouble(index);
+		case INT64:
+			return resultSet.getLong(index);
+		case STRING:
+			return resultSet.getString(index);
+		case TIMESTAMP:
+			return resultSet.getTimestamp(index).toSqlTimestamp();
+		case ARRAY:
+			return readArray(index);
+		default:
+			throw new CloudSpannerSQLException("Unknown type: " + getColumns().getType(index).toString(),
+					com.google.rpc.Code.INVALID_ARGUMENT);
+		}
 	}
 
 	@Override
 	public Array getArray(String columnLabel) throws SQLException
 	{
-		Type type = resultSet.getColumnType(columnLabel);
-		if (type.getCode() != Code.ARRAY)
+		int index = findValidColumn(columnLabel);
+		if (getColumns().getCode(index) != Code.ARRAY)
 			throw new CloudSpannerSQLException("Column with label " + columnLabel + " does not contain an array",
 					com.google.rpc.Code.INVALID_ARGUMENT);
-		return getArray(resultSet.getColumnIndex(columnLabel) + 1);
+		return readArray(index);
 	}
 
 	@Override
 	public Array getArray(int columnIndex) throws SQLException
 	{
-		if (isNull(columnIndex))
+		return readArray(checkColumnIndex(columnIndex));
+	}
+
+	private Array readArray(int index) throws SQLException
+	{
+		if (isNull(index))
 			return null;
-		Type type = resultSet.getColumnType(columnIndex - 1);
+		Type type = getColumns().getType(index);
 		if (type.getCode() != Code.ARRAY)
-			throw new CloudSpannerSQLException("Column with index " + columnIndex + " does not contain an array",
+			throw new CloudSpannerSQLException("Column with index " + (index + 1) + " does not contain an array",
 					com.google.rpc.Code.INVALID_ARGUMENT);
 		CloudSpannerDataType dataType = CloudSpannerDataType.getType(type.getArrayElementType().getCode());
-		List<? extends Object> elements = dataType.getArrayElements(resultSet, columnIndex - 1);
+		List<? extends Object> elements = dataType.getArrayElements(resultSet, index);
 
 		return CloudSpannerArray.createArray(dataType, elements);
 	}
@@ -553,10 +856,7 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 
 	private InputStream getInputStream(String val, Charset charset)
 	{
-		if (val == null)
-			return null;
-		byte[] b = val.getBytes(charset);
-		return new ByteArrayInputStream(b);
+		return val == null ? null : CloudSpannerClob.createInputStream(val, charset);
 	}
 
 	@Override
@@ -574,8 +874,7 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public InputStream getBinaryStream(int columnIndex) throws SQLException
 	{
-		byte[] val = getBytes(columnIndex);
-		return val == null ? null : new ByteArrayInputStream(val);
+		return readBinaryStream(checkColumnIndex(columnIndex));
 	}
 
 	@Override
@@ -593,8 +892,43 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public InputStream getBinaryStream(String columnLabel) throws SQLException
 	{
-		byte[] val = getBytes(columnLabel);
-		return val == null ? null : new ByteArrayInputStream(val);
+		return readBinaryStream(findValidColumn(columnLabel));
+	}
+
+	@Override
+	public Blob getBlob(int columnIndex) throws SQLException
+	{
+		return readBlob(checkColumnIndex(columnIndex));
+	}
+
+	@Override
+	public Blob getBlob(String columnLabel) throws SQLException
+	{
+		return readBlob(findValidColumn(columnLabel));
+	}
+
+	@Override
+	public Clob getClob(int columnIndex) throws SQLException
+	{
+		return getNClob(columnIndex);
+	}
+
+	@Override
+	public Clob getClob(String columnLabel) throws SQLException
+	{
+		return getNClob(columnLabel);
+	}
+
+	@Override
+	public NClob getNClob(int columnIndex) throws SQLException
+	{
+		return readClob(checkColumnIndex(columnIndex));
+	}
+
+	@Override
+	public NClob getNClob(String columnLabel) throws SQLException
+	{
+		return readClob(findValidColumn(columnLabel));
 	}
 
 	@Override
@@ -630,25 +964,29 @@ public class CloudSpannerResultSet extends AbstractCloudSpannerResultSet
 	@Override
 	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException
 	{
-		return convertObject(getObject(columnIndex), type, resultSet.getColumnType(columnIndex - 1));
+		int index = checkColumnIndex(columnIndex);
+		return convertObject(readObject(index), type, getColumns().getType(index));
 	}
 
 	@Override
 	public <T> T getObject(String columnLabel, Class<T> type) throws SQLException
 	{
-		return convertObject(getObject(columnLabel), type, resultSet.getColumnType(columnLabel));
+		int index = findValidColumn(columnLabel);
+		return convertObject(readObject(index), type, getColumns().getType(index));
 	}
 
 	@Override
 	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException
 	{
-		return convertObject(getObject(columnIndex), map, resultSet.getColumnType(columnIndex - 1));
+		int index = checkColumnIndex(columnIndex);
+		return convertObject(readObject(index), map, getColumns().getType(index));
 	}
 
 	@Override
 	public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException
 	{
-		return convertObject(getObject(columnLabel), map, resultSet.getColumnType(columnLabel));
+		int index = findValidColumn(columnLabel);
+		return convertObject(readObject(index), map, getColumns().getType(index));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -4,9 +4,19 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import com.google.cloud.spanner.ResultSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.rpc.Code;
 
 import net.sf.jsqlparser.JSQLParserException;
@@ -40,18 +50,94 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 		return UNKNOWN_COLUMN + column;
 	}
 
-	private static final class ParseException extends RuntimeException
+	/**
+	 * The maximum number of parsed select statements that are kept in
+	 * {@link #PARSED_SELECTS}
+	 */
+	private static final int MAX_PARSED_SELECTS = 1000;
+
+	/**
+	 * Parsed select statements by SQL string. Parsing a statement does not
+	 * depend on the database schema, so the parsed form of a statement is
+	 * shared by all result sets with the same SQL. Statements that could not
+	 * be parsed or that are not select statements are registered as empty.
+	 */
+	private static final Cache<String, Optional<ParsedSelect>> PARSED_SELECTS = CacheBuilder.newBuilder()
+			.maximumSize(MAX_PARSED_SELECTS).build();
+
+	/**
+	 * A select item of a parsed select statement. The item is either a single
+	 * column or expression with an optional alias, or all the columns of a
+	 * table.
+	 */
+	private static final class SelectColumn
+	{
+		private final Column column;
+
+		private final Alias alias;
+
+		private final Table allColumnsOf;
+
+		private SelectColumn(Column column, Alias alias, Table allColumnsOf)
+		{
+			this.column = column;
+			this.alias = alias;
+			this.allColumnsOf = allColumnsOf;
+		}
+	}
+
+	/**
+	 * The tables and select items of a parsed select statement. Instances are
+	 * immutable once they have been created.
+	 */
+	private static final class ParsedSelect
 	{
-		private static final long serialVersionUID = 1L;
+		/**
+		 * The tables used in the select statement in the order that they
+		 * appear in the statement
+		 */
+		private final List<Table> tables = new ArrayList<>();
 
-		private final SQLException e;
+		/**
+		 * The select items in the order that they appear in the statement
+		 */
+		private final List<SelectColumn> selectColumns = new ArrayList<>();
+	}
 
-		private ParseException(SQLException e)
+	/**
+	 * The nullability and size of a column of a table
+	 */
+	private static final class ColumnFacts
+	{
+		private final String name;
+
+		private final int nullable;
+
+		private final int size;
+
+		private ColumnFacts(String name, int nullable, int size)
 		{
-			this.e = e;
+			this.name = name;
+			this.nullable = nullable;
+			this.size = size;
 		}
 	}
 
+	/**
+	 * The columns and primary key columns of a table. The columns are loaded
+	 * with one query when the table is first used, the primary key columns
+	 * are loaded with one query the first time they are needed.
+	 */
+	private static final class TableColumns
+	{
+		/**
+		 * The columns of the table by upper case name, in ordinal order
+		 */
+		private final Map<String, ColumnFacts> columns = new LinkedHashMap<>();
+
+		private Set<String> keyColumns;
+	}
+
 	private final ResultSet resultSet;
 
 	private final CloudSpannerStatement statement;
@@ -61,10 +147,10 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 	private boolean initialized = false;
 
 	/**
-	 * The tables used in this result set in the order that they appear in the
-	 * select statement
+	 * The column facts of the tables used in this result set by upper case
+	 * table name
 	 */
-	private List<Table> tables = null;
+	private final Map<String, TableColumns> tableColumns = new HashMap<>();
 
 	/**
 	 * The columns of this result set in the order that they appear in the
@@ -91,35 +177,45 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 			return;
 
 		initialized = true;
-		Statement sqlStatement = null;
 		if (sql == null)
 			return;
+		Optional<ParsedSelect> parsed;
 		try
 		{
-			sqlStatement = CCJSqlParserUtil.parse(sanitizeSQL(sql));
+			parsed = PARSED_SELECTS.get(sql, () -> parseSelect(sql));
 		}
-		catch (JSQLParserException | TokenMgrError e)
+		catch (ExecutionException e)
 		{
-			// ignore
-			return;
+			throw new CloudSpannerSQLException("Could not parse sql: " + e.getMessage(), Code.INVALID_ARGUMENT,
+					e.getCause());
 		}
-		if (!(sqlStatement instanceof Select))
-			return;
-		Select select = (Select) sqlStatement;
+		if (parsed.isPresent())
+			initColumns(parsed.get());
+	}
+
+	private static Optional<ParsedSelect> parseSelect(String sql)
+	{
+		Statement sqlStatement = null;
 		try
 		{
-			initTables(select);
-			initColumns(select);
+			sqlStatement = CCJSqlParserUtil.parse(sanitizeSQL(sql));
 		}
-		catch (ParseException e)
+		catch (JSQLParserException | TokenMgrError e)
 		{
-			throw e.e;
+			// ignore
+			return Optional.empty();
 		}
+		if (!(sqlStatement instanceof Select))
+			return Optional.empty();
+		Select select = (Select) sqlStatement;
+		ParsedSelect res = new ParsedSelect();
+		initTables(select, res);
+		initSelectColumns(select, res);
+		return Optional.of(res);
 	}
 
-	private void initTables(Select select)
+	private static void initTables(Select select, ParsedSelect parsed)
 	{
-		tables = new ArrayList<>();
 		if (select.getSelectBody() != null)
 		{
 			select.getSelectBody().accept(new SelectVisitorAdapter()
@@ -132,7 +228,7 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 						@Override
 						public void visit(Table table)
 						{
-							initTable(table);
+							parsed.tables.add(table);
 						}
 					});
 					if (plainSelect.getJoins() != null)
@@ -144,7 +240,7 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 								@Override
 								public void visit(Table table)
 								{
-									initTable(table);
+									parsed.tables.add(table);
 								}
 							});
 						}
@@ -154,15 +250,8 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 		}
 	}
 
-	private void initTable(Table table)
-	{
-		tables.add(table);
-	}
-
-	private void initColumns(Select select)
+	private static void initSelectColumns(Select select, ParsedSelect parsed)
 	{
-		columns = new ArrayList<>();
-		aliases = new ArrayList<>();
 		select.getSelectBody().accept(new SelectVisitorAdapter()
 		{
 			@Override
@@ -182,28 +271,29 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 								@Override
 								public void visit(Column column)
 								{
-									registerColumn(column, selectExpressionItem.getAlias());
+									parsed.selectColumns
+											.add(new SelectColumn(column, selectExpressionItem.getAlias(), null));
 									foundColumn = true;
 								}
 							});
 							if (!foundColumn)
 							{
-								registerColumn(null, selectExpressionItem.getAlias());
+								parsed.selectColumns.add(new SelectColumn(null, selectExpressionItem.getAlias(), null));
 							}
 						}
 
 						@Override
 						public void visit(AllTableColumns allTableColumns)
 						{
-							registerAllTableColumns(allTableColumns.getTable());
+							parsed.selectColumns.add(new SelectColumn(null, null, allTableColumns.getTable()));
 						}
 
 						@Override
 						public void visit(AllColumns allColumns)
 						{
-							for (Table table : tables)
+							for (Table table : parsed.tables)
 							{
-								registerAllTableColumns(table);
+								parsed.selectColumns.add(new SelectColumn(null, null, table));
 							}
 						}
 					});
@@ -212,33 +302,85 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 		});
 	}
 
-	private void registerAllTableColumns(Table table)
+	private void initColumns(ParsedSelect parsed) throws SQLException
 	{
-		try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getColumns("", "", table.getName(), null))
+		columns = new ArrayList<>();
+		aliases = new ArrayList<>();
+		for (SelectColumn selectColumn : parsed.selectColumns)
 		{
-			while (rs.next())
+			if (selectColumn.allColumnsOf == null)
 			{
-				registerColumn(new Column(table, rs.getString("COLUMN_NAME")));
+				columns.add(selectColumn.column);
+				aliases.add(selectColumn.alias);
+			}
+			else
+			{
+				for (ColumnFacts facts : getTableColumns(selectColumn.allColumnsOf.getName()).columns.values())
+				{
+					columns.add(new Column(selectColumn.allColumnsOf, facts.name));
+					aliases.add(null);
+				}
 			}
 		}
-		catch (SQLException e)
+	}
+
+	/**
+	 * Returns the column facts of the given table. All columns of the table
+	 * are loaded with one query the first time a table is used in this result
+	 * set.
+	 */
+	private TableColumns getTableColumns(String table) throws SQLException
+	{
+		String key = table.toUpperCase();
+		TableColumns res = tableColumns.get(key);
+		if (res == null)
 		{
-			throw new ParseException(e);
+			res = new TableColumns();
+			try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getColumns("", "", table, null))
+			{
+				while (rs.next())
+				{
+					String name = rs.getString("COLUMN_NAME");
+					res.columns.put(name.toUpperCase(),
+							new ColumnFacts(name, rs.getInt("NULLABLE"), rs.getInt("COLUMN_SIZE")));
+				}
+			}
+			tableColumns.put(key, res);
 		}
+		return res;
 	}
 
-	private void registerColumn(Column column)
+	private Set<String> getKeyColumns(String table) throws SQLException
 	{
-		registerColumn(column, null);
+		TableColumns columnsOfTable = getTableColumns(table);
+		if (columnsOfTable.keyColumns == null)
+		{
+			Set<String> keyColumns = new HashSet<>();
+			try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getPrimaryKeys("", "", table))
+			{
+				while (rs.next())
+				{
+					keyColumns.add(rs.getString("COLUMN_NAME").toUpperCase());
+				}
+			}
+			columnsOfTable.keyColumns = Collections.unmodifiableSet(keyColumns);
+		}
+		return columnsOfTable.keyColumns;
 	}
 
-	private void registerColumn(Column column, Alias alias)
+	/**
+	 * @return The facts of the table column at the given index, or null if
+	 *         the column is not a table column or is unknown
+	 */
+	private ColumnFacts getColumnFacts(int column) throws SQLException
 	{
-		columns.add(column);
-		aliases.add(alias);
+		Column col = getColumn(column);
+		if (col == null || col.getTable() == null || col.getColumnName() == null)
+			return null;
+		return getTableColumns(col.getTable().getName()).columns.get(col.getColumnName().toUpperCase());
 	}
 
-	private String sanitizeSQL(String sql)
+	private static String sanitizeSQL(String sql)
 	{
 		// Add a pseudo update to the end if no columns have been specified in
 		// an 'on duplicate key update'-statement
@@ -287,18 +429,9 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 	@Override
 	public int isNullable(int column) throws SQLException
 	{
-		Column col = getColumn(column);
-		if (col != null && col.getTable() != null)
-		{
-			try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getColumns("", "",
-					col.getTable().getName(), col.getColumnName()))
-			{
-				if (rs.next())
-				{
-					return rs.getInt("NULLABLE");
-				}
-			}
-		}
+		ColumnFacts facts = getColumnFacts(column);
+		if (facts != null)
+			return facts.nullable;
 		return columnNullableUnknown;
 	}
 
@@ -396,18 +529,9 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 		default:
 			// Not fixed size, try to get it from INFORMATION_SCHEMA
 		}
-		Column col = getColumn(column);
-		if (col != null && col.getTable() != null)
-		{
-			try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getColumns("", "",
-					col.getTable().getName(), col.getColumnName()))
-			{
-				if (rs.next())
-				{
-					return rs.getInt("COLUMN_SIZE");
-				}
-			}
-		}
+		ColumnFacts facts = getColumnFacts(column);
+		if (facts != null)
+			return facts.size;
 		return 0;
 	}
 
@@ -457,18 +581,7 @@ public class CloudSpannerResultSetMetaData extends AbstractCloudSpannerWrapper i
 			return true;
 		// Primary key columns are always read-only, all other columns are
 		// writable.
-		try (java.sql.ResultSet rs = statement.getConnection().getMetaData().getPrimaryKeys("", "",
-				col.getTable().getName()))
-		{
-			while (rs.next())
-			{
-				if (rs.getString("COLUMN_NAME").equalsIgnoreCase(col.getColumnName()))
-				{
-					return true;
-				}
-			}
-		}
-		return false;
+		return getKeyColumns(col.getTable().getName()).contains(col.getColumnName().toUpperCase());
 	}
 
 	@Override
@@ -0,0 +1,598 @@
+package nl.topicus.jdbc.resultset;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.StructReader;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.base.Preconditions;
+
+import nl.topicus.jdbc.util.CloudSpannerConversionUtil;
+
+/**
+ * Maps the rows of a result set to instances of a Java bean class. The
+ * constructor and setters of the class are resolved once per class, and the
+ * columns of a result set are bound to these setters once per result set.
+ * Mapping a row then only calls the bound setters with the values that are
+ * read from the row, without any reflection and without boxing the values of
+ * primitive properties.
+ * <p>
+ * Columns are bound to the public setters of the class by name. The match is
+ * case-insensitive and ignores underscores, so the column
+ * <code>FIRST_NAME</code> is bound to the setter <code>setFirstName</code>.
+ * Columns without a matching setter are ignored. The class must be public and
+ * have a public no-arg constructor.
+ * </p>
+ * <p>
+ * Usage:
+ * </p>
+ *
+ * <pre>
+ * CloudSpannerRowMapper&lt;Customer&gt; mapper = CloudSpannerRowMapper.of(Customer.class);
+ * try (ResultSet rs = statement.executeQuery("SELECT * FROM CUSTOMER"))
+ * {
+ * 	List&lt;Customer&gt; customers = rs.unwrap(CloudSpannerResultSet.class).mapRows(mapper);
+ * }
+ * </pre>
+ *
+ * @author loite
+ *
+ * @param <T>
+ *            The class that rows are mapped to
+ */
+public final class CloudSpannerRowMapper<T>
+{
+	private static final ClassValue<CloudSpannerRowMapper<?>> MAPPERS = new ClassValue<CloudSpannerRowMapper<?>>()
+	{
+		@Override
+		protected CloudSpannerRowMapper<?> computeValue(Class<?> type)
+		{
+			return new CloudSpannerRowMapper<>(type);
+		}
+	};
+
+	@FunctionalInterface
+	private interface ObjBooleanConsumer<T>
+	{
+		void accept(T target, boolean value);
+	}
+
+	@FunctionalInterface
+	private interface ObjFloatConsumer<T>
+	{
+		void accept(T target, float value);
+	}
+
+	@FunctionalInterface
+	private interface ValueReader
+	{
+		Object read(StructReader row, int index);
+	}
+
+	/**
+	 * Copies the value of one column of a row to a property of the target
+	 * object
+	 */
+	@FunctionalInterface
+	private interface ColumnBinding<T>
+	{
+		void apply(StructReader row, T target);
+	}
+
+	/**
+	 * The bindings of the columns of one specific result set
+	 */
+	private static final class Bindings<T>
+	{
+		private final Object key;
+
+		private final ColumnBinding<T>[] columns;
+
+		private Bindings(Object key, ColumnBinding<T>[] columns)
+		{
+			this.key = key;
+			this.columns = columns;
+		}
+	}
+
+	private final Class<T> type;
+
+	private final Supplier<T> constructor;
+
+	/**
+	 * The public setters of the class by normalized property name
+	 */
+	private final Map<String, List<Method>> setters = new HashMap<>();
+
+	/**
+	 * Indicates whether the class is visible from the class loader of the
+	 * driver, which is required for generating setters with
+	 * {@link LambdaMetafactory}
+	 */
+	private final boolean visible;
+
+	/**
+	 * The generated setter functions by setter, so that these are only
+	 * generated once, also if the columns are bound multiple times
+	 */
+	private final Map<Method, Object> setterFunctions = new ConcurrentHashMap<>();
+
+	private volatile Bindings<T> bindings;
+
+	/**
+	 *
+	 * @param type
+	 *            The class to map rows to
+	 * @return A mapper for the given class. Mappers are cached per class and
+	 *         can be used by multiple threads and result sets at the same time.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CloudSpannerRowMapper<T> of(Class<T> type)
+	{
+		return (CloudSpannerRowMapper<T>) MAPPERS.get(type);
+	}
+
+	private CloudSpannerRowMapper(Class<T> type)
+	{
+		Preconditions.checkArgument(Modifier.isPublic(type.getModifiers()), "Class %s is not public",
+				type.getName());
+		this.type = type;
+		this.visible = isVisible(type);
+		this.constructor = createConstructor();
+		for (Method method : type.getMethods())
+		{
+			if (method.getName().length() > 3 && method.getName().startsWith("set")
+					&& method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())
+					&& Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+			{
+				setters.computeIfAbsent(normalize(method.getName().substring(3)), k -> new ArrayList<>())
+						.add(method);
+			}
+		}
+		// Prefer setters with primitive parameters for overloaded setters
+		Comparator<Method> primitivesFirst = Comparator
+				.comparing(method -> !method.getParameterTypes()[0].isPrimitive());
+		setters.values().forEach(list -> list.sort(primitivesFirst));
+	}
+
+	private static boolean isVisible(Class<?> type)
+	{
+		try
+		{
+			return Class.forName(type.getName(), false, CloudSpannerRowMapper.class.getClassLoader()) == type;
+		}
+		catch (ClassNotFoundException e)
+		{
+			return false;
+		}
+	}
+
+	private static String normalize(String name)
+	{
+		return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 *
+	 * @param row
+	 *            The row to map. The row must have the same columns as the
+	 *            previous rows that were mapped, or the columns will be bound
+	 *            again.
+	 * @return A new instance of the target class with the values of the row
+	 */
+	public T map(StructReader row)
+	{
+		return map(row.getType(), row);
+	}
+
+	/**
+	 * Maps the given row using the bindings for the given key. The key
+	 * identifies the columns of the row, and the columns are only bound again
+	 * if the key changes.
+	 */
+	T map(Object key, StructReader row)
+	{
+		Bindings<T> current = bindings;
+		if (current == null || (current.key != key && !current.key.equals(key)))
+		{
+			current = bind(key, row.getType());
+			bindings = current;
+		}
+		T res = constructor.get();
+		for (ColumnBinding<T> binding : current.columns)
+		{
+			binding.apply(row, res);
+		}
+		return res;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Bindings<T> bind(Object key, Type rowType)
+	{
+		List<ColumnBinding<T>> list = new ArrayList<>();
+		List<StructField> fields = rowType.getStructFields();
+		for (int index = 0; index < fields.size(); index++)
+		{
+			List<Method> candidates = setters.get(normalize(fields.get(index).getName()));
+			if (candidates != null)
+			{
+				for (Method setter : candidates)
+				{
+					ColumnBinding<T> binding = createBinding(index, fields.get(index).getType(), setter);
+					if (binding != null)
+					{
+						list.add(binding);
+						break;
+					}
+				}
+			}
+		}
+		return new Bindings<>(key, list.toArray(new ColumnBinding[list.size()]));
+	}
+
+	private ColumnBinding<T> createBinding(int index, Type columnType, Method setter)
+	{
+		Class<?> param = setter.getParameterTypes()[0];
+		switch (columnType.getCode())
+		{
+		case BOOL:
+			if (param == boolean.class)
+			{
+				ObjBooleanConsumer<T> s = getSetter(setter, this::createBooleanSetter);
+				return (row, target) -> {
+					if (!row.isNull(index))
+						s.accept(target, row.getBoolean(index));
+				};
+			}
+			return createReferenceBinding(index, setter, param, Boolean.class, StructReader::getBoolean);
+		case INT64:
+			if (param == long.class)
+			{
+				ObjLongConsumer<T> s = getSetter(setter, this::createLongSetter);
+				return (row, target) -> {
+					if (!row.isNull(index))
+						s.accept(target, row.getLong(index));
+				};
+			}
+			if (param == int.class)
+			{
+				ObjIntConsumer<T> s = getSetter(setter, this::createIntSetter);
+				return (row, target) -> {
+					if (!row.isNull(index))
+						s.accept(target, (int) row.getLong(index));
+				};
+			}
+			if (param == Integer.class)
+				return createReferenceBinding(index, setter, param, Integer.class,
+						(row, i) -> (int) row.getLong(i));
+			return createReferenceBinding(index, setter, param, Long.class, StructReader::getLong);
+		case FLOAT64:
+			if (param == double.class)
+			{
+				ObjDoubleConsumer<T> s = getSetter(setter, this::createDoubleSetter);
+				return (row, target) -> {
+					if (!row.isNull(index))
+						s.accept(target, row.getDouble(index));
+				};
+			}
+			if (param == float.class)
+			{
+				ObjFloatConsumer<T> s = getSetter(setter, this::createFloatSetter);
+				return (row, target) -> {
+					if (!row.isNull(index))
+						s.accept(target, (float) row.getDouble(index));
+				};
+			}
+			if (param == Float.class)
+				return createReferenceBinding(index, setter, param, Float.class,
+						(row, i) -> (float) row.getDouble(i));
+			return createReferenceBinding(index, setter, param, Double.class, StructReader::getDouble);
+		case STRING:
+			return createReferenceBinding(index, setter, param, String.class, StructReader::getString);
+		case BYTES:
+			if (param == byte[].class)
+				return createReferenceBinding(index, setter, param, byte[].class,
+						(row, i) -> row.getBytes(i).toByteArray());
+			return createReferenceBinding(index, setter, param, ByteArray.class, StructReader::getBytes);
+		case DATE:
+			if (param == java.sql.Date.class)
+				return createReferenceBinding(index, setter, param, java.sql.Date.class,
+						(row, i) -> CloudSpannerConversionUtil.toSqlDate(row.getDate(i)));
+			return createReferenceBinding(index, setter, param, com.google.cloud.Date.class, StructReader::getDate);
+		case TIMESTAMP:
+			if (param == java.sql.Timestamp.class)
+				return createReferenceBinding(index, setter, param, java.sql.Timestamp.class,
+						(row, i) -> row.getTimestamp(i).toSqlTimestamp());
+			return createReferenceBinding(index, setter, param, com.google.cloud.Timestamp.class,
+					StructReader::getTimestamp);
+		case ARRAY:
+			return createArrayBinding(index, columnType.getArrayElementType(), setter, param);
+		default:
+			return null;
+		}
+	}
+
+	private ColumnBinding<T> createArrayBinding(int index, Type elementType, Method setter, Class<?> param)
+	{
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			if (param == boolean[].class)
+				return createReferenceBinding(index, setter, param, boolean[].class, StructReader::getBooleanArray);
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getBooleanList);
+		case INT64:
+			if (param == long[].class)
+				return createReferenceBinding(index, setter, param, long[].class, StructReader::getLongArray);
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getLongList);
+		case FLOAT64:
+			if (param == double[].class)
+				return createReferenceBinding(index, setter, param, double[].class, StructReader::getDoubleArray);
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getDoubleList);
+		case STRING:
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getStringList);
+		case BYTES:
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getBytesList);
+		case DATE:
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getDateList);
+		case TIMESTAMP:
+			return createReferenceBinding(index, setter, param, List.class, StructReader::getTimestampList);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a binding for a setter with a reference type parameter
+	 *
+	 * @param valueClass
+	 *            The class of the values that are returned by the reader. The
+	 *            setter is only bound if its parameter type is assignable from
+	 *            this class.
+	 */
+	private ColumnBinding<T> createReferenceBinding(int index, Method setter, Class<?> param, Class<?> valueClass,
+			ValueReader reader)
+	{
+		if (param.isPrimitive() || !param.isAssignableFrom(valueClass))
+			return null;
+		// Do not bind a Collection-typed setter to a list of the wrong element
+		// type, only allow the generic List, Collection, Iterable and Object
+		if (valueClass == List.class && !(param == List.class || param == Collection.class
+				|| param == Iterable.class || param == Object.class))
+			return null;
+		BiConsumer<T, Object> s = getSetter(setter, this::createObjectSetter);
+		return (row, target) -> s.accept(target, row.isNull(index) ? null : reader.read(row, index));
+	}
+
+	private Supplier<T> createConstructor()
+	{
+		try
+		{
+			Constructor<T> ctor = type.getConstructor();
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflectConstructor(ctor);
+			if (visible)
+			{
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+						MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+				@SuppressWarnings("unchecked")
+				Supplier<T> res = (Supplier<T>) site.getTarget().invoke();
+				return res;
+			}
+			MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+			return () -> {
+				try
+				{
+					return type.cast(generic.invokeExact());
+				}
+				catch (Throwable t)
+				{
+					throw mappingFailed(t);
+				}
+			};
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new IllegalArgumentException("Class " + type.getName() + " has no public no-arg constructor", e);
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalArgumentException("Could not create constructor for " + type.getName(), t);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <F> F getSetter(Method setter, Function<Method, F> factory)
+	{
+		return (F) setterFunctions.computeIfAbsent(setter, factory);
+	}
+
+	/**
+	 * Creates an instance of the given functional interface that calls the
+	 * given setter. The instance is generated by {@link LambdaMetafactory} if
+	 * the target class is visible from the driver, otherwise null is returned
+	 * and the caller should fall back to invoking a {@link MethodHandle}.
+	 */
+	private <F> F createLambda(Method setter, Class<F> functionalInterface, Class<?> valueType)
+	{
+		if (!visible)
+			return null;
+		try
+		{
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Class<?> instantiatedValueType = valueType == Object.class ? setter.getParameterTypes()[0] : valueType;
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+					MethodType.methodType(functionalInterface),
+					MethodType.methodType(void.class, Object.class, valueType), lookup.unreflect(setter),
+					MethodType.methodType(void.class, type, instantiatedValueType));
+			return functionalInterface.cast(site.getTarget().invoke());
+		}
+		catch (Throwable t)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * @return A {@link MethodHandle} for the given setter with the generic
+	 *         signature (Object, valueType)void
+	 */
+	private static MethodHandle createHandle(Method setter, Class<?> valueType)
+	{
+		try
+		{
+			return MethodHandles.lookup().unreflect(setter)
+					.asType(MethodType.methodType(void.class, Object.class, valueType));
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalArgumentException("Could not access setter " + setter.getName(), e);
+		}
+	}
+
+	private static RuntimeException mappingFailed(Throwable t)
+	{
+		if (t instanceof RuntimeException)
+			return (RuntimeException) t;
+		if (t instanceof Error)
+			throw (Error) t;
+		return new IllegalStateException("Could not map row: " + t.getMessage(), t);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ObjBooleanConsumer<T> createBooleanSetter(Method setter)
+	{
+		ObjBooleanConsumer<T> res = createLambda(setter, ObjBooleanConsumer.class, boolean.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, boolean.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private ObjLongConsumer<T> createLongSetter(Method setter)
+	{
+		ObjLongConsumer<T> res = createLambda(setter, ObjLongConsumer.class, long.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, long.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private ObjIntConsumer<T> createIntSetter(Method setter)
+	{
+		ObjIntConsumer<T> res = createLambda(setter, ObjIntConsumer.class, int.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, int.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private ObjDoubleConsumer<T> createDoubleSetter(Method setter)
+	{
+		ObjDoubleConsumer<T> res = createLambda(setter, ObjDoubleConsumer.class, double.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, double.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private ObjFloatConsumer<T> createFloatSetter(Method setter)
+	{
+		ObjFloatConsumer<T> res = createLambda(setter, ObjFloatConsumer.class, float.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, float.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private BiConsumer<T, Object> createObjectSetter(Method setter)
+	{
+		BiConsumer<T, Object> res = createLambda(setter, BiConsumer.class, Object.class);
+		if (res != null)
+			return res;
+		MethodHandle handle = createHandle(setter, Object.class);
+		return (target, value) -> {
+			try
+			{
+				handle.invokeExact((Object) target, value);
+			}
+			catch (Throwable t)
+			{
+				throw mappingFailed(t);
+			}
+		};
+	}
+
+}
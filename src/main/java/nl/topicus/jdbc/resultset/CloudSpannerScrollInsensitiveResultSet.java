@@ -0,0 +1,26 @@
+package nl.topicus.jdbc.resultset;
+
+import java.sql.ResultSet;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * A specialized version of a {@link ResultSet} of type
+ * {@link ResultSet#TYPE_SCROLL_INSENSITIVE}. The rows that are read from Cloud
+ * Spanner are cached, so that the cursor can be moved to any row without
+ * executing the query again. Rows that exceed the memory budget of the cache
+ * are written to a temporary file.
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerScrollInsensitiveResultSet extends CloudSpannerResultSet
+{
+
+	public CloudSpannerScrollInsensitiveResultSet(CloudSpannerStatement statement,
+			com.google.cloud.spanner.ResultSet resultSet, String sql)
+	{
+		super(statement, new ScrollInsensitiveResultSet(resultSet), sql);
+	}
+
+}
@@ -0,0 +1,96 @@
+package nl.topicus.jdbc.resultset;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.Code;
+import com.google.cloud.spanner.Type.StructField;
+
+/**
+ * The types and labels of the columns of a result set. The descriptors are
+ * computed once per result set, so that getters do not need to resolve column
+ * labels and types through the underlying Cloud Spanner result set for each
+ * value that is read.
+ *
+ * @author loite
+ *
+ */
+final class ColumnDescriptors
+{
+	private final Type[] types;
+
+	private final Code[] codes;
+
+	/**
+	 * Index of the exact column labels. Most lookups use the exact label, and
+	 * these do not need a case-insensitive comparison.
+	 */
+	private final Map<String, Integer> labels;
+
+	private final Map<String, Integer> caseInsensitiveLabels;
+
+	ColumnDescriptors(Type rowType)
+	{
+		List<StructField> fields = rowType.getStructFields();
+		types = new Type[fields.size()];
+		codes = new Code[fields.size()];
+		labels = new HashMap<>(fields.size() * 2);
+		caseInsensitiveLabels = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < fields.size(); i++)
+		{
+			StructField field = fields.get(i);
+			types[i] = field.getType();
+			codes[i] = field.getType().getCode();
+			// JDBC specifies that the first matching column should be used if
+			// a result set contains multiple columns with the same label
+			labels.putIfAbsent(field.getName(), i);
+			caseInsensitiveLabels.putIfAbsent(field.getName(), i);
+		}
+	}
+
+	int getColumnCount()
+	{
+		return types.length;
+	}
+
+	/**
+	 *
+	 * @param index
+	 *            The zero-based index of the column
+	 * @return The type of the column
+	 */
+	Type getType(int index)
+	{
+		return types[index];
+	}
+
+	/**
+	 *
+	 * @param index
+	 *            The zero-based index of the column
+	 * @return The type code of the column
+	 */
+	Code getCode(int index)
+	{
+		return codes[index];
+	}
+
+	/**
+	 *
+	 * @param label
+	 *            The case-insensitive label of the column
+	 * @return The zero-based index of the first column with the given label,
+	 *         or -1 if there is no such column
+	 */
+	int getColumnIndex(String label)
+	{
+		Integer res = labels.get(label);
+		if (res == null)
+			res = caseInsensitiveLabels.get(label);
+		return res == null ? -1 : res.intValue();
+	}
+
+}
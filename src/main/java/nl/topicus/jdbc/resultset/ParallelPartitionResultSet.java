@@ -0,0 +1,260 @@
+package nl.topicus.jdbc.resultset;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.common.base.Preconditions;
+import com.google.spanner.v1.ResultSetStats;
+
+/**
+ * {@link ResultSet} that executes a number of partitions of a partitioned
+ * query in parallel and returns the rows of all partitions as one result set.
+ * The rows are returned in the order in which they are received from the
+ * partitions, which means that the result set is unordered. The partitions
+ * push their rows into a bounded queue, so that a slow consumer will not cause
+ * the partitions to buffer an unbounded number of rows in memory.
+ *
+ * @author loite
+ *
+ */
+class ParallelPartitionResultSet extends AbstractCurrentRowResultSet
+{
+	static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Marker that is put on the queue when a partition has finished
+	 */
+	private static final Struct END_OF_PARTITION = Struct.newBuilder().build();
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final BatchReadOnlyTransaction transaction;
+
+	private final List<Partition> partitions;
+
+	private final int parallelism;
+
+	private final BlockingQueue<Struct> queue;
+
+	private final CountDownLatch typeKnown = new CountDownLatch(1);
+
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+	private volatile Type type;
+
+	private volatile boolean closed;
+
+	private ExecutorService executor;
+
+	private int finishedPartitions;
+
+	private Struct currentRow;
+
+	ParallelPartitionResultSet(BatchReadOnlyTransaction transaction, List<Partition> partitions, int parallelism)
+	{
+		this(transaction, partitions, parallelism, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	ParallelPartitionResultSet(BatchReadOnlyTransaction transaction, List<Partition> partitions, int parallelism,
+			int queueCapacity)
+	{
+		Preconditions.checkNotNull(transaction);
+		Preconditions.checkNotNull(partitions);
+		Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
+		Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be > 0");
+		this.transaction = transaction;
+		this.partitions = partitions;
+		this.parallelism = Math.min(parallelism, Math.max(partitions.size(), 1));
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		if (partitions.isEmpty())
+			typeKnown.countDown();
+	}
+
+	private synchronized void ensureStarted()
+	{
+		if (executor == null && !partitions.isEmpty())
+		{
+			executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r,
+							"Google Cloud Spanner JDBC Partition Reader-" + threadNumber.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			for (Partition partition : partitions)
+			{
+				executor.submit(() -> readPartition(partition));
+			}
+			executor.shutdown();
+		}
+	}
+
+	private void readPartition(Partition partition)
+	{
+		try (ResultSet rs = transaction.execute(partition))
+		{
+			boolean first = true;
+			while (!closed && rs.next())
+			{
+				if (first)
+				{
+					setType(rs.getType());
+					first = false;
+				}
+				queue.put(rs.getCurrentRowAsStruct());
+			}
+			if (first && !closed)
+				setType(rs.getType());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			error.compareAndSet(null, e);
+		}
+		catch (Throwable t)
+		{
+			error.compareAndSet(null, t);
+		}
+		finally
+		{
+			typeKnown.countDown();
+			if (!closed)
+			{
+				try
+				{
+					queue.put(END_OF_PARTITION);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private void setType(Type type)
+	{
+		if (this.type == null)
+			this.type = type;
+		typeKnown.countDown();
+	}
+
+	@Override
+	public boolean next() throws SpannerException
+	{
+		Preconditions.checkState(!closed, "ResultSet is closed");
+		ensureStarted();
+		while (finishedPartitions < partitions.size())
+		{
+			Struct row;
+			try
+			{
+				row = queue.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw SpannerExceptionFactory.propagateInterrupt(e);
+			}
+			if (row == END_OF_PARTITION)
+			{
+				finishedPartitions++;
+				checkError();
+			}
+			else
+			{
+				currentRow = row;
+				return true;
+			}
+		}
+		currentRow = null;
+		return false;
+	}
+
+	private void checkError()
+	{
+		Throwable t = error.get();
+		if (t != null)
+		{
+			close();
+			if (t instanceof SpannerException)
+				throw (SpannerException) t;
+			throw SpannerExceptionFactory.newSpannerException(ErrorCode.UNKNOWN,
+					"Reading partition failed: " + t.getMessage(), t);
+		}
+	}
+
+	@Override
+	public Struct getCurrentRowAsStruct()
+	{
+		Preconditions.checkState(currentRow != null, "next() call required");
+		return currentRow;
+	}
+
+	@Override
+	public void close()
+	{
+		closed = true;
+		synchronized (this)
+		{
+			if (executor != null)
+				executor.shutdownNow();
+		}
+		queue.clear();
+	}
+
+	@Override
+	public ResultSetStats getStats()
+	{
+		return null;
+	}
+
+	@Override
+	public Type getType()
+	{
+		if (type == null)
+		{
+			ensureStarted();
+			try
+			{
+				while (!typeKnown.await(100L, TimeUnit.MILLISECONDS))
+				{
+					Preconditions.checkState(!closed, "ResultSet is closed");
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw SpannerExceptionFactory.propagateInterrupt(e);
+			}
+			Throwable t = error.get();
+			if (type == null && t != null)
+			{
+				checkError();
+			}
+			Preconditions.checkState(type != null, "Type of result set is unknown");
+		}
+		return type;
+	}
+
+}
@@ -0,0 +1,235 @@
+package nl.topicus.jdbc.resultset;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.common.base.Preconditions;
+import com.google.spanner.v1.ResultSetStats;
+
+/**
+ * {@link ResultSet} that reads the rows of another {@link ResultSet} on a
+ * background thread. The background thread reads at most
+ * <code>fetchSize</code> rows ahead of the consumer into a bounded buffer, so
+ * that the consumer can process a row while the next rows are streamed from
+ * Cloud Spanner. An error that occurs while reading is thrown by
+ * {@link #next()} after all rows that were read before the error have been
+ * returned.
+ *
+ * @author loite
+ *
+ */
+class PrefetchingResultSet extends AbstractCurrentRowResultSet
+{
+	/**
+	 * Marker that is put on the buffer when all rows have been read
+	 */
+	private static final Struct END_OF_RESULT_SET = Struct.newBuilder().build();
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final ResultSet delegate;
+
+	private final BlockingQueue<Struct> buffer;
+
+	private final CountDownLatch typeKnown = new CountDownLatch(1);
+
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+	private volatile Type type;
+
+	private volatile boolean closed;
+
+	private Thread reader;
+
+	private boolean finished;
+
+	private Struct currentRow;
+
+	/**
+	 *
+	 * @param delegate
+	 *            The result set to read the rows from
+	 * @param fetchSize
+	 *            The maximum number of rows to read ahead
+	 */
+	PrefetchingResultSet(ResultSet delegate, int fetchSize)
+	{
+		Preconditions.checkNotNull(delegate);
+		Preconditions.checkArgument(fetchSize > 0, "fetchSize must be > 0");
+		this.delegate = delegate;
+		this.buffer = new ArrayBlockingQueue<>(fetchSize);
+	}
+
+	private synchronized void ensureStarted()
+	{
+		if (reader == null && !closed)
+		{
+			reader = new Thread(this::readRows,
+					"Google Cloud Spanner JDBC Prefetcher-" + threadNumber.getAndIncrement());
+			reader.setDaemon(true);
+			reader.start();
+		}
+	}
+
+	private void readRows()
+	{
+		try
+		{
+			boolean first = true;
+			while (!closed && delegate.next())
+			{
+				if (first)
+				{
+					setType(delegate.getType());
+					first = false;
+				}
+				buffer.put(delegate.getCurrentRowAsStruct());
+			}
+			if (first && !closed)
+				setType(delegate.getType());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			if (!closed)
+				error.compareAndSet(null, e);
+		}
+		catch (Throwable t)
+		{
+			if (!closed)
+				error.compareAndSet(null, t);
+		}
+		finally
+		{
+			typeKnown.countDown();
+			delegate.close();
+			if (!closed)
+			{
+				try
+				{
+					buffer.put(END_OF_RESULT_SET);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private void setType(Type type)
+	{
+		this.type = type;
+		typeKnown.countDown();
+	}
+
+	@Override
+	public boolean next() throws SpannerException
+	{
+		Preconditions.checkState(!closed, "ResultSet is closed");
+		if (finished)
+			return false;
+		ensureStarted();
+		Struct row;
+		try
+		{
+			row = buffer.take();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw SpannerExceptionFactory.propagateInterrupt(e);
+		}
+		if (row == END_OF_RESULT_SET)
+		{
+			finished = true;
+			currentRow = null;
+			checkError();
+			return false;
+		}
+		currentRow = row;
+		return true;
+	}
+
+	private void checkError()
+	{
+		Throwable t = error.get();
+		if (t != null)
+		{
+			close();
+			if (t instanceof SpannerException)
+				throw (SpannerException) t;
+			throw SpannerExceptionFactory.newSpannerException(ErrorCode.UNKNOWN,
+					"Reading result set failed: " + t.getMessage(), t);
+		}
+	}
+
+	@Override
+	public Struct getCurrentRowAsStruct()
+	{
+		Preconditions.checkState(currentRow != null, "next() call required");
+		return currentRow;
+	}
+
+	/**
+	 * Closes this result set. A background reader that is still running is
+	 * interrupted, and closes the underlying result set when it stops.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		synchronized (this)
+		{
+			if (reader == null)
+				delegate.close();
+			else
+				reader.interrupt();
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public ResultSetStats getStats()
+	{
+		return finished ? delegate.getStats() : null;
+	}
+
+	@Override
+	public Type getType()
+	{
+		if (type == null)
+		{
+			ensureStarted();
+			try
+			{
+				while (!typeKnown.await(100L, TimeUnit.MILLISECONDS))
+				{
+					Preconditions.checkState(!closed, "ResultSet is closed");
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw SpannerExceptionFactory.propagateInterrupt(e);
+			}
+			if (type == null && error.get() != null)
+			{
+				checkError();
+			}
+			Preconditions.checkState(type != null, "Type of result set is unknown");
+		}
+		return type;
+	}
+
+}
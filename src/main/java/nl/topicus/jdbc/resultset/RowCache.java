@@ -0,0 +1,210 @@
+package nl.topicus.jdbc.resultset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+
+/**
+ * Cache for the rows of a scroll-insensitive result set. The rows are stored
+ * in the compact encoding of {@link RowCodec}. Rows are kept in memory until
+ * the encoded rows exceed the memory budget of the cache. All rows after that
+ * are written to a temporary file, which is memory mapped for reading. The
+ * temporary file is deleted when the cache is closed.
+ * <p>
+ * The cache deliberately keeps the <em>first</em> rows in memory instead of a
+ * window of the most recent rows:
+ * <ul>
+ * <li>Each row is written exactly once, to memory or to the spill file, and
+ * its offset never changes. A recent window would have to write every row
+ * that is evicted from memory to the spill file, which would double the I/O
+ * for large result sets.</li>
+ * <li>Scroll-insensitive result sets are mostly read forward, and the row
+ * that was read last is returned by {@link ScrollInsensitiveResultSet}
+ * without reading it from the cache at all. The other rows near the end of
+ * the cache have just been written to the spill file and are normally still
+ * in the page cache of the operating system, so reading them through the
+ * memory mapping does not touch the disk.</li>
+ * <li>Moving back to the start of the result set, for example with
+ * {@link java.sql.ResultSet#beforeFirst()} or
+ * {@link java.sql.ResultSet#first()} to process the rows again, is the most
+ * common form of scrolling, and the rows that are needed for that are in
+ * memory.</li>
+ * </ul>
+ *
+ * @author loite
+ *
+ */
+final class RowCache implements Closeable
+{
+	static final long DEFAULT_MEMORY_BUDGET = 32L * 1024L * 1024L;
+
+	/**
+	 * The spill file is mapped in windows that start at a multiple of this
+	 * size. A window is at most twice this size, so that any row that starts
+	 * in the window also ends in it.
+	 */
+	static final long MAP_WINDOW_SIZE = 256L * 1024L * 1024L;
+
+	private final RowCodec codec;
+
+	private final long memoryBudget;
+
+	private byte[] memory = new byte[4096];
+
+	private int memoryUsed;
+
+	/**
+	 * The offsets of the rows, either in memory or, for rows from
+	 * {@link #firstSpilledRow} onwards, in the spill file
+	 */
+	private long[] offsets = new long[64];
+
+	private int[] lengths = new int[64];
+
+	private int size;
+
+	private int firstSpilledRow = Integer.MAX_VALUE;
+
+	private Path spillFile;
+
+	private FileChannel channel;
+
+	private long spillFileSize;
+
+	private MappedByteBuffer mapped;
+
+	private long mappedStart;
+
+	RowCache(Type rowType, long memoryBudget)
+	{
+		this.codec = new RowCodec(rowType);
+		this.memoryBudget = Math.min(memoryBudget, Integer.MAX_VALUE - 8L);
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	boolean isSpilled()
+	{
+		return spillFile != null;
+	}
+
+	void add(Struct row) throws IOException
+	{
+		byte[] encoded = codec.encode(row);
+		if (size == offsets.length)
+		{
+			offsets = Arrays.copyOf(offsets, size * 2);
+			lengths = Arrays.copyOf(lengths, size * 2);
+		}
+		if (spillFile == null && memoryUsed + (long) encoded.length <= memoryBudget)
+		{
+			if (memoryUsed + encoded.length > memory.length)
+				memory = Arrays.copyOf(memory,
+						(int) Math.min(memoryBudget, Math.max(memory.length * 2L, memoryUsed + encoded.length)));
+			System.arraycopy(encoded, 0, memory, memoryUsed, encoded.length);
+			offsets[size] = memoryUsed;
+			memoryUsed += encoded.length;
+		}
+		else
+		{
+			if (spillFile == null)
+				openSpillFile();
+			ByteBuffer src = ByteBuffer.wrap(encoded);
+			while (src.hasRemaining())
+				channel.write(src, spillFileSize + src.position());
+			offsets[size] = spillFileSize;
+			spillFileSize += encoded.length;
+		}
+		lengths[size] = encoded.length;
+		size++;
+	}
+
+	private void openSpillFile() throws IOException
+	{
+		spillFile = Files.createTempFile("spanner-jdbc-", ".rows");
+		channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		firstSpilledRow = size;
+	}
+
+	/**
+	 *
+	 * @param index
+	 *            The zero-based index of the row
+	 * @return The row at the given index
+	 */
+	Struct get(int index) throws IOException
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Row index: " + index + ", size: " + size);
+		byte[] encoded;
+		if (index < firstSpilledRow)
+		{
+			int offset = (int) offsets[index];
+			encoded = Arrays.copyOfRange(memory, offset, offset + lengths[index]);
+		}
+		else
+		{
+			encoded = readSpilled(offsets[index], lengths[index]);
+		}
+		try
+		{
+			return codec.decode(encoded);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("Could not decode row " + index, e);
+		}
+	}
+
+	private byte[] readSpilled(long offset, int length) throws IOException
+	{
+		if (mapped == null || offset < mappedStart || offset + length > mappedStart + mapped.capacity())
+		{
+			long start = (offset / MAP_WINDOW_SIZE) * MAP_WINDOW_SIZE;
+			long windowSize = Math.min(spillFileSize - start, Math.max(2 * MAP_WINDOW_SIZE, offset + length - start));
+			mapped = channel.map(MapMode.READ_ONLY, start, windowSize);
+			mappedStart = start;
+		}
+		byte[] res = new byte[length];
+		ByteBuffer view = mapped.duplicate();
+		view.position((int) (offset - mappedStart));
+		view.get(res);
+		return res;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		memory = null;
+		mapped = null;
+		if (channel != null)
+		{
+			try
+			{
+				channel.close();
+			}
+			finally
+			{
+				channel = null;
+				// The file might still be mapped on some platforms, in which case
+				// it will be removed when the virtual machine exits
+				if (!spillFile.toFile().delete())
+					spillFile.toFile().deleteOnExit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,501 @@
+package nl.topicus.jdbc.resultset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.cloud.spanner.Value;
+
+/**
+ * Compact binary encoding of the rows of a result set. The type of the rows is
+ * known beforehand, so the encoding only contains the values of a row. A row
+ * starts with a bitmap of the columns that are null, followed by the values of
+ * the other columns. Integers and lengths are written as variable length
+ * integers, so small numbers and short strings only take a few bytes.
+ *
+ * @author loite
+ *
+ */
+final class RowCodec
+{
+	private final List<StructField> fields;
+
+	private byte[] buffer = new byte[256];
+
+	private int position;
+
+	RowCodec(Type rowType)
+	{
+		this.fields = rowType.getStructFields();
+	}
+
+	byte[] encode(Struct row)
+	{
+		position = 0;
+		writeStruct(row, fields);
+		return Arrays.copyOf(buffer, position);
+	}
+
+	Struct decode(byte[] data)
+	{
+		Reader reader = new Reader(data);
+		Struct res = reader.readStruct(fields);
+		if (reader.position != data.length)
+			throw new IllegalArgumentException("Invalid row encoding");
+		return res;
+	}
+
+	private void ensureCapacity(int bytes)
+	{
+		if (position + bytes > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+	}
+
+	private void writeByte(int value)
+	{
+		ensureCapacity(1);
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeBytes(byte[] value)
+	{
+		writeVarLong(value.length);
+		ensureCapacity(value.length);
+		System.arraycopy(value, 0, buffer, position, value.length);
+		position += value.length;
+	}
+
+	private void writeVarLong(long value)
+	{
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0L)
+		{
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeSignedVarLong(long value)
+	{
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	private void writeFixedLong(long value)
+	{
+		ensureCapacity(8);
+		for (int i = 0; i < 8; i++)
+		{
+			buffer[position++] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	/**
+	 * Reserves space for a null bitmap of the given number of values
+	 *
+	 * @return the position of the bitmap in the buffer
+	 */
+	private int reserveBitmap(int values)
+	{
+		int bytes = (values + 7) / 8;
+		ensureCapacity(bytes);
+		int res = position;
+		Arrays.fill(buffer, position, position + bytes, (byte) 0);
+		position += bytes;
+		return res;
+	}
+
+	private void markNull(int bitmap, int index)
+	{
+		buffer[bitmap + index / 8] |= (byte) (1 << (index % 8));
+	}
+
+	private void writeStruct(Struct struct, List<StructField> structFields)
+	{
+		int bitmap = reserveBitmap(structFields.size());
+		for (int i = 0; i < structFields.size(); i++)
+		{
+			if (struct.isNull(i))
+				markNull(bitmap, i);
+			else
+				writeValue(struct, i, structFields.get(i).getType());
+		}
+	}
+
+	private void writeValue(Struct struct, int index, Type type)
+	{
+		switch (type.getCode())
+		{
+		case BOOL:
+			writeByte(struct.getBoolean(index) ? 1 : 0);
+			break;
+		case INT64:
+			writeSignedVarLong(struct.getLong(index));
+			break;
+		case FLOAT64:
+			writeFixedLong(Double.doubleToRawLongBits(struct.getDouble(index)));
+			break;
+		case STRING:
+			writeBytes(struct.getString(index).getBytes(StandardCharsets.UTF_8));
+			break;
+		case BYTES:
+			writeBytes(struct.getBytes(index).toByteArray());
+			break;
+		case TIMESTAMP:
+			writeTimestamp(struct.getTimestamp(index));
+			break;
+		case DATE:
+			writeDate(struct.getDate(index));
+			break;
+		case ARRAY:
+			writeArray(struct, index, type.getArrayElementType());
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported type: " + type);
+		}
+	}
+
+	private void writeTimestamp(Timestamp value)
+	{
+		writeSignedVarLong(value.getSeconds());
+		writeVarLong(value.getNanos());
+	}
+
+	private void writeDate(Date value)
+	{
+		writeVarLong(value.getYear());
+		writeByte(value.getMonth());
+		writeByte(value.getDayOfMonth());
+	}
+
+	private void writeArray(Struct struct, int index, Type elementType)
+	{
+		List<?> elements;
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			elements = struct.getBooleanList(index);
+			break;
+		case INT64:
+			elements = struct.getLongList(index);
+			break;
+		case FLOAT64:
+			elements = struct.getDoubleList(index);
+			break;
+		case STRING:
+			elements = struct.getStringList(index);
+			break;
+		case BYTES:
+			elements = struct.getBytesList(index);
+			break;
+		case TIMESTAMP:
+			elements = struct.getTimestampList(index);
+			break;
+		case DATE:
+			elements = struct.getDateList(index);
+			break;
+		case STRUCT:
+			elements = struct.getStructList(index);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported array type: " + elementType);
+		}
+		writeVarLong(elements.size());
+		int bitmap = reserveBitmap(elements.size());
+		for (int i = 0; i < elements.size(); i++)
+		{
+			Object element = elements.get(i);
+			if (element == null)
+				markNull(bitmap, i);
+			else
+				writeElement(element, elementType);
+		}
+	}
+
+	private void writeElement(Object element, Type elementType)
+	{
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			writeByte(((Boolean) element) ? 1 : 0);
+			break;
+		case INT64:
+			writeSignedVarLong((Long) element);
+			break;
+		case FLOAT64:
+			writeFixedLong(Double.doubleToRawLongBits((Double) element));
+			break;
+		case STRING:
+			writeBytes(((String) element).getBytes(StandardCharsets.UTF_8));
+			break;
+		case BYTES:
+			writeBytes(((ByteArray) element).toByteArray());
+			break;
+		case TIMESTAMP:
+			writeTimestamp((Timestamp) element);
+			break;
+		case DATE:
+			writeDate((Date) element);
+			break;
+		case STRUCT:
+			writeStruct((Struct) element, elementType.getStructFields());
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported array type: " + elementType);
+		}
+	}
+
+	private static final class Reader
+	{
+		private final byte[] data;
+
+		private int position;
+
+		private Reader(byte[] data)
+		{
+			this.data = data;
+		}
+
+		private int readByte()
+		{
+			if (position >= data.length)
+				throw new IllegalArgumentException("Unexpected end of row encoding");
+			return data[position++];
+		}
+
+		private long readVarLong()
+		{
+			long res = 0L;
+			for (int shift = 0; shift < 64; shift += 7)
+			{
+				int b = readByte();
+				res |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return res;
+			}
+			throw new IllegalArgumentException("Invalid variable length integer");
+		}
+
+		private long readSignedVarLong()
+		{
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1L);
+		}
+
+		private int readLength()
+		{
+			long res = readVarLong();
+			if (res < 0L || res > data.length - position)
+				throw new IllegalArgumentException("Invalid length: " + res);
+			return (int) res;
+		}
+
+		private int readCount()
+		{
+			long res = readVarLong();
+			if (res < 0L || res > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Invalid number of elements: " + res);
+			return (int) res;
+		}
+
+		private long readFixedLong()
+		{
+			long res = 0L;
+			for (int i = 0; i < 8; i++)
+				res |= (long) (readByte() & 0xFF) << (8 * i);
+			return res;
+		}
+
+		private byte[] readBytes()
+		{
+			int length = readLength();
+			byte[] res = Arrays.copyOfRange(data, position, position + length);
+			position += length;
+			return res;
+		}
+
+		private String readString()
+		{
+			int length = readLength();
+			String res = new String(data, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return res;
+		}
+
+		private Timestamp readTimestamp()
+		{
+			return Timestamp.ofTimeSecondsAndNanos(readSignedVarLong(), (int) readVarLong());
+		}
+
+		private Date readDate()
+		{
+			int year = (int) readVarLong();
+			int month = readByte();
+			return Date.fromYearMonthDay(year, month, readByte());
+		}
+
+		/**
+		 * Reads a null bitmap of the given number of values
+		 */
+		private boolean[] readBitmap(int values)
+		{
+			int bytes = (values + 7) / 8;
+			if (bytes > data.length - position)
+				throw new IllegalArgumentException("Unexpected end of row encoding");
+			boolean[] res = new boolean[values];
+			for (int i = 0; i < values; i++)
+				res[i] = (data[position + i / 8] & (1 << (i % 8))) != 0;
+			position += bytes;
+			return res;
+		}
+
+		private Struct readStruct(List<StructField> structFields)
+		{
+			boolean[] nulls = readBitmap(structFields.size());
+			Struct.Builder builder = Struct.newBuilder();
+			for (int i = 0; i < structFields.size(); i++)
+			{
+				StructField field = structFields.get(i);
+				Type type = field.getType();
+				if (type.getCode() == Type.Code.ARRAY
+						&& type.getArrayElementType().getCode() == Type.Code.STRUCT)
+				{
+					List<Struct> structs = nulls[i] ? null
+							: readStructArray(type.getArrayElementType().getStructFields());
+					builder.add(field.getName(), type.getArrayElementType().getStructFields(), structs);
+				}
+				else
+				{
+					builder.add(field.getName(), nulls[i] ? nullValue(type) : readValue(type));
+				}
+			}
+			return builder.build();
+		}
+
+		private List<Struct> readStructArray(List<StructField> elementFields)
+		{
+			int size = readCount();
+			boolean[] nulls = readBitmap(size);
+			List<Struct> res = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				res.add(nulls[i] ? null : readStruct(elementFields));
+			return res;
+		}
+
+		private Value readValue(Type type)
+		{
+			switch (type.getCode())
+			{
+			case BOOL:
+				return Value.bool(readByte() != 0);
+			case INT64:
+				return Value.int64(readSignedVarLong());
+			case FLOAT64:
+				return Value.float64(Double.longBitsToDouble(readFixedLong()));
+			case STRING:
+				return Value.string(readString());
+			case BYTES:
+				return Value.bytes(ByteArray.copyFrom(readBytes()));
+			case TIMESTAMP:
+				return Value.timestamp(readTimestamp());
+			case DATE:
+				return Value.date(readDate());
+			case ARRAY:
+				return readArray(type.getArrayElementType());
+			default:
+				throw new IllegalArgumentException("Unsupported type: " + type);
+			}
+		}
+
+		private Value readArray(Type elementType)
+		{
+			int size = readCount();
+			boolean[] nulls = readBitmap(size);
+			List<Object> elements = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				elements.add(nulls[i] ? null : readElement(elementType));
+			return createArray(elementType, elements);
+		}
+
+		private Object readElement(Type elementType)
+		{
+			switch (elementType.getCode())
+			{
+			case BOOL:
+				return readByte() != 0;
+			case INT64:
+				return readSignedVarLong();
+			case FLOAT64:
+				return Double.longBitsToDouble(readFixedLong());
+			case STRING:
+				return readString();
+			case BYTES:
+				return ByteArray.copyFrom(readBytes());
+			case TIMESTAMP:
+				return readTimestamp();
+			case DATE:
+				return readDate();
+			default:
+				throw new IllegalArgumentException("Unsupported array type: " + elementType);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Value createArray(Type elementType, List<?> elements)
+	{
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			return Value.boolArray((Iterable<Boolean>) elements);
+		case INT64:
+			return Value.int64Array((Iterable<Long>) elements);
+		case FLOAT64:
+			return Value.float64Array((Iterable<Double>) elements);
+		case STRING:
+			return Value.stringArray((Iterable<String>) elements);
+		case BYTES:
+			return Value.bytesArray((Iterable<ByteArray>) elements);
+		case TIMESTAMP:
+			return Value.timestampArray((Iterable<Timestamp>) elements);
+		case DATE:
+			return Value.dateArray((Iterable<Date>) elements);
+		default:
+			throw new IllegalArgumentException("Unsupported array type: " + elementType);
+		}
+	}
+
+	private static Value nullValue(Type type)
+	{
+		switch (type.getCode())
+		{
+		case BOOL:
+			return Value.bool((Boolean) null);
+		case INT64:
+			return Value.int64((Long) null);
+		case FLOAT64:
+			return Value.float64((Double) null);
+		case STRING:
+			return Value.string(null);
+		case BYTES:
+			return Value.bytes(null);
+		case TIMESTAMP:
+			return Value.timestamp(null);
+		case DATE:
+			return Value.date(null);
+		case ARRAY:
+			return createArray(type.getArrayElementType(), null);
+		default:
+			throw new IllegalArgumentException("Unsupported type: " + type);
+		}
+	}
+
+}
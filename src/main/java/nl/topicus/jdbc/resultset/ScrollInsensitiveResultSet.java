@@ -0,0 +1,251 @@
+package nl.topicus.jdbc.resultset;
+
+import java.io.IOException;
+
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.common.base.Preconditions;
+import com.google.spanner.v1.ResultSetStats;
+
+/**
+ * {@link ResultSet} that caches the rows of another {@link ResultSet} in a
+ * {@link RowCache}, so that the cursor can be moved to any row of the result
+ * set. Rows are only read from the underlying result set when the cursor is
+ * moved past the rows that have already been read. The underlying result set
+ * is closed as soon as all its rows have been read.
+ *
+ * @author loite
+ *
+ */
+class ScrollInsensitiveResultSet extends AbstractCurrentRowResultSet
+{
+	private final ResultSet delegate;
+
+	private final long memoryBudget;
+
+	private RowCache cache;
+
+	private Type type;
+
+	private boolean exhausted;
+
+	private boolean closed;
+
+	/**
+	 * The zero-based index of the current row. -1 means before the first row,
+	 * and a value equal to the number of rows means after the last row.
+	 */
+	private int position = -1;
+
+	private Struct currentRow;
+
+	/**
+	 * The last row that was read from the underlying result set. This row is
+	 * returned directly when the cursor is moved forward to it, instead of
+	 * decoding it from the cache.
+	 */
+	private Struct lastReadRow;
+
+	ScrollInsensitiveResultSet(ResultSet delegate)
+	{
+		this(delegate, RowCache.DEFAULT_MEMORY_BUDGET);
+	}
+
+	ScrollInsensitiveResultSet(ResultSet delegate, long memoryBudget)
+	{
+		Preconditions.checkNotNull(delegate);
+		this.delegate = delegate;
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Reads the next row from the underlying result set into the cache
+	 *
+	 * @return true if a row was read, false if the underlying result set has
+	 *         no more rows
+	 */
+	private boolean readRow()
+	{
+		if (exhausted)
+			return false;
+		boolean res = delegate.next();
+		if (type == null)
+		{
+			type = delegate.getType();
+			cache = new RowCache(type, memoryBudget);
+		}
+		if (res)
+		{
+			lastReadRow = delegate.getCurrentRowAsStruct();
+			try
+			{
+				cache.add(lastReadRow);
+			}
+			catch (IOException e)
+			{
+				throw SpannerExceptionFactory.newSpannerException(ErrorCode.INTERNAL,
+						"Could not cache row: " + e.getMessage(), e);
+			}
+		}
+		else
+		{
+			exhausted = true;
+			lastReadRow = null;
+			delegate.close();
+		}
+		return res;
+	}
+
+	private boolean ensureRead(int index)
+	{
+		while ((cache == null || cache.size() <= index) && readRow())
+		{
+			// read until the row is in the cache or there are no more rows
+		}
+		return cache.size() > index;
+	}
+
+	/**
+	 * Moves the cursor to the given row
+	 *
+	 * @param index
+	 *            The zero-based index of the row. Negative values move the
+	 *            cursor before the first row, values greater than or equal to
+	 *            the number of rows move the cursor after the last row.
+	 * @return true if the cursor is on a row
+	 */
+	boolean moveTo(int index)
+	{
+		Preconditions.checkState(!closed, "ResultSet is closed");
+		currentRow = null;
+		if (index < 0)
+		{
+			position = -1;
+			return false;
+		}
+		if (!ensureRead(index))
+		{
+			position = cache.size();
+			return false;
+		}
+		position = index;
+		if (lastReadRow != null && index == cache.size() - 1)
+		{
+			currentRow = lastReadRow;
+		}
+		else
+		{
+			try
+			{
+				currentRow = cache.get(index);
+			}
+			catch (IOException e)
+			{
+				throw SpannerExceptionFactory.newSpannerException(ErrorCode.INTERNAL,
+						"Could not read cached row: " + e.getMessage(), e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @return The zero-based index of the current row, -1 if the cursor is
+	 *         before the first row or the number of rows if the cursor is after
+	 *         the last row
+	 */
+	int getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * Reads all remaining rows of the underlying result set
+	 *
+	 * @return The total number of rows
+	 */
+	int getRowCount()
+	{
+		Preconditions.checkState(!closed, "ResultSet is closed");
+		ensureRead(Integer.MAX_VALUE - 1);
+		return cache.size();
+	}
+
+	/**
+	 *
+	 * @return true if the cursor is on the last row of the result set
+	 */
+	boolean isLast()
+	{
+		return currentRow != null && !ensureRead(position + 1);
+	}
+
+	boolean isSpilled()
+	{
+		return cache != null && cache.isSpilled();
+	}
+
+	@Override
+	public boolean next() throws SpannerException
+	{
+		return moveTo(position + 1);
+	}
+
+	@Override
+	public Struct getCurrentRowAsStruct()
+	{
+		Preconditions.checkState(currentRow != null, "next() call required");
+		return currentRow;
+	}
+
+	@Override
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		currentRow = null;
+		lastReadRow = null;
+		try
+		{
+			if (!exhausted)
+				delegate.close();
+		}
+		finally
+		{
+			if (cache != null)
+			{
+				try
+				{
+					cache.close();
+				}
+				catch (IOException e)
+				{
+					// ignore, the cache only contains a copy of the data
+				}
+			}
+		}
+	}
+
+	@Override
+	public ResultSetStats getStats()
+	{
+		return exhausted ? delegate.getStats() : null;
+	}
+
+	@Override
+	public Type getType()
+	{
+		if (type == null)
+		{
+			Preconditions.checkState(!closed, "ResultSet is closed");
+			readRow();
+		}
+		return type;
+	}
+
+}
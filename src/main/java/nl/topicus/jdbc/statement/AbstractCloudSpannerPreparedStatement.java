@@ -38,6 +38,12 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 		super(connection, dbClient);
 	}
 
+	public AbstractCloudSpannerPreparedStatement(CloudSpannerConnection connection, DatabaseClient dbClient,
+			int resultSetType)
+	{
+		super(connection, dbClient, resultSetType);
+	}
+
 	protected ParameterStore getParameterStore()
 	{
 		return parameters;
@@ -130,19 +136,19 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, x, null, length);
+		parameters.setStreamParameter(parameterIndex, x, length, (long) length);
 	}
 
 	@Override
 	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, x, null, length);
+		parameters.setStreamParameter(parameterIndex, x, length, (long) length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, x, null, length);
+		parameters.setStreamParameter(parameterIndex, x, length, (long) length);
 	}
 
 	@Override
@@ -166,7 +172,7 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, reader, null, length);
+		parameters.setStreamParameter(parameterIndex, reader, length, (long) length);
 	}
 
 	@Override
@@ -247,7 +253,7 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 	@Override
 	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, value);
+		parameters.setStreamParameter(parameterIndex, value, null, length);
 	}
 
 	@Override
@@ -259,19 +265,19 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 	@Override
 	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, reader);
+		parameters.setStreamParameter(parameterIndex, reader, null, length);
 	}
 
 	@Override
 	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, inputStream);
+		parameters.setStreamParameter(parameterIndex, inputStream, null, length);
 	}
 
 	@Override
 	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, reader);
+		parameters.setStreamParameter(parameterIndex, reader, null, length);
 	}
 
 	@Override
@@ -289,19 +295,19 @@ public abstract class AbstractCloudSpannerPreparedStatement extends CloudSpanner
 	@Override
 	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, x);
+		parameters.setStreamParameter(parameterIndex, x, null, length);
 	}
 
 	@Override
 	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, x);
+		parameters.setStreamParameter(parameterIndex, x, null, length);
 	}
 
 	@Override
 	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException
 	{
-		parameters.setParameter(parameterIndex, reader);
+		parameters.setStreamParameter(parameterIndex, reader, null, length);
 	}
 
 	@Override
@@ -14,6 +14,7 @@ import com.google.cloud.spanner.Partition;
 import com.google.cloud.spanner.PartitionOptions;
 import com.google.cloud.spanner.ReadContext;
 import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.spanner.TransactionContext;
 import com.google.cloud.spanner.TransactionRunner.TransactionCallable;
 import com.google.rpc.Code;
@@ -64,10 +65,18 @@ abstract class AbstractCloudSpannerStatement extends AbstractCloudSpannerFetcher
 
 	private int maxFieldSize = 0;
 
+	private final int resultSetType;
+
 	AbstractCloudSpannerStatement(CloudSpannerConnection connection, DatabaseClient dbClient)
+	{
+		this(connection, dbClient, ResultSet.TYPE_FORWARD_ONLY);
+	}
+
+	AbstractCloudSpannerStatement(CloudSpannerConnection connection, DatabaseClient dbClient, int resultSetType)
 	{
 		this.connection = connection;
 		this.dbClient = dbClient;
+		this.resultSetType = resultSetType;
 	}
 
 	protected String sanitizeSQL(String sql)
@@ -193,9 +202,16 @@ abstract class AbstractCloudSpannerStatement extends AbstractCloudSpannerFetcher
 
 	protected ReadContext getReadContext() throws SQLException
 	{
-		if (connection.getAutoCommit() || forceSingleUseReadContext)
+		// Queries on the information schema are executed by the driver itself
+		// to check the current state of the schema, for example after a DDL
+		// statement. These should always see the latest data.
+		if (forceSingleUseReadContext)
 		{
-			return dbClient.singleUse();
+			return dbClient.singleUse(TimestampBound.strong());
+		}
+		if (connection.getAutoCommit())
+		{
+			return dbClient.singleUse(connection.getReadStaleness());
 		}
 		return connection.getTransaction();
 	}
@@ -248,7 +264,14 @@ abstract class AbstractCloudSpannerStatement extends AbstractCloudSpannerFetcher
 			}
 			else
 			{
-				connection.getTransaction().buffer(mutations.getMutations());
+				try
+				{
+					connection.getTransaction().buffer(mutations.getMutations());
+				}
+				catch (SpannerException e)
+				{
+					throw new CloudSpannerSQLException(e);
+				}
 			}
 		}
 		return mutations.getNumberOfResults();
@@ -348,7 +371,13 @@ abstract class AbstractCloudSpannerStatement extends AbstractCloudSpannerFetcher
 	@Override
 	public int getResultSetType() throws SQLException
 	{
-		return ResultSet.TYPE_FORWARD_ONLY;
+		return resultSetType;
+	}
+
+	@Override
+	protected boolean isScrollable()
+	{
+		return resultSetType != ResultSet.TYPE_FORWARD_ONLY;
 	}
 
 	@Override
@@ -35,12 +35,26 @@ abstract class AbstractSpannerExpressionVisitorAdapter extends ExpressionVisitor
 
 	protected abstract void setValue(Object value);
 
+	/**
+	 * Sets the value of a parameter
+	 * 
+	 * @param value
+	 *            The value of the parameter
+	 * @param streamLength
+	 *            The number of bytes or characters that should be read if the
+	 *            value is a stream or reader, or null if all should be read
+	 */
+	protected void setValue(Object value, Long streamLength)
+	{
+		setValue(value);
+	}
+
 	@Override
 	public void visit(JdbcParameter parameter)
 	{
 		Object value = parameterStore.getParameter(parameter.getIndex());
 		parameterStore.setColumn(parameter.getIndex(), column);
-		setValue(value);
+		setValue(value, parameterStore.getStreamLength(parameter.getIndex()));
 	}
 
 	@Override
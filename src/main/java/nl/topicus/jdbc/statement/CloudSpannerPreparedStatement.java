@@ -39,7 +39,6 @@ import net.sf.jsqlparser.statement.update.Update;
 import nl.topicus.jdbc.CloudSpannerConnection;
 import nl.topicus.jdbc.MetaDataStore.TableKeyMetaData;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
-import nl.topicus.jdbc.resultset.CloudSpannerPartitionResultSet;
 import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
 import nl.topicus.jdbc.statement.AbstractTablePartWorker.DMLOperation;
 
@@ -72,7 +71,13 @@ public class CloudSpannerPreparedStatement extends AbstractCloudSpannerPreparedS
 
 	public CloudSpannerPreparedStatement(String sql, CloudSpannerConnection connection, DatabaseClient dbClient)
 	{
-		super(connection, dbClient);
+		this(sql, connection, dbClient, ResultSet.TYPE_FORWARD_ONLY);
+	}
+
+	public CloudSpannerPreparedStatement(String sql, CloudSpannerConnection connection, DatabaseClient dbClient,
+			int resultSetType)
+	{
+		super(connection, dbClient, resultSetType);
 		this.sql = sql;
 		this.sqlTokens = getTokens(sql);
 	}
@@ -152,7 +157,7 @@ public class CloudSpannerPreparedStatement extends AbstractCloudSpannerPreparedS
 			try (ReadContext context = getReadContext())
 			{
 				com.google.cloud.spanner.ResultSet rs = context.executeQuery(builder.build());
-				return new CloudSpannerResultSet(this, rs, sql);
+				return createResultSet(rs, sql);
 			}
 		}
 		throw new CloudSpannerSQLException("SQL statement not suitable for executeQuery. Expected SELECT-statement.",
@@ -619,19 +624,16 @@ public class CloudSpannerPreparedStatement extends AbstractCloudSpannerPreparedS
 			if (!isForceSingleUseReadContext() && getConnection().isBatchReadOnly())
 			{
 				List<Partition> partitions = partitionQuery(builder.build());
-				currentResultSets = new ArrayList<>(partitions.size());
-				for (Partition p : partitions)
-				{
-					currentResultSets
-							.add(new CloudSpannerPartitionResultSet(this, getBatchReadOnlyTransaction(), p, sql));
-				}
+				currentResultSets = createPartitionResultSets(partitions, sql);
+				currentResultSetIndex = 0;
+				lastUpdateCount = -1;
 			}
 			else
 			{
 				try (ReadContext context = getReadContext())
 				{
 					com.google.cloud.spanner.ResultSet rs = context.executeQuery(builder.build());
-					currentResultSets = Arrays.asList(new CloudSpannerResultSet(this, rs, sql));
+					currentResultSets = Arrays.asList(createResultSet(rs, sql));
 					currentResultSetIndex = 0;
 					lastUpdateCount = -1;
 				}
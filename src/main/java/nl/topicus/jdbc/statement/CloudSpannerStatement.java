@@ -24,9 +24,13 @@ import net.sf.jsqlparser.parser.TokenMgrError;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.Select;
 import nl.topicus.jdbc.CloudSpannerConnection;
+import nl.topicus.jdbc.TimestampBoundParser;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.resultset.CloudSpannerParallelPartitionResultSet;
 import nl.topicus.jdbc.resultset.CloudSpannerPartitionResultSet;
+import nl.topicus.jdbc.resultset.CloudSpannerPrefetchingResultSet;
 import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.resultset.CloudSpannerScrollInsensitiveResultSet;
 
 /**
  * 
@@ -57,6 +61,11 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		super(connection, dbClient);
 	}
 
+	public CloudSpannerStatement(CloudSpannerConnection connection, DatabaseClient dbClient, int resultSetType)
+	{
+		super(connection, dbClient, resultSetType);
+	}
+
 	/**
 	 * Does some formatting to DDL statements that might have been generated by
 	 * standard SQL generators to make it compatible with Google Cloud Spanner.
@@ -194,7 +203,7 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 
 	protected void executeDDL(List<String> ddl) throws SQLException
 	{
-		getConnection().executeDDL(ddl);
+		getConnection().executeDDLScript(ddl);
 	}
 
 	@Override
@@ -209,7 +218,7 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		try (ReadContext context = getReadContext())
 		{
 			com.google.cloud.spanner.ResultSet rs = context.executeQuery(com.google.cloud.spanner.Statement.of(sql));
-			return new CloudSpannerResultSet(this, rs, sql);
+			return createResultSet(rs, sql);
 		}
 	}
 
@@ -224,7 +233,7 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		}
 		if (isDDLStatement(sqlTokens) && getConnection().isAutoBatchDdlOperations())
 		{
-			getConnection().addAutoBatchedDdlOperation(sql);
+			getConnection().addAutoBatchedDdlOperation(formatDDLStatement(sql));
 			return 0;
 		}
 		PreparedStatement ps = getConnection().prepareStatement(sql);
@@ -259,12 +268,9 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 			if (!isForceSingleUseReadContext() && getConnection().isBatchReadOnly())
 			{
 				List<Partition> partitions = partitionQuery(com.google.cloud.spanner.Statement.of(sql));
-				currentResultSets = new ArrayList<>(partitions.size());
-				for (Partition p : partitions)
-				{
-					currentResultSets
-							.add(new CloudSpannerPartitionResultSet(this, getBatchReadOnlyTransaction(), p, sql));
-				}
+				currentResultSets = createPartitionResultSets(partitions, sql);
+				currentResultSetIndex = 0;
+				lastUpdateCount = -1;
 			}
 			else
 			{
@@ -272,7 +278,7 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 				{
 					com.google.cloud.spanner.ResultSet rs = context
 							.executeQuery(com.google.cloud.spanner.Statement.of(sql));
-					currentResultSets = Arrays.asList(new CloudSpannerResultSet(this, rs, sql));
+					currentResultSets = Arrays.asList(createResultSet(rs, sql));
 					currentResultSetIndex = 0;
 					lastUpdateCount = -1;
 				}
@@ -288,6 +294,83 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		}
 	}
 
+	/**
+	 * Create the result set for the given query result. If the connection
+	 * prefetches rows, the rows are read ahead on a background thread, using
+	 * the prefetch size of this statement as the maximum number of rows to read
+	 * ahead. If this statement creates scroll-insensitive result sets, the rows
+	 * are cached so that the client can scroll through the result set.
+	 * 
+	 * @param rs
+	 *            The result of the query
+	 * @param sql
+	 *            The sql of the query
+	 * @return The result set to return to the client
+	 * @throws SQLException
+	 *             If the connection is closed
+	 */
+	protected CloudSpannerResultSet createResultSet(com.google.cloud.spanner.ResultSet rs, String sql)
+			throws SQLException
+	{
+		if (getResultSetType() == ResultSet.TYPE_SCROLL_INSENSITIVE)
+		{
+			if (getConnection().isPrefetchRows())
+				rs = CloudSpannerPrefetchingResultSet.prefetch(rs, getPrefetchSize());
+			return new CloudSpannerScrollInsensitiveResultSet(this, rs, sql);
+		}
+		if (getConnection().isPrefetchRows())
+			return new CloudSpannerPrefetchingResultSet(this, rs, getPrefetchSize(), sql);
+		return new CloudSpannerResultSet(this, rs, sql);
+	}
+
+	/**
+	 * 
+	 * @return The maximum number of rows to read ahead if the connection
+	 *         prefetches rows. This is the fetch size of this statement if it
+	 *         has been set, and otherwise
+	 *         {@link CloudSpannerPrefetchingResultSet#DEFAULT_PREFETCH_SIZE}, as
+	 *         the default fetch size of 1 would only allow one row to be read
+	 *         ahead.
+	 * @throws SQLException
+	 *             Cannot be thrown by this method, but is added to the method
+	 *             signature because {@link #getFetchSize()} declares it
+	 */
+	int getPrefetchSize() throws SQLException
+	{
+		return isFetchSizeSet() ? getFetchSize() : CloudSpannerPrefetchingResultSet.DEFAULT_PREFETCH_SIZE;
+	}
+
+	/**
+	 * Create the result sets for the given partitions of a query. If the
+	 * connection has a batch read-only parallelism greater than 1, the
+	 * partitions are executed in parallel and merged into one result set.
+	 * Otherwise one result set per partition is returned.
+	 * 
+	 * @param partitions
+	 *            The partitions of the query
+	 * @param sql
+	 *            The sql of the query
+	 * @return The result sets to return to the client
+	 * @throws SQLException
+	 *             If the connection is closed
+	 */
+	protected List<ResultSet> createPartitionResultSets(List<Partition> partitions, String sql)
+			throws SQLException
+	{
+		int parallelism = getConnection().getBatchReadOnlyParallelism();
+		if (parallelism > 1 && partitions.size() > 1)
+		{
+			return Arrays.asList(new CloudSpannerParallelPartitionResultSet(this, getBatchReadOnlyTransaction(),
+					partitions, parallelism, sql));
+		}
+		List<ResultSet> res = new ArrayList<>(partitions.size());
+		for (Partition p : partitions)
+		{
+			res.add(new CloudSpannerPartitionResultSet(this, getBatchReadOnlyTransaction(), p, sql));
+		}
+		return res;
+	}
+
 	private static final String[] DDL_STATEMENTS = { "CREATE", "ALTER", "DROP" };
 
 	/**
@@ -466,12 +549,11 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 				throw new CloudSpannerSQLException(
 						"Invalid argument(s) for EXECUTE_DDL_BATCH. Expected \"EXECUTE_DDL_BATCH\"",
 						Code.INVALID_ARGUMENT);
-			try (CloudSpannerStatement statement = getConnection().createStatement())
+			try
 			{
 				List<String> operations = getConnection().getAutoBatchedDdlOperations();
-				for (String sql : operations)
-					statement.addBatch(sql);
-				statement.executeBatch();
+				if (!operations.isEmpty())
+					getConnection().executeDDLScript(operations);
 				return operations.size();
 			}
 			finally
@@ -481,6 +563,24 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		}
 	}
 
+	private class ShowDdlBatchPlan extends CustomDriverStatement
+	{
+		private ShowDdlBatchPlan()
+		{
+			super("SHOW_DDL_BATCH_PLAN", true);
+		}
+
+		@Override
+		public ResultSet executeQuery(String[] sqlTokens) throws SQLException
+		{
+			if (sqlTokens.length != 1)
+				throw new CloudSpannerSQLException(
+						"Invalid argument(s) for SHOW_DDL_BATCH_PLAN. Expected \"SHOW_DDL_BATCH_PLAN\"",
+						Code.INVALID_ARGUMENT);
+			return getConnection().getDdlBatchPlan(CloudSpannerStatement.this);
+		}
+	}
+
 	private class SetConnectionProperty extends CustomDriverStatement
 	{
 		private SetConnectionProperty()
@@ -537,9 +637,29 @@ public class CloudSpannerStatement extends AbstractCloudSpannerStatement
 		}
 	}
 
+	private class SetReadStaleness extends CustomDriverStatement
+	{
+		private SetReadStaleness()
+		{
+			super("SET_READ_STALENESS", false);
+		}
+
+		@Override
+		public int executeUpdate(String[] sqlTokens) throws SQLException
+		{
+			if (sqlTokens.length < 2)
+				throw new CloudSpannerSQLException(
+						"Invalid argument(s) for SET_READ_STALENESS. Expected \"SET_READ_STALENESS STRONG|MAX_STALENESS duration|EXACT_STALENESS duration|MIN_READ_TIMESTAMP timestamp|READ_TIMESTAMP timestamp\"",
+						Code.INVALID_ARGUMENT);
+			String bound = String.join(" ", Arrays.copyOfRange(sqlTokens, 1, sqlTokens.length));
+			return getConnection().setReadStaleness(TimestampBoundParser.parse(bound));
+		}
+	}
+
 	private final List<CustomDriverStatement> customDriverStatements = Arrays.asList(new ShowDdlOperations(),
-			new CleanDdlOperations(), new WaitForDdlOperations(), new ExecuteDdlBatch(), new SetConnectionProperty(),
-			new GetConnectionProperty(), new ResetConnectionProperty());
+			new CleanDdlOperations(), new WaitForDdlOperations(), new ExecuteDdlBatch(), new ShowDdlBatchPlan(),
+			new SetConnectionProperty(), new GetConnectionProperty(), new ResetConnectionProperty(),
+			new SetReadStaleness());
 
 	/**
 	 * Checks if a sql statement is a custom statement only recognized by this
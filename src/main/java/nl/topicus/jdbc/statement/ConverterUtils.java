@@ -7,7 +7,9 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
+import nl.topicus.jdbc.CloudSpannerConnection;
 import nl.topicus.jdbc.CloudSpannerDriver;
+import nl.topicus.jdbc.SchemaSnapshot;
 
 public class ConverterUtils
 {
@@ -27,15 +29,42 @@ public class ConverterUtils
 		return Math.max(Math.min(batchSize / rowSize, 20000 / (numberOfCols + indices)), 100);
 	}
 
+	/**
+	 * Returns the table from the schema snapshot of the given connection if
+	 * it is a Cloud Spanner connection. Cloud Spanner only has a default
+	 * catalog and schema, so the table can be looked up by name.
+	 * 
+	 * @return The table from the schema snapshot, or null if the connection
+	 *         is not a Cloud Spanner connection or the table was not found
+	 */
+	private static SchemaSnapshot.Table getSchemaTable(Connection connection, String table) throws SQLException
+	{
+		if (connection instanceof CloudSpannerConnection)
+			return ((CloudSpannerConnection) connection).getSchemaTable(table);
+		return null;
+	}
+
 	public static int getRowSize(Connection destination, String catalog, String schema, String table)
 			throws SQLException
 	{
+		SchemaSnapshot.Table schemaTable = getSchemaTable(destination, table);
+		if (schemaTable != null)
+		{
+			// There's an 8 bytes storage overhead for each column
+			int totalSize = 8;
+			for (SchemaSnapshot.Column column : schemaTable.getColumns())
+				totalSize += getEstimatedColumnSize(column.getDataType(), column.getColumnSize());
+			return totalSize;
+		}
 		return getEstimatedRowSizeInCloudSpanner(destination, catalog, schema, table, null);
 	}
 
 	public static int getNumberOfIndices(Connection destination, String catalog, String schema, String table)
 			throws SQLException
 	{
+		SchemaSnapshot.Table schemaTable = getSchemaTable(destination, table);
+		if (schemaTable != null)
+			return schemaTable.getNumberOfIndexColumns();
 		int count = 0;
 		try (ResultSet indices = destination.getMetaData().getIndexInfo(catalog, schema, table, false, false))
 		{
@@ -49,6 +78,13 @@ public class ConverterUtils
 			throws SQLException
 	{
 		List<String> res = new ArrayList<>();
+		SchemaSnapshot.Table schemaTable = getSchemaTable(destination, table);
+		if (schemaTable != null)
+		{
+			for (SchemaSnapshot.Column column : schemaTable.getColumns())
+				res.add(CloudSpannerDriver.quoteIdentifier(column.getName()));
+			return res;
+		}
 		try (ResultSet cols = destination.getMetaData().getColumns(catalog, schema, table, null))
 		{
 			while (cols.next())
@@ -83,40 +119,35 @@ public class ConverterUtils
 		{
 			while (rs.next())
 			{
-				long colLength = rs.getLong("COLUMN_SIZE");
-				int colType = rs.getInt("DATA_TYPE");
-				switch (colType)
-				{
-				case Types.ARRAY:
-					break;
-				case Types.BOOLEAN:
-					totalSize += 1;
-					break;
-				case Types.BINARY:
-					totalSize += colLength;
-					break;
-				case Types.DATE:
-					totalSize += 4;
-					break;
-				case Types.DOUBLE:
-					totalSize += 8;
-					break;
-				case Types.BIGINT:
-					totalSize += 8;
-					break;
-				case Types.NVARCHAR:
-					totalSize += colLength * 2;
-					break;
-				case Types.TIMESTAMP:
-					totalSize += 12;
-					break;
-				default:
-					totalSize += 8;
-					break;
-				}
+				totalSize += getEstimatedColumnSize(rs.getInt("DATA_TYPE"), rs.getLong("COLUMN_SIZE"));
 			}
 		}
 		return totalSize;
 	}
 
+	private static int getEstimatedColumnSize(int colType, long colLength)
+	{
+		switch (colType)
+		{
+		case Types.ARRAY:
+			return 0;
+		case Types.BOOLEAN:
+			return 1;
+		case Types.BINARY:
+			return (int) colLength;
+		case Types.DATE:
+			return 4;
+		case Types.DOUBLE:
+			return 8;
+		case Types.BIGINT:
+			return 8;
+		case Types.NVARCHAR:
+			return (int) (colLength * 2);
+		case Types.TIMESTAMP:
+			return 12;
+		default:
+			return 8;
+		}
+	}
+
 }
@@ -20,6 +20,13 @@ public class ParameterStore
 
 	private Integer[] scalesOrLengths = new Integer[10];
 
+	/**
+	 * The declared lengths of stream and reader parameters. These are kept
+	 * separate from scalesOrLengths, as those are overwritten with the column
+	 * sizes when the parameter meta data is fetched.
+	 */
+	private Long[] streamLengths = new Long[10];
+
 	private String table;
 
 	private String[] columns = new String[10];
@@ -33,6 +40,7 @@ public class ParameterStore
 		types = new Integer[10];
 		nullable = new Integer[10];
 		scalesOrLengths = new Integer[10];
+		streamLengths = new Long[10];
 		columns = new String[10];
 		table = null;
 	}
@@ -69,6 +77,14 @@ public class ParameterStore
 		return scalesOrLengths[arrayIndex];
 	}
 
+	Long getStreamLength(int parameterIndex)
+	{
+		int arrayIndex = parameterIndex - 1;
+		if (arrayIndex >= streamLengths.length)
+			return null;
+		return streamLengths[arrayIndex];
+	}
+
 	String getColumn(int parameterIndex)
 	{
 		int arrayIndex = parameterIndex - 1;
@@ -90,13 +106,13 @@ public class ParameterStore
 	void setColumn(int parameterIndex, String column)
 	{
 		setParameter(parameterIndex, getParameter(parameterIndex), getType(parameterIndex),
-				getScaleOrLength(parameterIndex), column);
+				getScaleOrLength(parameterIndex), column, getStreamLength(parameterIndex));
 	}
 
 	void setType(int parameterIndex, Integer type)
 	{
 		setParameter(parameterIndex, getParameter(parameterIndex), type, getScaleOrLength(parameterIndex),
-				getColumn(parameterIndex));
+				getColumn(parameterIndex), getStreamLength(parameterIndex));
 	}
 
 	void setParameter(int parameterIndex, Object value)
@@ -109,7 +125,31 @@ public class ParameterStore
 		setParameter(parameterIndex, value, sqlType, scaleOrLength, null);
 	}
 
+	/**
+	 * Sets a stream or reader parameter
+	 * 
+	 * @param parameterIndex
+	 *            The index of the parameter
+	 * @param value
+	 *            The stream or reader
+	 * @param scaleOrLength
+	 *            The length as specified by the user, if any
+	 * @param streamLength
+	 *            The number of bytes or characters that should be read from
+	 *            the stream or reader, or null if all should be read
+	 */
+	void setStreamParameter(int parameterIndex, Object value, Integer scaleOrLength, Long streamLength)
+	{
+		setParameter(parameterIndex, value, null, scaleOrLength, null, streamLength);
+	}
+
 	void setParameter(int parameterIndex, Object value, Integer sqlType, Integer scaleOrLength, String column)
+	{
+		setParameter(parameterIndex, value, sqlType, scaleOrLength, column, null);
+	}
+
+	private void setParameter(int parameterIndex, Object value, Integer sqlType, Integer scaleOrLength,
+			String column, Long streamLength)
 	{
 		highestIndex = Math.max(parameterIndex, highestIndex);
 		int arrayIndex = parameterIndex - 1;
@@ -119,11 +159,13 @@ public class ParameterStore
 			types = Arrays.copyOf(types, Math.max(types.length * 2, arrayIndex));
 			nullable = Arrays.copyOf(nullable, Math.max(nullable.length * 2, arrayIndex));
 			scalesOrLengths = Arrays.copyOf(scalesOrLengths, Math.max(scalesOrLengths.length * 2, arrayIndex));
+			streamLengths = Arrays.copyOf(streamLengths, Math.max(streamLengths.length * 2, arrayIndex));
 			columns = Arrays.copyOf(columns, Math.max(columns.length * 2, arrayIndex));
 		}
 		parameters[arrayIndex] = value;
 		types[arrayIndex] = sqlType;
 		scalesOrLengths[arrayIndex] = scaleOrLength;
+		streamLengths[arrayIndex] = streamLength;
 		columns[arrayIndex] = column;
 	}
 
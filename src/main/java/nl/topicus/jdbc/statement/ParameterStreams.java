@@ -0,0 +1,163 @@
+package nl.topicus.jdbc.statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+
+import com.google.cloud.ByteArray;
+import com.google.common.io.ByteStreams;
+
+import nl.topicus.jdbc.CloudSpannerBlob;
+import nl.topicus.jdbc.CloudSpannerClob;
+
+/**
+ * Converts stream, reader, blob and clob parameters to values that can be
+ * sent to Cloud Spanner. Values are read directly into the value that is sent
+ * to Cloud Spanner, and the maximum value size is enforced while the value is
+ * being read, so that a value that is too large is rejected without reading
+ * all of it into memory.
+ *
+ * @author loite
+ *
+ */
+final class ParameterStreams
+{
+	/**
+	 * The maximum size of a single value in Cloud Spanner (10 MiB)
+	 */
+	static final int MAX_VALUE_SIZE = 10 * 1024 * 1024;
+
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	/**
+	 * Reusable chunk buffers for reading characters from a {@link Reader}
+	 */
+	private static final ThreadLocal<char[]> CHAR_BUFFERS = ThreadLocal.withInitial(() -> new char[CHUNK_SIZE]);
+
+	private ParameterStreams()
+	{
+	}
+
+	private static long getLimit(Long length)
+	{
+		if (length == null)
+			return MAX_VALUE_SIZE + 1L;
+		if (length < 0L)
+			throw new IllegalArgumentException("Invalid stream length: " + length);
+		checkSize(length);
+		return length;
+	}
+
+	private static void checkSize(long size)
+	{
+		if (size > MAX_VALUE_SIZE)
+			throw new IllegalArgumentException(
+					"Value size " + size + " exceeds the maximum value size of " + MAX_VALUE_SIZE);
+	}
+
+	/**
+	 * Reads the bytes of the given stream into a {@link ByteArray}. The
+	 * {@link ByteArray} is built from the chunks that are read from the
+	 * stream, without copying these into one contiguous array first.
+	 *
+	 * @param stream
+	 *            The stream to read
+	 * @param length
+	 *            The number of bytes to read, or null if the stream should be
+	 *            read until the end
+	 * @return The bytes that were read
+	 */
+	static ByteArray toByteArray(InputStream stream, Long length)
+	{
+		long limit = getLimit(length);
+		try
+		{
+			ByteArray res = ByteArray.copyFrom(ByteStreams.limit(stream, limit));
+			checkSize(res.length());
+			return res;
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Could not copy bytes from input stream: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the characters of the given reader into a {@link String}
+	 *
+	 * @param reader
+	 *            The reader to read
+	 * @param length
+	 *            The number of characters to read, or null if the reader
+	 *            should be read until the end
+	 * @return The characters that were read
+	 */
+	static String toString(Reader reader, Long length)
+	{
+		long limit = getLimit(length);
+		char[] buffer = CHAR_BUFFERS.get();
+		StringBuilder builder = new StringBuilder(length == null ? CHUNK_SIZE : (int) limit);
+		try
+		{
+			long remaining = limit;
+			int read;
+			while (remaining > 0
+					&& (read = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1)
+			{
+				builder.append(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Could not copy characters from reader: " + e.getMessage(), e);
+		}
+		checkSize(builder.length());
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 * @param blob
+	 *            The blob to convert
+	 * @return The value of the blob. The underlying value is returned directly
+	 *         if the blob was returned by Cloud Spanner.
+	 */
+	static ByteArray toByteArray(Blob blob)
+	{
+		try
+		{
+			if (blob instanceof CloudSpannerBlob)
+				return ((CloudSpannerBlob) blob).getValue();
+			return toByteArray(blob.getBinaryStream(), blob.length());
+		}
+		catch (SQLException e)
+		{
+			throw new IllegalArgumentException("Could not read blob: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 *
+	 * @param clob
+	 *            The clob to convert
+	 * @return The value of the clob
+	 */
+	static String toString(Clob clob)
+	{
+		try
+		{
+			if (clob instanceof CloudSpannerClob)
+				return clob.getSubString(1L, (int) clob.length());
+			return toString(clob.getCharacterStream(), clob.length());
+		}
+		catch (SQLException e)
+		{
+			throw new IllegalArgumentException("Could not read clob: " + e.getMessage(), e);
+		}
+	}
+
+}
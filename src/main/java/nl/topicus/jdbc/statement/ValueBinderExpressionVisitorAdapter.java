@@ -1,9 +1,11 @@
 package nl.topicus.jdbc.statement;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -31,7 +33,13 @@ class ValueBinderExpressionVisitorAdapter<R> extends AbstractSpannerExpressionVi
 	@Override
 	protected void setValue(Object value)
 	{
-		R res = setSingleValue(value);
+		setValue(value, null);
+	}
+
+	@Override
+	protected void setValue(Object value, Long streamLength)
+	{
+		R res = setSingleValue(value, streamLength);
 		if (res == null && value != null)
 			res = setArrayValue(value);
 
@@ -42,7 +50,7 @@ class ValueBinderExpressionVisitorAdapter<R> extends AbstractSpannerExpressionVi
 		}
 	}
 
-	private R setSingleValue(Object value)
+	private R setSingleValue(Object value, Long streamLength)
 	{
 		if (value == null)
 		{
@@ -113,16 +121,21 @@ class ValueBinderExpressionVisitorAdapter<R> extends AbstractSpannerExpressionVi
 		{
 			return binder.to(ByteArray.copyFrom((byte[]) value));
 		}
-		else if (ByteArrayInputStream.class.isAssignableFrom(value.getClass()))
+		else if (InputStream.class.isAssignableFrom(value.getClass()))
 		{
-			try
-			{
-				return binder.to(ByteArray.copyFrom((ByteArrayInputStream) value));
-			}
-			catch (IOException e)
-			{
-				throw new IllegalArgumentException("Could not copy bytes from input stream: " + e.getMessage(), e);
-			}
+			return binder.to(ParameterStreams.toByteArray((InputStream) value, streamLength));
+		}
+		else if (Reader.class.isAssignableFrom(value.getClass()))
+		{
+			return binder.to(ParameterStreams.toString((Reader) value, streamLength));
+		}
+		else if (Blob.class.isAssignableFrom(value.getClass()))
+		{
+			return binder.to(ParameterStreams.toByteArray((Blob) value));
+		}
+		else if (Clob.class.isAssignableFrom(value.getClass()))
+		{
+			return binder.to(ParameterStreams.toString((Clob) value));
 		}
 		else if (Array.class.isAssignableFrom(value.getClass()))
 		{
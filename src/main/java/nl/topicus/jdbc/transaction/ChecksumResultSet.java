@@ -0,0 +1,194 @@
+package nl.topicus.jdbc.transaction;
+
+import com.google.cloud.spanner.ForwardingResultSet;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.StructReader;
+import com.google.cloud.spanner.Type;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * {@link ResultSet} that keeps track of the number of rows that have been
+ * consumed and a running checksum of these rows. This information is used to
+ * replay a query after a read/write transaction has been aborted and to verify
+ * that the retried transaction sees exactly the same data as the original
+ * transaction.
+ *
+ * @author loite
+ *
+ */
+class ChecksumResultSet extends ForwardingResultSet
+{
+	private final Statement statement;
+
+	private final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+	private HashCode checksum;
+
+	private long rowsConsumed;
+
+	private boolean endReached;
+
+	ChecksumResultSet(Statement statement, ResultSet delegate)
+	{
+		super(delegate);
+		this.statement = statement;
+	}
+
+	@Override
+	public synchronized boolean next() throws SpannerException
+	{
+		boolean res = super.next();
+		if (checksum == null)
+		{
+			// Rows that are consumed after the checksum has been frozen are
+			// not taken into account
+			if (res)
+			{
+				rowsConsumed++;
+				putRow(hasher, this);
+			}
+			else
+			{
+				endReached = true;
+			}
+		}
+		return res;
+	}
+
+	Statement getStatement()
+	{
+		return statement;
+	}
+
+	synchronized long getRowsConsumed()
+	{
+		return rowsConsumed;
+	}
+
+	synchronized boolean isEndReached()
+	{
+		return endReached;
+	}
+
+	/**
+	 *
+	 * @return The checksum of all rows that have been consumed so far. Calling
+	 *         this method will freeze the checksum, meaning that rows that are
+	 *         consumed after calling this method will not be included.
+	 */
+	synchronized HashCode getChecksum()
+	{
+		if (checksum == null)
+			checksum = hasher.hash();
+		return checksum;
+	}
+
+	/**
+	 * Replay the statement of this result set on the given result set and
+	 * verify that the same rows are returned.
+	 *
+	 * @param replay
+	 *            The result set returned by the re-executed statement
+	 * @return true if the replayed result set contains exactly the same rows
+	 *         as the rows that were consumed from this result set
+	 */
+	boolean verify(ResultSet replay)
+	{
+		HashCode expected = getChecksum();
+		long rows = getRowsConsumed();
+		Hasher replayHasher = Hashing.murmur3_128().newHasher();
+		for (long row = 0; row < rows; row++)
+		{
+			if (!replay.next())
+				return false;
+			putRow(replayHasher, replay);
+		}
+		if (isEndReached() && replay.next())
+			return false;
+		return replayHasher.hash().equals(expected);
+	}
+
+	private static void putRow(Hasher hasher, StructReader row)
+	{
+		for (int col = 0; col < row.getColumnCount(); col++)
+		{
+			if (row.isNull(col))
+			{
+				hasher.putBoolean(false);
+				continue;
+			}
+			hasher.putBoolean(true);
+			Type type = row.getColumnType(col);
+			switch (type.getCode())
+			{
+			case BOOL:
+				hasher.putBoolean(row.getBoolean(col));
+				break;
+			case INT64:
+				hasher.putLong(row.getLong(col));
+				break;
+			case FLOAT64:
+				hasher.putDouble(row.getDouble(col));
+				break;
+			case STRING:
+				hasher.putUnencodedChars(row.getString(col));
+				break;
+			case BYTES:
+				hasher.putBytes(row.getBytes(col).toByteArray());
+				break;
+			case DATE:
+				hasher.putUnencodedChars(row.getDate(col).toString());
+				break;
+			case TIMESTAMP:
+				hasher.putUnencodedChars(row.getTimestamp(col).toString());
+				break;
+			case ARRAY:
+				putArray(hasher, row, col, type.getArrayElementType());
+				break;
+			default:
+				// Cloud Spanner does not return top level STRUCT columns
+				hasher.putUnencodedChars(type.toString());
+				break;
+			}
+		}
+	}
+
+	private static void putArray(Hasher hasher, StructReader row, int col, Type elementType)
+	{
+		Object list;
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			list = row.getBooleanList(col);
+			break;
+		case INT64:
+			list = row.getLongList(col);
+			break;
+		case FLOAT64:
+			list = row.getDoubleList(col);
+			break;
+		case STRING:
+			list = row.getStringList(col);
+			break;
+		case BYTES:
+			list = row.getBytesList(col);
+			break;
+		case DATE:
+			list = row.getDateList(col);
+			break;
+		case TIMESTAMP:
+			list = row.getTimestampList(col);
+			break;
+		case STRUCT:
+		default:
+			list = row.getStructList(col);
+			break;
+		}
+		hasher.putUnencodedChars(String.valueOf(list));
+	}
+
+}
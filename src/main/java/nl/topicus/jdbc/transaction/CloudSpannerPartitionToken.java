@@ -0,0 +1,273 @@
+package nl.topicus.jdbc.transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.BatchTransactionId;
+import com.google.cloud.spanner.Options;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.PartitionOptions;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Value;
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * A portable reference to one partition of a partitioned query in a batch
+ * read-only transaction. A token can be converted to a string and back again
+ * in order to execute the partition on a different connection, thread or JVM.
+ * All partitions of the same query will read from the same consistent
+ * snapshot of the database.
+ * <p>
+ * The string representation is a Base64 encoded binary format that starts
+ * with a magic byte and a format version, followed by the fields of the batch
+ * transaction id, the sql of the token and the fields of the partition. The
+ * parameters of the statement of the partition use the value encoding of
+ * {@link MutationCodec}. Tokens may come from an untrusted source, and
+ * decoding a token therefore never instantiates any other classes than the
+ * ones that are part of a partition.
+ * </p>
+ * <p>
+ * The fields of {@link BatchTransactionId} and {@link Partition} are not
+ * public, and are read and set through reflection.
+ * </p>
+ *
+ * @author loite
+ *
+ */
+public class CloudSpannerPartitionToken
+{
+	private static final byte MAGIC = (byte) 0xC6;
+
+	static final byte VERSION_1 = 1;
+
+	static final byte CURRENT_VERSION = VERSION_1;
+
+	private final BatchTransactionId transactionId;
+
+	private final Partition partition;
+
+	private final String sql;
+
+	CloudSpannerPartitionToken(BatchTransactionId transactionId, Partition partition, String sql)
+	{
+		Preconditions.checkNotNull(transactionId);
+		Preconditions.checkNotNull(partition);
+		this.transactionId = transactionId;
+		this.partition = partition;
+		this.sql = sql;
+	}
+
+	public BatchTransactionId getTransactionId()
+	{
+		return transactionId;
+	}
+
+	public Partition getPartition()
+	{
+		return partition;
+	}
+
+	/**
+	 *
+	 * @return The sql statement that was used to create the partition
+	 */
+	public String getSql()
+	{
+		return sql;
+	}
+
+	/**
+	 *
+	 * @return A Base64 encoded string representation of this token
+	 * @throws SQLException
+	 *             If the token could not be serialized
+	 */
+	public String serialize() throws SQLException
+	{
+		try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bos))
+		{
+			out.writeByte(MAGIC);
+			out.writeByte(CURRENT_VERSION);
+			writeTransactionId(out, transactionId);
+			writeNullableString(out, sql);
+			writePartition(out, partition);
+			out.flush();
+			return Base64.getEncoder().encodeToString(bos.toByteArray());
+		}
+		catch (IOException | IllegalArgumentException | ReflectiveOperationException e)
+		{
+			throw new CloudSpannerSQLException("Could not serialize partition token: " + e.getMessage(),
+					Code.INTERNAL, e);
+		}
+	}
+
+	/**
+	 *
+	 * @param token
+	 *            A string that was created by {@link #serialize()}
+	 * @return The partition token
+	 * @throws SQLException
+	 *             If the string is not a valid partition token
+	 */
+	public static CloudSpannerPartitionToken deserialize(String token) throws SQLException
+	{
+		Preconditions.checkNotNull(token);
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(token))))
+		{
+			if (in.available() < 2 || in.readByte() != MAGIC)
+				throw new CloudSpannerSQLException("Not a valid partition token", Code.INVALID_ARGUMENT);
+			byte version = in.readByte();
+			if (version != VERSION_1)
+				throw new CloudSpannerSQLException("Unsupported partition token version: " + version,
+						Code.INVALID_ARGUMENT);
+			BatchTransactionId transactionId = readTransactionId(in);
+			String sql = readNullableString(in);
+			Partition partition = readPartition(in);
+			if (in.available() > 0)
+				throw new CloudSpannerSQLException("Not a valid partition token", Code.INVALID_ARGUMENT);
+			return new CloudSpannerPartitionToken(transactionId, partition, sql);
+		}
+		catch (IOException | IllegalArgumentException | ReflectiveOperationException e)
+		{
+			throw new CloudSpannerSQLException("Could not deserialize partition token: " + e.getMessage(),
+					Code.INVALID_ARGUMENT, e);
+		}
+	}
+
+	private static void writeTransactionId(DataOutputStream out, BatchTransactionId id)
+			throws IOException, ReflectiveOperationException
+	{
+		MutationCodec.writeString(out, (String) invoke(BatchTransactionId.class, "getSessionId", id));
+		writeByteString(out, (ByteString) invoke(BatchTransactionId.class, "getTransactionId", id));
+		MutationCodec.writeTimestamp(out, (Timestamp) invoke(BatchTransactionId.class, "getTimestamp", id));
+	}
+
+	private static BatchTransactionId readTransactionId(DataInputStream in)
+			throws IOException, ReflectiveOperationException
+	{
+		String sessionId = MutationCodec.readString(in);
+		ByteString transactionId = readByteString(in);
+		Timestamp timestamp = MutationCodec.readTimestamp(in);
+		Constructor<BatchTransactionId> constructor = BatchTransactionId.class.getDeclaredConstructor(String.class,
+				ByteString.class, Timestamp.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(sessionId, transactionId, timestamp);
+	}
+
+	/**
+	 * Writes the fields of a query partition. Partitions of reads are not
+	 * created by this driver and are not supported.
+	 */
+	private static void writePartition(DataOutputStream out, Partition partition)
+			throws IOException, ReflectiveOperationException
+	{
+		Statement statement = (Statement) invoke(Partition.class, "getStatement", partition);
+		if (statement == null)
+			throw new IllegalArgumentException("Only partitions of queries are supported");
+		writeByteString(out, (ByteString) invoke(Partition.class, "getPartitionToken", partition));
+		PartitionOptions partitionOptions = (PartitionOptions) invoke(Partition.class, "getPartitionOptions",
+				partition);
+		out.writeLong(partitionOptions.getPartitionSizeBytes());
+		out.writeLong(partitionOptions.getMaxPartitions());
+		MutationCodec.writeString(out, statement.getSql());
+		Map<String, Value> parameters = statement.getParameters();
+		out.writeInt(parameters.size());
+		for (Entry<String, Value> parameter : parameters.entrySet())
+		{
+			MutationCodec.writeString(out, parameter.getKey());
+			MutationCodec.writeValue(out, parameter.getValue());
+		}
+		Options queryOptions = (Options) invoke(Partition.class, "getQueryOptions", partition);
+		out.writeBoolean(queryOptions != null);
+		if (queryOptions != null)
+		{
+			boolean hasPrefetchChunks = (Boolean) invoke(Options.class, "hasPrefetchChunks", queryOptions);
+			out.writeBoolean(hasPrefetchChunks);
+			if (hasPrefetchChunks)
+				out.writeInt((Integer) invoke(Options.class, "prefetchChunks", queryOptions));
+		}
+	}
+
+	private static Partition readPartition(DataInputStream in) throws IOException, ReflectiveOperationException
+	{
+		ByteString partitionToken = readByteString(in);
+		PartitionOptions.Builder partitionOptions = PartitionOptions.newBuilder();
+		long partitionSizeBytes = in.readLong();
+		if (partitionSizeBytes > 0L)
+			partitionOptions.setPartitionSizeBytes(partitionSizeBytes);
+		long maxPartitions = in.readLong();
+		if (maxPartitions > 0L)
+			partitionOptions.setMaxPartitions(maxPartitions);
+		Statement.Builder statement = Statement.newBuilder(MutationCodec.readString(in));
+		int parameters = in.readInt();
+		if (parameters < 0 || parameters > in.available())
+			throw new IOException("Invalid number of parameters: " + parameters);
+		for (int i = 0; i < parameters; i++)
+			MutationCodec.readValue(in, statement.bind(MutationCodec.readString(in)));
+		Options queryOptions = null;
+		if (in.readBoolean())
+		{
+			Options.QueryOption[] options = in.readBoolean()
+					? new Options.QueryOption[] { Options.prefetchChunks(in.readInt()) }
+					: new Options.QueryOption[0];
+			Method fromQueryOptions = Options.class.getDeclaredMethod("fromQueryOptions",
+					Options.QueryOption[].class);
+			fromQueryOptions.setAccessible(true);
+			queryOptions = (Options) fromQueryOptions.invoke(null, (Object) options);
+		}
+		Method createQueryPartition = Partition.class.getDeclaredMethod("createQueryPartition", ByteString.class,
+				PartitionOptions.class, Statement.class, Options.class);
+		createQueryPartition.setAccessible(true);
+		return (Partition) createQueryPartition.invoke(null, partitionToken, partitionOptions.build(),
+				statement.build(), queryOptions);
+	}
+
+	private static void writeByteString(DataOutputStream out, ByteString value) throws IOException
+	{
+		out.writeInt(value.size());
+		value.writeTo(out);
+	}
+
+	private static ByteString readByteString(DataInputStream in) throws IOException
+	{
+		return ByteString.copyFrom(MutationCodec.readBytes(in));
+	}
+
+	private static void writeNullableString(DataOutputStream out, String value) throws IOException
+	{
+		out.writeBoolean(value != null);
+		if (value != null)
+			MutationCodec.writeString(out, value);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException
+	{
+		return in.readBoolean() ? MutationCodec.readString(in) : null;
+	}
+
+	/**
+	 * Invokes a getter that is not public
+	 */
+	private static Object invoke(Class<?> type, String getter, Object target) throws ReflectiveOperationException
+	{
+		Method method = type.getDeclaredMethod(getter);
+		method.setAccessible(true);
+		return method.invoke(target);
+	}
+
+}
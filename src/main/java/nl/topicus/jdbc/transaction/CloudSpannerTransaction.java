@@ -1,7 +1,10 @@
 package nl.topicus.jdbc.transaction;
 
 import java.sql.SQLException;
+import java.sql.SQLWarning;
 import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.cloud.Timestamp;
@@ -29,7 +32,9 @@ import com.google.common.base.Preconditions;
 import com.google.rpc.Code;
 
 import nl.topicus.jdbc.CloudSpannerConnection;
+import nl.topicus.jdbc.TimestampBoundParser;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.transaction.MutationSizeEstimator.MutationSize;
 
 /**
  * An abstraction of transactions on Google Cloud Spanner JDBC connections.
@@ -67,6 +72,8 @@ public class CloudSpannerTransaction implements TransactionContext, BatchReadOnl
 
 	private CloudSpannerConnection connection;
 
+	private final TransactionRetryMetrics retryMetrics = new TransactionRetryMetrics();
+
 	public CloudSpannerTransaction(DatabaseClient dbClient, BatchClient batchClient, CloudSpannerConnection connection)
 	{
 		this.dbClient = dbClient;
@@ -89,32 +96,72 @@ public class CloudSpannerTransaction implements TransactionContext, BatchReadOnl
 		return transactionThread == null ? 0 : transactionThread.numberOfBufferedMutations();
 	}
 
+	/**
+	 * 
+	 * @return The estimated number of cells that are mutated by the buffered
+	 *         mutations, including cells of secondary indices when a
+	 *         {@link MutationLimitPolicy} other than NONE is active
+	 */
+	public long getNumberOfBufferedMutationCells()
+	{
+		return transactionThread == null ? 0L : transactionThread.getBufferedMutationsSize().getCells();
+	}
+
+	/**
+	 * 
+	 * @return The estimated size in bytes of the buffered mutations
+	 */
+	public long getBufferedMutationBytes()
+	{
+		return transactionThread == null ? 0L : transactionThread.getBufferedMutationsSize().getBytes();
+	}
+
 	public void begin() throws SQLException
 	{
 		if (connection.isBatchReadOnly())
 		{
 			if (batchReadOnlyTransaction == null)
 			{
-				batchReadOnlyTransaction = batchClient.batchReadOnlyTransaction(TimestampBound.strong());
+				batchReadOnlyTransaction = batchClient.batchReadOnlyTransaction(getMultiUseReadStaleness());
 			}
 		}
 		else if (connection.isReadOnly())
 		{
 			if (readOnlyTransaction == null)
 			{
-				readOnlyTransaction = dbClient.readOnlyTransaction();
+				readOnlyTransaction = dbClient.readOnlyTransaction(getMultiUseReadStaleness());
 			}
 		}
 		else
 		{
 			if (transactionThread == null)
 			{
-				transactionThread = new TransactionThread(dbClient);
+				MutationLimitPolicy policy = connection.getMutationLimitPolicy() == null ? MutationLimitPolicy.NONE
+						: connection.getMutationLimitPolicy();
+				MutationBuffer.KeyColumnsProvider keyColumnsProvider = connection.isCoalesceMutations()
+						? table -> connection.getTable(table).getKeyColumns() : null;
+				MutationSizeEstimator.IndexColumnsProvider indexColumnsProvider = policy == MutationLimitPolicy.NONE
+						? null : table -> connection.getTable(table).getIndexColumns();
+				MutationBuffer buffer = new MutationBuffer(keyColumnsProvider,
+						new MutationSizeEstimator(indexColumnsProvider));
+				transactionThread = new TransactionThread(dbClient, retryMetrics, buffer, policy);
 				transactionThread.start();
 			}
 		}
 	}
 
+	private TimestampBound getMultiUseReadStaleness() throws SQLException
+	{
+		TimestampBound bound = connection.getReadStaleness();
+		if (bound == null)
+			return TimestampBound.strong();
+		if (!TimestampBoundParser.isValidForMultiUse(bound))
+			throw new CloudSpannerSQLException("Read staleness " + TimestampBoundParser.format(bound)
+					+ " can only be used for queries in autocommit mode, and not for (batch) read-only transactions",
+					Code.FAILED_PRECONDITION);
+		return bound;
+	}
+
 	public Timestamp commit() throws SQLException
 	{
 		Timestamp res = null;
@@ -280,6 +327,7 @@ public class CloudSpannerTransaction implements TransactionContext, BatchReadOnl
 		checkTransaction();
 		if (transactionThread == null)
 			throw new IllegalStateException("Mutations are not allowed in read-only mode");
+		checkMutationLimits(Collections.singletonList(mutation));
 		transactionThread.buffer(mutation);
 	}
 
@@ -289,9 +337,50 @@ public class CloudSpannerTransaction implements TransactionContext, BatchReadOnl
 		checkTransaction();
 		if (transactionThread == null)
 			throw new IllegalStateException("Mutations are not allowed in read-only mode");
+		checkMutationLimits(mutations);
 		transactionThread.buffer(mutations);
 	}
 
+	/**
+	 * Checks whether buffering the given mutations would exceed the commit
+	 * limits of Cloud Spanner, and applies the {@link MutationLimitPolicy} of
+	 * the transaction if so. The check uses the size of the mutations before
+	 * coalescing, and may therefore be slightly conservative.
+	 */
+	private void checkMutationLimits(Iterable<Mutation> mutations)
+	{
+		MutationLimitPolicy policy = transactionThread.getMutationLimitPolicy();
+		if (policy != MutationLimitPolicy.WARN && policy != MutationLimitPolicy.REJECT)
+			return;
+		MutationSize current = transactionThread.getBufferedMutationsSize();
+		MutationSize total = current.plus(transactionThread.estimate(mutations));
+		long maxCells = MutationLimitPolicy.MAX_MUTATION_CELLS;
+		long maxBytes = MutationLimitPolicy.MAX_COMMIT_BYTES;
+		if (policy == MutationLimitPolicy.REJECT)
+		{
+			if (total.exceeds(maxCells, maxBytes))
+				throw SpannerExceptionFactory.newSpannerException(ErrorCode.INVALID_ARGUMENT,
+						"The mutations of this statement would exceed the commit limits of Cloud Spanner (" + maxCells
+								+ " cells, " + maxBytes + " bytes). The transaction would contain " + total);
+		}
+		else if (total.exceeds(maxCells, maxBytes))
+		{
+			if (!current.exceeds(maxCells, maxBytes))
+				connection.addWarning(new SQLWarning(
+						"The buffered mutations (" + total + ") exceed the commit limits of Cloud Spanner ("
+								+ maxCells + " cells, " + maxBytes + " bytes). The transaction will fail on commit."));
+		}
+		else
+		{
+			long warnCells = maxCells * MutationLimitPolicy.WARNING_THRESHOLD_PERCENTAGE / 100L;
+			long warnBytes = maxBytes * MutationLimitPolicy.WARNING_THRESHOLD_PERCENTAGE / 100L;
+			if (total.exceeds(warnCells, warnBytes) && !current.exceeds(warnCells, warnBytes))
+				connection.addWarning(new SQLWarning("The buffered mutations (" + total + ") exceed "
+						+ MutationLimitPolicy.WARNING_THRESHOLD_PERCENTAGE + "% of the commit limits of Cloud Spanner ("
+						+ maxCells + " cells, " + maxBytes + " bytes)"));
+		}
+	}
+
 	@Override
 	public ResultSet executeQuery(Statement statement, QueryOption... options)
 	{
@@ -409,4 +498,50 @@ public class CloudSpannerTransaction implements TransactionContext, BatchReadOnl
 		return batchReadOnlyTransaction;
 	}
 
+	/**
+	 * Partition the given query and return portable tokens for the partitions
+	 * that can be executed on any connection to the same database using
+	 * {@link #getBatchReadOnlyTransaction(BatchTransactionId)}.
+	 * 
+	 * @param partitionOptions
+	 *            The options to use for partitioning the query
+	 * @param statement
+	 *            The query to partition
+	 * @return A token for each partition of the query
+	 */
+	public List<CloudSpannerPartitionToken> partitionQueryTokens(PartitionOptions partitionOptions,
+			Statement statement)
+	{
+		List<Partition> partitions = partitionQuery(partitionOptions, statement);
+		BatchTransactionId id = getBatchTransactionId();
+		List<CloudSpannerPartitionToken> res = new ArrayList<>(partitions.size());
+		for (Partition partition : partitions)
+			res.add(new CloudSpannerPartitionToken(id, partition, statement.getSql()));
+		return res;
+	}
+
+	/**
+	 * 
+	 * @param batchTransactionId
+	 *            The id of a batch read-only transaction that was started by
+	 *            this or any other connection to the same database
+	 * @return A {@link BatchReadOnlyTransaction} that reads from the same
+	 *         snapshot as the batch read-only transaction with the given id
+	 */
+	public BatchReadOnlyTransaction getBatchReadOnlyTransaction(BatchTransactionId batchTransactionId)
+	{
+		Preconditions.checkNotNull(batchTransactionId);
+		return batchClient.batchReadOnlyTransaction(batchTransactionId);
+	}
+
+	/**
+	 * 
+	 * @return The metrics of the read/write transactions on this connection
+	 *         that were aborted by Cloud Spanner and retried internally
+	 */
+	public TransactionRetryMetrics getRetryMetrics()
+	{
+		return retryMetrics;
+	}
+
 }
@@ -0,0 +1,563 @@
+package nl.topicus.jdbc.transaction;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Mutation.WriteBuilder;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.ValueBinder;
+
+import nl.topicus.jdbc.transaction.MutationSizeEstimator.MutationSize;
+
+/**
+ * Buffer for the mutations of a read/write transaction. The buffer can
+ * optionally coalesce mutations on the same row (table + primary key):
+ * <ul>
+ * <li>An UPDATE or INSERT_OR_UPDATE that follows an INSERT, UPDATE,
+ * INSERT_OR_UPDATE or REPLACE of the same row is merged column-wise into the
+ * earlier mutation. The operation of the earlier mutation is kept, so that
+ * errors like ALREADY_EXISTS and NOT_FOUND are still reported by Cloud
+ * Spanner.</li>
+ * <li>A delete of a single key that directly follows writes to the same row
+ * (without mutations on other tables in between) replaces these writes.
+ * Constraint violations that the removed writes would have caused, are not
+ * reported.</li>
+ * </ul>
+ * All other mutations are appended to the buffer. Positions returned by
+ * {@link #mark()} are coalescing barriers: mutations that are added after a
+ * mark are never merged into mutations before the mark, so that rolling back
+ * to a mark (savepoint) restores the exact state of the buffer at that
+ * moment.
+ *
+ * @author loite
+ *
+ */
+class MutationBuffer
+{
+	@FunctionalInterface
+	static interface KeyColumnsProvider
+	{
+		/**
+		 *
+		 * @param table
+		 *            The table to get the primary key columns for
+		 * @return The names of the primary key columns in upper case and in
+		 *         the order of the primary key
+		 */
+		List<String> getKeyColumns(String table) throws SQLException;
+	}
+
+	private static final class RowKey
+	{
+		private final String table;
+
+		private final Key key;
+
+		private RowKey(String table, Key key)
+		{
+			this.table = table.toUpperCase();
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof RowKey))
+				return false;
+			RowKey other = (RowKey) o;
+			return table.equals(other.table) && key.equals(other.key);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(table, key);
+		}
+	}
+
+	private static final class BufferedMutation
+	{
+		private final Mutation mutation;
+
+		private final MutationSize size;
+
+		private BufferedMutation(Mutation mutation, MutationSize size)
+		{
+			this.mutation = mutation;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * The mutations in this buffer. Mutations that have been removed because
+	 * of coalescing are set to null, so that the positions of all other
+	 * mutations and savepoints remain valid.
+	 */
+	private final List<BufferedMutation> mutations = new ArrayList<>(40);
+
+	private final KeyColumnsProvider keyColumnsProvider;
+
+	private final MutationSizeEstimator estimator;
+
+	/**
+	 * The estimated total size of the mutations in this buffer
+	 */
+	private MutationSize totalSize = MutationSize.ZERO;
+
+	/**
+	 * The position of the last write to a row that may still be coalesced
+	 */
+	private final Map<RowKey, Integer> rows = new HashMap<>();
+
+	private int size;
+
+	/**
+	 * The upper case name of the table of the last mutation in the buffer, and
+	 * the position of the first mutation in the current sequence of mutations
+	 * on that table
+	 */
+	private String lastTable;
+
+	private int lastTableStart;
+
+	/**
+	 * Creates a buffer that does not coalesce mutations
+	 */
+	MutationBuffer()
+	{
+		this(null, new MutationSizeEstimator(null));
+	}
+
+	/**
+	 * Creates a buffer that coalesces mutations on the same row
+	 *
+	 * @param keyColumnsProvider
+	 *            Provider of the primary key columns of the tables, or null if
+	 *            the buffer should not coalesce mutations
+	 */
+	MutationBuffer(KeyColumnsProvider keyColumnsProvider)
+	{
+		this(keyColumnsProvider, new MutationSizeEstimator(null));
+	}
+
+	/**
+	 * 
+	 * @param keyColumnsProvider
+	 *            Provider of the primary key columns of the tables, or null if
+	 *            the buffer should not coalesce mutations
+	 * @param estimator
+	 *            The estimator to use to keep track of the size of the
+	 *            buffered mutations
+	 */
+	MutationBuffer(KeyColumnsProvider keyColumnsProvider, MutationSizeEstimator estimator)
+	{
+		this.keyColumnsProvider = keyColumnsProvider;
+		this.estimator = estimator;
+	}
+
+	MutationSizeEstimator getEstimator()
+	{
+		return estimator;
+	}
+
+	boolean isCoalescing()
+	{
+		return keyColumnsProvider != null;
+	}
+
+	void add(Mutation mutation)
+	{
+		if (mutation == null)
+			throw new NullPointerException("Mutation is null");
+		if (isCoalescing())
+		{
+			if (mutation.getOperation() == Op.DELETE)
+				addDelete(mutation);
+			else
+				addWrite(mutation);
+		}
+		else
+		{
+			append(mutation);
+		}
+	}
+
+	private void addWrite(Mutation mutation)
+	{
+		RowKey row = getRowKey(mutation);
+		if (row == null)
+		{
+			append(mutation);
+			return;
+		}
+		Integer position = rows.get(row);
+		if (position != null && canMerge(get(position), mutation))
+		{
+			set(position, merge(get(position), mutation));
+		}
+		else
+		{
+			rows.put(row, append(mutation));
+		}
+	}
+
+	private void addDelete(Mutation delete)
+	{
+		String table = delete.getTable().toUpperCase();
+		KeySet keySet = delete.getKeySet();
+		Key key = getSingleKey(keySet);
+		if (key == null)
+		{
+			// Complex delete. Do not coalesce anything for this table anymore.
+			rows.keySet().removeIf(r -> r.table.equals(table));
+		}
+		else
+		{
+			RowKey row = new RowKey(table, key);
+			Integer position = rows.remove(row);
+			if (position != null && table.equals(lastTable) && position >= lastTableStart)
+			{
+				set(position, null);
+			}
+		}
+		// Deletes can cascade to interleaved child tables.
+		rows.keySet().removeIf(r -> !r.table.equals(table));
+		append(delete);
+	}
+
+	private static Key getSingleKey(KeySet keySet)
+	{
+		if (keySet.isAll() || keySet.getRanges().iterator().hasNext())
+			return null;
+		Iterator<Key> it = keySet.getKeys().iterator();
+		if (!it.hasNext())
+			return null;
+		Key key = it.next();
+		return it.hasNext() ? null : key;
+	}
+
+	private int append(Mutation mutation)
+	{
+		String table = mutation.getTable().toUpperCase();
+		if (!table.equals(lastTable))
+		{
+			lastTable = table;
+			lastTableStart = mutations.size();
+		}
+		MutationSize mutationSize = estimator.estimate(mutation);
+		mutations.add(new BufferedMutation(mutation, mutationSize));
+		totalSize = totalSize.plus(mutationSize);
+		size++;
+		return mutations.size() - 1;
+	}
+
+	private Mutation get(int position)
+	{
+		BufferedMutation buffered = mutations.get(position);
+		return buffered == null ? null : buffered.mutation;
+	}
+
+	/**
+	 * Replaces the mutation at the given position with a different mutation,
+	 * or removes it if the new mutation is null
+	 */
+	private void set(int position, Mutation mutation)
+	{
+		BufferedMutation current = mutations.get(position);
+		if (current != null)
+		{
+			totalSize = totalSize.minus(current.size);
+			size--;
+		}
+		if (mutation == null)
+		{
+			mutations.set(position, null);
+		}
+		else
+		{
+			MutationSize mutationSize = estimator.estimate(mutation);
+			mutations.set(position, new BufferedMutation(mutation, mutationSize));
+			totalSize = totalSize.plus(mutationSize);
+			size++;
+		}
+	}
+
+	private RowKey getRowKey(Mutation mutation)
+	{
+		List<String> keyColumns;
+		try
+		{
+			keyColumns = keyColumnsProvider.getKeyColumns(mutation.getTable());
+		}
+		catch (SQLException e)
+		{
+			return null;
+		}
+		if (keyColumns == null || keyColumns.isEmpty())
+			return null;
+		Map<String, Value> values = new HashMap<>();
+		for (Entry<String, Value> entry : mutation.asMap().entrySet())
+			values.put(entry.getKey().toUpperCase(), entry.getValue());
+		Object[] parts = new Object[keyColumns.size()];
+		for (int i = 0; i < keyColumns.size(); i++)
+		{
+			Value value = values.get(keyColumns.get(i).toUpperCase());
+			if (value == null)
+				return null;
+			parts[i] = toKeyPart(value);
+		}
+		return new RowKey(mutation.getTable(), Key.of(parts));
+	}
+
+	private static Object toKeyPart(Value value)
+	{
+		if (value.isNull())
+			return null;
+		switch (value.getType().getCode())
+		{
+		case BOOL:
+			return value.getBool();
+		case INT64:
+			return value.getInt64();
+		case FLOAT64:
+			return value.getFloat64();
+		case STRING:
+			return value.getString();
+		case BYTES:
+			return value.getBytes();
+		case TIMESTAMP:
+			return value.getTimestamp();
+		case DATE:
+			return value.getDate();
+		default:
+			return value.toString();
+		}
+	}
+
+	private static boolean canMerge(Mutation first, Mutation second)
+	{
+		if (first == null)
+			return false;
+		Op op = second.getOperation();
+		return first.getOperation() != Op.DELETE && (op == Op.UPDATE || op == Op.INSERT_OR_UPDATE);
+	}
+
+	private static Mutation merge(Mutation first, Mutation second)
+	{
+		Map<String, String> names = new HashMap<>();
+		Map<String, Value> values = new LinkedHashMap<>();
+		for (Mutation mutation : new Mutation[] { first, second })
+		{
+			for (Entry<String, Value> entry : mutation.asMap().entrySet())
+			{
+				String upper = entry.getKey().toUpperCase();
+				names.putIfAbsent(upper, entry.getKey());
+				values.put(upper, entry.getValue());
+			}
+		}
+		WriteBuilder builder = newBuilder(first.getOperation(), first.getTable());
+		for (Entry<String, Value> entry : values.entrySet())
+			bind(builder.set(names.get(entry.getKey())), entry.getValue());
+		return builder.build();
+	}
+
+	private static void bind(ValueBinder<WriteBuilder> binder, Value value)
+	{
+		Type type = value.getType();
+		boolean isNull = value.isNull();
+		switch (type.getCode())
+		{
+		case BOOL:
+			binder.to(isNull ? null : value.getBool());
+			break;
+		case INT64:
+			binder.to(isNull ? null : value.getInt64());
+			break;
+		case FLOAT64:
+			binder.to(isNull ? null : value.getFloat64());
+			break;
+		case STRING:
+			binder.to(isNull ? null : value.getString());
+			break;
+		case BYTES:
+			binder.to(isNull ? null : value.getBytes());
+			break;
+		case TIMESTAMP:
+			binder.to(isNull ? null : value.getTimestamp());
+			break;
+		case DATE:
+			binder.to(isNull ? null : value.getDate());
+			break;
+		case ARRAY:
+			bindArray(binder, type.getArrayElementType(), isNull ? null : value);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported mutation value type: " + type);
+		}
+	}
+
+	private static void bindArray(ValueBinder<WriteBuilder> binder, Type elementType, Value value)
+	{
+		switch (elementType.getCode())
+		{
+		case BOOL:
+			binder.toBoolArray(value == null ? null : value.getBoolArray());
+			break;
+		case INT64:
+			binder.toInt64Array(value == null ? null : value.getInt64Array());
+			break;
+		case FLOAT64:
+			binder.toFloat64Array(value == null ? null : value.getFloat64Array());
+			break;
+		case STRING:
+			binder.toStringArray(value == null ? null : value.getStringArray());
+			break;
+		case BYTES:
+			binder.toBytesArray(value == null ? null : value.getBytesArray());
+			break;
+		case TIMESTAMP:
+			binder.toTimestampArray(value == null ? null : value.getTimestampArray());
+			break;
+		case DATE:
+			binder.toDateArray(value == null ? null : value.getDateArray());
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported mutation array type: " + elementType);
+		}
+	}
+
+	private static WriteBuilder newBuilder(Op op, String table)
+	{
+		switch (op)
+		{
+		case INSERT:
+			return Mutation.newInsertBuilder(table);
+		case UPDATE:
+			return Mutation.newUpdateBuilder(table);
+		case INSERT_OR_UPDATE:
+			return Mutation.newInsertOrUpdateBuilder(table);
+		case REPLACE:
+			return Mutation.newReplaceBuilder(table);
+		default:
+			throw new IllegalArgumentException("Not a write operation: " + op);
+		}
+	}
+
+	/**
+	 *
+	 * @return The current position in the buffer. Mutations that are added
+	 *         after this call will not be coalesced with mutations before this
+	 *         position.
+	 */
+	int mark()
+	{
+		rows.clear();
+		lastTable = null;
+		return mutations.size();
+	}
+
+	/**
+	 * Remove all mutations that were added after the given position
+	 *
+	 * @param position
+	 *            A position returned by {@link #mark()}
+	 */
+	void rollback(int position)
+	{
+		List<BufferedMutation> removed = mutations.subList(position, mutations.size());
+		for (BufferedMutation mutation : removed)
+		{
+			if (mutation != null)
+			{
+				totalSize = totalSize.minus(mutation.size);
+				size--;
+			}
+		}
+		removed.clear();
+		rows.clear();
+		lastTable = null;
+	}
+
+	boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 *
+	 * @return The estimated total size of the mutations in this buffer
+	 */
+	MutationSize getTotalSize()
+	{
+		return totalSize;
+	}
+
+	/**
+	 *
+	 * @return The mutations in this buffer in the order in which they should be
+	 *         applied
+	 */
+	List<Mutation> getMutations()
+	{
+		List<Mutation> res = new ArrayList<>(size);
+		for (BufferedMutation mutation : mutations)
+		{
+			if (mutation != null)
+				res.add(mutation.mutation);
+		}
+		return res;
+	}
+
+	/**
+	 * Splits the mutations in this buffer into batches that each stay within
+	 * the given limits. A single mutation that exceeds the limits on its own
+	 * is returned as a separate batch.
+	 *
+	 * @param maxCells
+	 *            The maximum number of cells per batch
+	 * @param maxBytes
+	 *            The maximum number of bytes per batch
+	 * @return The mutations in this buffer in one or more batches
+	 */
+	List<List<Mutation>> split(long maxCells, long maxBytes)
+	{
+		List<List<Mutation>> res = new ArrayList<>();
+		List<Mutation> batch = new ArrayList<>();
+		MutationSize batchSize = MutationSize.ZERO;
+		for (BufferedMutation mutation : mutations)
+		{
+			if (mutation == null)
+				continue;
+			MutationSize newSize = batchSize.plus(mutation.size);
+			if (!batch.isEmpty() && newSize.exceeds(maxCells, maxBytes))
+			{
+				res.add(batch);
+				batch = new ArrayList<>();
+				newSize = mutation.size;
+			}
+			batch.add(mutation.mutation);
+			batchSize = newSize;
+		}
+		if (!batch.isEmpty() || res.isEmpty())
+			res.add(batch);
+		return res;
+	}
+
+}
@@ -0,0 +1,579 @@
+package nl.topicus.jdbc.transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeyRange;
+import com.google.cloud.spanner.KeyRange.Endpoint;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Mutation.WriteBuilder;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.ValueBinder;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+
+/**
+ * Compact binary encoding of {@link Mutation}s that is used to store the
+ * mutations of prepared XA transactions. The encoding starts with a magic
+ * byte and a format version, followed by the table name, the operation and
+ * either the column values of a write or the key set of a delete. All values
+ * are written with a type tag, so that the mutation can be reconstructed
+ * without any knowledge of the table definition. The encoding of strings,
+ * timestamps and values is also used by {@link CloudSpannerPartitionToken}.
+ *
+ * @author loite
+ *
+ */
+class MutationCodec
+{
+	private static final byte MAGIC = (byte) 0xC5;
+
+	static final byte VERSION_1 = 1;
+
+	static final byte CURRENT_VERSION = VERSION_1;
+
+	private static final byte OP_INSERT = 1;
+	private static final byte OP_UPDATE = 2;
+	private static final byte OP_INSERT_OR_UPDATE = 3;
+	private static final byte OP_REPLACE = 4;
+	private static final byte OP_DELETE = 5;
+
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_BOOL = 1;
+	private static final byte TYPE_INT64 = 2;
+	private static final byte TYPE_FLOAT64 = 3;
+	private static final byte TYPE_STRING = 4;
+	private static final byte TYPE_BYTES = 5;
+	private static final byte TYPE_TIMESTAMP = 6;
+	private static final byte TYPE_DATE = 7;
+	private static final byte TYPE_ARRAY = 8;
+
+	private static final byte ENDPOINT_CLOSED = 0;
+	private static final byte ENDPOINT_OPEN = 1;
+
+	private MutationCodec()
+	{
+	}
+
+	/**
+	 *
+	 * @param data
+	 *            The data to check
+	 * @return true if the given data starts with the magic byte of this
+	 *         encoding
+	 */
+	static boolean isEncoded(byte[] data)
+	{
+		return data != null && data.length > 1 && data[0] == MAGIC;
+	}
+
+	static byte[] encode(Mutation mutation) throws SQLException
+	{
+		try (ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+				DataOutputStream out = new DataOutputStream(bos))
+		{
+			out.writeByte(MAGIC);
+			out.writeByte(CURRENT_VERSION);
+			writeString(out, mutation.getTable());
+			if (mutation.getOperation() == Op.DELETE)
+			{
+				out.writeByte(OP_DELETE);
+				writeKeySet(out, mutation.getKeySet());
+			}
+			else
+			{
+				out.writeByte(encodeOp(mutation.getOperation()));
+				writeValues(out, mutation);
+			}
+			out.flush();
+			return bos.toByteArray();
+		}
+		catch (IOException | IllegalArgumentException e)
+		{
+			throw new CloudSpannerSQLException("Could not encode mutation: " + e.getMessage(), Code.INTERNAL, e);
+		}
+	}
+
+	/**
+	 * Decodes a single encoded mutation
+	 */
+	static Mutation decode(byte[] data) throws SQLException
+	{
+		List<Mutation> res = decodeAll(data);
+		if (res.size() != 1)
+			throw new CloudSpannerSQLException("Expected one encoded mutation, found " + res.size(),
+					Code.INVALID_ARGUMENT);
+		return res.get(0);
+	}
+
+	/**
+	 * Decodes a sequence of encoded mutations. A sequence of mutations is
+	 * simply the concatenation of the encoded mutations, as each encoded
+	 * mutation starts with its own header.
+	 */
+	static List<Mutation> decodeAll(byte[] data) throws SQLException
+	{
+		if (!isEncoded(data))
+			throw new CloudSpannerSQLException("Not an encoded mutation", Code.INVALID_ARGUMENT);
+		List<Mutation> res = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data)))
+		{
+			while (in.available() > 0)
+				res.add(readMutation(in));
+			return res;
+		}
+		catch (IOException | IllegalArgumentException e)
+		{
+			throw new CloudSpannerSQLException("Could not decode mutation: " + e.getMessage(), Code.INTERNAL, e);
+		}
+	}
+
+	private static Mutation readMutation(DataInputStream in) throws IOException, SQLException
+	{
+		if (in.readByte() != MAGIC)
+			throw new IOException("Invalid mutation header");
+		byte version = in.readByte();
+		if (version != VERSION_1)
+			throw new CloudSpannerSQLException("Unsupported mutation encoding version: " + version,
+					Code.INVALID_ARGUMENT);
+		String table = readString(in);
+		byte op = in.readByte();
+		if (op == OP_DELETE)
+			return Mutation.delete(table, readKeySet(in));
+		WriteBuilder builder = newBuilder(op, table);
+		int columns = in.readInt();
+		for (int i = 0; i < columns; i++)
+		{
+			String column = readString(in);
+			readValue(in, builder.set(column));
+		}
+		return builder.build();
+	}
+
+	private static byte encodeOp(Op op)
+	{
+		switch (op)
+		{
+		case INSERT:
+			return OP_INSERT;
+		case UPDATE:
+			return OP_UPDATE;
+		case INSERT_OR_UPDATE:
+			return OP_INSERT_OR_UPDATE;
+		case REPLACE:
+			return OP_REPLACE;
+		case DELETE:
+			return OP_DELETE;
+		default:
+			throw new IllegalArgumentException("Unknown operation: " + op);
+		}
+	}
+
+	private static WriteBuilder newBuilder(byte op, String table)
+	{
+		switch (op)
+		{
+		case OP_INSERT:
+			return Mutation.newInsertBuilder(table);
+		case OP_UPDATE:
+			return Mutation.newUpdateBuilder(table);
+		case OP_INSERT_OR_UPDATE:
+			return Mutation.newInsertOrUpdateBuilder(table);
+		case OP_REPLACE:
+			return Mutation.newReplaceBuilder(table);
+		default:
+			throw new IllegalArgumentException("Unknown operation: " + op);
+		}
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException
+	{
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+
+	static byte[] readBytes(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0 || length > in.available())
+			throw new IOException("Invalid length: " + length);
+		byte[] res = new byte[length];
+		in.readFully(res);
+		return res;
+	}
+
+	static void writeTimestamp(DataOutputStream out, Timestamp value) throws IOException
+	{
+		out.writeLong(value.getSeconds());
+		out.writeInt(value.getNanos());
+	}
+
+	static Timestamp readTimestamp(DataInputStream in) throws IOException
+	{
+		return Timestamp.ofTimeSecondsAndNanos(in.readLong(), in.readInt());
+	}
+
+	private static void writeDate(DataOutputStream out, Date value) throws IOException
+	{
+		out.writeShort(value.getYear());
+		out.writeByte(value.getMonth());
+		out.writeByte(value.getDayOfMonth());
+	}
+
+	private static Date readDate(DataInputStream in) throws IOException
+	{
+		return Date.fromYearMonthDay(in.readShort(), in.readByte(), in.readByte());
+	}
+
+	private static void writeValues(DataOutputStream out, Mutation mutation) throws IOException
+	{
+		out.writeInt(mutation.asMap().size());
+		for (Entry<String, Value> entry : mutation.asMap().entrySet())
+		{
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+	}
+
+	private static byte getTypeTag(Type type)
+	{
+		switch (type.getCode())
+		{
+		case BOOL:
+			return TYPE_BOOL;
+		case INT64:
+			return TYPE_INT64;
+		case FLOAT64:
+			return TYPE_FLOAT64;
+		case STRING:
+			return TYPE_STRING;
+		case BYTES:
+			return TYPE_BYTES;
+		case TIMESTAMP:
+			return TYPE_TIMESTAMP;
+		case DATE:
+			return TYPE_DATE;
+		case ARRAY:
+			return TYPE_ARRAY;
+		default:
+			throw new IllegalArgumentException("Unsupported type: " + type);
+		}
+	}
+
+	static void writeValue(DataOutputStream out, Value value) throws IOException
+	{
+		Type type = value.getType();
+		byte tag = getTypeTag(type);
+		out.writeByte(tag);
+		if (tag == TYPE_ARRAY)
+			out.writeByte(getTypeTag(type.getArrayElementType()));
+		out.writeBoolean(value.isNull());
+		if (value.isNull())
+			return;
+		switch (tag)
+		{
+		case TYPE_BOOL:
+			out.writeBoolean(value.getBool());
+			break;
+		case TYPE_INT64:
+			out.writeLong(value.getInt64());
+			break;
+		case TYPE_FLOAT64:
+			out.writeDouble(value.getFloat64());
+			break;
+		case TYPE_STRING:
+			writeString(out, value.getString());
+			break;
+		case TYPE_BYTES:
+			byte[] bytes = value.getBytes().toByteArray();
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			break;
+		case TYPE_TIMESTAMP:
+			writeTimestamp(out, value.getTimestamp());
+			break;
+		case TYPE_DATE:
+			writeDate(out, value.getDate());
+			break;
+		case TYPE_ARRAY:
+			writeArray(out, value);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported type: " + type);
+		}
+	}
+
+	private static void writeArray(DataOutputStream out, Value value) throws IOException
+	{
+		List<?> elements;
+		switch (value.getType().getArrayElementType().getCode())
+		{
+		case BOOL:
+			elements = value.getBoolArray();
+			break;
+		case INT64:
+			elements = value.getInt64Array();
+			break;
+		case FLOAT64:
+			elements = value.getFloat64Array();
+			break;
+		case STRING:
+			elements = value.getStringArray();
+			break;
+		case BYTES:
+			elements = value.getBytesArray();
+			break;
+		case TIMESTAMP:
+			elements = value.getTimestampArray();
+			break;
+		case DATE:
+			elements = value.getDateArray();
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported array type: " + value.getType());
+		}
+		out.writeInt(elements.size());
+		for (Object element : elements)
+			writeObject(out, element);
+	}
+
+	/**
+	 * Writes a key part or an array element with its type tag
+	 */
+	private static void writeObject(DataOutputStream out, Object value) throws IOException
+	{
+		if (value == null)
+		{
+			out.writeByte(TYPE_NULL);
+		}
+		else if (value instanceof Boolean)
+		{
+			out.writeByte(TYPE_BOOL);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Long)
+		{
+			out.writeByte(TYPE_INT64);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Double)
+		{
+			out.writeByte(TYPE_FLOAT64);
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof String)
+		{
+			out.writeByte(TYPE_STRING);
+			writeString(out, (String) value);
+		}
+		else if (value instanceof ByteArray)
+		{
+			out.writeByte(TYPE_BYTES);
+			byte[] bytes = ((ByteArray) value).toByteArray();
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		else if (value instanceof Timestamp)
+		{
+			out.writeByte(TYPE_TIMESTAMP);
+			writeTimestamp(out, (Timestamp) value);
+		}
+		else if (value instanceof Date)
+		{
+			out.writeByte(TYPE_DATE);
+			writeDate(out, (Date) value);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+		}
+	}
+
+	private static Object readObject(DataInputStream in) throws IOException
+	{
+		byte tag = in.readByte();
+		switch (tag)
+		{
+		case TYPE_NULL:
+			return null;
+		case TYPE_BOOL:
+			return in.readBoolean();
+		case TYPE_INT64:
+			return in.readLong();
+		case TYPE_FLOAT64:
+			return in.readDouble();
+		case TYPE_STRING:
+			return readString(in);
+		case TYPE_BYTES:
+			return ByteArray.copyFrom(readBytes(in));
+		case TYPE_TIMESTAMP:
+			return readTimestamp(in);
+		case TYPE_DATE:
+			return readDate(in);
+		default:
+			throw new IOException("Unknown type tag: " + tag);
+		}
+	}
+
+	static <R> void readValue(DataInputStream in, ValueBinder<R> binder) throws IOException
+	{
+		byte tag = in.readByte();
+		byte elementTag = tag == TYPE_ARRAY ? in.readByte() : TYPE_NULL;
+		boolean isNull = in.readBoolean();
+		switch (tag)
+		{
+		case TYPE_BOOL:
+			binder.to(isNull ? null : in.readBoolean());
+			break;
+		case TYPE_INT64:
+			binder.to(isNull ? null : in.readLong());
+			break;
+		case TYPE_FLOAT64:
+			binder.to(isNull ? null : in.readDouble());
+			break;
+		case TYPE_STRING:
+			binder.to(isNull ? null : readString(in));
+			break;
+		case TYPE_BYTES:
+			binder.to(isNull ? null : ByteArray.copyFrom(readBytes(in)));
+			break;
+		case TYPE_TIMESTAMP:
+			binder.to(isNull ? null : readTimestamp(in));
+			break;
+		case TYPE_DATE:
+			binder.to(isNull ? null : readDate(in));
+			break;
+		case TYPE_ARRAY:
+			readArray(in, binder, elementTag, isNull);
+			break;
+		default:
+			throw new IOException("Unknown type tag: " + tag);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> void readArray(DataInputStream in, ValueBinder<R> binder, byte elementTag, boolean isNull)
+			throws IOException
+	{
+		List<Object> elements = null;
+		if (!isNull)
+		{
+			int size = in.readInt();
+			if (size < 0 || size > in.available())
+				throw new IOException("Invalid array size: " + size);
+			elements = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				elements.add(readObject(in));
+		}
+		@SuppressWarnings("rawtypes")
+		List list = elements;
+		switch (elementTag)
+		{
+		case TYPE_BOOL:
+			binder.toBoolArray((Iterable<Boolean>) list);
+			break;
+		case TYPE_INT64:
+			binder.toInt64Array((Iterable<Long>) list);
+			break;
+		case TYPE_FLOAT64:
+			binder.toFloat64Array((Iterable<Double>) list);
+			break;
+		case TYPE_STRING:
+			binder.toStringArray((Iterable<String>) list);
+			break;
+		case TYPE_BYTES:
+			binder.toBytesArray((Iterable<ByteArray>) list);
+			break;
+		case TYPE_TIMESTAMP:
+			binder.toTimestampArray((Iterable<Timestamp>) list);
+			break;
+		case TYPE_DATE:
+			binder.toDateArray((Iterable<Date>) list);
+			break;
+		default:
+			throw new IOException("Unknown array element type tag: " + elementTag);
+		}
+	}
+
+	private static void writeKey(DataOutputStream out, Key key) throws IOException
+	{
+		out.writeInt(key.size());
+		for (Object part : key.getParts())
+			writeObject(out, part);
+	}
+
+	private static Key readKey(DataInputStream in) throws IOException
+	{
+		int size = in.readInt();
+		if (size < 0 || size > in.available())
+			throw new IOException("Invalid key size: " + size);
+		Key.Builder builder = Key.newBuilder();
+		for (int i = 0; i < size; i++)
+			builder.appendObject(readObject(in));
+		return builder.build();
+	}
+
+	private static void writeKeySet(DataOutputStream out, KeySet keySet) throws IOException
+	{
+		out.writeBoolean(keySet.isAll());
+		List<Key> keys = new ArrayList<>();
+		keySet.getKeys().forEach(keys::add);
+		out.writeInt(keys.size());
+		for (Key key : keys)
+			writeKey(out, key);
+		List<KeyRange> ranges = new ArrayList<>();
+		keySet.getRanges().forEach(ranges::add);
+		out.writeInt(ranges.size());
+		for (KeyRange range : ranges)
+		{
+			writeKey(out, range.getStart());
+			out.writeByte(range.getStartType() == Endpoint.OPEN ? ENDPOINT_OPEN : ENDPOINT_CLOSED);
+			writeKey(out, range.getEnd());
+			out.writeByte(range.geEndType() == Endpoint.OPEN ? ENDPOINT_OPEN : ENDPOINT_CLOSED);
+		}
+	}
+
+	private static KeySet readKeySet(DataInputStream in) throws IOException
+	{
+		KeySet.Builder builder = KeySet.newBuilder();
+		if (in.readBoolean())
+			builder.setAll();
+		int keys = in.readInt();
+		for (int i = 0; i < keys; i++)
+			builder.addKey(readKey(in));
+		int ranges = in.readInt();
+		for (int i = 0; i < ranges; i++)
+		{
+			Key start = readKey(in);
+			Endpoint startType = in.readByte() == ENDPOINT_OPEN ? Endpoint.OPEN : Endpoint.CLOSED;
+			Key end = readKey(in);
+			Endpoint endType = in.readByte() == ENDPOINT_OPEN ? Endpoint.OPEN : Endpoint.CLOSED;
+			builder.addRange(KeyRange.newBuilder().setStart(start).setStartType(startType).setEnd(end)
+					.setEndType(endType).build());
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,66 @@
+package nl.topicus.jdbc.transaction;
+
+/**
+ * Determines what the driver should do when the mutations that are buffered in
+ * a read/write transaction approach or exceed the limits that Cloud Spanner
+ * imposes on a single commit. The size of the buffered mutations is estimated
+ * while the mutations are buffered, so that the limits can be checked before
+ * the transaction is committed.
+ *
+ * @author loite
+ *
+ */
+public enum MutationLimitPolicy
+{
+	/**
+	 * Do not check the limits. A transaction that exceeds the limits of Cloud
+	 * Spanner will fail when it is committed.
+	 */
+	NONE,
+	/**
+	 * Add a {@link java.sql.SQLWarning} to the connection when the buffered
+	 * mutations approach the limits, and when they exceed the limits.
+	 */
+	WARN,
+	/**
+	 * Reject statements that would cause the buffered mutations to exceed the
+	 * limits. The transaction remains usable and the mutations of the rejected
+	 * statement are not buffered.
+	 */
+	REJECT,
+	/**
+	 * Split the mutations into multiple batches that each fit within the limits
+	 * when the transaction is committed. The first batch is committed by the
+	 * read/write transaction, the remaining batches are committed in separate
+	 * transactions directly after that. This means that the commit of a
+	 * transaction that exceeds the limits is <strong>not atomic</strong>:
+	 * other transactions can see the changes of the batches that have already
+	 * been committed before the remaining batches are committed. If one of the
+	 * separate transactions fails, the batches before it remain committed and
+	 * cannot be rolled back, and the batches after it are not committed at
+	 * all. The commit then throws a
+	 * {@link nl.topicus.jdbc.exception.CloudSpannerPartialCommitException}
+	 * that indicates how many batches have been committed. Only use this policy
+	 * for changes that can safely be applied partially, such as bulk loads that
+	 * can be resumed.
+	 */
+	SPLIT;
+
+	/**
+	 * The maximum number of mutated cells (including cells of secondary
+	 * indices) in one commit
+	 */
+	public static final long MAX_MUTATION_CELLS = 20000L;
+
+	/**
+	 * The maximum size in bytes of one commit
+	 */
+	public static final long MAX_COMMIT_BYTES = 100L * 1024L * 1024L;
+
+	/**
+	 * The percentage of the limits at which the {@link #WARN} policy will issue
+	 * a warning
+	 */
+	public static final int WARNING_THRESHOLD_PERCENTAGE = 80;
+
+}
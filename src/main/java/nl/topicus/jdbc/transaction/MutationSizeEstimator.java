@@ -0,0 +1,253 @@
+package nl.topicus.jdbc.transaction;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeyRange;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Value;
+import com.google.common.base.Utf8;
+
+/**
+ * Estimates the number of cells and bytes that a {@link Mutation} counts for
+ * towards the commit limits of Cloud Spanner. A write counts one cell for each
+ * column it sets, plus one cell for each of these columns that is part of a
+ * secondary index of the table. A delete counts one cell per key or key range,
+ * plus one cell per secondary index of the table. The byte size is the
+ * approximate size of the column names, keys and values of the mutation.
+ *
+ * @author loite
+ *
+ */
+class MutationSizeEstimator
+{
+	@FunctionalInterface
+	static interface IndexColumnsProvider
+	{
+		/**
+		 *
+		 * @param table
+		 *            The table to get the secondary indices for
+		 * @return The upper case column names of each secondary index of the
+		 *         table
+		 */
+		List<Set<String>> getIndexColumns(String table) throws SQLException;
+	}
+
+	/**
+	 * The estimated size of one or more mutations
+	 */
+	static final class MutationSize
+	{
+		static final MutationSize ZERO = new MutationSize(0L, 0L);
+
+		private final long cells;
+
+		private final long bytes;
+
+		MutationSize(long cells, long bytes)
+		{
+			this.cells = cells;
+			this.bytes = bytes;
+		}
+
+		long getCells()
+		{
+			return cells;
+		}
+
+		long getBytes()
+		{
+			return bytes;
+		}
+
+		MutationSize plus(MutationSize other)
+		{
+			return new MutationSize(cells + other.cells, bytes + other.bytes);
+		}
+
+		MutationSize minus(MutationSize other)
+		{
+			return new MutationSize(cells - other.cells, bytes - other.bytes);
+		}
+
+		/**
+		 *
+		 * @param maxCells
+		 *            The maximum number of cells
+		 * @param maxBytes
+		 *            The maximum number of bytes
+		 * @return true if this size exceeds any of the given limits
+		 */
+		boolean exceeds(long maxCells, long maxBytes)
+		{
+			return cells > maxCells || bytes > maxBytes;
+		}
+
+		@Override
+		public String toString()
+		{
+			return cells + " cells, " + bytes + " bytes";
+		}
+	}
+
+	private static final int INT64_SIZE = 8;
+
+	private static final int FLOAT64_SIZE = 8;
+
+	private static final int BOOL_SIZE = 1;
+
+	private static final int TIMESTAMP_SIZE = 12;
+
+	private static final int DATE_SIZE = 4;
+
+	private final IndexColumnsProvider indexColumnsProvider;
+
+	/**
+	 *
+	 * @param indexColumnsProvider
+	 *            Provider of the secondary indices of the tables, or null if
+	 *            secondary indices should not be included in the estimate
+	 */
+	MutationSizeEstimator(IndexColumnsProvider indexColumnsProvider)
+	{
+		this.indexColumnsProvider = indexColumnsProvider;
+	}
+
+	MutationSize estimate(Iterable<Mutation> mutations)
+	{
+		MutationSize res = MutationSize.ZERO;
+		for (Mutation mutation : mutations)
+			res = res.plus(estimate(mutation));
+		return res;
+	}
+
+	MutationSize estimate(Mutation mutation)
+	{
+		List<Set<String>> indices = getIndexColumns(mutation.getTable());
+		long bytes = Utf8.encodedLength(mutation.getTable());
+		if (mutation.getOperation() == Op.DELETE)
+		{
+			KeySet keySet = mutation.getKeySet();
+			long keys = keySet.isAll() ? 1L : 0L;
+			for (Key key : keySet.getKeys())
+			{
+				keys++;
+				bytes += getKeySize(key);
+			}
+			for (KeyRange range : keySet.getRanges())
+			{
+				keys++;
+				bytes += getKeySize(range.getStart()) + getKeySize(range.getEnd());
+			}
+			return new MutationSize(keys * (1L + indices.size()), bytes);
+		}
+		long cells = 0L;
+		for (Entry<String, Value> entry : mutation.asMap().entrySet())
+		{
+			cells++;
+			String column = entry.getKey().toUpperCase();
+			for (Set<String> index : indices)
+			{
+				if (index.contains(column))
+					cells++;
+			}
+			bytes += Utf8.encodedLength(entry.getKey()) + getValueSize(entry.getValue());
+		}
+		return new MutationSize(cells, bytes);
+	}
+
+	private List<Set<String>> getIndexColumns(String table)
+	{
+		if (indexColumnsProvider == null)
+			return Collections.emptyList();
+		try
+		{
+			List<Set<String>> res = indexColumnsProvider.getIndexColumns(table);
+			return res == null ? Collections.emptyList() : res;
+		}
+		catch (SQLException e)
+		{
+			return Collections.emptyList();
+		}
+	}
+
+	private static long getKeySize(Key key)
+	{
+		long res = 0L;
+		for (Object part : key.getParts())
+		{
+			if (part instanceof String)
+				res += Utf8.encodedLength((String) part);
+			else if (part instanceof ByteArray)
+				res += ((ByteArray) part).length();
+			else if (part != null)
+				res += INT64_SIZE;
+		}
+		return res;
+	}
+
+	private static long getValueSize(Value value)
+	{
+		if (value.isNull())
+			return 0L;
+		switch (value.getType().getCode())
+		{
+		case BOOL:
+			return BOOL_SIZE;
+		case INT64:
+			return INT64_SIZE;
+		case FLOAT64:
+			return FLOAT64_SIZE;
+		case STRING:
+			return Utf8.encodedLength(value.getString());
+		case BYTES:
+			return value.getBytes().length();
+		case TIMESTAMP:
+			return TIMESTAMP_SIZE;
+		case DATE:
+			return DATE_SIZE;
+		case ARRAY:
+			return getArraySize(value);
+		default:
+			return 0L;
+		}
+	}
+
+	private static long getArraySize(Value value)
+	{
+		switch (value.getType().getArrayElementType().getCode())
+		{
+		case BOOL:
+			return (long) BOOL_SIZE * value.getBoolArray().size();
+		case INT64:
+			return (long) INT64_SIZE * value.getInt64Array().size();
+		case FLOAT64:
+			return (long) FLOAT64_SIZE * value.getFloat64Array().size();
+		case STRING:
+			long strings = 0L;
+			for (String s : value.getStringArray())
+				strings += s == null ? 0L : Utf8.encodedLength(s);
+			return strings;
+		case BYTES:
+			long bytes = 0L;
+			for (ByteArray b : value.getBytesArray())
+				bytes += b == null ? 0L : b.length();
+			return bytes;
+		case TIMESTAMP:
+			return (long) TIMESTAMP_SIZE * value.getTimestampArray().size();
+		case DATE:
+			return (long) DATE_SIZE * value.getDateArray().size();
+		default:
+			return 0L;
+		}
+	}
+
+}
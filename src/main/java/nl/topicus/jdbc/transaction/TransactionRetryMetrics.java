@@ -0,0 +1,96 @@
+package nl.topicus.jdbc.transaction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the number of read/write transactions that have been retried
+ * internally by the driver after they were aborted by Cloud Spanner, and the
+ * time that was spent on these retries.
+ *
+ * @author loite
+ *
+ */
+public class TransactionRetryMetrics
+{
+	private final AtomicLong retries = new AtomicLong();
+
+	private final AtomicLong successfulRetries = new AtomicLong();
+
+	private final AtomicLong failedRetries = new AtomicLong();
+
+	private final AtomicLong totalRetryNanos = new AtomicLong();
+
+	void recordRetry()
+	{
+		retries.incrementAndGet();
+	}
+
+	void recordSuccessfulRetry(long nanos)
+	{
+		successfulRetries.incrementAndGet();
+		totalRetryNanos.addAndGet(nanos);
+	}
+
+	void recordFailedRetry(long nanos)
+	{
+		failedRetries.incrementAndGet();
+		totalRetryNanos.addAndGet(nanos);
+	}
+
+	/**
+	 *
+	 * @return The total number of retry attempts, including attempts that were
+	 *         later retried again
+	 */
+	public long getRetryCount()
+	{
+		return retries.get();
+	}
+
+	/**
+	 *
+	 * @return The number of aborted transactions that were committed
+	 *         successfully after one or more retries
+	 */
+	public long getSuccessfulRetryCount()
+	{
+		return successfulRetries.get();
+	}
+
+	/**
+	 *
+	 * @return The number of aborted transactions that could not be retried,
+	 *         for example because the data read by the transaction had been
+	 *         changed by another transaction
+	 */
+	public long getFailedRetryCount()
+	{
+		return failedRetries.get();
+	}
+
+	/**
+	 *
+	 * @param unit
+	 *            The time unit to return the retry time in
+	 * @return The total time spent on retrying aborted transactions
+	 */
+	public long getTotalRetryTime(TimeUnit unit)
+	{
+		return unit.convert(totalRetryNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 *
+	 * @param unit
+	 *            The time unit to return the retry time in
+	 * @return The average time spent on one aborted transaction, or 0 if no
+	 *         transactions have been retried
+	 */
+	public long getAverageRetryTime(TimeUnit unit)
+	{
+		long finished = successfulRetries.get() + failedRetries.get();
+		return finished == 0 ? 0 : unit.convert(totalRetryNanos.get() / finished, TimeUnit.NANOSECONDS);
+	}
+
+}
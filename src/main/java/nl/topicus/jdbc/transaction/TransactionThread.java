@@ -4,6 +4,7 @@ import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -17,9 +18,11 @@ import java.util.stream.Collectors;
 
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
 import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
 import com.google.cloud.spanner.Statement;
 import com.google.cloud.spanner.TransactionContext;
 import com.google.cloud.spanner.TransactionRunner;
@@ -27,7 +30,9 @@ import com.google.cloud.spanner.TransactionRunner.TransactionCallable;
 import com.google.common.base.Preconditions;
 import com.google.rpc.Code;
 
+import nl.topicus.jdbc.exception.CloudSpannerPartialCommitException;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.transaction.MutationSizeEstimator.MutationSize;
 
 class TransactionThread extends Thread
 {
@@ -75,7 +80,15 @@ class TransactionThread extends Thread
 	private final Set<String> stopStatementStrings = new HashSet<>(
 			Arrays.asList(TransactionStopStatement.values()).stream().map(x -> x.name()).collect(Collectors.toList()));
 
-	private List<Mutation> mutations = new ArrayList<>(40);
+	private final MutationBuffer mutations;
+
+	private final MutationLimitPolicy mutationLimitPolicy;
+
+	/**
+	 * Batches of mutations that did not fit in the commit of the read/write
+	 * transaction and that are written directly after it has been committed
+	 */
+	private List<List<Mutation>> remainingBatches = Collections.emptyList();
 
 	private Map<Savepoint, Integer> savepoints = new HashMap<>();
 
@@ -83,6 +96,19 @@ class TransactionThread extends Thread
 
 	private BlockingQueue<ResultSet> resultSets = new LinkedBlockingQueue<>();
 
+	/**
+	 * The queries that have been executed on this transaction, together with
+	 * a checksum of the rows that have been consumed. These queries are
+	 * replayed if the transaction is aborted and retried by Cloud Spanner.
+	 */
+	private final List<ChecksumResultSet> executedQueries = new ArrayList<>();
+
+	private final TransactionRetryMetrics retryMetrics;
+
+	private int attempts;
+
+	private long retryStartTime;
+
 	private static int threadInitNumber;
 
 	private static synchronized int nextThreadNum()
@@ -91,10 +117,39 @@ class TransactionThread extends Thread
 	}
 
 	TransactionThread(DatabaseClient dbClient)
+	{
+		this(dbClient, new TransactionRetryMetrics());
+	}
+
+	TransactionThread(DatabaseClient dbClient, TransactionRetryMetrics retryMetrics)
+	{
+		this(dbClient, retryMetrics, new MutationBuffer(), MutationLimitPolicy.NONE);
+	}
+
+	/**
+	 *
+	 * @param dbClient
+	 *            The client to use for the transaction
+	 * @param retryMetrics
+	 *            The metrics to register retries in
+	 * @param mutations
+	 *            The buffer to use for the mutations of the transaction
+	 * @param mutationLimitPolicy
+	 *            The policy to apply when the buffered mutations exceed the
+	 *            commit limits of Cloud Spanner
+	 */
+	TransactionThread(DatabaseClient dbClient, TransactionRetryMetrics retryMetrics, MutationBuffer mutations,
+			MutationLimitPolicy mutationLimitPolicy)
 	{
 		super("Google Cloud Spanner JDBC Transaction Thread-" + nextThreadNum());
 		Preconditions.checkNotNull(dbClient, "dbClient may not be null");
+		Preconditions.checkNotNull(retryMetrics, "retryMetrics may not be null");
+		Preconditions.checkNotNull(mutations, "mutations may not be null");
+		Preconditions.checkNotNull(mutationLimitPolicy, "mutationLimitPolicy may not be null");
 		this.dbClient = dbClient;
+		this.retryMetrics = retryMetrics;
+		this.mutations = mutations;
+		this.mutationLimitPolicy = mutationLimitPolicy;
 		setDaemon(true);
 	}
 
@@ -113,6 +168,14 @@ class TransactionThread extends Thread
 					public TransactionStatus run(TransactionContext transaction) throws Exception
 					{
 						status = TransactionStatus.RUNNING;
+						attempts++;
+						if (attempts > 1)
+						{
+							retryMetrics.recordRetry();
+							if (retryStartTime == 0L)
+								retryStartTime = System.nanoTime();
+							replayQueries(transaction);
+						}
 						while (!stop)
 						{
 							try
@@ -123,7 +186,10 @@ class TransactionThread extends Thread
 									String sql = statement.getSql();
 									if (!stopStatementStrings.contains(sql))
 									{
-										resultSets.put(transaction.executeQuery(statement));
+										ChecksumResultSet rs = new ChecksumResultSet(statement,
+												transaction.executeQuery(statement));
+										executedQueries.add(rs);
+										resultSets.put(rs);
 									}
 								}
 								else
@@ -146,12 +212,22 @@ class TransactionThread extends Thread
 						switch (stopStatement)
 						{
 						case COMMIT:
-							transaction.buffer(mutations);
+							if (mutationLimitPolicy == MutationLimitPolicy.SPLIT)
+							{
+								List<List<Mutation>> batches = mutations.split(MutationLimitPolicy.MAX_MUTATION_CELLS,
+										MutationLimitPolicy.MAX_COMMIT_BYTES);
+								transaction.buffer(batches.get(0));
+								remainingBatches = batches.subList(1, batches.size());
+							}
+							else
+							{
+								transaction.buffer(mutations.getMutations());
+							}
 							break;
 						case ROLLBACK:
 							break;
 						case PREPARE:
-							XATransaction.prepareMutations(transaction, xid, mutations);
+							XATransaction.prepareMutations(transaction, xid, mutations.getMutations());
 							break;
 						case COMMIT_PREPARED:
 							XATransaction.commitPrepared(transaction, xid);
@@ -164,11 +240,16 @@ class TransactionThread extends Thread
 					}
 				});
 				commitTimestamp = runner.getCommitTimestamp();
+				commitRemainingBatches();
+				if (retryStartTime != 0L)
+					retryMetrics.recordSuccessfulRetry(System.nanoTime() - retryStartTime);
 			}
 			catch (Exception e)
 			{
 				status = TransactionStatus.FAIL;
 				exception = e;
+				if (retryStartTime != 0L)
+					retryMetrics.recordFailedRetry(System.nanoTime() - retryStartTime);
 			}
 			finally
 			{
@@ -178,6 +259,55 @@ class TransactionThread extends Thread
 		}
 	}
 
+	/**
+	 * Commits the batches that did not fit in the read/write transaction
+	 * when the {@link MutationLimitPolicy#SPLIT} policy is used. The batches
+	 * that have already been committed cannot be rolled back if a batch
+	 * fails, which is reported by a
+	 * {@link CloudSpannerPartialCommitException}.
+	 */
+	private void commitRemainingBatches() throws CloudSpannerPartialCommitException
+	{
+		int totalBatches = remainingBatches.size() + 1;
+		int committedBatches = 1;
+		for (List<Mutation> batch : remainingBatches)
+		{
+			try
+			{
+				commitTimestamp = dbClient.write(batch);
+			}
+			catch (SpannerException e)
+			{
+				throw new CloudSpannerPartialCommitException(committedBatches, totalBatches, commitTimestamp, e);
+			}
+			committedBatches++;
+		}
+	}
+
+	/**
+	 * Re-executes all queries that were executed during a previous attempt of
+	 * this transaction and verifies that these queries return exactly the
+	 * same rows as during the previous attempt. If the results are different,
+	 * the data that was read by the client application has been modified by
+	 * another transaction, and the transaction cannot be retried
+	 * transparently.
+	 */
+	private void replayQueries(TransactionContext transaction)
+	{
+		for (ChecksumResultSet original : executedQueries)
+		{
+			try (ResultSet replay = transaction.executeQuery(original.getStatement()))
+			{
+				if (!original.verify(replay))
+				{
+					throw SpannerExceptionFactory.newSpannerException(ErrorCode.ABORTED,
+							"Transaction was aborted and could not be retried, because the data read by the transaction was modified by another transaction: "
+									+ original.getStatement().getSql());
+				}
+			}
+		}
+	}
+
 	ResultSet executeQuery(Statement statement)
 	{
 		try
@@ -202,10 +332,29 @@ class TransactionThread extends Thread
 		return mutations.size();
 	}
 
+	MutationSize getBufferedMutationsSize()
+	{
+		return mutations.getTotalSize();
+	}
+
+	/**
+	 *
+	 * @param mutations
+	 *            The mutations to estimate
+	 * @return The estimated size of the given mutations
+	 */
+	MutationSize estimate(Iterable<Mutation> mutations)
+	{
+		return this.mutations.getEstimator().estimate(mutations);
+	}
+
+	MutationLimitPolicy getMutationLimitPolicy()
+	{
+		return mutationLimitPolicy;
+	}
+
 	void buffer(Mutation mutation)
 	{
-		if (mutation == null)
-			throw new NullPointerException("Mutation is null");
 		mutations.add(mutation);
 	}
 
@@ -219,7 +368,7 @@ class TransactionThread extends Thread
 	void setSavepoint(Savepoint savepoint)
 	{
 		Preconditions.checkNotNull(savepoint);
-		savepoints.put(savepoint, mutations.size());
+		savepoints.put(savepoint, mutations.mark());
 	}
 
 	void rollbackSavepoint(Savepoint savepoint) throws CloudSpannerSQLException
@@ -230,7 +379,7 @@ class TransactionThread extends Thread
 		{
 			throw new CloudSpannerSQLException("Unknown savepoint: " + savepoint.toString(), Code.INVALID_ARGUMENT);
 		}
-		mutations.subList(index.intValue(), mutations.size()).clear();
+		mutations.rollback(index.intValue());
 		removeSavepointsAfter(index.intValue());
 	}
 
@@ -316,6 +465,8 @@ class TransactionThread extends Thread
 				}
 			}
 		}
+		if (status == TransactionStatus.FAIL && exception instanceof CloudSpannerPartialCommitException)
+			throw (CloudSpannerPartialCommitException) exception;
 		if (status == TransactionStatus.FAIL && exception != null)
 		{
 			Code code = Code.UNKNOWN;
@@ -337,4 +488,9 @@ class TransactionThread extends Thread
 		return status;
 	}
 
+	TransactionRetryMetrics getRetryMetrics()
+	{
+		return retryMetrics;
+	}
+
 }
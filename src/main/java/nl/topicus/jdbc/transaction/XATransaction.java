@@ -9,6 +9,7 @@ import java.sql.SQLException;
 import java.util.Base64;
 import java.util.List;
 
+import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.Key;
 import com.google.cloud.spanner.KeySet;
 import com.google.cloud.spanner.Mutation;
@@ -38,38 +39,77 @@ class XATransaction
 	{
 	}
 
+	/**
+	 * The maximum number of bytes of encoded mutations that are packed into
+	 * one row of the prepared mutations table
+	 */
+	static final int MAX_CHUNK_BYTES = 1024 * 1024;
+
 	private static final String SELECT_MUTATIONS = "SELECT " + CloudSpannerXAConnection.XA_NUMBER_COLUMN + ", "
-			+ CloudSpannerXAConnection.XA_MUTATION_COLUMN + " FROM "
+			+ CloudSpannerXAConnection.XA_MUTATION_COLUMN + ", " + CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN
+			+ " FROM "
 			+ CloudSpannerXAConnection.XA_PREPARED_MUTATIONS_TABLE + " WHERE " + CloudSpannerXAConnection.XA_XID_COLUMN
 			+ "=@xid ORDER BY " + CloudSpannerXAConnection.XA_NUMBER_COLUMN;
 
+	/**
+	 * Prepares the given mutations by writing them to the prepared mutations
+	 * table. The mutations are encoded and packed into chunks of at most
+	 * {@link #MAX_CHUNK_BYTES} bytes, and each chunk is written as one row. A
+	 * mutation that is larger than the maximum chunk size is written as a
+	 * separate row.
+	 */
 	static void prepareMutations(TransactionContext transaction, String xid, List<Mutation> mutations)
 			throws SQLException
 	{
 		int index = 0;
+		ByteArrayOutputStream chunk = new ByteArrayOutputStream();
 		for (Mutation mutation : mutations)
 		{
-			WriteBuilder prepared = Mutation.newInsertBuilder(CloudSpannerXAConnection.XA_PREPARED_MUTATIONS_TABLE);
-			prepared.set(CloudSpannerXAConnection.XA_XID_COLUMN).to(xid);
-			prepared.set(CloudSpannerXAConnection.XA_NUMBER_COLUMN).to(index);
-			prepared.set(CloudSpannerXAConnection.XA_MUTATION_COLUMN).to(serializeMutation(mutation));
-			transaction.buffer(prepared.build());
-			index++;
+			byte[] encoded = MutationCodec.encode(mutation);
+			if (chunk.size() > 0 && chunk.size() + encoded.length > MAX_CHUNK_BYTES)
+			{
+				bufferChunk(transaction, xid, index, chunk.toByteArray());
+				chunk.reset();
+				index++;
+			}
+			chunk.write(encoded, 0, encoded.length);
 		}
+		if (chunk.size() > 0)
+			bufferChunk(transaction, xid, index, chunk.toByteArray());
+	}
+
+	private static void bufferChunk(TransactionContext transaction, String xid, int index, byte[] chunk)
+	{
+		WriteBuilder prepared = Mutation.newInsertBuilder(CloudSpannerXAConnection.XA_PREPARED_MUTATIONS_TABLE);
+		prepared.set(CloudSpannerXAConnection.XA_XID_COLUMN).to(xid);
+		prepared.set(CloudSpannerXAConnection.XA_NUMBER_COLUMN).to(index);
+		// Only the first row of a transaction is included in the index that is
+		// used to recover prepared transactions
+		if (index == 0)
+			prepared.set(CloudSpannerXAConnection.XA_PREPARED_XID_COLUMN).to(xid);
+		// The legacy column is not nullable in tables that were created by
+		// older versions of the driver
+		prepared.set(CloudSpannerXAConnection.XA_MUTATION_COLUMN).to("");
+		prepared.set(CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN).to(ByteArray.copyFrom(chunk));
+		transaction.buffer(prepared.build());
 	}
 
 	static void commitPrepared(TransactionContext transaction, String xid) throws SQLException
 	{
+		boolean foundRecords = false;
 		try (ResultSet rs = transaction.executeQuery(getPreparedMutationsStatement(xid)))
 		{
 			while (rs.next())
 			{
-				String serialized = rs.getString(1);
-				Mutation mutation = deserializeMutation(serialized);
-				transaction.buffer(mutation);
+				foundRecords = true;
+				if (rs.isNull(2))
+					transaction.buffer(deserializeLegacyMutation(rs.getString(1)));
+				else
+					transaction.buffer(MutationCodec.decodeAll(rs.getBytes(2).toByteArray()));
 			}
 		}
-		cleanupPrepared(transaction, xid);
+		if (foundRecords)
+			cleanupPrepared(transaction, xid);
 	}
 
 	static void rollbackPrepared(TransactionContext transaction, String xid)
@@ -77,24 +117,15 @@ class XATransaction
 		cleanupPrepared(transaction, xid);
 	}
 
+	/**
+	 * Deletes all prepared mutations of the given xid. The rows are deleted
+	 * using a key range on the xid, so that the rows do not need to be read
+	 * first.
+	 */
 	private static void cleanupPrepared(TransactionContext transaction, String xid)
 	{
-		boolean foundRecords = false;
-		KeySet.Builder builder = KeySet.newBuilder();
-		try (ResultSet rs = transaction.executeQuery(getPreparedMutationsStatement(xid)))
-		{
-			while (rs.next())
-			{
-				foundRecords = true;
-				long number = rs.getLong(0);
-				builder.addKey(Key.of(xid, number));
-			}
-		}
-		if (foundRecords)
-		{
-			Mutation delete = Mutation.delete(CloudSpannerXAConnection.XA_PREPARED_MUTATIONS_TABLE, builder.build());
-			transaction.buffer(delete);
-		}
+		transaction.buffer(
+				Mutation.delete(CloudSpannerXAConnection.XA_PREPARED_MUTATIONS_TABLE, KeySet.prefixRange(Key.of(xid))));
 	}
 
 	static Statement getPreparedMutationsStatement(String xid)
@@ -103,7 +134,25 @@ class XATransaction
 	}
 
 	@VisibleForTesting
-	static String serializeMutation(Mutation mutation) throws SQLException
+	static ByteArray serializeMutation(Mutation mutation) throws SQLException
+	{
+		return ByteArray.copyFrom(MutationCodec.encode(mutation));
+	}
+
+	@VisibleForTesting
+	static Mutation deserializeMutation(ByteArray mutation) throws SQLException
+	{
+		return MutationCodec.decode(mutation.toByteArray());
+	}
+
+	/**
+	 * Serializes a mutation in the format that was used by older versions of
+	 * the driver: a Base64 encoded Java serialized {@link Mutation}. Mutations
+	 * are no longer written in this format, but prepared transactions that
+	 * were written by older versions can still be committed.
+	 */
+	@VisibleForTesting
+	static String serializeLegacyMutation(Mutation mutation) throws SQLException
 	{
 		try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
 				ObjectOutputStream stream = new ObjectOutputStream(bos))
@@ -117,8 +166,7 @@ class XATransaction
 		}
 	}
 
-	@VisibleForTesting
-	static Mutation deserializeMutation(String mutation) throws SQLException
+	static Mutation deserializeLegacyMutation(String mutation) throws SQLException
 	{
 		try (ByteArrayInputStream bis = new ByteArrayInputStream(Base64.getDecoder().decode(mutation));
 				ObjectInputStream input = new ObjectInputStream(bis))
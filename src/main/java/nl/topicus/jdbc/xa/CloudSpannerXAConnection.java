@@ -16,7 +16,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 import javax.sql.XAConnection;
 import javax.transaction.xa.XAException;
@@ -44,14 +48,41 @@ import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 public class CloudSpannerXAConnection extends CloudSpannerPooledConnection implements XAConnection, XAResource
 {
 	/**
-	 * A static flag that is used to checked whether the existence of the
-	 * XA_PREPARED_MUTATIONS table has been checked
+	 * The databases for which the existence of the XA_PREPARED_MUTATIONS table
+	 * and its index has been checked
 	 */
-	private static boolean checkedTableExistence = false;
+	private static final Set<String> checkedDatabases = new HashSet<>();
 
-	private static final String CREATE_TABLE = "CREATE TABLE XA_PREPARED_MUTATIONS (XID STRING(150) NOT NULL, NUMBER INT64 NOT NULL, MUTATION STRING(MAX) NOT NULL) PRIMARY KEY (XID, NUMBER)";
+	private static final String CREATE_TABLE = "CREATE TABLE XA_PREPARED_MUTATIONS (XID STRING(150) NOT NULL, NUMBER INT64 NOT NULL, MUTATION STRING(MAX) NOT NULL, MUTATION_BYTES BYTES(MAX), PREPARED_XID STRING(150)) PRIMARY KEY (XID, NUMBER)";
 
-	private static final String CHECK_TABLE_EXISTENCE = "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME=?";
+	private static final String ADD_MUTATION_BYTES_COLUMN = "ALTER TABLE XA_PREPARED_MUTATIONS ADD COLUMN MUTATION_BYTES BYTES(MAX)";
+
+	private static final String ADD_PREPARED_XID_COLUMN = "ALTER TABLE XA_PREPARED_MUTATIONS ADD COLUMN PREPARED_XID STRING(150)";
+
+	private static final String CHECK_TABLE_EXISTENCE = "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_CATALOG='' AND TABLE_SCHEMA='' AND TABLE_NAME=?";
+
+	/**
+	 * Only the first row of each prepared transaction has a value in the
+	 * prepared xid column. The null-filtered index on this column contains one
+	 * entry per prepared transaction, and as the entries are spread over the
+	 * xids, the index does not have a hotspot.
+	 */
+	private static final String CREATE_PREPARED_XID_INDEX = "CREATE NULL_FILTERED INDEX IDX_XA_PREPARED_MUTATIONS_PREPARED_XID ON XA_PREPARED_MUTATIONS (PREPARED_XID)";
+
+	private static final String CHECK_INDEX_EXISTENCE = "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_CATALOG='' AND TABLE_SCHEMA='' AND TABLE_NAME=? AND INDEX_NAME=?";
+
+	private static final String RECOVER = "SELECT PREPARED_XID FROM XA_PREPARED_MUTATIONS@{FORCE_INDEX=IDX_XA_PREPARED_MUTATIONS_PREPARED_XID} WHERE PREPARED_XID IS NOT NULL";
+
+	private static final String RECOVER_WITHOUT_INDEX = "SELECT DISTINCT XID FROM XA_PREPARED_MUTATIONS";
+
+	/**
+	 * Transactions that were prepared by a version of the driver that did not
+	 * yet know the prepared xid column have no value in this column, and are
+	 * not found by {@link #RECOVER} until the column has been filled.
+	 */
+	private static final String SELECT_LEGACY_PREPARED = "SELECT XID FROM XA_PREPARED_MUTATIONS WHERE NUMBER=0 AND PREPARED_XID IS NULL";
+
+	private static final String BACKFILL_PREPARED_XID = "UPDATE XA_PREPARED_MUTATIONS SET PREPARED_XID=? WHERE XID=? AND NUMBER=?";
 
 	public static final String XA_PREPARED_MUTATIONS_TABLE = "XA_PREPARED_MUTATIONS";
 
@@ -61,6 +92,12 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 
 	public static final String XA_MUTATION_COLUMN = "MUTATION";
 
+	public static final String XA_MUTATION_BYTES_COLUMN = "MUTATION_BYTES";
+
+	public static final String XA_PREPARED_XID_COLUMN = "PREPARED_XID";
+
+	public static final String XA_PREPARED_XID_INDEX = "IDX_XA_PREPARED_MUTATIONS_PREPARED_XID";
+
 	/**
 	 * Underlying physical database connection. It's used for issuing PREPARE
 	 * TRANSACTION/ COMMIT PREPARED/ROLLBACK PREPARED commands.
@@ -124,40 +161,105 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 
 	private void checkAndCreateTable() throws SQLException
 	{
-		if (!checkedTableExistence)
-		{
-			checkTableExistence(conn);
-		}
+		checkTableExistence(conn);
+	}
+
+	private static String getDatabaseKey(CloudSpannerConnection conn)
+	{
+		return conn.getDatabaseId() == null ? null : conn.getDatabaseId().getName();
+	}
+
+	private static synchronized boolean isTableExistenceChecked(CloudSpannerConnection conn)
+	{
+		return checkedDatabases.contains(getDatabaseKey(conn));
 	}
 
-	private static synchronized void checkTableExistence(Connection conn) throws SQLException
+	private static synchronized void checkTableExistence(CloudSpannerConnection conn) throws SQLException
 	{
-		if (checkedTableExistence)
+		if (isTableExistenceChecked(conn))
 			return;
-		boolean createTable = false;
+		boolean createTable = true;
+		boolean addMutationBytesColumn = true;
+		boolean addPreparedXidColumn = true;
+		boolean createIndex = true;
 		try (PreparedStatement statement = conn.prepareStatement(CHECK_TABLE_EXISTENCE))
 		{
 			statement.setString(1, XA_PREPARED_MUTATIONS_TABLE);
 			try (ResultSet rs = statement.executeQuery())
 			{
-				if (!rs.next())
+				while (rs.next())
 				{
-					createTable = true;
+					createTable = false;
+					String column = rs.getString(1);
+					if (XA_MUTATION_BYTES_COLUMN.equalsIgnoreCase(column))
+						addMutationBytesColumn = false;
+					if (XA_PREPARED_XID_COLUMN.equalsIgnoreCase(column))
+						addPreparedXidColumn = false;
+				}
+			}
+		}
+		if (!createTable)
+		{
+			try (PreparedStatement statement = conn.prepareStatement(CHECK_INDEX_EXISTENCE))
+			{
+				statement.setString(1, XA_PREPARED_MUTATIONS_TABLE);
+				statement.setString(2, XA_PREPARED_XID_INDEX);
+				try (ResultSet rs = statement.executeQuery())
+				{
+					createIndex = !rs.next();
 				}
 			}
-			if (createTable)
-				createTable(conn);
-
-			checkedTableExistence = true;
 		}
+		List<String> ddl = new ArrayList<>();
+		if (createTable)
+			ddl.add(CREATE_TABLE);
+		if (!createTable && addMutationBytesColumn)
+			ddl.add(ADD_MUTATION_BYTES_COLUMN);
+		if (!createTable && addPreparedXidColumn)
+			ddl.add(ADD_PREPARED_XID_COLUMN);
+		if (createIndex)
+			ddl.add(CREATE_PREPARED_XID_INDEX);
+		// The recovery query forces the use of the index, which fails while
+		// the index is being built. The statements are therefore always
+		// executed synchronously, regardless of the DDL settings of the
+		// connection.
+		if (!ddl.isEmpty())
+			conn.executeDDLAndWait(ddl);
+		if (!createTable)
+			backfillPreparedXid(conn);
+
+		checkedDatabases.add(getDatabaseKey(conn));
 	}
 
-	private static synchronized void createTable(Connection conn) throws SQLException
+	/**
+	 * Fills the prepared xid column of the first row of each transaction that
+	 * was prepared by an older version of the driver, so that these
+	 * transactions are returned by {@link #recover(int)}
+	 */
+	private static void backfillPreparedXid(CloudSpannerConnection conn) throws SQLException
 	{
-		try (PreparedStatement statement = conn.prepareStatement(CREATE_TABLE))
+		List<String> xids = new ArrayList<>();
+		try (PreparedStatement statement = conn.prepareStatement(SELECT_LEGACY_PREPARED);
+				ResultSet rs = statement.executeQuery())
 		{
-			statement.executeUpdate();
+			while (rs.next())
+				xids.add(rs.getString(1));
 		}
+		if (xids.isEmpty())
+			return;
+		try (PreparedStatement statement = conn.prepareStatement(BACKFILL_PREPARED_XID))
+		{
+			for (String xid : xids)
+			{
+				statement.setString(1, xid);
+				statement.setString(2, xid);
+				statement.setLong(3, 0L);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+		if (!conn.getAutoCommit())
+			conn.commit();
 	}
 
 	/****
@@ -415,7 +517,8 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 	 * Implementation deficiency preconditions: 1. xid was associated with this
 	 * connection
 	 *
-	 * Postconditions: 1. Transaction is prepared
+	 * Postconditions: 1. Transaction is prepared, or XA_RDONLY is returned
+	 * and the transaction has ended if it did not contain any mutations
 	 * 
 	 * @see XAResource#prepare(Xid)
 	 */
@@ -444,6 +547,15 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 
 		try
 		{
+			if (!conn.getTransaction().hasBufferedMutations())
+			{
+				// A branch without any mutations does not need to be prepared
+				// or committed. End the transaction without writing anything.
+				conn.rollback();
+				conn.setAutoCommit(localAutoCommitMode);
+
+				return XA_RDONLY;
+			}
 			String s = RecoveredXid.xidToString(xid);
 			conn.prepareTransaction(s);
 			conn.setAutoCommit(localAutoCommitMode);
@@ -503,8 +615,11 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 				// backed refuses to process new queries. Hopefully not a
 				// problem
 				// in practise.
-				try (ResultSet rs = stmt
-						.executeQuery("SELECT DISTINCT " + XA_XID_COLUMN + " FROM " + XA_PREPARED_MUTATIONS_TABLE))
+				// The index on the prepared xid column is only known to exist
+				// if this driver has checked the table and filled the column
+				// for transactions that were prepared by older versions
+				String sql = isTableExistenceChecked(conn) ? RECOVER : RECOVER_WITHOUT_INDEX;
+				try (ResultSet rs = stmt.executeQuery(sql))
 				{
 					LinkedList<Xid> l = new LinkedList<>();
 					while (rs.next())
@@ -638,7 +753,13 @@ public class CloudSpannerXAConnection extends CloudSpannerPooledConnection imple
 			state = STATE_IDLE;
 			currentXid = null;
 
-			conn.commit();
+			// The buffered mutations are committed directly without being
+			// persisted in the prepared mutations table. A branch without any
+			// mutations does not need a commit at all.
+			if (conn.getTransaction().hasBufferedMutations())
+				conn.commit();
+			else
+				conn.rollback();
 			conn.setAutoCommit(localAutoCommitMode);
 		}
 		catch (CloudSpannerSQLException ex)
@@ -54,4 +54,13 @@ public class AbstractCloudSpannerFetcherTest
 		Assert.assertEquals(1, subject.getFetchSize());
 	}
 
+	@Test
+	public void testIsFetchSizeSet() throws SQLException
+	{
+		Assert.assertFalse(subject.isFetchSizeSet());
+		Assert.assertEquals(1, subject.getFetchSize());
+		subject.setFetchSize(1);
+		Assert.assertTrue(subject.isFetchSizeSet());
+	}
+
 }
@@ -3,8 +3,10 @@ package nl.topicus.jdbc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
@@ -13,7 +15,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,10 +26,18 @@ import org.mockito.internal.stubbing.answers.Returns;
 
 import com.google.cloud.spanner.BatchClient;
 import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.BatchTransactionId;
 import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.rpc.Code;
 
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 import nl.topicus.jdbc.test.category.UnitTest;
+import nl.topicus.jdbc.transaction.CloudSpannerPartitionTokenTest;
 import nl.topicus.jdbc.transaction.CloudSpannerTransaction;
 
 @Category(UnitTest.class)
@@ -125,4 +137,121 @@ public class BatchReadOnlyTest
 		}
 	}
 
+	@Test
+	public void testBatchReadOnlyWithExactStaleness() throws SQLException, NoSuchFieldException, SecurityException,
+			IllegalArgumentException, IllegalAccessException
+	{
+		TimestampBound bound = TimestampBound.ofExactStaleness(10L, TimeUnit.SECONDS);
+		BatchClient batchClient = mock(BatchClient.class);
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		when(tx.partitionQuery(any(), any())).then(new Returns(Arrays.asList(mock(Partition.class))));
+		when(batchClient.batchReadOnlyTransaction(bound)).then(new Returns(tx));
+		Field field = CloudSpannerTransaction.class.getDeclaredField("batchClient");
+		field.setAccessible(true);
+		field.set(connection.getTransaction(), batchClient);
+		connection.setBatchReadOnly(true);
+		connection.setReadStaleness(bound);
+		Statement statement = connection.createStatement();
+		assertTrue(statement.execute(SELECT_ALL_FROM_FOO));
+		verify(batchClient).batchReadOnlyTransaction(bound);
+	}
+
+	@Test
+	public void testBatchReadOnlyWithMaxStaleness() throws SQLException
+	{
+		connection.setBatchReadOnly(true);
+		connection.setReadStaleness(TimestampBound.ofMaxStaleness(10L, TimeUnit.SECONDS));
+		try
+		{
+			connection.getTransaction().begin();
+			fail("Expected exception not thrown");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			assertEquals(Code.FAILED_PRECONDITION, e.getCode());
+		}
+	}
+
+	@Test
+	public void testPartitionTokens() throws SQLException, ReflectiveOperationException
+	{
+		BatchTransactionId id = CloudSpannerPartitionTokenTest.createBatchTransactionId();
+		List<Partition> partitions = Arrays.asList(CloudSpannerPartitionTokenTest.createPartition("p1"),
+				CloudSpannerPartitionTokenTest.createPartition("p2"));
+		BatchClient batchClient = mock(BatchClient.class);
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		when(tx.partitionQuery(any(), any())).then(new Returns(partitions));
+		when(tx.getBatchTransactionId()).then(new Returns(id));
+		when(batchClient.batchReadOnlyTransaction(TimestampBound.strong())).then(new Returns(tx));
+		BatchReadOnlyTransaction workerTx = mock(BatchReadOnlyTransaction.class);
+		when(workerTx.execute(any())).then(new Returns(mock(com.google.cloud.spanner.ResultSet.class)));
+		when(batchClient.batchReadOnlyTransaction(id)).then(new Returns(workerTx));
+		Field field = CloudSpannerTransaction.class.getDeclaredField("batchClient");
+		field.setAccessible(true);
+		field.set(connection.getTransaction(), batchClient);
+		connection.setBatchReadOnly(true);
+
+		List<String> tokens = connection.createPartitionTokens(SELECT_ALL_FROM_FOO);
+		assertEquals(2, tokens.size());
+		for (int i = 0; i < tokens.size(); i++)
+		{
+			Statement statement;
+			try (ResultSet rs = connection.executePartitionToken(tokens.get(i)))
+			{
+				assertFalse(rs.next());
+				statement = rs.getStatement();
+				assertFalse(statement.isClosed());
+			}
+			assertTrue(statement.isClosed());
+			verify(workerTx).execute(partitions.get(i));
+		}
+	}
+
+	@Test(expected = CloudSpannerSQLException.class)
+	public void testPartitionTokensNotInBatchReadOnlyMode() throws SQLException
+	{
+		connection.createPartitionTokens(SELECT_ALL_FROM_FOO);
+	}
+
+	@Test
+	public void testExecuteBatchReadOnlyInParallel() throws SQLException, NoSuchFieldException, SecurityException,
+			IllegalArgumentException, IllegalAccessException
+	{
+		final int numberOfPartitions = 6;
+		BatchClient batchClient = mock(BatchClient.class);
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		List<Partition> partitions = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++)
+		{
+			Partition partition = mock(Partition.class);
+			final long id = i;
+			when(tx.execute(partition)).then(invocation -> ResultSets.forRows(
+					Type.struct(StructField.of("ID", Type.int64())),
+					Arrays.asList(Struct.newBuilder().set("ID").to(id).build())));
+			partitions.add(partition);
+		}
+		when(tx.partitionQuery(any(), any())).then(new Returns(partitions));
+		when(batchClient.batchReadOnlyTransaction(TimestampBound.strong())).then(new Returns(tx));
+		Field field = CloudSpannerTransaction.class.getDeclaredField("batchClient");
+		field.setAccessible(true);
+		field.set(connection.getTransaction(), batchClient);
+		connection.setBatchReadOnly(true);
+		connection.setBatchReadOnlyParallelism(3);
+		Statement statement = connection.createStatement();
+		assertTrue(statement.execute(SELECT_ALL_FROM_FOO));
+		long sum = 0L;
+		int count = 0;
+		try (ResultSet rs = statement.getResultSet())
+		{
+			while (rs.next())
+			{
+				sum += rs.getLong(1);
+				count++;
+			}
+		}
+		assertEquals(numberOfPartitions, count);
+		assertEquals(15L, sum);
+		assertFalse(statement.getMoreResults());
+	}
+
 }
@@ -0,0 +1,90 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+import com.google.cloud.ByteArray;
+import com.google.common.io.ByteStreams;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerBlobTest
+{
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private final CloudSpannerBlob subject = new CloudSpannerBlob(ByteArray.copyFrom("Hello world"));
+
+	private static byte[] bytes(String value)
+	{
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testGetBytes() throws SQLException
+	{
+		assertEquals(11L, subject.length());
+		assertArrayEquals(bytes("Hello"), subject.getBytes(1L, 5));
+		assertArrayEquals(bytes("world"), subject.getBytes(7L, 5));
+		// Reads past the end return the remaining bytes
+		assertArrayEquals(bytes("world"), subject.getBytes(7L, 100));
+		assertArrayEquals(new byte[0], subject.getBytes(12L, 1));
+	}
+
+	@Test
+	public void testGetBinaryStream() throws SQLException, IOException
+	{
+		try (InputStream is = subject.getBinaryStream())
+		{
+			assertArrayEquals(bytes("Hello world"), ByteStreams.toByteArray(is));
+		}
+		try (InputStream is = subject.getBinaryStream(3L, 3L))
+		{
+			assertArrayEquals(bytes("llo"), ByteStreams.toByteArray(is));
+		}
+	}
+
+	@Test
+	public void testPosition() throws SQLException
+	{
+		assertEquals(7L, subject.position(bytes("world"), 1L));
+		assertEquals(8L, subject.position(bytes("o"), 6L));
+		assertEquals(-1L, subject.position(bytes("Hello"), 2L));
+		assertEquals(3L, subject.position(new CloudSpannerBlob(ByteArray.copyFrom("llo")), 1L));
+	}
+
+	@Test
+	public void testInvalidPosition() throws SQLException
+	{
+		thrown.expect(SQLException.class);
+		subject.getBytes(0L, 1);
+	}
+
+	@Test
+	public void testReadOnly() throws SQLException
+	{
+		thrown.expect(SQLFeatureNotSupportedException.class);
+		subject.setBytes(1L, bytes("foo"));
+	}
+
+	@Test
+	public void testFree() throws SQLException
+	{
+		subject.free();
+		thrown.expect(SQLException.class);
+		subject.length();
+	}
+
+}
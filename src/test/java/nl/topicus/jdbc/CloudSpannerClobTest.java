@@ -0,0 +1,93 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerClobTest
+{
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private final CloudSpannerClob subject = new CloudSpannerClob("Hello world");
+
+	@Test
+	public void testGetSubString() throws SQLException
+	{
+		assertEquals(11L, subject.length());
+		assertEquals("Hello", subject.getSubString(1L, 5));
+		assertEquals("world", subject.getSubString(7L, 100));
+		assertEquals("", subject.getSubString(12L, 1));
+	}
+
+	@Test
+	public void testGetCharacterStream() throws SQLException, IOException
+	{
+		try (Reader reader = subject.getCharacterStream())
+		{
+			assertEquals("Hello world", CharStreams.toString(reader));
+		}
+		try (Reader reader = subject.getCharacterStream(3L, 3L))
+		{
+			assertEquals("llo", CharStreams.toString(reader));
+		}
+	}
+
+	@Test
+	public void testGetAsciiStream() throws SQLException, IOException
+	{
+		try (InputStream is = subject.getAsciiStream())
+		{
+			assertArrayEquals("Hello world".getBytes(StandardCharsets.US_ASCII), ByteStreams.toByteArray(is));
+		}
+	}
+
+	@Test
+	public void testPosition() throws SQLException
+	{
+		assertEquals(7L, subject.position("world", 1L));
+		assertEquals(8L, subject.position("o", 6L));
+		assertEquals(-1L, subject.position("Hello", 2L));
+		assertEquals(3L, subject.position(new CloudSpannerClob("llo"), 1L));
+	}
+
+	@Test
+	public void testInvalidPosition() throws SQLException
+	{
+		thrown.expect(SQLException.class);
+		subject.getSubString(13L, 1);
+	}
+
+	@Test
+	public void testReadOnly() throws SQLException
+	{
+		thrown.expect(SQLFeatureNotSupportedException.class);
+		subject.setString(1L, "foo");
+	}
+
+	@Test
+	public void testFree() throws SQLException
+	{
+		subject.free();
+		thrown.expect(SQLException.class);
+		subject.getCharacterStream();
+	}
+
+}
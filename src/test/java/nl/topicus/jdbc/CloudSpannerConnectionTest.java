@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -12,6 +13,7 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.Collections;
@@ -25,6 +27,9 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 
+import com.google.cloud.spanner.BatchClient;
+import com.google.cloud.spanner.DatabaseClient;
+
 import nl.topicus.jdbc.test.category.UnitTest;
 
 @Category(UnitTest.class)
@@ -282,12 +287,18 @@ public class CloudSpannerConnectionTest
 		Properties properties = createDefaultProperties();
 		try (CloudSpannerConnection connection = createConnection(properties))
 		{
-			testGetDynamicConnectionProperty(connection, null, 5);
+			testGetDynamicConnectionProperty(connection, null, 11);
 			testGetDynamicConnectionProperty(connection, "ALLOWEXTENDEDMODE", 1);
 			testGetDynamicConnectionProperty(connection, "ASYNCDDLOPERATIONS", 1);
 			testGetDynamicConnectionProperty(connection, "AUTOBATCHDDLOPERATIONS", 1);
 			testGetDynamicConnectionProperty(connection, "REPORTDEFAULTSCHEMAASNULL", 1);
 			testGetDynamicConnectionProperty(connection, "BATCHREADONLYMODE", 1);
+			testGetDynamicConnectionProperty(connection, "READSTALENESS", 1);
+			testGetDynamicConnectionProperty(connection, "BATCHREADONLYPARALLELISM", 1);
+			testGetDynamicConnectionProperty(connection, "COALESCEMUTATIONS", 1);
+			testGetDynamicConnectionProperty(connection, "MUTATIONLIMITPOLICY", 1);
+			testGetDynamicConnectionProperty(connection, "PREFETCHROWS", 1);
+			testGetDynamicConnectionProperty(connection, "CACHEDDATABASEMETADATA", 1);
 			testGetDynamicConnectionProperty(connection, "NOT_A_PROPERTY", 0);
 		}
 	}
@@ -430,4 +441,17 @@ public class CloudSpannerConnectionTest
 		Assert.assertTrue("Method did not throw exception on closed connection", valid);
 	}
 
+	@Test
+	public void testAddWarningWithoutLogger() throws SQLException
+	{
+		// Connections created with this constructor do not have a logger
+		CloudSpannerConnection connection = new CloudSpannerConnection(mock(DatabaseClient.class),
+				mock(BatchClient.class));
+		connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		assertNotNull(connection.getWarnings());
+
+		connection.addWarning(new SQLWarning("The buffered mutations exceed the commit limits"));
+		assertNotNull(connection.getWarnings().getNextWarning());
+	}
+
 }
@@ -21,6 +21,7 @@ import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Type;
 import com.google.cloud.spanner.Type.Code;
+import com.google.cloud.spanner.Type.StructField;
 
 import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
 import nl.topicus.jdbc.statement.CloudSpannerStatement;
@@ -84,13 +85,14 @@ public class CloudSpannerDataTypeTest
 				.thenReturn(Arrays.asList(com.google.cloud.Timestamp.now(), com.google.cloud.Timestamp.now()));
 		when(googleResultSet.next()).thenReturn(true);
 
-		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(Mockito.mock(CloudSpannerStatement.class),
-				googleResultSet, "SELECT * FROM FOO"))
+		for (CloudSpannerDataType type : CloudSpannerDataType.values())
 		{
-			rs.next();
-			for (CloudSpannerDataType type : CloudSpannerDataType.values())
+			when(googleResultSet.getType())
+					.thenReturn(Type.struct(StructField.of("COL", Type.array(type.getGoogleType()))));
+			try (CloudSpannerResultSet rs = new CloudSpannerResultSet(Mockito.mock(CloudSpannerStatement.class),
+					googleResultSet, "SELECT * FROM FOO"))
 			{
-				when(googleResultSet.getColumnType(0)).thenReturn(Type.array(type.getGoogleType()));
+				rs.next();
 				Array array = rs.getArray(1);
 				assertTrue(array.getArray().getClass().isArray());
 				assertArrayEquals((Object[]) array.getArray(), (Object[]) ((Array) rs.getObject(1)).getArray());
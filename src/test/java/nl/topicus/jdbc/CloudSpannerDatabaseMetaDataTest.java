@@ -776,7 +776,7 @@ public class CloudSpannerDatabaseMetaDataTest
 	public void testSupportsResultSetType() throws SQLException
 	{
 		assertTrue(testSubject.supportsResultSetType(ResultSet.TYPE_FORWARD_ONLY));
-		assertFalse(testSubject.supportsResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE));
+		assertTrue(testSubject.supportsResultSetType(ResultSet.TYPE_SCROLL_INSENSITIVE));
 		assertFalse(testSubject.supportsResultSetType(ResultSet.TYPE_SCROLL_SENSITIVE));
 	}
 
@@ -785,7 +785,7 @@ public class CloudSpannerDatabaseMetaDataTest
 	{
 		assertTrue(testSubject.supportsResultSetConcurrency(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
 		assertFalse(testSubject.supportsResultSetConcurrency(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE));
-		assertFalse(testSubject.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_INSENSITIVE,
+		assertTrue(testSubject.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_INSENSITIVE,
 				ResultSet.CONCUR_READ_ONLY));
 		assertFalse(testSubject.supportsResultSetConcurrency(ResultSet.TYPE_SCROLL_INSENSITIVE,
 				ResultSet.CONCUR_UPDATABLE));
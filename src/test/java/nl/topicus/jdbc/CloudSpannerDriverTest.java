@@ -173,7 +173,9 @@ public class CloudSpannerDriverTest
 			for (DriverPropertyInfo property : properties)
 			{
 				if (property.name.equals("AllowExtendedMode") || property.name.equals("AsyncDdlOperations")
-						|| property.name.equals("AutoBatchDdlOperations") || property.name.equals("BatchReadOnlyMode"))
+						|| property.name.equals("AutoBatchDdlOperations") || property.name.equals("BatchReadOnlyMode")
+						|| property.name.equals("CoalesceMutations") || property.name.equals("PrefetchRows")
+						|| property.name.equals("CachedDatabaseMetaData"))
 					assertEquals("false", property.value);
 				else if (property.name.equals("ReportDefaultSchemaAsNull"))
 					assertEquals("true", property.value);
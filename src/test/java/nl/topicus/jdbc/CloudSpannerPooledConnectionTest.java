@@ -24,6 +24,9 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
 
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 import nl.topicus.jdbc.test.category.UnitTest;
 
 @Category(UnitTest.class)
@@ -191,7 +194,7 @@ public class CloudSpannerPooledConnectionTest
 		assertTrue(connection.toString().contains("Pooled connection wrapping physical connection "));
 		assertEquals(System.identityHashCode(connection), connection.hashCode());
 		assertTrue(connection.equals(connection));
-		assertTrue(connection.getClass().toString().contains("Proxy"));
+		assertTrue(connection instanceof PooledConnectionHandle);
 	}
 
 	@Test
@@ -203,7 +206,7 @@ public class CloudSpannerPooledConnectionTest
 		assertTrue(ps.toString().contains("Pooled statement wrapping physical statement "));
 		assertEquals(System.identityHashCode(ps), ps.hashCode());
 		assertTrue(ps.equals(ps));
-		assertTrue(ps.getClass().toString().contains("Proxy"));
+		assertTrue(ps instanceof PooledPreparedStatementHandle);
 	}
 
 	@Test
@@ -241,6 +244,72 @@ public class CloudSpannerPooledConnectionTest
 		assertTrue(statement.isClosed());
 	}
 
+	@Test
+	public void testClosedStatement() throws SQLException
+	{
+		CloudSpannerPooledConnection subject = createConnection();
+		Connection connection = subject.getConnection();
+		Statement statement = connection.createStatement();
+		assertEquals(connection, statement.getConnection());
+		statement.close();
+		// Closing a statement twice is a no-op
+		statement.close();
+		thrown.expect(SQLException.class);
+		thrown.expectMessage("Statement has been closed.");
+		statement.getConnection();
+	}
+
+	@Test
+	public void testClosedConnectionHandle() throws SQLException
+	{
+		CloudSpannerPooledConnection subject = createConnection();
+		Connection connection = subject.getConnection();
+		subject.getConnection();
+		thrown.expect(SQLException.class);
+		thrown.expectMessage("Connection has been closed automatically");
+		connection.createStatement();
+	}
+
+	@Test
+	public void testFatalErrors() throws SQLException
+	{
+		Connection physical = Mockito.mock(Connection.class);
+		PreparedStatement physicalStatement = Mockito.mock(PreparedStatement.class);
+		Mockito.when(physical.prepareStatement(Mockito.anyString())).thenReturn(physicalStatement);
+		Mockito.when(physical.nativeSQL(Mockito.anyString()))
+				.thenThrow(new CloudSpannerSQLException("Invalid state", Code.FAILED_PRECONDITION));
+		Mockito.when(physicalStatement.executeQuery())
+				.thenThrow(new CloudSpannerSQLException("Internal error", Code.INTERNAL));
+		CloudSpannerPooledConnection subject = new CloudSpannerPooledConnection(physical, true);
+		SimpleConnectionEventListener listener = new SimpleConnectionEventListener();
+		subject.addConnectionEventListener(listener);
+		Connection connection = subject.getConnection();
+		try
+		{
+			connection.nativeSQL("SELECT 1");
+			Assert.fail("Missing expected exception");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			assertEquals(Code.FAILED_PRECONDITION, e.getCode());
+		}
+		assertFalse(listener.error);
+		PreparedStatement statement = connection.prepareStatement("SELECT * FROM FOO");
+		try
+		{
+			statement.executeQuery();
+			Assert.fail("Missing expected exception");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			assertEquals(Code.INTERNAL, e.getCode());
+		}
+		assertTrue(listener.error);
+		assertFalse(listener.closed);
+		connection.close();
+		assertTrue(listener.closed);
+	}
+
 	@Test
 	public void testPrepareCall() throws SQLException
 	{
@@ -0,0 +1,212 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.test.category.UnitTest;
+import nl.topicus.jdbc.transaction.MutationLimitPolicy;
+
+@Category(UnitTest.class)
+public class CloudSpannerPoolingDataSourceTest
+{
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private CloudSpannerPoolingDataSource subject;
+
+	@Before
+	public void setup()
+	{
+		subject = new CloudSpannerPoolingDataSource();
+		subject.setProjectId("helpful-adroit-123456");
+		subject.setInstanceId("test-instance");
+		subject.setDatabase("test");
+		subject.setOauthAccessToken("TEST");
+	}
+
+	@After
+	public void teardown()
+	{
+		subject.close();
+	}
+
+	private static CloudSpannerConnection unwrap(Connection connection) throws SQLException
+	{
+		return connection.unwrap(CloudSpannerConnection.class);
+	}
+
+	@Test
+	public void testReuseConnection() throws SQLException
+	{
+		assertEquals("PoolingDataSource from " + CloudSpannerDriver.getVersion(), subject.getDescription());
+		Connection connection = subject.getConnection();
+		CloudSpannerConnection physical = unwrap(connection);
+		assertEquals(1, subject.getTotalConnections());
+		assertEquals(1, subject.getActiveConnections());
+		connection.close();
+		assertEquals(1, subject.getIdleConnections());
+		connection = subject.getConnection();
+		assertSame(physical, unwrap(connection));
+		connection.close();
+		assertEquals(1, subject.getTotalConnections());
+	}
+
+	@Test
+	public void testShareSpanner() throws SQLException
+	{
+		try (Connection first = subject.getConnection(); Connection second = subject.getConnection())
+		{
+			assertNotSame(unwrap(first), unwrap(second));
+			assertSame(unwrap(first).getSpanner(), unwrap(second).getSpanner());
+			assertEquals(2, subject.getTotalConnections());
+		}
+		assertEquals(2, subject.getIdleConnections());
+	}
+
+	@Test
+	public void testResetOnReturn() throws SQLException
+	{
+		subject.setDefaultAutoCommit(false);
+		Connection connection = subject.getConnection();
+		CloudSpannerConnection physical = unwrap(connection);
+		assertFalse(connection.getAutoCommit());
+		connection.setReadOnly(true);
+		physical.setAllowExtendedMode(true);
+		physical.setMutationLimitPolicy(MutationLimitPolicy.SPLIT);
+		connection.setAutoCommit(true);
+		connection.close();
+		connection = subject.getConnection();
+		assertSame(physical, unwrap(connection));
+		assertFalse(connection.getAutoCommit());
+		assertFalse(connection.isReadOnly());
+		assertFalse(physical.isAllowExtendedMode());
+		assertEquals(MutationLimitPolicy.NONE, physical.getMutationLimitPolicy());
+		connection.close();
+	}
+
+	@Test
+	public void testTimeout() throws SQLException
+	{
+		subject.setMaxPoolSize(1);
+		subject.setConnectionTimeout(10L);
+		try (Connection connection = subject.getConnection())
+		{
+			thrown.expect(CloudSpannerSQLException.class);
+			thrown.expectMessage("Timeout while waiting for a connection");
+			subject.getConnection();
+		}
+	}
+
+	@Test
+	public void testSetMaxPoolSizeAfterUse() throws SQLException
+	{
+		subject.setMaxPoolSize(2);
+		subject.getConnection().close();
+		thrown.expect(IllegalStateException.class);
+		subject.setMaxPoolSize(1);
+	}
+
+	@Test
+	public void testEviction() throws SQLException, InterruptedException
+	{
+		Connection connection = subject.getConnection();
+		CloudSpannerConnection physical = unwrap(connection);
+		connection.close();
+		subject.housekeep();
+		assertEquals(1, subject.getTotalConnections());
+
+		subject.setIdleTimeout(1L);
+		TimeUnit.MILLISECONDS.sleep(5L);
+		subject.housekeep();
+		assertEquals(0, subject.getTotalConnections());
+		assertTrue(physical.isClosed());
+
+		subject.setMaxLifetime(1L);
+		connection = subject.getConnection();
+		physical = unwrap(connection);
+		TimeUnit.MILLISECONDS.sleep(5L);
+		connection.close();
+		// Expired connections are closed when they are returned
+		assertTrue(physical.isClosed());
+		assertEquals(0, subject.getTotalConnections());
+	}
+
+	@Test
+	public void testClose() throws SQLException
+	{
+		Connection idle = subject.getConnection();
+		Connection active = subject.getConnection();
+		idle.close();
+		subject.close();
+		assertTrue(subject.isClosed());
+		assertEquals(1, subject.getTotalConnections());
+		CloudSpannerConnection physical = unwrap(active);
+		active.close();
+		assertTrue(physical.isClosed());
+		assertEquals(0, subject.getTotalConnections());
+		thrown.expect(CloudSpannerSQLException.class);
+		subject.getConnection();
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception
+	{
+		subject.setMaxPoolSize(4);
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try
+		{
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 16; thread++)
+			{
+				futures.add(executor.submit(() ->
+				{
+					for (int i = 0; i < 100; i++)
+					{
+						try (Connection connection = subject.getConnection())
+						{
+							maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+							connection.getAutoCommit();
+							active.decrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertTrue(maxActive.get() <= 4);
+		assertTrue(subject.getTotalConnections() <= 4);
+		assertEquals(subject.getTotalConnections(), subject.getIdleConnections());
+	}
+
+}
@@ -33,7 +33,13 @@ import nl.topicus.jdbc.test.category.UnitTest;
 public class CustomStatementsTest
 {
 	private static final List<String> CONNECTION_PROPERTIES = Arrays.asList("AllowExtendedMode", "AsyncDdlOperations",
-			"AutoBatchDdlOperations", "ReportDefaultSchemaAsNull", "BatchReadOnlyMode");
+			"AutoBatchDdlOperations", "ReportDefaultSchemaAsNull", "BatchReadOnlyMode", "CoalesceMutations",
+			"PrefetchRows", "CachedDatabaseMetaData");
+
+	private static final List<String> ALL_CONNECTION_PROPERTIES = Arrays.asList("AllowExtendedMode",
+			"AsyncDdlOperations", "AutoBatchDdlOperations", "ReportDefaultSchemaAsNull", "BatchReadOnlyMode",
+			"ReadStaleness", "BatchReadOnlyParallelism", "CoalesceMutations", "MutationLimitPolicy",
+			"PrefetchRows", "CachedDatabaseMetaData");
 
 	private Connection connection;
 
@@ -52,13 +58,13 @@ public class CustomStatementsTest
 		{
 			while (rs.next())
 			{
-				assertTrue(CONNECTION_PROPERTIES.contains(rs.getString("NAME")));
+				assertTrue(ALL_CONNECTION_PROPERTIES.contains(rs.getString("NAME")));
 				count++;
 			}
 		}
-		assertEquals(CONNECTION_PROPERTIES.size(), count);
+		assertEquals(ALL_CONNECTION_PROPERTIES.size(), count);
 
-		for (String prop : CONNECTION_PROPERTIES)
+		for (String prop : ALL_CONNECTION_PROPERTIES)
 		{
 			try (ResultSet rs = statement.executeQuery("GET_CONNECTION_PROPERTY " + prop))
 			{
@@ -89,6 +95,40 @@ public class CustomStatementsTest
 		}
 	}
 
+	@Test
+	public void testSetReadStalenessConnectionProperty() throws SQLException
+	{
+		Statement statement = connection.createStatement();
+		for (String value : new String[] { "MAX_STALENESS 10s", "EXACT_STALENESS 500ms",
+				"READ_TIMESTAMP 2018-03-01T10:15:00Z", "MIN_READ_TIMESTAMP 2018-03-01T10:15:00.123456789Z", "STRONG" })
+		{
+			assertEquals(1, statement.executeUpdate("SET_CONNECTION_PROPERTY ReadStaleness=" + value.replace(' ', ':')));
+			assertReadStaleness(statement, value);
+			assertEquals(1, statement.executeUpdate("SET_READ_STALENESS " + value));
+			assertReadStaleness(statement, value);
+		}
+		statement.executeUpdate("SET_READ_STALENESS EXACT_STALENESS=15s");
+		assertReadStaleness(statement, "EXACT_STALENESS 15s");
+		statement.executeUpdate("RESET_CONNECTION_PROPERTY ReadStaleness");
+		assertReadStaleness(statement, "STRONG");
+	}
+
+	private void assertReadStaleness(Statement statement, String expected) throws SQLException
+	{
+		try (ResultSet rs = statement.executeQuery("GET_CONNECTION_PROPERTY ReadStaleness"))
+		{
+			assertTrue(rs.next());
+			assertEquals(expected, rs.getString("VALUE"));
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test(expected = SQLException.class)
+	public void testSetInvalidReadStaleness() throws SQLException
+	{
+		connection.createStatement().executeUpdate("SET_READ_STALENESS MAX_STALENESS tomorrow");
+	}
+
 	@Test
 	public void testShowDDLOperations() throws SQLException, NoSuchFieldException, SecurityException,
 			IllegalArgumentException, IllegalAccessException
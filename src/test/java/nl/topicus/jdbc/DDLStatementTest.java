@@ -7,28 +7,29 @@ import static nl.topicus.jdbc.DDLStatement.ExistsStatement.IF_NOT_EXISTS;
 import static nl.topicus.jdbc.DDLStatement.ObjectType.INDEX;
 import static nl.topicus.jdbc.DDLStatement.ObjectType.TABLE;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 
 import nl.topicus.jdbc.DDLStatement.Command;
 import nl.topicus.jdbc.DDLStatement.ExistsStatement;
 import nl.topicus.jdbc.DDLStatement.ObjectType;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
-import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
 import nl.topicus.jdbc.test.category.UnitTest;
 
 @Category(UnitTest.class)
@@ -172,7 +173,7 @@ public class DDLStatementTest
 		assertEquals("CREATE TABLE   FOO (ID INT64 NOT NULL, NAME STRING(100)) PRIMARY KEY (ID)", statement.getSql());
 		thrown.expect(CloudSpannerSQLException.class);
 		thrown.expectMessage("Invalid argument: Cannot use 'IF EXISTS' when creating an object");
-		statement.shouldExecute(null);
+		DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements);
 	}
 
 	@Test
@@ -186,59 +187,7 @@ public class DDLStatementTest
 		assertEquals("DROP TABLE   FOO", statement.getSql());
 		thrown.expect(CloudSpannerSQLException.class);
 		thrown.expectMessage("Invalid argument: Cannot use 'IF NOT EXISTS' when dropping an object");
-		statement.shouldExecute(null);
-	}
-
-	private CloudSpannerConnection createMockConnection() throws SQLException
-	{
-		CloudSpannerConnection res = mock(CloudSpannerConnection.class);
-		CloudSpannerDatabaseMetaData metadata = mock(CloudSpannerDatabaseMetaData.class);
-		when(metadata.getTables("", "", "FOO", null)).then(new Answer<ResultSet>()
-		{
-			@Override
-			public ResultSet answer(InvocationOnMock invocation) throws Throwable
-			{
-				CloudSpannerResultSet rs = mock(CloudSpannerResultSet.class);
-				when(rs.next()).thenReturn(true, false);
-				return rs;
-			}
-
-		});
-		when(metadata.getTables("", "", "TAB", null)).then(new Answer<ResultSet>()
-		{
-			@Override
-			public ResultSet answer(InvocationOnMock invocation) throws Throwable
-			{
-				CloudSpannerResultSet rs = mock(CloudSpannerResultSet.class);
-				when(rs.next()).thenReturn(false);
-				return rs;
-			}
-
-		});
-		when(metadata.getIndexInfo("", "", "BAR")).then(new Answer<ResultSet>()
-		{
-			@Override
-			public ResultSet answer(InvocationOnMock invocation) throws Throwable
-			{
-				CloudSpannerResultSet rs = mock(CloudSpannerResultSet.class);
-				when(rs.next()).thenReturn(true, false);
-				return rs;
-			}
-
-		});
-		when(metadata.getIndexInfo("", "", "IDX")).then(new Answer<ResultSet>()
-		{
-			@Override
-			public ResultSet answer(InvocationOnMock invocation) throws Throwable
-			{
-				CloudSpannerResultSet rs = mock(CloudSpannerResultSet.class);
-				when(rs.next()).thenReturn(false);
-				return rs;
-			}
-
-		});
-		when(res.getMetaData()).thenReturn(metadata);
-		return res;
+		DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements);
 	}
 
 	@Test
@@ -247,8 +196,7 @@ public class DDLStatementTest
 		List<String> sql = Arrays
 				.asList("CREATE TABLE IF NOT EXISTS FOO (ID INT64 NOT NULL, NAME STRING(100)) PRIMARY KEY (ID)");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertFalse(statement.shouldExecute(createMockConnection()));
+		assertTrue(DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements).isEmpty());
 	}
 
 	@Test
@@ -257,8 +205,7 @@ public class DDLStatementTest
 		List<String> sql = Arrays
 				.asList("CREATE TABLE IF NOT EXISTS TAB (ID INT64 NOT NULL, NAME STRING(100)) PRIMARY KEY (ID)");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertTrue(statement.shouldExecute(createMockConnection()));
+		assertEquals(statements, DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements));
 	}
 
 	@Test
@@ -266,8 +213,7 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("CREATE INDEX IF NOT EXISTS BAR ON FOO (ID)");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertFalse(statement.shouldExecute(createMockConnection()));
+		assertTrue(DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements).isEmpty());
 	}
 
 	@Test
@@ -275,8 +221,7 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("CREATE INDEX IF NOT EXISTS IDX ON FOO (ID)");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertTrue(statement.shouldExecute(createMockConnection()));
+		assertEquals(statements, DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements));
 	}
 
 	@Test
@@ -284,8 +229,7 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("DROP TABLE IF EXISTS FOO");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertTrue(statement.shouldExecute(createMockConnection()));
+		assertEquals(statements, DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements));
 	}
 
 	@Test
@@ -293,8 +237,7 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("DROP TABLE IF EXISTS TAB");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertFalse(statement.shouldExecute(createMockConnection()));
+		assertTrue(DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements).isEmpty());
 	}
 
 	@Test
@@ -302,8 +245,7 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("DROP INDEX IF EXISTS BAR");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertTrue(statement.shouldExecute(createMockConnection()));
+		assertEquals(statements, DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements));
 	}
 
 	@Test
@@ -311,8 +253,83 @@ public class DDLStatementTest
 	{
 		List<String> sql = Arrays.asList("DROP INDEX IF EXISTS IDX");
 		List<DDLStatement> statements = DDLStatement.parseDdlStatements(sql);
-		DDLStatement statement = statements.get(0);
-		assertFalse(statement.shouldExecute(createMockConnection()));
+		assertTrue(DDLStatement.getStatementsToExecute(createMockBatchConnection(), statements).isEmpty());
+	}
+
+	private CloudSpannerConnection createMockBatchConnection() throws SQLException
+	{
+		CloudSpannerConnection res = mock(CloudSpannerConnection.class);
+		CloudSpannerPreparedStatement tables = mock(CloudSpannerPreparedStatement.class);
+		when(tables.executeQuery()).then(invocation -> SchemaSnapshotTest.createResultSet(Arrays.asList("NAME"),
+				new Object[] { "Foo" }));
+		CloudSpannerPreparedStatement indices = mock(CloudSpannerPreparedStatement.class);
+		when(indices.executeQuery()).then(invocation -> SchemaSnapshotTest.createResultSet(Arrays.asList("NAME"),
+				new Object[] { "BAR" }));
+		when(res.prepareStatement(anyString())).then(invocation ->
+		{
+			String sql = invocation.getArgument(0);
+			return sql.contains("INFORMATION_SCHEMA.TABLES") ? tables : indices;
+		});
+		return res;
+	}
+
+	private List<String> getStatementsToExecute(CloudSpannerConnection connection, String... sql)
+			throws SQLException
+	{
+		return DDLStatement.getStatementsToExecute(connection, DDLStatement.parseDdlStatements(Arrays.asList(sql)))
+				.stream().map(statement -> statement.getSql().trim().replaceAll("\\s+", " "))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testGetStatementsToExecute() throws SQLException
+	{
+		CloudSpannerConnection connection = createMockBatchConnection();
+		List<String> res = getStatementsToExecute(connection,
+				"CREATE TABLE IF NOT EXISTS FOO (ID INT64 NOT NULL) PRIMARY KEY (ID)",
+				"CREATE TABLE IF NOT EXISTS TAB (ID INT64 NOT NULL) PRIMARY KEY (ID)",
+				"CREATE INDEX IF NOT EXISTS BAR ON FOO (ID)", "CREATE INDEX IF NOT EXISTS IDX ON TAB (ID)",
+				"DROP INDEX IF EXISTS IDX2", "CREATE TABLE OTHER (ID INT64 NOT NULL) PRIMARY KEY (ID)");
+		assertEquals(Arrays.asList("CREATE TABLE TAB (ID INT64 NOT NULL) PRIMARY KEY (ID)",
+				"CREATE INDEX IDX ON TAB (ID)", "CREATE TABLE OTHER (ID INT64 NOT NULL) PRIMARY KEY (ID)"), res);
+		// One query for all tables and one for all indices
+		verify(connection, times(2)).prepareStatement(anyString());
+		verify(connection, never()).getMetaData();
+	}
+
+	@Test
+	public void testGetStatementsToExecuteDependsOnEarlierStatements() throws SQLException
+	{
+		CloudSpannerConnection connection = createMockBatchConnection();
+		List<String> res = getStatementsToExecute(connection, "DROP INDEX IF EXISTS BAR", "DROP TABLE IF EXISTS FOO",
+				"CREATE TABLE IF NOT EXISTS FOO (ID INT64 NOT NULL) PRIMARY KEY (ID)",
+				"CREATE INDEX IF NOT EXISTS BAR ON FOO (ID)",
+				"CREATE TABLE IF NOT EXISTS TAB (ID INT64 NOT NULL) PRIMARY KEY (ID)", "DROP TABLE IF EXISTS TAB",
+				"DROP TABLE IF EXISTS TAB");
+		assertEquals(Arrays.asList("DROP INDEX BAR", "DROP TABLE FOO",
+				"CREATE TABLE FOO (ID INT64 NOT NULL) PRIMARY KEY (ID)", "CREATE INDEX BAR ON FOO (ID)",
+				"CREATE TABLE TAB (ID INT64 NOT NULL) PRIMARY KEY (ID)", "DROP TABLE TAB"), res);
+	}
+
+	@Test
+	public void testGetStatementsToExecuteClosesStatement() throws SQLException
+	{
+		CloudSpannerConnection connection = mock(CloudSpannerConnection.class);
+		CloudSpannerPreparedStatement statement = mock(CloudSpannerPreparedStatement.class);
+		when(statement.executeQuery()).then(invocation -> SchemaSnapshotTest.createResultSet(Arrays.asList("NAME"),
+				new Object[] { "FOO" }));
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		assertEquals(Arrays.asList("DROP TABLE FOO"), getStatementsToExecute(connection, "DROP TABLE IF EXISTS FOO"));
+		verify(statement).close();
+	}
+
+	@Test
+	public void testGetStatementsToExecuteWithoutExistsStatements() throws SQLException
+	{
+		CloudSpannerConnection connection = createMockBatchConnection();
+		List<String> res = getStatementsToExecute(connection, "DROP INDEX BAR", "DROP TABLE FOO");
+		assertEquals(Arrays.asList("DROP INDEX BAR", "DROP TABLE FOO"), res);
+		verify(connection, never()).prepareStatement(anyString());
 	}
 
 	@Test
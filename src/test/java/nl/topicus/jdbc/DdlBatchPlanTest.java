@@ -0,0 +1,147 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class DdlBatchPlanTest
+{
+	private static final String CREATE_SINGERS = "CREATE TABLE Singers (SingerId INT64 NOT NULL) PRIMARY KEY (SingerId)";
+
+	private static final String CREATE_ALBUMS = "CREATE TABLE Albums (SingerId INT64 NOT NULL, AlbumId INT64 NOT NULL, Title STRING(MAX)) PRIMARY KEY (SingerId, AlbumId), INTERLEAVE IN PARENT Singers ON DELETE CASCADE";
+
+	private static final String CREATE_SONGS = "CREATE TABLE `Songs` (SingerId INT64 NOT NULL, AlbumId INT64 NOT NULL, SongId INT64 NOT NULL) PRIMARY KEY (SingerId, AlbumId, SongId), INTERLEAVE IN PARENT `Albums`";
+
+	private static final String CREATE_ALBUMS_BY_TITLE = "CREATE NULL_FILTERED INDEX AlbumsByTitle ON Albums (Title)";
+
+	private static DdlBatchPlan plan(String... sql) throws SQLException
+	{
+		return DdlBatchPlan.create(Arrays.asList(sql), () ->
+		{
+			fail("The schema should only be loaded for drop statements");
+			return null;
+		});
+	}
+
+	private static List<List<String>> getBatches(DdlBatchPlan plan)
+	{
+		List<List<String>> res = new ArrayList<>();
+		for (DdlBatchPlan.Batch batch : plan.getBatches())
+		{
+			res.add(batch.getSql());
+		}
+		return res;
+	}
+
+	@Test
+	public void testCreateInDependencyOrder() throws SQLException
+	{
+		DdlBatchPlan plan = plan(CREATE_ALBUMS_BY_TITLE, CREATE_SONGS, CREATE_ALBUMS, CREATE_SINGERS);
+		assertEquals(Arrays.asList(Arrays.asList(CREATE_SINGERS, CREATE_ALBUMS, CREATE_ALBUMS_BY_TITLE, CREATE_SONGS)),
+				getBatches(plan));
+		// The index is created on a new table
+		for (DdlBatchPlan.PlannedStatement statement : plan.getBatches().get(0).getStatements())
+		{
+			assertFalse(statement.isBackfill());
+		}
+		assertEquals(DdlBatchPlan.BATCH_OVERHEAD_MILLIS + 4 * DdlBatchPlan.STATEMENT_MILLIS,
+				plan.getEstimatedMillis());
+	}
+
+	@Test
+	public void testKeepScriptOrder() throws SQLException
+	{
+		String addColumn = "ALTER TABLE Albums ADD COLUMN Year INT64";
+		String alterColumn = "ALTER TABLE Albums ALTER COLUMN Title STRING(100) NOT NULL";
+		String createIndex = "CREATE INDEX AlbumsByYear ON Albums (Year)";
+		String other = "CREATE TABLE Other (Id INT64 NOT NULL) PRIMARY KEY (Id)";
+		DdlBatchPlan plan = plan(addColumn, other, alterColumn, createIndex);
+		assertEquals(Arrays.asList(Arrays.asList(addColumn, other, alterColumn, createIndex)), getBatches(plan));
+		List<DdlBatchPlan.PlannedStatement> statements = plan.getBatches().get(0).getStatements();
+		assertFalse(statements.get(0).isBackfill());
+		assertTrue(statements.get(2).isBackfill());
+		assertTrue(statements.get(3).isBackfill());
+		assertEquals(DdlBatchPlan.BATCH_OVERHEAD_MILLIS + 2 * DdlBatchPlan.STATEMENT_MILLIS
+				+ 2 * DdlBatchPlan.BACKFILL_MILLIS, plan.getEstimatedMillis());
+	}
+
+	@Test
+	public void testDropInReverseOrder() throws SQLException
+	{
+		SchemaSnapshot schema = SchemaSnapshot.load(SchemaSnapshotTest.createMetaData());
+		DdlBatchPlan plan = DdlBatchPlan.create(
+				Arrays.asList("DROP TABLE Singers", "DROP TABLE IF EXISTS Albums", "DROP INDEX AlbumsByTitle"),
+				() -> schema);
+		assertEquals(
+				Arrays.asList(
+						Arrays.asList("DROP INDEX AlbumsByTitle", "DROP TABLE IF EXISTS Albums", "DROP TABLE Singers")),
+				getBatches(plan));
+	}
+
+	@Test
+	public void testRecreateInNewBatch() throws SQLException
+	{
+		SchemaSnapshot schema = SchemaSnapshot.load(SchemaSnapshotTest.createMetaData());
+		DdlBatchPlan plan = DdlBatchPlan.create(
+				Arrays.asList("DROP INDEX AlbumsByTitle", "DROP TABLE Albums", CREATE_ALBUMS_BY_TITLE, CREATE_ALBUMS),
+				() -> schema);
+		assertEquals(Arrays.asList(Arrays.asList("DROP INDEX AlbumsByTitle", "DROP TABLE Albums"),
+				Arrays.asList(CREATE_ALBUMS, CREATE_ALBUMS_BY_TITLE)), getBatches(plan));
+	}
+
+	@Test
+	public void testExecute() throws SQLException
+	{
+		DdlBatchPlan plan = DdlBatchPlan.create(
+				Arrays.asList("DROP INDEX AlbumsByTitle", CREATE_ALBUMS_BY_TITLE, CREATE_SINGERS),
+				() -> SchemaSnapshot.load(SchemaSnapshotTest.createMetaData()));
+		assertEquals(2, plan.getBatches().size());
+		CompletableFuture<Void> last = new CompletableFuture<>();
+		List<Boolean> executed = new ArrayList<>();
+		plan.execute((sql, isLast) ->
+		{
+			executed.add(isLast);
+			return isLast ? last : CompletableFuture.completedFuture(null);
+		});
+		assertEquals(Arrays.asList(false, true), executed);
+		assertTrue(plan.getBatches().get(0).getActualMillis() >= 0L);
+		assertEquals(-1L, plan.getBatches().get(1).getActualMillis());
+		try (ResultSet rs = plan.getResultSet(Mockito.mock(CloudSpannerStatement.class)))
+		{
+			assertTrue(rs.next());
+			assertEquals(1, rs.getInt("BATCH"));
+			assertEquals("DROP INDEX AlbumsByTitle", rs.getString("STATEMENT"));
+			assertTrue(rs.next());
+			assertEquals(2, rs.getInt("BATCH"));
+			assertEquals(CREATE_ALBUMS_BY_TITLE, rs.getString("STATEMENT"));
+			assertTrue(rs.getBoolean("BACKFILL"));
+			assertEquals(DdlBatchPlan.BATCH_OVERHEAD_MILLIS + DdlBatchPlan.STATEMENT_MILLIS
+					+ DdlBatchPlan.BACKFILL_MILLIS, rs.getLong("ESTIMATED_MILLIS"));
+			rs.getLong("ACTUAL_MILLIS");
+			assertTrue(rs.wasNull());
+			assertTrue(rs.next());
+			assertEquals(CREATE_SINGERS, rs.getString("STATEMENT"));
+			assertFalse(rs.getBoolean("BACKFILL"));
+			assertFalse(rs.next());
+		}
+		last.complete(null);
+		assertTrue(plan.getBatches().get(1).getActualMillis() >= 0L);
+	}
+
+}
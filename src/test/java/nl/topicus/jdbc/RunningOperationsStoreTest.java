@@ -4,12 +4,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -22,6 +27,7 @@ import com.google.cloud.spanner.Operation;
 import com.google.cloud.spanner.SpannerExceptionFactory;
 import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
 
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 import nl.topicus.jdbc.statement.CloudSpannerStatement;
 import nl.topicus.jdbc.test.category.UnitTest;
 
@@ -102,4 +108,99 @@ public class RunningOperationsStoreTest
 		}
 	}
 
+	@Test
+	public void testWaitForOperations() throws SQLException
+	{
+		RunningOperationsStore subject = createSubject();
+		@SuppressWarnings("unchecked")
+		Operation<Void, UpdateDatabaseDdlMetadata> op = mock(Operation.class);
+		AtomicInteger reloads = new AtomicInteger();
+		// The operation is done after the third poll
+		when(op.isDone()).then(invocation -> reloads.get() >= 3);
+		when(op.reload()).then(invocation ->
+		{
+			reloads.incrementAndGet();
+			return op;
+		});
+		CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> future = subject
+				.addOperation(Arrays.asList("DROP TABLE FOO"), op);
+		assertFalse(future.isDone());
+		long start = System.nanoTime();
+		subject.waitForOperations();
+		long millis = (System.nanoTime() - start) / 1000000L;
+		assertTrue(future.isDone());
+		assertEquals(3, reloads.get());
+		// Three polls with exponential backoff: 100 + 200 + 400 ms
+		assertTrue("Waited " + millis + "ms", millis < 7 * RunningOperationsStore.MAX_POLL_DELAY_MILLIS);
+		assertEquals(1, subject.clearFinishedOperations());
+	}
+
+	@Test
+	public void testWaitForOperationsReloadFails()
+	{
+		RunningOperationsStore subject = createSubject();
+		Operation<Void, UpdateDatabaseDdlMetadata> op = mockOperation(false);
+		when(op.reload()).thenThrow(
+				SpannerExceptionFactory.newSpannerException(ErrorCode.PERMISSION_DENIED, "Permission denied"));
+		subject.addOperation(Arrays.asList("DROP TABLE FOO"), op);
+		try
+		{
+			subject.waitForOperations();
+			fail("missing expected exception");
+		}
+		catch (SQLException e)
+		{
+			assertTrue(e instanceof CloudSpannerSQLException);
+			assertEquals(com.google.rpc.Code.PERMISSION_DENIED, ((CloudSpannerSQLException) e).getCode());
+		}
+		verify(op).reload();
+	}
+
+	@Test
+	public void testWaitForOperationsReloadFailsTemporarily() throws SQLException
+	{
+		RunningOperationsStore subject = createSubject();
+		@SuppressWarnings("unchecked")
+		Operation<Void, UpdateDatabaseDdlMetadata> op = mock(Operation.class);
+		AtomicInteger reloads = new AtomicInteger();
+		when(op.isDone()).then(invocation -> reloads.get() >= 3);
+		// The first two reloads fail with a retryable error
+		when(op.reload()).then(invocation ->
+		{
+			if (reloads.incrementAndGet() < 3)
+				throw SpannerExceptionFactory.newSpannerException(ErrorCode.UNAVAILABLE, "Not available");
+			return op;
+		});
+		CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> future = subject
+				.addOperation(Arrays.asList("DROP TABLE FOO"), op);
+		subject.waitForOperations();
+		assertTrue(future.isDone());
+		assertFalse(future.isCompletedExceptionally());
+		assertEquals(3, reloads.get());
+	}
+
+	@Test
+	public void testClose()
+	{
+		RunningOperationsStore subject = createSubject();
+		CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> future = subject
+				.addOperation(Arrays.asList("DROP TABLE FOO"), mockOperation(false));
+		subject.close();
+		assertTrue(future.isCancelled());
+	}
+
+	@Test
+	public void testClear() throws SQLException
+	{
+		RunningOperationsStore subject = createSubject();
+		CompletableFuture<Operation<Void, UpdateDatabaseDdlMetadata>> future = subject
+				.addOperation(Arrays.asList("DROP TABLE FOO"), mockOperation(false));
+		subject.clear();
+		assertTrue(future.isCancelled());
+		try (ResultSet rs = subject.getOperations(mock(CloudSpannerStatement.class)))
+		{
+			assertFalse(rs.next());
+		}
+	}
+
 }
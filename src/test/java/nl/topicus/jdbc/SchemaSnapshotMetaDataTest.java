@@ -0,0 +1,208 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class SchemaSnapshotMetaDataTest
+{
+	private CloudSpannerConnection connection;
+
+	private DatabaseMetaData metadata;
+
+	@Before
+	public void setup() throws SQLException
+	{
+		connection = mock(CloudSpannerConnection.class);
+		SchemaSnapshot snapshot = SchemaSnapshot.load(SchemaSnapshotTest.createMetaData());
+		when(connection.isCachedDatabaseMetaData()).thenReturn(true);
+		when(connection.getSchemaSnapshot()).thenReturn(snapshot);
+		when(connection.createStatement()).thenReturn(mock(CloudSpannerStatement.class));
+		CloudSpannerPreparedStatement statement = mock(CloudSpannerPreparedStatement.class);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		metadata = new CloudSpannerDatabaseMetaData(connection);
+	}
+
+	@Test
+	public void testCompile()
+	{
+		assertTrue(SchemaSnapshotMetaData.compile(null).test("Singers"));
+		assertTrue(SchemaSnapshotMetaData.compile("singers").test("Singers"));
+		assertFalse(SchemaSnapshotMetaData.compile("singer").test("Singers"));
+		assertTrue(SchemaSnapshotMetaData.compile("SING%").test("Singers"));
+		assertTrue(SchemaSnapshotMetaData.compile("%").test(""));
+		assertTrue(SchemaSnapshotMetaData.compile("Singer_").test("Singers"));
+		assertFalse(SchemaSnapshotMetaData.compile("Singer_").test("Singer"));
+		Predicate<String> escaped = SchemaSnapshotMetaData.compile("MY\\_TABLE");
+		assertTrue(escaped.test("my_table"));
+		assertFalse(escaped.test("myXtable"));
+		assertTrue(SchemaSnapshotMetaData.compile("a.b").test("A.B"));
+		assertFalse(SchemaSnapshotMetaData.compile("a.b").test("AXB"));
+		assertTrue(SchemaSnapshotMetaData.matchesDefaultSchema(null));
+		assertFalse(SchemaSnapshotMetaData.matchesDefaultSchema("INFORMATION_SCHEMA"));
+	}
+
+	@Test
+	public void testGetTables() throws SQLException
+	{
+		try (ResultSet rs = metadata.getTables("", "", null, null))
+		{
+			assertTrue(rs.next());
+			assertEquals("Albums", rs.getString("TABLE_NAME"));
+			assertEquals("TABLE", rs.getString("TABLE_TYPE"));
+			assertTrue(rs.next());
+			assertEquals("Singers", rs.getString("TABLE_NAME"));
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getTables(null, null, "SING%", null))
+		{
+			assertTrue(rs.next());
+			assertEquals("Singers", rs.getString("TABLE_NAME"));
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getTables("OTHER", null, null, null))
+		{
+			assertFalse(rs.next());
+		}
+		verify(connection, never()).prepareStatement(anyString());
+	}
+
+	@Test
+	public void testGetColumns() throws SQLException
+	{
+		try (ResultSet rs = metadata.getColumns(null, "", "albums", null))
+		{
+			assertTrue(rs.next());
+			assertEquals("SingerId", rs.getString("COLUMN_NAME"));
+			assertEquals(1, rs.getInt("ORDINAL_POSITION"));
+			assertTrue(rs.next());
+			assertEquals("AlbumId", rs.getString("COLUMN_NAME"));
+			assertEquals(2, rs.getInt("ORDINAL_POSITION"));
+			assertEquals("NO", rs.getString("IS_NULLABLE"));
+			assertTrue(rs.next());
+			assertEquals("Title", rs.getString("COLUMN_NAME"));
+			assertEquals(Types.NVARCHAR, rs.getInt("DATA_TYPE"));
+			assertEquals("STRING(MAX)", rs.getString("TYPE_NAME"));
+			assertEquals(DatabaseMetaData.columnNullable, rs.getInt("NULLABLE"));
+			assertEquals("YES", rs.getString("IS_NULLABLE"));
+			assertEquals(24, rs.getMetaData().getColumnCount());
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getColumns(null, null, null, "name"))
+		{
+			assertTrue(rs.next());
+			assertEquals("Singers", rs.getString("TABLE_NAME"));
+			assertEquals(2, rs.getInt("ORDINAL_POSITION"));
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testGetPrimaryKeys() throws SQLException
+	{
+		try (ResultSet rs = metadata.getPrimaryKeys(null, null, "Albums"))
+		{
+			assertTrue(rs.next());
+			assertEquals("SingerId", rs.getString("COLUMN_NAME"));
+			assertEquals(1, rs.getInt("KEY_SEQ"));
+			assertEquals("PRIMARY_KEY", rs.getString("PK_NAME"));
+			assertTrue(rs.next());
+			assertEquals("AlbumId", rs.getString("COLUMN_NAME"));
+			assertEquals(2, rs.getInt("KEY_SEQ"));
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testGetIndexInfo() throws SQLException
+	{
+		try (ResultSet rs = metadata.getIndexInfo(null, null, "Albums", false, false))
+		{
+			assertTrue(rs.next());
+			assertEquals("AlbumsByTitle", rs.getString("INDEX_NAME"));
+			assertTrue(rs.getBoolean("NON_UNIQUE"));
+			assertEquals("SingerId", rs.getString("COLUMN_NAME"));
+			rs.getInt("ORDINAL_POSITION");
+			assertTrue(rs.wasNull());
+			assertTrue(rs.next());
+			assertEquals("Title", rs.getString("COLUMN_NAME"));
+			assertEquals("D", rs.getString("ASC_OR_DESC"));
+			assertTrue(rs.next());
+			assertEquals("PRIMARY_KEY", rs.getString("INDEX_NAME"));
+			assertFalse(rs.getBoolean("NON_UNIQUE"));
+			assertEquals(1, rs.getInt("ORDINAL_POSITION"));
+			assertTrue(rs.next());
+			assertEquals(2, rs.getInt("ORDINAL_POSITION"));
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getIndexInfo(null, null, "Albums", true, false))
+		{
+			assertTrue(rs.next());
+			assertEquals("PRIMARY_KEY", rs.getString("INDEX_NAME"));
+		}
+		try (ResultSet rs = ((CloudSpannerDatabaseMetaData) metadata).getIndexInfo(null, null, "albumsby%"))
+		{
+			assertTrue(rs.next());
+			assertEquals("AlbumsByTitle", rs.getString("INDEX_NAME"));
+			assertTrue(rs.next());
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testGetImportedAndExportedKeys() throws SQLException
+	{
+		try (ResultSet rs = metadata.getImportedKeys(null, null, "Albums"))
+		{
+			assertTrue(rs.next());
+			assertEquals("", rs.getString("PKTABLE_CAT"));
+			assertEquals("Singers", rs.getString("PKTABLE_NAME"));
+			assertEquals("SingerId", rs.getString("PKCOLUMN_NAME"));
+			assertEquals("Albums", rs.getString("FKTABLE_NAME"));
+			assertEquals(DatabaseMetaData.importedKeyCascade, rs.getInt("DELETE_RULE"));
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getImportedKeys(null, null, "Singers"))
+		{
+			assertFalse(rs.next());
+		}
+		try (ResultSet rs = metadata.getExportedKeys(null, null, "Singers"))
+		{
+			assertTrue(rs.next());
+			assertEquals(null, rs.getString("PKTABLE_CAT"));
+			assertEquals("Singers", rs.getString("PKTABLE_NAME"));
+			assertEquals("Albums", rs.getString("FKTABLE_NAME"));
+			assertEquals(1, rs.getInt("KEY_SEQ"));
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testOtherSchemaIsQueried() throws SQLException
+	{
+		metadata.getTables(null, "INFORMATION_SCHEMA", null, null);
+		verify(connection).prepareStatement(anyString());
+		verify(connection, never()).getSchemaSnapshot();
+	}
+
+}
@@ -0,0 +1,194 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class SchemaSnapshotTest
+{
+	private static Type getType(int col, Object[]... rows)
+	{
+		for (Object[] row : rows)
+		{
+			if (row[col] instanceof Long)
+				return Type.int64();
+			if (row[col] instanceof Boolean)
+				return Type.bool();
+		}
+		return Type.string();
+	}
+
+	static CloudSpannerResultSet createResultSet(List<String> columns, Object[]... rows)
+	{
+		List<StructField> fields = new ArrayList<>(columns.size());
+		for (int col = 0; col < columns.size(); col++)
+		{
+			fields.add(StructField.of(columns.get(col), getType(col, rows)));
+		}
+		List<Struct> structs = new ArrayList<>(rows.length);
+		for (Object[] row : rows)
+		{
+			Struct.Builder builder = Struct.newBuilder();
+			for (int col = 0; col < columns.size(); col++)
+			{
+				Type type = fields.get(col).getType();
+				if (type == Type.int64())
+					builder.set(columns.get(col)).to((Long) row[col]);
+				else if (type == Type.bool())
+					builder.set(columns.get(col)).to((Boolean) row[col]);
+				else
+					builder.set(columns.get(col)).to((String) row[col]);
+			}
+			structs.add(builder.build());
+		}
+		return new CloudSpannerResultSet(mock(CloudSpannerStatement.class),
+				ResultSets.forRows(Type.struct(fields), structs), null);
+	}
+
+	static DatabaseMetaData createMetaData() throws SQLException
+	{
+		DatabaseMetaData metadata = mock(DatabaseMetaData.class);
+		when(metadata.getColumns(any(), any(), isNull(), any())).then(invocation -> createResultSet(
+				Arrays.asList("TABLE_NAME", "COLUMN_NAME", "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE",
+						"NULLABLE"),
+				new Object[] { "Singers", "SingerId", (long) Types.BIGINT, "INT64", 0L, 0L },
+				new Object[] { "Singers", "Name", (long) Types.NVARCHAR, "STRING(100)", 100L, 1L },
+				new Object[] { "Albums", "SingerId", (long) Types.BIGINT, "INT64", 0L, 0L },
+				new Object[] { "Albums", "AlbumId", (long) Types.BIGINT, "INT64", 0L, 0L },
+				new Object[] { "Albums", "Title", (long) Types.NVARCHAR, "STRING(MAX)", 0L, 1L }));
+		when(metadata.getIndexInfo(any(), any(), isNull(), anyBoolean(), anyBoolean())).then(invocation -> createResultSet(
+				Arrays.asList("TABLE_NAME", "INDEX_NAME", "COLUMN_NAME", "ORDINAL_POSITION", "NON_UNIQUE",
+						"ASC_OR_DESC"),
+				new Object[] { "Albums", "AlbumsByTitle", "Title", 1L, Boolean.TRUE, "D" },
+				new Object[] { "Albums", "AlbumsByTitle", "SingerId", null, Boolean.TRUE, null },
+				new Object[] { "Albums", "PRIMARY_KEY", "AlbumId", 2L, Boolean.FALSE, "A" },
+				new Object[] { "Albums", "PRIMARY_KEY", "SingerId", 1L, Boolean.FALSE, "A" },
+				new Object[] { "Singers", "PRIMARY_KEY", "SingerId", 1L, Boolean.FALSE, "A" }));
+		when(metadata.getImportedKeys(any(), any(), isNull())).then(invocation -> createResultSet(
+				Arrays.asList("PKTABLE_NAME", "FKTABLE_NAME", "DELETE_RULE"),
+				new Object[] { "Singers", "Albums", (long) DatabaseMetaData.importedKeyCascade }));
+		return metadata;
+	}
+
+	@Test
+	public void testLoad() throws SQLException
+	{
+		DatabaseMetaData metadata = createMetaData();
+		SchemaSnapshot snapshot = SchemaSnapshot.load(metadata);
+		verify(metadata, times(1)).getColumns(any(), any(), isNull(), any());
+		verify(metadata, times(1)).getIndexInfo(any(), any(), isNull(), anyBoolean(), anyBoolean());
+		verify(metadata, times(1)).getImportedKeys(any(), any(), isNull());
+
+		assertEquals(2, snapshot.getTables().size());
+		assertNull(snapshot.getTable("Songs"));
+		assertNull(snapshot.getTable(null));
+
+		SchemaSnapshot.Table singers = snapshot.getTable("SINGERS");
+		assertNotNull(singers);
+		assertEquals("Singers", singers.getName());
+		assertEquals(2, singers.getColumns().size());
+		assertEquals(Types.NVARCHAR, singers.getColumn("name").getDataType());
+		assertEquals("STRING(100)", singers.getColumn("name").getTypeName());
+		assertEquals(100, singers.getColumn("name").getColumnSize());
+		assertEquals(DatabaseMetaData.columnNullable, singers.getColumn("name").getNullable());
+		assertArrayEquals(new String[] { "SINGERID" }, singers.getKeyColumns().toArray());
+		assertTrue(singers.getIndices().isEmpty());
+		assertEquals(1, singers.getNumberOfIndexColumns());
+		assertNull(singers.getParentTable());
+		assertFalse(singers.isCascadeOnDelete());
+
+		SchemaSnapshot.Table albums = snapshot.getTable("albums");
+		assertEquals(3, albums.getColumns().size());
+		assertEquals("AlbumId", new ArrayList<>(albums.getColumns()).get(1).getName());
+		assertArrayEquals(new String[] { "SINGERID", "ALBUMID" }, albums.getKeyColumns().toArray());
+		assertEquals(1, albums.getIndices().size());
+		assertArrayEquals(new String[] { "TITLE", "SINGERID" }, albums.getIndices().get("AlbumsByTitle").toArray());
+		assertEquals(4, albums.getNumberOfIndexColumns());
+		assertEquals(2, albums.getIndexInfo().size());
+		SchemaSnapshot.Index byTitle = albums.getIndexInfo().iterator().next();
+		assertEquals("AlbumsByTitle", byTitle.getName());
+		assertFalse(byTitle.isUnique());
+		assertFalse(byTitle.isPrimaryKey());
+		assertEquals("D", byTitle.getColumns().get(0).getOrdering());
+		assertEquals(Integer.valueOf(1), byTitle.getColumns().get(0).getOrdinalPosition());
+		assertNull(byTitle.getColumns().get(1).getOrdinalPosition());
+		assertEquals("Singers", albums.getParentTable());
+		assertTrue(albums.isCascadeOnDelete());
+	}
+
+	@Test
+	public void testCache() throws SQLException
+	{
+		DatabaseMetaData metadata = createMetaData();
+		SchemaSnapshotCache cache = new SchemaSnapshotCache();
+		long ttl = TimeUnit.MINUTES.toNanos(1L);
+		SchemaSnapshot first = cache.get("db1", ttl, () -> SchemaSnapshot.load(metadata));
+		assertTrue(first == cache.get("db1", ttl, () -> SchemaSnapshot.load(metadata)));
+		// Different database
+		SchemaSnapshot other = cache.get("db2", ttl, () -> SchemaSnapshot.load(metadata));
+		assertFalse(first == other);
+		// Expired
+		SchemaSnapshot reloaded = cache.get("db1", 0L, () -> SchemaSnapshot.load(metadata));
+		assertFalse(first == reloaded);
+		assertTrue(reloaded == cache.get("db1", ttl, () -> SchemaSnapshot.load(metadata)));
+		// Reload of an outdated snapshot that has already been reloaded
+		assertTrue(reloaded == cache.reload("db1", first, () -> SchemaSnapshot.load(metadata)));
+		SchemaSnapshot forced = cache.reload("db1", reloaded, () -> SchemaSnapshot.load(metadata));
+		assertFalse(reloaded == forced);
+		// Invalidated
+		cache.invalidate("db1");
+		SchemaSnapshot invalidated = cache.get("db1", ttl, () -> SchemaSnapshot.load(metadata));
+		assertFalse(forced == invalidated);
+		assertTrue(other == cache.get("db2", ttl, () -> SchemaSnapshot.load(metadata)));
+	}
+
+	@Test
+	public void testInvalidateWhileLoading() throws SQLException
+	{
+		DatabaseMetaData metadata = createMetaData();
+		SchemaSnapshotCache cache = new SchemaSnapshotCache();
+		long ttl = TimeUnit.MINUTES.toNanos(1L);
+		SchemaSnapshot loadedDuringDdl = cache.get("db", ttl, () ->
+		{
+			cache.invalidate("db");
+			return SchemaSnapshot.load(metadata);
+		});
+		// The snapshot that was loaded while the schema changed should not be
+		// cached
+		SchemaSnapshot next = cache.get("db", ttl, () -> SchemaSnapshot.load(metadata));
+		assertFalse(loadedDuringDdl == next);
+		assertTrue(next == cache.get("db", ttl, () -> SchemaSnapshot.load(metadata)));
+	}
+
+}
@@ -0,0 +1,95 @@
+package nl.topicus.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.TimestampBound;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class TimestampBoundParserTest
+{
+
+	@Test
+	public void testParse() throws SQLException
+	{
+		assertEquals(TimestampBound.strong(), TimestampBoundParser.parse(null));
+		assertEquals(TimestampBound.strong(), TimestampBoundParser.parse(""));
+		assertEquals(TimestampBound.strong(), TimestampBoundParser.parse("strong"));
+		assertEquals(TimestampBound.ofMaxStaleness(10L, TimeUnit.SECONDS),
+				TimestampBoundParser.parse("MAX_STALENESS 10s"));
+		assertEquals(TimestampBound.ofMaxStaleness(10L, TimeUnit.SECONDS),
+				TimestampBoundParser.parse("MAX_STALENESS:10"));
+		assertEquals(TimestampBound.ofExactStaleness(250L, TimeUnit.MILLISECONDS),
+				TimestampBoundParser.parse("exact_staleness=250ms"));
+		assertEquals(TimestampBound.ofExactStaleness(2L, TimeUnit.MINUTES),
+				TimestampBoundParser.parse("EXACT_STALENESS 2m"));
+		assertEquals(TimestampBound.ofReadTimestamp(Timestamp.parseTimestamp("2018-03-01T10:15:00Z")),
+				TimestampBoundParser.parse("READ_TIMESTAMP:2018-03-01T10:15:00Z"));
+		assertEquals(TimestampBound.ofMinReadTimestamp(Timestamp.parseTimestamp("2018-03-01T10:15:00Z")),
+				TimestampBoundParser.parse("MIN_READ_TIMESTAMP 2018-03-01T10:15:00Z"));
+	}
+
+	@Test
+	public void testFormat() throws SQLException
+	{
+		for (String value : new String[] { "STRONG", "MAX_STALENESS 1h", "MAX_STALENESS 90s",
+				"EXACT_STALENESS 1500ms", "EXACT_STALENESS 15us", "EXACT_STALENESS 10ns",
+				"READ_TIMESTAMP 2018-03-01T10:15:00Z", "MIN_READ_TIMESTAMP 2018-03-01T10:15:00.000000001Z" })
+		{
+			assertEquals(value, TimestampBoundParser.format(TimestampBoundParser.parse(value)));
+		}
+	}
+
+	@Test
+	public void testIsValidForMultiUse() throws SQLException
+	{
+		assertTrue(TimestampBoundParser.isValidForMultiUse(TimestampBoundParser.parse("STRONG")));
+		assertTrue(TimestampBoundParser.isValidForMultiUse(TimestampBoundParser.parse("EXACT_STALENESS 1s")));
+		assertTrue(TimestampBoundParser
+				.isValidForMultiUse(TimestampBoundParser.parse("READ_TIMESTAMP 2018-03-01T10:15:00Z")));
+		assertFalse(TimestampBoundParser.isValidForMultiUse(TimestampBoundParser.parse("MAX_STALENESS 1s")));
+		assertFalse(TimestampBoundParser
+				.isValidForMultiUse(TimestampBoundParser.parse("MIN_READ_TIMESTAMP 2018-03-01T10:15:00Z")));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testParseInvalidMode() throws SQLException
+	{
+		TimestampBoundParser.parse("STALE 10s");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testParseInvalidDuration() throws SQLException
+	{
+		TimestampBoundParser.parse("MAX_STALENESS 10 days");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testParseMissingArgument() throws SQLException
+	{
+		TimestampBoundParser.parse("EXACT_STALENESS");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testParseInvalidTimestamp() throws SQLException
+	{
+		TimestampBoundParser.parse("READ_TIMESTAMP yesterday");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testParseStrongWithArgument() throws SQLException
+	{
+		TimestampBoundParser.parse("STRONG 10s");
+	}
+
+}
@@ -0,0 +1,158 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.base.Strings;
+
+import nl.topicus.jdbc.resultset.CloudSpannerColumnBatch.BinaryColumn;
+import nl.topicus.jdbc.resultset.CloudSpannerColumnBatch.BooleanColumn;
+import nl.topicus.jdbc.resultset.CloudSpannerColumnBatch.DoubleColumn;
+import nl.topicus.jdbc.resultset.CloudSpannerColumnBatch.LongColumn;
+import nl.topicus.jdbc.resultset.CloudSpannerColumnBatch.ObjectColumn;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerColumnBatchTest
+{
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("AMOUNT", Type.float64()), StructField.of("ACTIVE", Type.bool()),
+			StructField.of("NAME", Type.string()), StructField.of("DATA", Type.bytes()),
+			StructField.of("DATE", Type.date()), StructField.of("TAGS", Type.array(Type.string())));
+
+	private static final Date DATE = Date.fromYearMonthDay(2018, 1, 31);
+
+	/**
+	 * Every third row only contains null values, the other rows contain a
+	 * name that uses multi-byte characters and grows with the id
+	 */
+	private static Struct createRow(long id)
+	{
+		if (id % 3 == 0)
+			return Struct.newBuilder().set("ID").to((Long) null).set("AMOUNT").to((Double) null).set("ACTIVE")
+					.to((Boolean) null).set("NAME").to((String) null).set("DATA").to((ByteArray) null).set("DATE")
+					.to((Date) null).set("TAGS").toStringArray(null).build();
+		return Struct.newBuilder().set("ID").to(id).set("AMOUNT").to(id * 1.5d).set("ACTIVE").to(id % 2 == 0)
+				.set("NAME").to(name(id)).set("DATA").to(ByteArray.copyFrom("DATA" + id)).set("DATE").to(DATE)
+				.set("TAGS").toStringArray(Arrays.asList("T" + id)).build();
+	}
+
+	private static String name(long id)
+	{
+		return Strings.repeat("\u00e9\u20ac", (int) id);
+	}
+
+	private static CloudSpannerResultSet createResultSet(int rows)
+	{
+		List<Struct> list = new ArrayList<>(rows);
+		for (long id = 1; id <= rows; id++)
+			list.add(createRow(id));
+		return new CloudSpannerResultSet(mock(CloudSpannerStatement.class), ResultSets.forRows(TYPE, list),
+				"SELECT * FROM FOO");
+	}
+
+	@Test
+	public void testNextBatch() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = createResultSet(250))
+		{
+			int batches = 0;
+			long id = 1;
+			CloudSpannerColumnBatch batch;
+			while ((batch = rs.nextBatch(100)) != null)
+			{
+				batches++;
+				assertEquals(7, batch.getColumnCount());
+				assertEquals(batches < 3 ? 100 : 50, batch.getRowCount());
+				LongColumn ids = (LongColumn) batch.getColumn(0);
+				DoubleColumn amounts = (DoubleColumn) batch.getColumn(1);
+				BooleanColumn active = (BooleanColumn) batch.getColumn(2);
+				BinaryColumn names = (BinaryColumn) batch.getColumn(3);
+				BinaryColumn data = (BinaryColumn) batch.getColumn(4);
+				ObjectColumn dates = (ObjectColumn) batch.getColumn(5);
+				ObjectColumn tags = (ObjectColumn) batch.getColumn(6);
+				assertEquals("NAME", names.getName());
+				for (int row = 0; row < batch.getRowCount(); row++, id++)
+				{
+					boolean isNull = id % 3 == 0;
+					for (CloudSpannerColumnBatch.Column column : batch.getColumns())
+						assertEquals(isNull, column.isNull(row));
+					if (isNull)
+					{
+						assertEquals(0, names.getLength(row));
+						assertNull(names.getString(row));
+						assertNull(dates.getValues()[row]);
+					}
+					else
+					{
+						assertEquals(id, ids.getValues()[row]);
+						assertEquals(id * 1.5d, amounts.getValues()[row], 0d);
+						assertEquals(id % 2 == 0, active.getValues()[row]);
+						assertEquals(name(id), names.getString(row));
+						assertEquals(name(id).getBytes(StandardCharsets.UTF_8).length, names.getLength(row));
+						assertArrayEquals(("DATA" + id).getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(
+								data.getData(), data.getOffsets()[row], data.getOffsets()[row + 1]));
+						assertEquals(DATE, dates.getValues()[row]);
+						assertEquals(Arrays.asList("T" + id), tags.getValues()[row]);
+					}
+				}
+			}
+			assertEquals(3, batches);
+			assertEquals(251L, id);
+			assertTrue(rs.isAfterLast());
+		}
+	}
+
+	@Test
+	public void testNextBatchAfterNext() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = createResultSet(10))
+		{
+			assertTrue(rs.next());
+			assertEquals(1L, rs.getLong("ID"));
+			CloudSpannerColumnBatch batch = rs.nextBatch(4);
+			assertEquals(4, batch.getRowCount());
+			assertEquals(2L, ((LongColumn) batch.getColumn(0)).getValues()[0]);
+			// The cursor is positioned on the last row of the batch
+			assertEquals(5L, rs.getLong("ID"));
+			assertTrue(rs.next());
+			assertEquals(0L, rs.getLong("ID"));
+			assertTrue(rs.wasNull());
+			batch = rs.nextBatch(5);
+			assertEquals(4, batch.getRowCount());
+			assertEquals(7L, ((LongColumn) batch.getColumn(0)).getValues()[0]);
+			assertFalse(rs.next());
+			assertNull(rs.nextBatch(5));
+		}
+	}
+
+	@Test(expected = SQLException.class)
+	public void testInvalidBatchSize() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = createResultSet(10))
+		{
+			rs.nextBatch(0);
+		}
+	}
+
+}
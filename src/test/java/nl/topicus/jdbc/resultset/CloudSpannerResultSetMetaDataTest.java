@@ -9,6 +9,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.Date;
@@ -135,6 +137,7 @@ public class CloudSpannerResultSetMetaDataTest
 	private static final List<TestColumn> TEST_COLUMNS = createTestColumns();
 	private CloudSpannerResultSetMetaData subject;
 	private CloudSpannerConnection connection;
+	private CloudSpannerDatabaseMetaData metadata;
 
 	@Before
 	public void setup() throws SQLException
@@ -142,7 +145,7 @@ public class CloudSpannerResultSetMetaDataTest
 		connection = mock(CloudSpannerConnection.class);
 		CloudSpannerStatement statement = mock(CloudSpannerStatement.class);
 		CloudSpannerResultSet resultSet = getFooTestResultSet(statement);
-		CloudSpannerDatabaseMetaData metadata = mock(CloudSpannerDatabaseMetaData.class);
+		metadata = mock(CloudSpannerDatabaseMetaData.class);
 		when(metadata.getColumns(eq(""), eq(""), eq("FOO"), any())).then(new Answer<CloudSpannerResultSet>()
 		{
 			@Override
@@ -305,6 +308,20 @@ public class CloudSpannerResultSetMetaDataTest
 		return new CloudSpannerResultSet(statement, rs, null);
 	}
 
+	@Test
+	public void testColumnMetaDataIsLoadedOnce() throws SQLException
+	{
+		for (int i = 1; i <= TEST_COLUMNS.size(); i++)
+		{
+			subject.isNullable(i);
+			subject.getPrecision(i);
+			subject.isReadOnly(i);
+			subject.getColumnDisplaySize(i);
+		}
+		verify(metadata, times(1)).getColumns(eq(""), eq(""), eq("FOO"), any());
+		verify(metadata, times(1)).getPrimaryKeys("", "", "FOO");
+	}
+
 	@Test
 	public void testGetColumnCount() throws SQLException
 	{
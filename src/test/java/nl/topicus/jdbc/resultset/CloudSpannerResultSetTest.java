@@ -16,14 +16,19 @@ import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.SQLException;
 import java.sql.Time;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.function.BiFunction;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -53,180 +58,120 @@ public class CloudSpannerResultSetTest
 
 	static final String STRING_COL_NOT_NULL = "STRING_COL_NOT_NULL";
 
-	static final int STRING_COLINDEX_NULL = 1;
+	static final int STRING_COLINDEX_NULL = 21;
 
-	static final int STRING_COLINDEX_NOTNULL = 2;
+	static final int STRING_COLINDEX_NOTNULL = 22;
 
 	static final String BOOLEAN_COL_NULL = "BOOLEAN_COL_NULL";
 
 	static final String BOOLEAN_COL_NOT_NULL = "BOOLEAN_COL_NOT_NULL";
 
-	static final int BOOLEAN_COLINDEX_NULL = 3;
+	static final int BOOLEAN_COLINDEX_NULL = 23;
 
-	static final int BOOLEAN_COLINDEX_NOTNULL = 4;
+	static final int BOOLEAN_COLINDEX_NOTNULL = 24;
 
 	static final String DOUBLE_COL_NULL = "DOUBLE_COL_NULL";
 
 	static final String DOUBLE_COL_NOT_NULL = "DOUBLE_COL_NOT_NULL";
 
-	static final int DOUBLE_COLINDEX_NULL = 5;
+	static final int DOUBLE_COLINDEX_NULL = 25;
 
-	static final int DOUBLE_COLINDEX_NOTNULL = 6;
+	static final int DOUBLE_COLINDEX_NOTNULL = 26;
 
 	static final String BYTES_COL_NULL = "BYTES_COL_NULL";
 
 	static final String BYTES_COL_NOT_NULL = "BYTES_COL_NOT_NULL";
 
-	static final int BYTES_COLINDEX_NULL = 7;
+	static final int BYTES_COLINDEX_NULL = 27;
 
-	static final int BYTES_COLINDEX_NOTNULL = 8;
+	static final int BYTES_COLINDEX_NOTNULL = 28;
 
 	static final String LONG_COL_NULL = "LONG_COL_NULL";
 
 	static final String LONG_COL_NOT_NULL = "LONG_COL_NOT_NULL";
 
-	static final int LONG_COLINDEX_NULL = 9;
+	static final int LONG_COLINDEX_NULL = 29;
 
-	static final int LONG_COLINDEX_NOTNULL = 10;
+	static final int LONG_COLINDEX_NOTNULL = 30;
 
 	static final String DATE_COL_NULL = "DATE_COL_NULL";
 
 	static final String DATE_COL_NOT_NULL = "DATE_COL_NOT_NULL";
 
-	static final int DATE_COLINDEX_NULL = 11;
+	static final int DATE_COLINDEX_NULL = 31;
 
-	static final int DATE_COLINDEX_NOTNULL = 12;
+	static final int DATE_COLINDEX_NOTNULL = 32;
 
 	static final String TIMESTAMP_COL_NULL = "TIMESTAMP_COL_NULL";
 
 	static final String TIMESTAMP_COL_NOT_NULL = "TIMESTAMP_COL_NOT_NULL";
 
-	static final int TIMESTAMP_COLINDEX_NULL = 13;
+	static final int TIMESTAMP_COLINDEX_NULL = 33;
 
-	static final int TIMESTAMP_COLINDEX_NOTNULL = 14;
+	static final int TIMESTAMP_COLINDEX_NOTNULL = 34;
 
 	static final String TIME_COL_NULL = "TIME_COL_NULL";
 
 	static final String TIME_COL_NOT_NULL = "TIME_COL_NOT_NULL";
 
-	static final int TIME_COLINDEX_NULL = 15;
+	static final int TIME_COLINDEX_NULL = 35;
 
-	static final int TIME_COLINDEX_NOTNULL = 16;
+	static final int TIME_COLINDEX_NOTNULL = 36;
 
 	static final String ARRAY_COL_NULL = "ARRAY_COL_NULL";
 
 	static final String ARRAY_COL_NOT_NULL = "ARRAY_COL_NOT_NULL";
 
-	static final int ARRAY_COLINDEX_NULL = 17;
+	static final int ARRAY_COLINDEX_NULL = 37;
 
-	static final int ARRAY_COLINDEX_NOTNULL = 18;
+	static final int ARRAY_COLINDEX_NOTNULL = 38;
 
 	static final String URL_COL_NULL = "URL_COL_NULL";
 
 	static final String URL_COL_NOT_NULL = "URL_COL_NOT_NULL";
 
-	static final int URL_COLINDEX_NULL = 19;
+	static final int URL_COLINDEX_NULL = 39;
 
-	static final int URL_COLINDEX_NOTNULL = 20;
+	static final int URL_COLINDEX_NOTNULL = 40;
 
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
 	private CloudSpannerResultSet subject;
 
+	/**
+	 * Adds a column with the given label and type to the mocked result set.
+	 * The getters for the label and for the index of the column return the
+	 * same value.
+	 */
+	private static <T> void mockColumn(ResultSet res, List<StructField> fields, String label, Type type, T value,
+			BiFunction<ResultSet, String, T> labelGetter, BiFunction<ResultSet, Integer, T> indexGetter)
+	{
+		int index = fields.size();
+		fields.add(StructField.of(label, type));
+		when(res.isNull(label)).thenAnswer(new Returns(value == null));
+		when(res.isNull(index)).thenAnswer(new Returns(value == null));
+		when(res.getColumnType(label)).thenAnswer(new Returns(type));
+		when(res.getColumnType(index)).thenAnswer(new Returns(type));
+		when(res.getColumnIndex(label)).thenAnswer(new Returns(index));
+		if (value != null)
+		{
+			when(labelGetter.apply(res, label)).thenAnswer(new Returns(value));
+			when(indexGetter.apply(res, index)).thenAnswer(new Returns(value));
+		}
+	}
+
+	/**
+	 * Creates a mocked result set with two groups of columns. The tests for
+	 * the label getters use the first group, the tests for the index getters
+	 * use the second group. The columns of the second group contain different
+	 * values than the first group, so that the tests verify that the getters
+	 * return the value of the right column.
+	 */
 	static ResultSet getMockResultSet()
 	{
 		ResultSet res = mock(ResultSet.class);
-		when(res.getString(STRING_COL_NULL)).thenReturn(null);
-		when(res.isNull(STRING_COL_NULL)).thenReturn(true);
-		when(res.getString(STRING_COL_NOT_NULL)).thenReturn("FOO");
-		when(res.isNull(STRING_COL_NOT_NULL)).thenReturn(false);
-		when(res.getString(STRING_COLINDEX_NULL - 1)).thenReturn(null);
-		when(res.isNull(STRING_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getString(STRING_COLINDEX_NOTNULL - 1)).thenReturn("BAR");
-		when(res.isNull(STRING_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(STRING_COL_NULL)).thenReturn(Type.string());
-		when(res.getColumnType(STRING_COL_NOT_NULL)).thenReturn(Type.string());
-		when(res.getColumnType(STRING_COLINDEX_NULL - 1)).thenReturn(Type.string());
-		when(res.getColumnType(STRING_COLINDEX_NOTNULL - 1)).thenReturn(Type.string());
-
-		when(res.getString(URL_COL_NULL)).thenReturn(null);
-		when(res.isNull(URL_COL_NULL)).thenReturn(true);
-		when(res.getString(URL_COL_NOT_NULL)).thenReturn("https://github.com/olavloite/spanner-jdbc");
-		when(res.isNull(URL_COL_NOT_NULL)).thenReturn(false);
-		when(res.getString(URL_COLINDEX_NULL - 1)).thenReturn(null);
-		when(res.isNull(URL_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getString(URL_COLINDEX_NOTNULL - 1)).thenReturn("https://github.com/olavloite");
-		when(res.isNull(URL_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(URL_COL_NULL)).thenReturn(Type.string());
-		when(res.getColumnType(URL_COL_NOT_NULL)).thenReturn(Type.string());
-		when(res.getColumnType(URL_COLINDEX_NULL - 1)).thenReturn(Type.string());
-		when(res.getColumnType(URL_COLINDEX_NOTNULL - 1)).thenReturn(Type.string());
-
-		when(res.getBoolean(BOOLEAN_COL_NULL)).thenReturn(false);
-		when(res.isNull(BOOLEAN_COL_NULL)).thenReturn(true);
-		when(res.getBoolean(BOOLEAN_COL_NOT_NULL)).thenReturn(true);
-		when(res.isNull(BOOLEAN_COL_NOT_NULL)).thenReturn(false);
-		when(res.getBoolean(BOOLEAN_COLINDEX_NULL - 1)).thenReturn(false);
-		when(res.isNull(BOOLEAN_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getBoolean(BOOLEAN_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.isNull(BOOLEAN_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(BOOLEAN_COL_NULL)).thenReturn(Type.bool());
-		when(res.getColumnType(BOOLEAN_COL_NOT_NULL)).thenReturn(Type.bool());
-		when(res.getColumnType(BOOLEAN_COLINDEX_NULL - 1)).thenReturn(Type.bool());
-		when(res.getColumnType(BOOLEAN_COLINDEX_NOTNULL - 1)).thenReturn(Type.bool());
-
-		when(res.getDouble(DOUBLE_COL_NULL)).thenReturn(0d);
-		when(res.isNull(DOUBLE_COL_NULL)).thenReturn(true);
-		when(res.getDouble(DOUBLE_COL_NOT_NULL)).thenReturn(1.123456789d);
-		when(res.isNull(DOUBLE_COL_NOT_NULL)).thenReturn(false);
-		when(res.getDouble(DOUBLE_COLINDEX_NULL - 1)).thenReturn(0d);
-		when(res.isNull(DOUBLE_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getDouble(DOUBLE_COLINDEX_NOTNULL - 1)).thenReturn(2.123456789d);
-		when(res.isNull(DOUBLE_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(DOUBLE_COL_NULL)).thenReturn(Type.float64());
-		when(res.getColumnType(DOUBLE_COL_NOT_NULL)).thenReturn(Type.float64());
-		when(res.getColumnType(DOUBLE_COLINDEX_NULL - 1)).thenReturn(Type.float64());
-		when(res.getColumnType(DOUBLE_COLINDEX_NOTNULL - 1)).thenReturn(Type.float64());
-
-		when(res.getString(BYTES_COL_NULL)).thenReturn(null);
-		when(res.isNull(BYTES_COL_NULL)).thenReturn(true);
-		when(res.getBytes(BYTES_COL_NOT_NULL)).thenReturn(ByteArray.copyFrom("FOO"));
-		when(res.isNull(BYTES_COL_NOT_NULL)).thenReturn(false);
-		when(res.getBytes(BYTES_COLINDEX_NULL - 1)).thenReturn(null);
-		when(res.isNull(BYTES_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getBytes(BYTES_COLINDEX_NOTNULL - 1)).thenReturn(ByteArray.copyFrom("BAR"));
-		when(res.isNull(BYTES_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(BYTES_COL_NULL)).thenReturn(Type.bytes());
-		when(res.getColumnType(BYTES_COL_NOT_NULL)).thenReturn(Type.bytes());
-		when(res.getColumnType(BYTES_COLINDEX_NULL - 1)).thenReturn(Type.bytes());
-		when(res.getColumnType(BYTES_COLINDEX_NOTNULL - 1)).thenReturn(Type.bytes());
-
-		when(res.getLong(LONG_COL_NULL)).thenReturn(0l);
-		when(res.isNull(LONG_COL_NULL)).thenReturn(true);
-		when(res.getLong(LONG_COL_NOT_NULL)).thenReturn(1l);
-		when(res.isNull(LONG_COL_NOT_NULL)).thenReturn(false);
-		when(res.getLong(LONG_COLINDEX_NULL - 1)).thenReturn(0l);
-		when(res.isNull(LONG_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getLong(LONG_COLINDEX_NOTNULL - 1)).thenReturn(2l);
-		when(res.isNull(LONG_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(LONG_COL_NULL)).thenReturn(Type.int64());
-		when(res.getColumnType(LONG_COL_NOT_NULL)).thenReturn(Type.int64());
-		when(res.getColumnType(LONG_COLINDEX_NULL - 1)).thenReturn(Type.int64());
-		when(res.getColumnType(LONG_COLINDEX_NOTNULL - 1)).thenReturn(Type.int64());
-
-		when(res.getDate(DATE_COL_NULL)).thenAnswer(new Returns(null));
-		when(res.isNull(DATE_COL_NULL)).thenAnswer(new Returns(true));
-		when(res.getDate(DATE_COL_NOT_NULL)).thenAnswer(new Returns(Date.fromYearMonthDay(2017, 9, 10)));
-		when(res.isNull(DATE_COL_NOT_NULL)).thenAnswer(new Returns(false));
-		when(res.getDate(DATE_COLINDEX_NULL - 1)).thenAnswer(new Returns(null));
-		when(res.isNull(DATE_COLINDEX_NULL - 1)).thenAnswer(new Returns(true));
-		when(res.getDate(DATE_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(Date.fromYearMonthDay(2017, 9, 10)));
-		when(res.isNull(DATE_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(false));
-		when(res.getColumnType(DATE_COL_NULL)).thenAnswer(new Returns(Type.date()));
-		when(res.getColumnType(DATE_COL_NOT_NULL)).thenAnswer(new Returns(Type.date()));
-		when(res.getColumnType(DATE_COLINDEX_NULL - 1)).thenAnswer(new Returns(Type.date()));
-		when(res.getColumnType(DATE_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(Type.date()));
+		List<StructField> fields = new ArrayList<>();
 
 		Calendar cal1 = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
 		cal1.clear();
@@ -234,69 +179,89 @@ public class CloudSpannerResultSetTest
 		Calendar cal2 = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
 		cal2.clear();
 		cal2.set(2017, 8, 11, 8, 15, 59);
-		when(res.getTimestamp(TIMESTAMP_COL_NULL)).thenReturn(null);
-		when(res.isNull(TIMESTAMP_COL_NULL)).thenReturn(true);
-		when(res.getTimestamp(TIMESTAMP_COL_NOT_NULL)).thenReturn(Timestamp.of(cal1.getTime()));
-		when(res.isNull(TIMESTAMP_COL_NOT_NULL)).thenReturn(false);
-		when(res.getTimestamp(TIMESTAMP_COLINDEX_NULL - 1)).thenReturn(null);
-		when(res.isNull(TIMESTAMP_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getTimestamp(TIMESTAMP_COLINDEX_NOTNULL - 1)).thenReturn(Timestamp.of(cal2.getTime()));
-		when(res.isNull(TIMESTAMP_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(TIMESTAMP_COL_NULL)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIMESTAMP_COL_NOT_NULL)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIMESTAMP_COLINDEX_NULL - 1)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIMESTAMP_COLINDEX_NOTNULL - 1)).thenReturn(Type.timestamp());
-
 		Calendar cal3 = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
 		cal3.clear();
 		cal3.set(1970, 0, 1, 14, 6, 15);
 		Calendar cal4 = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
 		cal4.clear();
 		cal4.set(1970, 0, 1, 14, 6, 15);
-		when(res.getTimestamp(TIME_COL_NULL)).thenReturn(null);
-		when(res.isNull(TIME_COL_NULL)).thenReturn(true);
-		when(res.getTimestamp(TIME_COL_NOT_NULL)).thenReturn(Timestamp.of(cal3.getTime()));
-		when(res.isNull(TIME_COL_NOT_NULL)).thenReturn(false);
-		when(res.getTimestamp(TIME_COLINDEX_NULL - 1)).thenReturn(null);
-		when(res.isNull(TIME_COLINDEX_NULL - 1)).thenReturn(true);
-		when(res.getTimestamp(TIME_COLINDEX_NOTNULL - 1)).thenReturn(Timestamp.of(cal4.getTime()));
-		when(res.isNull(TIME_COLINDEX_NOTNULL - 1)).thenReturn(false);
-		when(res.getColumnType(TIME_COL_NULL)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIME_COL_NOT_NULL)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIME_COLINDEX_NULL - 1)).thenReturn(Type.timestamp());
-		when(res.getColumnType(TIME_COLINDEX_NOTNULL - 1)).thenReturn(Type.timestamp());
-
-		when(res.getLongList(ARRAY_COL_NULL)).thenAnswer(new Returns(null));
-		when(res.isNull(ARRAY_COL_NULL)).thenAnswer(new Returns(true));
-		when(res.getLongList(ARRAY_COL_NOT_NULL)).thenAnswer(new Returns(Arrays.asList(1L, 2L, 3L)));
-		when(res.isNull(ARRAY_COL_NOT_NULL)).thenAnswer(new Returns(false));
-		when(res.getLongList(ARRAY_COLINDEX_NULL - 1)).thenAnswer(new Returns(null));
-		when(res.isNull(ARRAY_COLINDEX_NULL - 1)).thenAnswer(new Returns(true));
-		when(res.getLongList(ARRAY_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(Arrays.asList(1L, 2L, 3L)));
-		when(res.isNull(ARRAY_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(false));
-		when(res.getColumnType(ARRAY_COL_NULL)).thenAnswer(new Returns(Type.array(Type.int64())));
-		when(res.getColumnType(ARRAY_COL_NOT_NULL)).thenAnswer(new Returns(Type.array(Type.int64())));
-		when(res.getColumnType(ARRAY_COLINDEX_NULL - 1)).thenAnswer(new Returns(Type.array(Type.int64())));
-		when(res.getColumnType(ARRAY_COLINDEX_NOTNULL - 1)).thenAnswer(new Returns(Type.array(Type.int64())));
-
-		when(res.getColumnIndex(STRING_COL_NOT_NULL)).thenAnswer(new Returns(1));
+
+		// Columns that are read by label
+		mockColumn(res, fields, STRING_COL_NULL, Type.string(), null, ResultSet::getString, ResultSet::getString);
+		mockColumn(res, fields, STRING_COL_NOT_NULL, Type.string(), "FOO", ResultSet::getString,
+				ResultSet::getString);
+		mockColumn(res, fields, BOOLEAN_COL_NULL, Type.bool(), null, ResultSet::getBoolean, ResultSet::getBoolean);
+		mockColumn(res, fields, BOOLEAN_COL_NOT_NULL, Type.bool(), true, ResultSet::getBoolean,
+				ResultSet::getBoolean);
+		mockColumn(res, fields, DOUBLE_COL_NULL, Type.float64(), null, ResultSet::getDouble, ResultSet::getDouble);
+		mockColumn(res, fields, DOUBLE_COL_NOT_NULL, Type.float64(), 1.123456789d, ResultSet::getDouble,
+				ResultSet::getDouble);
+		mockColumn(res, fields, BYTES_COL_NULL, Type.bytes(), null, ResultSet::getBytes, ResultSet::getBytes);
+		mockColumn(res, fields, BYTES_COL_NOT_NULL, Type.bytes(), ByteArray.copyFrom("FOO"), ResultSet::getBytes,
+				ResultSet::getBytes);
+		mockColumn(res, fields, LONG_COL_NULL, Type.int64(), null, ResultSet::getLong, ResultSet::getLong);
+		mockColumn(res, fields, LONG_COL_NOT_NULL, Type.int64(), 1L, ResultSet::getLong, ResultSet::getLong);
+		mockColumn(res, fields, DATE_COL_NULL, Type.date(), null, ResultSet::getDate, ResultSet::getDate);
+		mockColumn(res, fields, DATE_COL_NOT_NULL, Type.date(), Date.fromYearMonthDay(2017, 9, 10),
+				ResultSet::getDate, ResultSet::getDate);
+		mockColumn(res, fields, TIMESTAMP_COL_NULL, Type.timestamp(), null, ResultSet::getTimestamp,
+				ResultSet::getTimestamp);
+		mockColumn(res, fields, TIMESTAMP_COL_NOT_NULL, Type.timestamp(), Timestamp.of(cal1.getTime()),
+				ResultSet::getTimestamp, ResultSet::getTimestamp);
+		mockColumn(res, fields, TIME_COL_NULL, Type.timestamp(), null, ResultSet::getTimestamp,
+				ResultSet::getTimestamp);
+		mockColumn(res, fields, TIME_COL_NOT_NULL, Type.timestamp(), Timestamp.of(cal3.getTime()),
+				ResultSet::getTimestamp, ResultSet::getTimestamp);
+		mockColumn(res, fields, ARRAY_COL_NULL, Type.array(Type.int64()), null, ResultSet::getLongList,
+				ResultSet::getLongList);
+		mockColumn(res, fields, ARRAY_COL_NOT_NULL, Type.array(Type.int64()), Arrays.asList(1L, 2L, 3L),
+				ResultSet::getLongList, ResultSet::getLongList);
+		mockColumn(res, fields, URL_COL_NULL, Type.string(), null, ResultSet::getString, ResultSet::getString);
+		mockColumn(res, fields, URL_COL_NOT_NULL, Type.string(), "https://github.com/olavloite/spanner-jdbc",
+				ResultSet::getString, ResultSet::getString);
+
+		// Columns that are read by index
+		mockColumn(res, fields, "STRING_COLINDEX_NULL", Type.string(), null, ResultSet::getString,
+				ResultSet::getString);
+		mockColumn(res, fields, "STRING_COLINDEX_NOTNULL", Type.string(), "BAR", ResultSet::getString,
+				ResultSet::getString);
+		mockColumn(res, fields, "BOOLEAN_COLINDEX_NULL", Type.bool(), null, ResultSet::getBoolean,
+				ResultSet::getBoolean);
+		mockColumn(res, fields, "BOOLEAN_COLINDEX_NOTNULL", Type.bool(), false, ResultSet::getBoolean,
+				ResultSet::getBoolean);
+		mockColumn(res, fields, "DOUBLE_COLINDEX_NULL", Type.float64(), null, ResultSet::getDouble,
+				ResultSet::getDouble);
+		mockColumn(res, fields, "DOUBLE_COLINDEX_NOTNULL", Type.float64(), 2.123456789d, ResultSet::getDouble,
+				ResultSet::getDouble);
+		mockColumn(res, fields, "BYTES_COLINDEX_NULL", Type.bytes(), null, ResultSet::getBytes,
+				ResultSet::getBytes);
+		mockColumn(res, fields, "BYTES_COLINDEX_NOTNULL", Type.bytes(), ByteArray.copyFrom("BAR"),
+				ResultSet::getBytes, ResultSet::getBytes);
+		mockColumn(res, fields, "LONG_COLINDEX_NULL", Type.int64(), null, ResultSet::getLong, ResultSet::getLong);
+		mockColumn(res, fields, "LONG_COLINDEX_NOTNULL", Type.int64(), 2L, ResultSet::getLong, ResultSet::getLong);
+		mockColumn(res, fields, "DATE_COLINDEX_NULL", Type.date(), null, ResultSet::getDate, ResultSet::getDate);
+		mockColumn(res, fields, "DATE_COLINDEX_NOTNULL", Type.date(), Date.fromYearMonthDay(2017, 9, 10),
+				ResultSet::getDate, ResultSet::getDate);
+		mockColumn(res, fields, "TIMESTAMP_COLINDEX_NULL", Type.timestamp(), null, ResultSet::getTimestamp,
+				ResultSet::getTimestamp);
+		mockColumn(res, fields, "TIMESTAMP_COLINDEX_NOTNULL", Type.timestamp(), Timestamp.of(cal2.getTime()),
+				ResultSet::getTimestamp, ResultSet::getTimestamp);
+		mockColumn(res, fields, "TIME_COLINDEX_NULL", Type.timestamp(), null, ResultSet::getTimestamp,
+				ResultSet::getTimestamp);
+		mockColumn(res, fields, "TIME_COLINDEX_NOTNULL", Type.timestamp(), Timestamp.of(cal4.getTime()),
+				ResultSet::getTimestamp, ResultSet::getTimestamp);
+		mockColumn(res, fields, "ARRAY_COLINDEX_NULL", Type.array(Type.int64()), null, ResultSet::getLongList,
+				ResultSet::getLongList);
+		mockColumn(res, fields, "ARRAY_COLINDEX_NOTNULL", Type.array(Type.int64()), Arrays.asList(1L, 2L, 3L),
+				ResultSet::getLongList, ResultSet::getLongList);
+		mockColumn(res, fields, "URL_COLINDEX_NULL", Type.string(), null, ResultSet::getString,
+				ResultSet::getString);
+		mockColumn(res, fields, "URL_COLINDEX_NOTNULL", Type.string(), "https://github.com/olavloite",
+				ResultSet::getString, ResultSet::getString);
+
 		when(res.getColumnIndex(UNKNOWN_COLUMN)).thenThrow(IllegalArgumentException.class);
-		when(res.getColumnIndex(DATE_COL_NOT_NULL)).thenAnswer(new Returns(DATE_COLINDEX_NOTNULL - 1));
-		when(res.getColumnIndex(ARRAY_COL_NOT_NULL)).thenAnswer(new Returns(ARRAY_COLINDEX_NOTNULL - 1));
-		when(res.getColumnIndex(ARRAY_COL_NULL)).thenAnswer(new Returns(ARRAY_COLINDEX_NULL - 1));
-
-		when(res.getType()).thenReturn(Type.struct(StructField.of(STRING_COL_NULL, Type.string()),
-				StructField.of(STRING_COL_NOT_NULL, Type.string()), StructField.of(BOOLEAN_COL_NULL, Type.bool()),
-				StructField.of(BOOLEAN_COL_NOT_NULL, Type.bool()), StructField.of(DOUBLE_COL_NULL, Type.float64()),
-				StructField.of(DOUBLE_COL_NOT_NULL, Type.float64()), StructField.of(BYTES_COL_NULL, Type.bytes()),
-				StructField.of(BYTES_COL_NOT_NULL, Type.bytes()), StructField.of(LONG_COL_NULL, Type.int64()),
-				StructField.of(LONG_COL_NOT_NULL, Type.int64()), StructField.of(DATE_COL_NULL, Type.date()),
-				StructField.of(DATE_COL_NOT_NULL, Type.date()), StructField.of(TIMESTAMP_COL_NULL, Type.timestamp()),
-				StructField.of(TIMESTAMP_COL_NOT_NULL, Type.timestamp()),
-				StructField.of(TIME_COL_NULL, Type.timestamp()), StructField.of(TIME_COL_NOT_NULL, Type.timestamp()),
-				StructField.of(URL_COL_NULL, Type.string()), StructField.of(URL_COL_NOT_NULL, Type.string())
-
-		));
+		when(res.getType()).thenReturn(Type.struct(fields));
+		when(res.getColumnCount()).thenReturn(fields.size());
 
 		// Next behaviour.
 		when(res.next()).thenReturn(true, true, true, true, false);
@@ -1095,6 +1060,31 @@ public class CloudSpannerResultSetTest
 		assertTrue(subject.wasNull());
 	}
 
+	@Test
+	public void testGetBlob() throws SQLException
+	{
+		Blob blob = subject.getBlob(BYTES_COLINDEX_NOTNULL);
+		assertEquals(3L, blob.length());
+		assertArrayEquals(ByteArray.copyFrom("AR").toByteArray(), blob.getBytes(2L, 2));
+		assertEquals(false, subject.wasNull());
+		assertNotNull(subject.getBlob(BYTES_COL_NOT_NULL));
+		assertNull(subject.getBlob(BYTES_COLINDEX_NULL));
+		assertTrue(subject.wasNull());
+		assertNull(subject.getBlob(BYTES_COL_NULL));
+	}
+
+	@Test
+	public void testGetClob() throws SQLException
+	{
+		Clob clob = subject.getClob(STRING_COLINDEX_NOTNULL);
+		assertEquals("BAR", clob.getSubString(1L, (int) clob.length()));
+		assertEquals(false, subject.wasNull());
+		assertEquals("OO", subject.getNClob(STRING_COL_NOT_NULL).getSubString(2L, 2));
+		assertNull(subject.getClob(STRING_COLINDEX_NULL));
+		assertTrue(subject.wasNull());
+		assertNull(subject.getNClob(STRING_COL_NULL));
+	}
+
 	@Test
 	public void testGetBeforeNext() throws SQLException
 	{
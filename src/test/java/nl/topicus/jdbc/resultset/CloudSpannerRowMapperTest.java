@@ -0,0 +1,277 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerRowMapperTest
+{
+	public static class Customer
+	{
+		private long id;
+
+		private Integer rating;
+
+		private double balance;
+
+		private float discount;
+
+		private boolean active;
+
+		private String firstName;
+
+		private byte[] photo;
+
+		private java.sql.Date birthDate;
+
+		private Timestamp lastModified;
+
+		private List<String> tags;
+
+		private long[] orderIds;
+
+		public long getId()
+		{
+			return id;
+		}
+
+		public void setId(long id)
+		{
+			this.id = id;
+		}
+
+		public void setId(String id)
+		{
+			throw new IllegalStateException("The setter with a primitive parameter should be used");
+		}
+
+		public Integer getRating()
+		{
+			return rating;
+		}
+
+		public void setRating(Integer rating)
+		{
+			this.rating = rating;
+		}
+
+		public double getBalance()
+		{
+			return balance;
+		}
+
+		public void setBalance(double balance)
+		{
+			this.balance = balance;
+		}
+
+		public float getDiscount()
+		{
+			return discount;
+		}
+
+		public void setDiscount(float discount)
+		{
+			this.discount = discount;
+		}
+
+		public boolean isActive()
+		{
+			return active;
+		}
+
+		/**
+		 * Fluent setters are also supported
+		 */
+		public Customer setActive(boolean active)
+		{
+			this.active = active;
+			return this;
+		}
+
+		public String getFirstName()
+		{
+			return firstName;
+		}
+
+		public void setFirstName(String firstName)
+		{
+			this.firstName = firstName;
+		}
+
+		public byte[] getPhoto()
+		{
+			return photo;
+		}
+
+		public void setPhoto(byte[] photo)
+		{
+			this.photo = photo;
+		}
+
+		public java.sql.Date getBirthDate()
+		{
+			return birthDate;
+		}
+
+		public void setBirthDate(java.sql.Date birthDate)
+		{
+			this.birthDate = birthDate;
+		}
+
+		public Timestamp getLastModified()
+		{
+			return lastModified;
+		}
+
+		public void setLastModified(Timestamp lastModified)
+		{
+			this.lastModified = lastModified;
+		}
+
+		public List<String> getTags()
+		{
+			return tags;
+		}
+
+		public void setTags(List<String> tags)
+		{
+			this.tags = tags;
+		}
+
+		public long[] getOrderIds()
+		{
+			return orderIds;
+		}
+
+		public void setOrderIds(long[] orderIds)
+		{
+			this.orderIds = orderIds;
+		}
+	}
+
+	public static class NoDefaultConstructor
+	{
+		public NoDefaultConstructor(long id)
+		{
+		}
+	}
+
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("RATING", Type.int64()), StructField.of("BALANCE", Type.float64()),
+			StructField.of("DISCOUNT", Type.float64()), StructField.of("ACTIVE", Type.bool()),
+			StructField.of("FIRST_NAME", Type.string()), StructField.of("PHOTO", Type.bytes()),
+			StructField.of("BIRTH_DATE", Type.date()), StructField.of("LAST_MODIFIED", Type.timestamp()),
+			StructField.of("TAGS", Type.array(Type.string())), StructField.of("ORDER_IDS", Type.array(Type.int64())),
+			StructField.of("UNMAPPED", Type.string()));
+
+	private static final Timestamp TIMESTAMP = Timestamp.ofTimeSecondsAndNanos(1500000000L, 0);
+
+	private static Struct createRow(long id)
+	{
+		return Struct.newBuilder().set("ID").to(id).set("RATING").to(5L).set("BALANCE").to(100.5d).set("DISCOUNT")
+				.to(0.25d).set("ACTIVE").to(true).set("FIRST_NAME").to("Name " + id).set("PHOTO")
+				.to(ByteArray.copyFrom("PHOTO")).set("BIRTH_DATE").to(Date.fromYearMonthDay(2000, 1, 31))
+				.set("LAST_MODIFIED").to(TIMESTAMP).set("TAGS").toStringArray(Arrays.asList("a", "b"))
+				.set("ORDER_IDS").toInt64Array(new long[] { 1L, 2L }).set("UNMAPPED").to("foo").build();
+	}
+
+	private static Struct createNullRow()
+	{
+		return Struct.newBuilder().set("ID").to((Long) null).set("RATING").to((Long) null).set("BALANCE")
+				.to((Double) null).set("DISCOUNT").to((Double) null).set("ACTIVE").to((Boolean) null)
+				.set("FIRST_NAME").to((String) null).set("PHOTO").to((ByteArray) null).set("BIRTH_DATE")
+				.to((Date) null).set("LAST_MODIFIED").to((Timestamp) null).set("TAGS").toStringArray(null)
+				.set("ORDER_IDS").toInt64Array((long[]) null).set("UNMAPPED").to((String) null).build();
+	}
+
+	@Test
+	public void testMapRows() throws SQLException
+	{
+		CloudSpannerRowMapper<Customer> mapper = CloudSpannerRowMapper.of(Customer.class);
+		assertSame(mapper, CloudSpannerRowMapper.of(Customer.class));
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(mock(CloudSpannerStatement.class),
+				ResultSets.forRows(TYPE, Arrays.asList(createRow(1L), createRow(2L), createNullRow())),
+				"SELECT * FROM CUSTOMER"))
+		{
+			List<Customer> customers = rs.unwrap(CloudSpannerResultSet.class).mapRows(mapper);
+			assertEquals(3, customers.size());
+			Customer customer = customers.get(1);
+			assertEquals(2L, customer.getId());
+			assertEquals(Integer.valueOf(5), customer.getRating());
+			assertEquals(100.5d, customer.getBalance(), 0d);
+			assertEquals(0.25f, customer.getDiscount(), 0f);
+			assertTrue(customer.isActive());
+			assertEquals("Name 2", customer.getFirstName());
+			assertArrayEquals("PHOTO".getBytes(), customer.getPhoto());
+			assertEquals(java.sql.Date.valueOf("2000-01-31"), customer.getBirthDate());
+			assertEquals(TIMESTAMP, customer.getLastModified());
+			assertEquals(Arrays.asList("a", "b"), customer.getTags());
+			assertArrayEquals(new long[] { 1L, 2L }, customer.getOrderIds());
+
+			// Null values leave primitive properties at their default value
+			Customer empty = customers.get(2);
+			assertEquals(0L, empty.getId());
+			assertNull(empty.getRating());
+			assertFalse(empty.isActive());
+			assertNull(empty.getFirstName());
+			assertNull(empty.getPhoto());
+			assertNull(empty.getTags());
+			assertNull(empty.getOrderIds());
+			assertTrue(rs.isAfterLast());
+		}
+	}
+
+	@Test
+	public void testMapStruct()
+	{
+		Customer customer = CloudSpannerRowMapper.of(Customer.class).map(createRow(3L));
+		assertEquals(3L, customer.getId());
+		assertEquals("Name 3", customer.getFirstName());
+		// A struct with other columns should bind the columns again
+		Struct other = Struct.newBuilder().set("FirstName").to("Other").build();
+		customer = CloudSpannerRowMapper.of(Customer.class).map(other);
+		assertEquals(0L, customer.getId());
+		assertEquals("Other", customer.getFirstName());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testMapBeforeFirst() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(mock(CloudSpannerStatement.class),
+				ResultSets.forRows(TYPE, Arrays.asList(createRow(1L))), "SELECT * FROM CUSTOMER"))
+		{
+			rs.mapRow(CloudSpannerRowMapper.of(Customer.class));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoDefaultConstructor()
+	{
+		CloudSpannerRowMapper.of(NoDefaultConstructor.class);
+	}
+
+}
@@ -0,0 +1,148 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerScrollInsensitiveResultSetTest
+{
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("NAME", Type.string()));
+
+	private static com.google.cloud.spanner.ResultSet createSpannerResultSet(int rows)
+	{
+		List<Struct> list = new ArrayList<>(rows);
+		for (long id = 1; id <= rows; id++)
+			list.add(Struct.newBuilder().set("ID").to(id).set("NAME").to("Name " + id).build());
+		return ResultSets.forRows(TYPE, list);
+	}
+
+	private static CloudSpannerResultSet createResultSet(com.google.cloud.spanner.ResultSet rs)
+	{
+		return new CloudSpannerScrollInsensitiveResultSet(mock(CloudSpannerStatement.class), rs, "SELECT * FROM FOO");
+	}
+
+	@Test
+	public void testScroll() throws SQLException
+	{
+		com.google.cloud.spanner.ResultSet delegate = spy(createSpannerResultSet(10));
+		try (CloudSpannerResultSet rs = createResultSet(delegate))
+		{
+			assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, rs.getType());
+			assertEquals(2, rs.getMetaData().getColumnCount());
+			assertTrue(rs.isBeforeFirst());
+			assertTrue(rs.next());
+			assertEquals(1L, rs.getLong("ID"));
+			assertTrue(rs.isFirst());
+			assertTrue(rs.absolute(5));
+			assertEquals(5, rs.getRow());
+			assertEquals("Name 5", rs.getString(2));
+			assertTrue(rs.previous());
+			assertEquals(4L, rs.getLong(1));
+			assertTrue(rs.relative(3));
+			assertEquals(7L, rs.getLong(1));
+			assertFalse(rs.isLast());
+			assertTrue(rs.last());
+			assertEquals(10L, rs.getLong(1));
+			assertTrue(rs.isLast());
+			assertFalse(rs.next());
+			assertTrue(rs.isAfterLast());
+			assertTrue(rs.previous());
+			assertEquals(10L, rs.getLong(1));
+			assertTrue(rs.absolute(-2));
+			assertEquals(9L, rs.getLong(1));
+			assertTrue(rs.first());
+			assertEquals(1L, rs.getLong(1));
+			assertFalse(rs.absolute(11));
+			assertTrue(rs.isAfterLast());
+			assertFalse(rs.absolute(-11));
+			assertTrue(rs.isBeforeFirst());
+			rs.afterLast();
+			assertTrue(rs.isAfterLast());
+			rs.beforeFirst();
+			assertTrue(rs.isBeforeFirst());
+			// A second pass should not execute the query again
+			int count = 0;
+			while (rs.next())
+				count++;
+			assertEquals(10, count);
+		}
+		verify(delegate, times(11)).next();
+		verify(delegate).close();
+	}
+
+	@Test
+	public void testEmptyResultSet() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = createResultSet(createSpannerResultSet(0)))
+		{
+			assertFalse(rs.first());
+			assertFalse(rs.last());
+			assertFalse(rs.next());
+			assertFalse(rs.previous());
+			assertTrue(rs.isBeforeFirst());
+		}
+	}
+
+	@Test
+	public void testSpillToDisk() throws SQLException
+	{
+		ScrollInsensitiveResultSet spanner = new ScrollInsensitiveResultSet(createSpannerResultSet(1000), 256L);
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(mock(CloudSpannerStatement.class), spanner,
+				"SELECT * FROM FOO"))
+		{
+			assertTrue(rs.last());
+			assertTrue(spanner.isSpilled());
+			for (int row = 1000; row > 0; row -= 13)
+			{
+				assertTrue(rs.absolute(row));
+				assertEquals(row, rs.getLong("ID"));
+				assertEquals("Name " + row, rs.getString("NAME"));
+			}
+		}
+	}
+
+	@Test
+	public void testFetchDirection() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = createResultSet(createSpannerResultSet(1)))
+		{
+			rs.setFetchDirection(ResultSet.FETCH_REVERSE);
+			assertEquals(ResultSet.FETCH_REVERSE, rs.getFetchDirection());
+		}
+	}
+
+	@Test(expected = SQLFeatureNotSupportedException.class)
+	public void testForwardOnly() throws SQLException
+	{
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(mock(CloudSpannerStatement.class),
+				createSpannerResultSet(1), "SELECT * FROM FOO"))
+		{
+			assertEquals(ResultSet.TYPE_FORWARD_ONLY, rs.getType());
+			rs.absolute(1);
+		}
+	}
+
+}
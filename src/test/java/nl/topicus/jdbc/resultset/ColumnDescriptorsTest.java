@@ -0,0 +1,50 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.Code;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class ColumnDescriptorsTest
+{
+
+	private static ColumnDescriptors createDescriptors()
+	{
+		return new ColumnDescriptors(Type.struct(StructField.of("ID", Type.int64()),
+				StructField.of("Name", Type.string()), StructField.of("NAME", Type.bool()),
+				StructField.of("VALUES", Type.array(Type.float64()))));
+	}
+
+	@Test
+	public void testTypes()
+	{
+		ColumnDescriptors columns = createDescriptors();
+		assertEquals(4, columns.getColumnCount());
+		assertEquals(Code.INT64, columns.getCode(0));
+		assertEquals(Type.string(), columns.getType(1));
+		assertEquals(Code.ARRAY, columns.getCode(3));
+		assertEquals(Type.float64(), columns.getType(3).getArrayElementType());
+	}
+
+	@Test
+	public void testGetColumnIndex()
+	{
+		ColumnDescriptors columns = createDescriptors();
+		assertEquals(0, columns.getColumnIndex("ID"));
+		assertEquals(0, columns.getColumnIndex("id"));
+		assertEquals(1, columns.getColumnIndex("Name"));
+		// Exact matches take precedence
+		assertEquals(2, columns.getColumnIndex("NAME"));
+		// Otherwise the first matching column is used
+		assertEquals(1, columns.getColumnIndex("name"));
+		assertEquals(-1, columns.getColumnIndex("FOO"));
+	}
+
+}
@@ -0,0 +1,131 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class ParallelPartitionResultSetTest
+{
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("NAME", Type.string()));
+
+	private static ResultSet createResultSet(long firstId, int rows)
+	{
+		List<Struct> list = new ArrayList<>(rows);
+		for (long id = firstId; id < firstId + rows; id++)
+			list.add(Struct.newBuilder().set("ID").to(id).set("NAME").to("Name " + id).build());
+		return ResultSets.forRows(TYPE, list);
+	}
+
+	private static List<Partition> createPartitions(BatchReadOnlyTransaction tx, int numberOfPartitions,
+			int rowsPerPartition)
+	{
+		List<Partition> partitions = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++)
+		{
+			Partition partition = mock(Partition.class);
+			final long firstId = (long) i * rowsPerPartition;
+			when(tx.execute(partition)).then(invocation -> createResultSet(firstId, rowsPerPartition));
+			partitions.add(partition);
+		}
+		return partitions;
+	}
+
+	@Test
+	public void testReadAllPartitions()
+	{
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		List<Partition> partitions = createPartitions(tx, 8, 100);
+		Set<Long> ids = new HashSet<>();
+		try (ParallelPartitionResultSet rs = new ParallelPartitionResultSet(tx, partitions, 4, 16))
+		{
+			assertEquals(TYPE, rs.getType());
+			while (rs.next())
+			{
+				long id = rs.getLong(0);
+				assertEquals("Name " + id, rs.getString("NAME"));
+				assertTrue(ids.add(id));
+			}
+		}
+		assertEquals(800, ids.size());
+	}
+
+	@Test
+	public void testEmptyPartitions()
+	{
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		List<Partition> partitions = createPartitions(tx, 3, 0);
+		try (ParallelPartitionResultSet rs = new ParallelPartitionResultSet(tx, partitions, 2))
+		{
+			assertEquals(TYPE, rs.getType());
+			assertFalse(rs.next());
+		}
+		try (ParallelPartitionResultSet rs = new ParallelPartitionResultSet(tx, Collections.emptyList(), 2))
+		{
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testPartitionFails()
+	{
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		List<Partition> partitions = createPartitions(tx, 3, 10);
+		Partition failing = mock(Partition.class);
+		when(tx.execute(failing))
+				.thenThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.NOT_FOUND, "Session not found"));
+		partitions.add(failing);
+		try (ParallelPartitionResultSet rs = new ParallelPartitionResultSet(tx, partitions, 2))
+		{
+			while (rs.next())
+			{
+				// consume all rows
+			}
+			fail("Expected exception not thrown");
+		}
+		catch (SpannerException e)
+		{
+			assertEquals(ErrorCode.NOT_FOUND, e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void testCloseBeforeEnd()
+	{
+		BatchReadOnlyTransaction tx = mock(BatchReadOnlyTransaction.class);
+		List<Partition> partitions = createPartitions(tx, 4, 1000);
+		ParallelPartitionResultSet rs = new ParallelPartitionResultSet(tx, partitions, 4, 4);
+		assertTrue(rs.next());
+		assertTrue(rs.next());
+		// Closing the result set should stop all readers that are blocked on
+		// the full queue
+		rs.close();
+	}
+
+}
@@ -0,0 +1,126 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class PrefetchingResultSetTest
+{
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("NAME", Type.string()));
+
+	private static Struct createRow(long id)
+	{
+		return Struct.newBuilder().set("ID").to(id).set("NAME").to("Name " + id).build();
+	}
+
+	private static ResultSet createResultSet(int rows)
+	{
+		List<Struct> list = new ArrayList<>(rows);
+		for (long id = 0; id < rows; id++)
+			list.add(createRow(id));
+		return ResultSets.forRows(TYPE, list);
+	}
+
+	@Test
+	public void testReadAllRows()
+	{
+		try (PrefetchingResultSet rs = new PrefetchingResultSet(createResultSet(1000), 16))
+		{
+			assertEquals(TYPE, rs.getType());
+			long expected = 0L;
+			while (rs.next())
+			{
+				assertEquals(expected, rs.getLong(0));
+				assertEquals("Name " + expected, rs.getString("NAME"));
+				expected++;
+			}
+			assertEquals(1000L, expected);
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testEmptyResultSet()
+	{
+		try (PrefetchingResultSet rs = new PrefetchingResultSet(createResultSet(0), 1))
+		{
+			assertEquals(TYPE, rs.getType());
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	public void testErrorAfterRows()
+	{
+		ResultSet delegate = mock(ResultSet.class);
+		when(delegate.getType()).thenReturn(TYPE);
+		when(delegate.next()).thenReturn(true, true)
+				.thenThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.UNAVAILABLE, "Stream broken"));
+		when(delegate.getCurrentRowAsStruct()).thenReturn(createRow(1L), createRow(2L));
+		try (PrefetchingResultSet rs = new PrefetchingResultSet(delegate, 10))
+		{
+			// The rows that were read before the error should be returned
+			assertTrue(rs.next());
+			assertEquals(1L, rs.getLong("ID"));
+			assertTrue(rs.next());
+			assertEquals(2L, rs.getLong("ID"));
+			rs.next();
+			fail("Expected exception not thrown");
+		}
+		catch (SpannerException e)
+		{
+			assertEquals(ErrorCode.UNAVAILABLE, e.getErrorCode());
+		}
+		verify(delegate).close();
+	}
+
+	@Test
+	public void testCloseBeforeEnd()
+	{
+		ResultSet delegate = mock(ResultSet.class);
+		when(delegate.getType()).thenReturn(TYPE);
+		when(delegate.next()).thenReturn(true);
+		when(delegate.getCurrentRowAsStruct()).thenReturn(createRow(1L));
+		PrefetchingResultSet rs = new PrefetchingResultSet(delegate, 4);
+		assertTrue(rs.next());
+		assertTrue(rs.next());
+		// Closing the result set should stop the reader that is blocked on
+		// the full buffer, which then closes the underlying result set
+		rs.close();
+		verify(delegate, timeout(5000L)).close();
+	}
+
+	@Test
+	public void testCloseBeforeStart()
+	{
+		ResultSet delegate = mock(ResultSet.class);
+		PrefetchingResultSet rs = new PrefetchingResultSet(delegate, 4);
+		rs.close();
+		verify(delegate).close();
+	}
+
+}
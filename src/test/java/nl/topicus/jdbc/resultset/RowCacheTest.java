@@ -0,0 +1,114 @@
+package nl.topicus.jdbc.resultset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class RowCacheTest
+{
+	private static final Type ELEMENT_TYPE = Type.struct(StructField.of("A", Type.int64()),
+			StructField.of("B", Type.string()));
+
+	private static final Type TYPE = Type.struct(StructField.of("BOOL", Type.bool()),
+			StructField.of("INT64", Type.int64()), StructField.of("FLOAT64", Type.float64()),
+			StructField.of("STRING", Type.string()), StructField.of("BYTES", Type.bytes()),
+			StructField.of("TIMESTAMP", Type.timestamp()), StructField.of("DATE", Type.date()),
+			StructField.of("INT64_ARRAY", Type.array(Type.int64())),
+			StructField.of("STRING_ARRAY", Type.array(Type.string())),
+			StructField.of("STRUCT_ARRAY", Type.array(ELEMENT_TYPE)));
+
+	private static Struct createRow(long id)
+	{
+		return Struct.newBuilder().set("BOOL").to(id % 2 == 0).set("INT64").to(-id).set("FLOAT64").to(id / 3d)
+				.set("STRING").to("Row \u00e9 " + id).set("BYTES").to(ByteArray.copyFrom(new byte[] { 1, (byte) id }))
+				.set("TIMESTAMP").to(Timestamp.ofTimeSecondsAndNanos(1500000000L + id, 123456789))
+				.set("DATE").to(Date.fromYearMonthDay(2017, 12, 31)).set("INT64_ARRAY")
+				.toInt64Array(Arrays.asList(id, null, Long.MIN_VALUE)).set("STRING_ARRAY")
+				.toStringArray(Arrays.asList("a", null)).add("STRUCT_ARRAY", ELEMENT_TYPE.getStructFields(),
+						Arrays.asList(Struct.newBuilder().set("A").to(id).set("B").to((String) null).build(), null))
+				.build();
+	}
+
+	private static Struct createNullRow()
+	{
+		return Struct.newBuilder().set("BOOL").to((Boolean) null).set("INT64").to((Long) null).set("FLOAT64")
+				.to((Double) null).set("STRING").to((String) null).set("BYTES").to((ByteArray) null).set("TIMESTAMP")
+				.to((Timestamp) null).set("DATE").to((Date) null).set("INT64_ARRAY").toInt64Array((long[]) null)
+				.set("STRING_ARRAY").toStringArray(null).add("STRUCT_ARRAY", ELEMENT_TYPE.getStructFields(), null)
+				.build();
+	}
+
+	@Test
+	public void testCodec()
+	{
+		RowCodec codec = new RowCodec(TYPE);
+		Struct row = createRow(1L);
+		assertEquals(row, codec.decode(codec.encode(row)));
+		Struct nullRow = createNullRow();
+		byte[] encoded = codec.encode(nullRow);
+		// Only the null bitmap is written for a row with only null values
+		assertEquals(2, encoded.length);
+		assertEquals(nullRow, codec.decode(encoded));
+	}
+
+	@Test
+	public void testInMemory() throws IOException
+	{
+		try (RowCache cache = new RowCache(TYPE, RowCache.DEFAULT_MEMORY_BUDGET))
+		{
+			for (long id = 0L; id < 100L; id++)
+				cache.add(createRow(id));
+			cache.add(createNullRow());
+			assertEquals(101, cache.size());
+			assertFalse(cache.isSpilled());
+			assertEquals(createRow(50L), cache.get(50));
+			assertEquals(createNullRow(), cache.get(100));
+			assertEquals(createRow(0L), cache.get(0));
+		}
+	}
+
+	@Test
+	public void testSpillToDisk() throws IOException
+	{
+		try (RowCache cache = new RowCache(TYPE, 1024L))
+		{
+			for (long id = 0L; id < 1000L; id++)
+				cache.add(createRow(id));
+			assertTrue(cache.isSpilled());
+			assertEquals(1000, cache.size());
+			for (int index = 999; index >= 0; index -= 7)
+				assertEquals(createRow(index), cache.get(index));
+			// Rows that are added after the file has been mapped should also
+			// be readable
+			cache.add(createNullRow());
+			assertEquals(createNullRow(), cache.get(1000));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testInvalidIndex() throws IOException
+	{
+		try (RowCache cache = new RowCache(TYPE, 1024L))
+		{
+			cache.add(createRow(1L));
+			cache.get(1);
+		}
+	}
+
+}
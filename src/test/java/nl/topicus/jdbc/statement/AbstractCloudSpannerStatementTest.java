@@ -8,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -16,6 +17,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
 
 import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.TimestampBound;
 
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
@@ -147,4 +149,23 @@ public class AbstractCloudSpannerStatementTest
 		subject.createInsertSelectOnDuplicateKeyUpdateStatement(update);
 	}
 
+	@Test
+	public void testGetReadContextWithReadStaleness() throws SQLException
+	{
+		TimestampBound staleness = TimestampBound.ofExactStaleness(10L, TimeUnit.SECONDS);
+		CloudSpannerConnection connection = CloudSpannerTestObjects.createConnection();
+		connection.setAutoCommit(true);
+		Mockito.when(connection.getReadStaleness()).thenReturn(staleness);
+		DatabaseClient dbClient = Mockito.mock(DatabaseClient.class);
+		AbstractCloudSpannerStatement statement = Mockito.mock(AbstractCloudSpannerStatement.class,
+				Mockito.withSettings().useConstructor(connection, dbClient).defaultAnswer(Mockito.CALLS_REAL_METHODS));
+
+		statement.getReadContext();
+		Mockito.verify(dbClient).singleUse(staleness);
+		// Queries on the information schema should always use a strong read
+		statement.setForceSingleUseReadContext(true);
+		statement.getReadContext();
+		Mockito.verify(dbClient).singleUse(TimestampBound.strong());
+	}
+
 }
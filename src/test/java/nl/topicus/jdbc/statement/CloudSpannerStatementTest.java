@@ -22,6 +22,7 @@ import org.mockito.Mockito;
 import org.mockito.internal.stubbing.answers.Returns;
 
 import nl.topicus.jdbc.CloudSpannerConnection;
+import nl.topicus.jdbc.resultset.CloudSpannerPrefetchingResultSet;
 import nl.topicus.jdbc.statement.CloudSpannerStatement.BatchMode;
 import nl.topicus.jdbc.test.category.UnitTest;
 import nl.topicus.jdbc.test.util.CloudSpannerTestObjects;
@@ -335,4 +336,15 @@ public class CloudSpannerStatementTest
 		}
 	}
 
+	@Test
+	public void testGetPrefetchSize() throws SQLException
+	{
+		CloudSpannerStatement statement = createConnection().createStatement();
+		assertEquals(CloudSpannerPrefetchingResultSet.DEFAULT_PREFETCH_SIZE, statement.getPrefetchSize());
+		statement.setFetchSize(10);
+		assertEquals(10, statement.getPrefetchSize());
+		statement.setFetchSize(1);
+		assertEquals(1, statement.getPrefetchSize());
+	}
+
 }
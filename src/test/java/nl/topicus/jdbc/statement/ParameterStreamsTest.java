@@ -0,0 +1,122 @@
+package nl.topicus.jdbc.statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+
+import com.google.cloud.ByteArray;
+import com.google.common.base.Strings;
+
+import nl.topicus.jdbc.CloudSpannerBlob;
+import nl.topicus.jdbc.CloudSpannerClob;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class ParameterStreamsTest
+{
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	/**
+	 * Stream that returns an endless sequence of zeros
+	 */
+	private static final class ZeroInputStream extends InputStream
+	{
+		private long read;
+
+		@Override
+		public int read()
+		{
+			read++;
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+		{
+			read += len;
+			return len;
+		}
+	}
+
+	private static InputStream stream(String value)
+	{
+		return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testToByteArray()
+	{
+		assertEquals(ByteArray.copyFrom("TEST"), ParameterStreams.toByteArray(stream("TEST"), null));
+		assertEquals(ByteArray.copyFrom("TE"), ParameterStreams.toByteArray(stream("TEST"), 2L));
+		assertEquals(ByteArray.copyFrom("TEST"), ParameterStreams.toByteArray(stream("TEST"), 10L));
+		assertEquals(ByteArray.copyFrom(""), ParameterStreams.toByteArray(stream("TEST"), 0L));
+	}
+
+	@Test
+	public void testToString()
+	{
+		assertEquals("TEST", ParameterStreams.toString(new StringReader("TEST"), null));
+		assertEquals("TE", ParameterStreams.toString(new StringReader("TEST"), 2L));
+		String large = Strings.repeat("ABCDEFGHIJ", 10000);
+		assertEquals(large, ParameterStreams.toString(new StringReader(large), null));
+		assertEquals(large, ParameterStreams.toString(new StringReader(large), (long) large.length()));
+	}
+
+	@Test
+	public void testDeclaredLengthTooLarge()
+	{
+		ZeroInputStream stream = new ZeroInputStream();
+		try
+		{
+			thrown.expect(IllegalArgumentException.class);
+			ParameterStreams.toByteArray(stream, ParameterStreams.MAX_VALUE_SIZE + 1L);
+		}
+		finally
+		{
+			// The stream should be rejected before anything is read
+			assertEquals(0L, stream.read);
+		}
+	}
+
+	@Test
+	public void testStreamTooLarge()
+	{
+		ZeroInputStream stream = new ZeroInputStream();
+		try
+		{
+			thrown.expect(IllegalArgumentException.class);
+			ParameterStreams.toByteArray(stream, null);
+		}
+		finally
+		{
+			// The stream should not be read further than the maximum size
+			assertEquals(ParameterStreams.MAX_VALUE_SIZE + 1L, stream.read);
+		}
+	}
+
+	@Test
+	public void testInvalidLength()
+	{
+		thrown.expect(IllegalArgumentException.class);
+		ParameterStreams.toString(new StringReader("TEST"), -1L);
+	}
+
+	@Test
+	public void testBlobAndClob()
+	{
+		ByteArray bytes = ByteArray.copyFrom("TEST");
+		assertSame(bytes, ParameterStreams.toByteArray(new CloudSpannerBlob(bytes)));
+		assertEquals("TEST", ParameterStreams.toString(new CloudSpannerClob("TEST")));
+	}
+
+}
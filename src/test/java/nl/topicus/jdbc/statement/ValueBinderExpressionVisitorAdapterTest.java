@@ -1,14 +1,19 @@
 package nl.topicus.jdbc.statement;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.Mutation.WriteBuilder;
 import com.google.cloud.spanner.ValueBinder;
 
+import nl.topicus.jdbc.CloudSpannerBlob;
+import nl.topicus.jdbc.CloudSpannerClob;
 import nl.topicus.jdbc.test.category.UnitTest;
 
 @Category(UnitTest.class)
@@ -40,6 +45,12 @@ public class ValueBinderExpressionVisitorAdapterTest
 		create().setValue("TEST");
 		create().setValue(BigDecimal.ONE);
 		create().setValue(new byte[] { (byte) 1 });
+		create().setValue(new ByteArrayInputStream(new byte[] { (byte) 1 }));
+		create().setValue(new ByteArrayInputStream(new byte[] { (byte) 1, (byte) 2 }), 1L);
+		create().setValue(new StringReader("TEST"));
+		create().setValue(new StringReader("TEST"), 2L);
+		create().setValue(new CloudSpannerBlob(ByteArray.copyFrom("TEST")));
+		create().setValue(new CloudSpannerClob("TEST"));
 
 		create().setValue(new short[] { (short) 1 });
 		create().setValue(new Short[] { (short) 1 });
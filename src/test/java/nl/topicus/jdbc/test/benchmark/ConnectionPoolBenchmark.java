@@ -0,0 +1,131 @@
+package nl.topicus.jdbc.test.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+
+import nl.topicus.jdbc.CloudSpannerPoolingDataSource;
+
+/**
+ * Compares the throughput of borrowing and returning connections of
+ * {@link CloudSpannerPoolingDataSource} and c3p0 under high contention. The
+ * benchmark does not execute any statements, so it does not need access to a
+ * Cloud Spanner database. Run it with the main method; the number of threads,
+ * the pool size and the number of iterations per thread can be given as
+ * arguments.
+ */
+public class ConnectionPoolBenchmark
+{
+	private static final Logger log = Logger.getLogger(ConnectionPoolBenchmark.class.getName());
+
+	private static final String URL = "jdbc:cloudspanner://localhost;Project=helpful-adroit-123456;Instance=test-instance;Database=test;OAuthAccessToken=TEST";
+
+	private static final int WARMUP_ROUNDS = 2;
+
+	public static void main(String[] args) throws Exception
+	{
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+		int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+		CloudSpannerPoolingDataSource pooling = new CloudSpannerPoolingDataSource();
+		pooling.setProjectId("helpful-adroit-123456");
+		pooling.setInstanceId("test-instance");
+		pooling.setDatabase("test");
+		pooling.setOauthAccessToken("TEST");
+		pooling.setMaxPoolSize(poolSize);
+
+		ComboPooledDataSource c3p0 = new ComboPooledDataSource();
+		c3p0.setDriverClass("nl.topicus.jdbc.CloudSpannerDriver");
+		c3p0.setJdbcUrl(URL);
+		c3p0.setProperties(new Properties());
+		c3p0.setInitialPoolSize(poolSize);
+		c3p0.setMinPoolSize(poolSize);
+		c3p0.setMaxPoolSize(poolSize);
+
+		try
+		{
+			for (int round = 0; round <= WARMUP_ROUNDS; round++)
+			{
+				String prefix = round < WARMUP_ROUNDS ? "Warmup " : "";
+				log.info(prefix + "CloudSpannerPoolingDataSource: "
+						+ format(run(pooling, threads, iterations), threads, iterations));
+				log.info(prefix + "c3p0: " + format(run(c3p0, threads, iterations), threads, iterations));
+			}
+		}
+		finally
+		{
+			pooling.close();
+			c3p0.close();
+		}
+	}
+
+	private static String format(long nanos, int threads, int iterations)
+	{
+		long operations = (long) threads * iterations;
+		return String.format("%d borrow/return operations in %d ms (%.0f ops/s)", operations,
+				TimeUnit.NANOSECONDS.toMillis(nanos), operations / (nanos / 1e9));
+	}
+
+	/**
+	 * Lets each thread borrow and return a connection from the data source
+	 * the given number of times
+	 *
+	 * @return The elapsed time in nanoseconds
+	 */
+	private static long run(DataSource dataSource, int threads, int iterations) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try
+		{
+			List<Future<Void>> futures = new ArrayList<>(threads);
+			Callable<Void> task = () ->
+			{
+				start.await();
+				for (int i = 0; i < iterations; i++)
+				{
+					borrow(dataSource);
+				}
+				return null;
+			};
+			for (int thread = 0; thread < threads; thread++)
+			{
+				futures.add(executor.submit(task));
+			}
+			long startTime = System.nanoTime();
+			start.countDown();
+			for (Future<Void> future : futures)
+			{
+				future.get();
+			}
+			return System.nanoTime() - startTime;
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private static void borrow(DataSource dataSource) throws SQLException
+	{
+		try (Connection connection = dataSource.getConnection())
+		{
+			connection.getAutoCommit();
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package nl.topicus.jdbc.test.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+import nl.topicus.jdbc.CloudSpannerConnectionPoolDataSource;
+import nl.topicus.jdbc.CloudSpannerPooledConnection;
+
+/**
+ * Measures the overhead per JDBC call of the connection and statement handles
+ * of {@link CloudSpannerPooledConnection} compared to calling the physical
+ * connection directly. The calls that are measured do not need access to a
+ * Cloud Spanner database. Run it with the main method; the number of
+ * iterations can be given as an argument.
+ */
+public class PooledConnectionBenchmark
+{
+	private static final Logger log = Logger.getLogger(PooledConnectionBenchmark.class.getName());
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	@FunctionalInterface
+	private static interface Operation
+	{
+		void run(Connection connection) throws SQLException;
+	}
+
+	private static volatile Object sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+
+		CloudSpannerConnectionPoolDataSource ds = new CloudSpannerConnectionPoolDataSource();
+		ds.setProjectId("helpful-adroit-123456");
+		ds.setInstanceId("test-instance");
+		ds.setDatabase("test");
+		ds.setOauthAccessToken("TEST");
+		Connection physical = ds.getConnection();
+		CloudSpannerPooledConnection pooledConnection = new CloudSpannerPooledConnection(physical, true);
+		Connection pooled = pooledConnection.getConnection();
+		PreparedStatement physicalStatement = physical.prepareStatement("SELECT * FROM FOO WHERE ID=?");
+		PreparedStatement pooledStatement = pooled.prepareStatement("SELECT * FROM FOO WHERE ID=?");
+
+		Operation getAutoCommit = connection -> sink = connection.getAutoCommit();
+		Operation createStatement = connection -> connection.createStatement().close();
+		try
+		{
+			for (int round = 0; round <= WARMUP_ROUNDS; round++)
+			{
+				String prefix = round < WARMUP_ROUNDS ? "Warmup " : "";
+				log.info(prefix + "Connection.getAutoCommit(): physical " + measure(physical, getAutoCommit, iterations)
+						+ " ns/call, pooled " + measure(pooled, getAutoCommit, iterations) + " ns/call");
+				log.info(prefix + "Connection.createStatement().close(): physical "
+						+ measure(physical, createStatement, iterations) + " ns/call, pooled "
+						+ measure(pooled, createStatement, iterations) + " ns/call");
+				log.info(prefix + "PreparedStatement.setLong(1, x): physical "
+						+ measure(physicalStatement, iterations) + " ns/call, pooled "
+						+ measure(pooledStatement, iterations) + " ns/call");
+			}
+		}
+		finally
+		{
+			pooledConnection.close();
+		}
+	}
+
+	private static double measure(Connection connection, Operation operation, int iterations) throws SQLException
+	{
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			operation.run(connection);
+		}
+		return (System.nanoTime() - start) / (double) iterations;
+	}
+
+	private static double measure(PreparedStatement statement, int iterations) throws SQLException
+	{
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			statement.setLong(1, i);
+		}
+		return (System.nanoTime() - start) / (double) iterations;
+	}
+
+}
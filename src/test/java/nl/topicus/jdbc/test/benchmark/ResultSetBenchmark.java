@@ -0,0 +1,291 @@
+package nl.topicus.jdbc.test.benchmark;
+
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.mockito.Mockito;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.Code;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * Measures the time needed to scan a {@link CloudSpannerResultSet} with 20
+ * columns of different types using the index getters, the label getters and
+ * getObject, compared to reading the same values directly from the underlying
+ * Cloud Spanner result set. The rows are kept in memory, so the benchmark does
+ * not need access to a Cloud Spanner database. Run it with the main method;
+ * the number of rows can be given as an argument.
+ */
+public class ResultSetBenchmark
+{
+	private static final Logger log = Logger.getLogger(ResultSetBenchmark.class.getName());
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private static final int MEASURED_ROUNDS = 10;
+
+	private static final int DISTINCT_ROWS = 1000;
+
+	private static final Type[] COLUMN_TYPES = { Type.int64(), Type.int64(), Type.int64(), Type.int64(),
+			Type.int64(), Type.float64(), Type.float64(), Type.float64(), Type.float64(), Type.string(),
+			Type.string(), Type.string(), Type.string(), Type.bool(), Type.bool(), Type.timestamp(), Type.timestamp(),
+			Type.date(), Type.bytes(), Type.string() };
+
+	@FunctionalInterface
+	private static interface Scan
+	{
+		void run(CloudSpannerResultSet rs) throws SQLException;
+	}
+
+	private static volatile Object sink;
+
+	/**
+	 * Primitive values are added to this field, so that they are not boxed
+	 */
+	private static long total;
+
+	public static void main(String[] args) throws Exception
+	{
+		int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		Type type = createType();
+		List<Struct> rows = createRows(type, rowCount);
+		String[] labels = new String[COLUMN_TYPES.length];
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = type.getStructFields().get(i).getName();
+
+		Scan byIndex = rs -> readByIndex(rs);
+		Scan byLabel = rs -> readByLabel(rs, labels);
+		Scan byObject = rs -> readObjects(rs);
+		// The fastest of the measured rounds is reported, as the results of
+		// a single round vary with garbage collection
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+		{
+			long[] nanos = { measureSpanner(type, rows), measure(type, rows, byIndex), measure(type, rows, byLabel),
+					measure(type, rows, byObject) };
+			if (round >= WARMUP_ROUNDS)
+			{
+				for (int i = 0; i < best.length; i++)
+					best[i] = Math.min(best[i], nanos[i]);
+			}
+		}
+		log.info("Cloud Spanner ResultSet: " + format(best[0], rowCount));
+		log.info("Index getters: " + format(best[1], rowCount));
+		log.info("Label getters: " + format(best[2], rowCount));
+		log.info("getObject: " + format(best[3], rowCount));
+		log.fine("Total: " + total);
+	}
+
+	private static Type createType()
+	{
+		List<StructField> fields = new ArrayList<>(COLUMN_TYPES.length);
+		for (int i = 0; i < COLUMN_TYPES.length; i++)
+			fields.add(StructField.of("COL" + i, COLUMN_TYPES[i]));
+		return Type.struct(fields);
+	}
+
+	/**
+	 * Creates a list of the given size that repeats a limited number of
+	 * distinct rows. One in ten values is null.
+	 */
+	private static List<Struct> createRows(Type type, int rowCount)
+	{
+		List<Struct> distinct = new ArrayList<>(DISTINCT_ROWS);
+		for (int row = 0; row < DISTINCT_ROWS; row++)
+		{
+			Struct.Builder builder = Struct.newBuilder();
+			for (int col = 0; col < COLUMN_TYPES.length; col++)
+			{
+				boolean isNull = (row + col) % 10 == 0;
+				String name = type.getStructFields().get(col).getName();
+				switch (COLUMN_TYPES[col].getCode())
+				{
+				case INT64:
+					builder.set(name).to(isNull ? null : Long.valueOf(row * col));
+					break;
+				case FLOAT64:
+					builder.set(name).to(isNull ? null : Double.valueOf(row / (col + 1d)));
+					break;
+				case STRING:
+					builder.set(name).to(isNull ? null : "Value " + row);
+					break;
+				case BOOL:
+					builder.set(name).to(isNull ? null : Boolean.valueOf(row % 2 == 0));
+					break;
+				case TIMESTAMP:
+					builder.set(name).to(isNull ? null : Timestamp.ofTimeMicroseconds(row * 1000000L));
+					break;
+				case DATE:
+					builder.set(name).to(isNull ? null : Date.fromYearMonthDay(2018, 1 + row % 12, 1 + row % 28));
+					break;
+				case BYTES:
+					builder.set(name).to(isNull ? null : ByteArray.copyFrom("Value " + row));
+					break;
+				default:
+					throw new IllegalArgumentException();
+				}
+			}
+			distinct.add(builder.build());
+		}
+		return new AbstractList<Struct>()
+		{
+			@Override
+			public Struct get(int index)
+			{
+				return distinct.get(index % DISTINCT_ROWS);
+			}
+
+			@Override
+			public int size()
+			{
+				return rowCount;
+			}
+		};
+	}
+
+	private static String format(long nanos, int rowCount)
+	{
+		long values = (long) rowCount * COLUMN_TYPES.length;
+		return String.format("%d rows x %d columns in %d ms (%.1f ns/value)", rowCount, COLUMN_TYPES.length,
+				nanos / 1000000L, nanos / (double) values);
+	}
+
+	private static long measure(Type type, List<Struct> rows, Scan scan) throws SQLException
+	{
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(Mockito.mock(CloudSpannerStatement.class),
+				ResultSets.forRows(type, rows), "SELECT * FROM FOO"))
+		{
+			long start = System.nanoTime();
+			while (rs.next())
+			{
+				scan.run(rs);
+			}
+			return System.nanoTime() - start;
+		}
+	}
+
+	private static long measureSpanner(Type type, List<Struct> rows)
+	{
+		try (ResultSet rs = ResultSets.forRows(type, rows))
+		{
+			long start = System.nanoTime();
+			while (rs.next())
+			{
+				for (int col = 0; col < COLUMN_TYPES.length; col++)
+				{
+					if (rs.isNull(col))
+						continue;
+					switch (COLUMN_TYPES[col].getCode())
+					{
+					case INT64:
+						total += rs.getLong(col);
+						break;
+					case FLOAT64:
+						total += (long) rs.getDouble(col);
+						break;
+					case STRING:
+						sink = rs.getString(col);
+						break;
+					case BOOL:
+						total += rs.getBoolean(col) ? 1 : 0;
+						break;
+					case TIMESTAMP:
+						sink = rs.getTimestamp(col);
+						break;
+					case DATE:
+						sink = rs.getDate(col);
+						break;
+					default:
+						sink = rs.getBytes(col);
+					}
+				}
+			}
+			return System.nanoTime() - start;
+		}
+	}
+
+	private static void readByIndex(CloudSpannerResultSet rs) throws SQLException
+	{
+		for (int col = 0; col < COLUMN_TYPES.length; col++)
+		{
+			int index = col + 1;
+			Code code = COLUMN_TYPES[col].getCode();
+			switch (code)
+			{
+			case INT64:
+				total += rs.getLong(index);
+				break;
+			case FLOAT64:
+				total += (long) rs.getDouble(index);
+				break;
+			case STRING:
+				sink = rs.getString(index);
+				break;
+			case BOOL:
+				total += rs.getBoolean(index) ? 1 : 0;
+				break;
+			case TIMESTAMP:
+				sink = rs.getTimestamp(index);
+				break;
+			case DATE:
+				sink = rs.getDate(index);
+				break;
+			default:
+				sink = rs.getBytes(index);
+			}
+		}
+	}
+
+	private static void readByLabel(CloudSpannerResultSet rs, String[] labels) throws SQLException
+	{
+		for (int col = 0; col < COLUMN_TYPES.length; col++)
+		{
+			String label = labels[col];
+			switch (COLUMN_TYPES[col].getCode())
+			{
+			case INT64:
+				total += rs.getLong(label);
+				break;
+			case FLOAT64:
+				total += (long) rs.getDouble(label);
+				break;
+			case STRING:
+				sink = rs.getString(label);
+				break;
+			case BOOL:
+				total += rs.getBoolean(label) ? 1 : 0;
+				break;
+			case TIMESTAMP:
+				sink = rs.getTimestamp(label);
+				break;
+			case DATE:
+				sink = rs.getDate(label);
+				break;
+			default:
+				sink = rs.getBytes(label);
+			}
+		}
+	}
+
+	private static void readObjects(CloudSpannerResultSet rs) throws SQLException
+	{
+		for (int index = 1; index <= COLUMN_TYPES.length; index++)
+		{
+			sink = rs.getObject(index);
+		}
+	}
+
+}
@@ -0,0 +1,247 @@
+package nl.topicus.jdbc.test.benchmark;
+
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.mockito.Mockito;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.resultset.CloudSpannerRowMapper;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
+
+/**
+ * Measures the time needed to map the rows of a {@link CloudSpannerResultSet}
+ * with 10 columns of different types to Java beans using a
+ * {@link CloudSpannerRowMapper}, compared to a hand-written loop that calls
+ * the index getters of the result set and the setters of the bean. The rows
+ * are kept in memory, so the benchmark does not need access to a Cloud Spanner
+ * database. Run it with the main method; the number of rows can be given as an
+ * argument.
+ */
+public class RowMapperBenchmark
+{
+	private static final Logger log = Logger.getLogger(RowMapperBenchmark.class.getName());
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private static final int MEASURED_ROUNDS = 10;
+
+	private static final int DISTINCT_ROWS = 1000;
+
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("QUANTITY", Type.int64()), StructField.of("PRICE", Type.float64()),
+			StructField.of("DISCOUNT", Type.float64()), StructField.of("NAME", Type.string()),
+			StructField.of("DESCRIPTION", Type.string()), StructField.of("ACTIVE", Type.bool()),
+			StructField.of("CREATED", Type.timestamp()), StructField.of("DELIVERY_DATE", Type.date()),
+			StructField.of("DATA", Type.bytes()));
+
+	@FunctionalInterface
+	private static interface Mapping
+	{
+		List<Product> run(CloudSpannerResultSet rs) throws SQLException;
+	}
+
+	private static volatile Object sink;
+
+	/**
+	 * The bean that the rows are mapped to
+	 */
+	public static class Product
+	{
+		private long id;
+
+		private int quantity;
+
+		private double price;
+
+		private Double discount;
+
+		private String name;
+
+		private String description;
+
+		private boolean active;
+
+		private java.sql.Timestamp created;
+
+		private java.sql.Date deliveryDate;
+
+		private byte[] data;
+
+		public void setId(long id)
+		{
+			this.id = id;
+		}
+
+		public void setQuantity(int quantity)
+		{
+			this.quantity = quantity;
+		}
+
+		public void setPrice(double price)
+		{
+			this.price = price;
+		}
+
+		public void setDiscount(Double discount)
+		{
+			this.discount = discount;
+		}
+
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+
+		public void setDescription(String description)
+		{
+			this.description = description;
+		}
+
+		public void setActive(boolean active)
+		{
+			this.active = active;
+		}
+
+		public void setCreated(java.sql.Timestamp created)
+		{
+			this.created = created;
+		}
+
+		public void setDeliveryDate(java.sql.Date deliveryDate)
+		{
+			this.deliveryDate = deliveryDate;
+		}
+
+		public void setData(byte[] data)
+		{
+			this.data = data;
+		}
+
+		@Override
+		public String toString()
+		{
+			return id + "," + quantity + "," + price + "," + discount + "," + name + "," + description + "," + active
+					+ "," + created + "," + deliveryDate + "," + (data == null ? 0 : data.length);
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		List<Struct> rows = createRows(rowCount);
+
+		CloudSpannerRowMapper<Product> mapper = CloudSpannerRowMapper.of(Product.class);
+		Mapping byMapper = rs -> rs.mapRows(mapper);
+		Mapping byGetters = RowMapperBenchmark::mapByGetters;
+		// The fastest of the measured rounds is reported, as the results of
+		// a single round vary with garbage collection
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+		{
+			long[] nanos = { measure(rows, byGetters), measure(rows, byMapper) };
+			if (round >= WARMUP_ROUNDS)
+			{
+				for (int i = 0; i < best.length; i++)
+					best[i] = Math.min(best[i], nanos[i]);
+			}
+		}
+		log.info("Index getters and setters: " + format(best[0], rowCount));
+		log.info("CloudSpannerRowMapper: " + format(best[1], rowCount));
+		log.fine("Last row: " + sink);
+	}
+
+	/**
+	 * Creates a list of the given size that repeats a limited number of
+	 * distinct rows. One in ten values is null.
+	 */
+	private static List<Struct> createRows(int rowCount)
+	{
+		List<Struct> distinct = new ArrayList<>(DISTINCT_ROWS);
+		for (int row = 0; row < DISTINCT_ROWS; row++)
+		{
+			distinct.add(Struct.newBuilder().set("ID").to(Long.valueOf(row)).set("QUANTITY")
+					.to(isNull(row, 1) ? null : Long.valueOf(row % 100)).set("PRICE")
+					.to(isNull(row, 2) ? null : Double.valueOf(row / 3d)).set("DISCOUNT")
+					.to(isNull(row, 3) ? null : Double.valueOf(row / 7d)).set("NAME")
+					.to(isNull(row, 4) ? null : "Name " + row).set("DESCRIPTION")
+					.to(isNull(row, 5) ? null : "Description " + row).set("ACTIVE")
+					.to(isNull(row, 6) ? null : Boolean.valueOf(row % 2 == 0)).set("CREATED")
+					.to(isNull(row, 7) ? null : Timestamp.ofTimeMicroseconds(row * 1000000L)).set("DELIVERY_DATE")
+					.to(isNull(row, 8) ? null : Date.fromYearMonthDay(2018, 1 + row % 12, 1 + row % 28)).set("DATA")
+					.to(isNull(row, 9) ? null : ByteArray.copyFrom("Data " + row)).build());
+		}
+		return new AbstractList<Struct>()
+		{
+			@Override
+			public Struct get(int index)
+			{
+				return distinct.get(index % DISTINCT_ROWS);
+			}
+
+			@Override
+			public int size()
+			{
+				return rowCount;
+			}
+		};
+	}
+
+	private static boolean isNull(int row, int col)
+	{
+		return (row + col) % 10 == 0;
+	}
+
+	private static String format(long nanos, int rowCount)
+	{
+		return String.format("%d rows in %d ms (%.1f ns/row)", rowCount, nanos / 1000000L,
+				nanos / (double) rowCount);
+	}
+
+	private static long measure(List<Struct> rows, Mapping mapping) throws SQLException
+	{
+		try (CloudSpannerResultSet rs = new CloudSpannerResultSet(Mockito.mock(CloudSpannerStatement.class),
+				ResultSets.forRows(TYPE, rows), "SELECT * FROM PRODUCT"))
+		{
+			long start = System.nanoTime();
+			List<Product> products = mapping.run(rs);
+			long res = System.nanoTime() - start;
+			sink = products.get(products.size() - 1);
+			return res;
+		}
+	}
+
+	private static List<Product> mapByGetters(CloudSpannerResultSet rs) throws SQLException
+	{
+		List<Product> res = new ArrayList<>();
+		while (rs.next())
+		{
+			Product product = new Product();
+			product.setId(rs.getLong(1));
+			product.setQuantity(rs.getInt(2));
+			product.setPrice(rs.getDouble(3));
+			double discount = rs.getDouble(4);
+			product.setDiscount(rs.wasNull() ? null : discount);
+			product.setName(rs.getString(5));
+			product.setDescription(rs.getString(6));
+			product.setActive(rs.getBoolean(7));
+			product.setCreated(rs.getTimestamp(8));
+			product.setDeliveryDate(rs.getDate(9));
+			product.setData(rs.getBytes(10));
+			res.add(product);
+		}
+		return res;
+	}
+
+}
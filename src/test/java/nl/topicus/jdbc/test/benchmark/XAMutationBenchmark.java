@@ -0,0 +1,140 @@
+package nl.topicus.jdbc.test.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Mutation;
+
+/**
+ * Measures the time needed to serialize the mutations of an XA transaction
+ * when the transaction is prepared, and to deserialize them again when the
+ * transaction is committed. The compact encoding that is used by the driver is
+ * compared to the Base64 encoded Java serialization that was used by older
+ * versions of the driver. The benchmark calls the package-private methods of
+ * XATransaction through reflection and does not need access to a Cloud Spanner
+ * database. Run it with the main method; the number of mutations can be given
+ * as an argument.
+ */
+public class XAMutationBenchmark
+{
+	private static final Logger log = Logger.getLogger(XAMutationBenchmark.class.getName());
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private static final int MEASURED_ROUNDS = 10;
+
+	private static final String XA_TRANSACTION_CLASS = "nl.topicus.jdbc.transaction.XATransaction";
+
+	private static Method serializeMutation;
+
+	private static Method deserializeMutation;
+
+	private static Method serializeLegacyMutation;
+
+	private static Method deserializeLegacyMutation;
+
+	private static volatile Object sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		int mutationCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		Class<?> xaTransaction = Class.forName(XA_TRANSACTION_CLASS);
+		serializeMutation = getMethod(xaTransaction, "serializeMutation", Mutation.class);
+		deserializeMutation = getMethod(xaTransaction, "deserializeMutation", ByteArray.class);
+		serializeLegacyMutation = getMethod(xaTransaction, "serializeLegacyMutation", Mutation.class);
+		deserializeLegacyMutation = getMethod(xaTransaction, "deserializeLegacyMutation", String.class);
+		List<Mutation> mutations = createMutations(mutationCount);
+
+		// The fastest of the measured rounds is reported, as the results of
+		// a single round vary with garbage collection
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+		long legacyBytes = 0L;
+		long codecBytes = 0L;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++)
+		{
+			List<String> legacy = new ArrayList<>(mutationCount);
+			List<ByteArray> encoded = new ArrayList<>(mutationCount);
+			long[] nanos = new long[4];
+			long start = System.nanoTime();
+			for (Mutation mutation : mutations)
+				legacy.add((String) serializeLegacyMutation.invoke(null, mutation));
+			nanos[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (Mutation mutation : mutations)
+				encoded.add((ByteArray) serializeMutation.invoke(null, mutation));
+			nanos[1] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (String mutation : legacy)
+				sink = deserializeLegacyMutation.invoke(null, mutation);
+			nanos[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (ByteArray mutation : encoded)
+				sink = deserializeMutation.invoke(null, mutation);
+			nanos[3] = System.nanoTime() - start;
+			if (round >= WARMUP_ROUNDS)
+			{
+				for (int i = 0; i < best.length; i++)
+					best[i] = Math.min(best[i], nanos[i]);
+			}
+			legacyBytes = 0L;
+			for (String mutation : legacy)
+				legacyBytes += mutation.length();
+			codecBytes = 0L;
+			for (ByteArray mutation : encoded)
+				codecBytes += mutation.length();
+		}
+		log.info("Prepare, Java serialization and Base64: " + format(best[0], mutationCount, legacyBytes));
+		log.info("Prepare, MutationCodec: " + format(best[1], mutationCount, codecBytes));
+		log.info("Commit, Java serialization and Base64: " + format(best[2], mutationCount, legacyBytes));
+		log.info("Commit, MutationCodec: " + format(best[3], mutationCount, codecBytes));
+		log.fine("Last mutation: " + sink);
+	}
+
+	private static Method getMethod(Class<?> type, String name, Class<?> parameterType)
+			throws NoSuchMethodException
+	{
+		Method res = type.getDeclaredMethod(name, parameterType);
+		res.setAccessible(true);
+		return res;
+	}
+
+	/**
+	 * Creates insert mutations with 10 columns of different types. One in ten
+	 * values is null.
+	 */
+	private static List<Mutation> createMutations(int mutationCount)
+	{
+		List<Mutation> res = new ArrayList<>(mutationCount);
+		for (int row = 0; row < mutationCount; row++)
+		{
+			res.add(Mutation.newInsertBuilder("PRODUCT").set("ID").to(row).set("QUANTITY")
+					.to(isNull(row, 1) ? null : Long.valueOf(row % 100)).set("PRICE")
+					.to(isNull(row, 2) ? null : Double.valueOf(row / 3d)).set("DISCOUNT")
+					.to(isNull(row, 3) ? null : Double.valueOf(row / 7d)).set("NAME")
+					.to(isNull(row, 4) ? null : "Name " + row).set("DESCRIPTION")
+					.to(isNull(row, 5) ? null : "Description of product " + row).set("ACTIVE")
+					.to(isNull(row, 6) ? null : Boolean.valueOf(row % 2 == 0)).set("CREATED")
+					.to(isNull(row, 7) ? null : Timestamp.ofTimeMicroseconds(row * 1000000L)).set("DELIVERY_DATE")
+					.to(isNull(row, 8) ? null : Date.fromYearMonthDay(2018, 1 + row % 12, 1 + row % 28)).set("DATA")
+					.to(isNull(row, 9) ? null : ByteArray.copyFrom("Data " + row)).build());
+		}
+		return res;
+	}
+
+	private static boolean isNull(int row, int col)
+	{
+		return (row + col) % 10 == 0;
+	}
+
+	private static String format(long nanos, int mutationCount, long bytes)
+	{
+		return String.format("%d mutations in %d ms (%.1f ns/mutation, %d bytes/mutation)", mutationCount,
+				nanos / 1000000L, nanos / (double) mutationCount, bytes / mutationCount);
+	}
+
+}
@@ -21,6 +21,7 @@ import nl.topicus.jdbc.CloudSpannerConnection;
 import nl.topicus.jdbc.CloudSpannerDatabaseMetaData;
 import nl.topicus.jdbc.Logger;
 import nl.topicus.jdbc.MetaDataStore.TableKeyMetaData;
+import nl.topicus.jdbc.SchemaSnapshot;
 import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
 import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
 import nl.topicus.jdbc.transaction.CloudSpannerTransaction;
@@ -64,6 +65,16 @@ public class CloudSpannerTestObjects
 				.thenAnswer(new Returns(tableBar));
 		Mockito.when(connection.getLogger()).thenAnswer(new Returns(new Logger()));
 
+		SchemaSnapshot snapshot = SchemaSnapshot.load(metadata);
+		Mockito.when(connection.getSchemaTable(Mockito.anyString())).thenAnswer(new Answer<SchemaSnapshot.Table>()
+		{
+			@Override
+			public SchemaSnapshot.Table answer(InvocationOnMock invocation) throws Throwable
+			{
+				return snapshot.getTable(invocation.getArgument(0));
+			}
+		});
+
 		mockXAMethods(connection);
 
 		return connection;
@@ -71,12 +82,24 @@ public class CloudSpannerTestObjects
 
 	private static void mockXAMethods(CloudSpannerConnection connection) throws SQLException
 	{
-		String checkTable = null;
+		CloudSpannerResultSet rs = mockXAQuery(connection, "CHECK_TABLE_EXISTENCE");
+		Mockito.when(rs.next()).thenReturn(true, true, false);
+		Mockito.when(rs.getString(1)).thenReturn(CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN,
+				CloudSpannerXAConnection.XA_PREPARED_XID_COLUMN);
+		mockXAQuery(connection, "CHECK_INDEX_EXISTENCE");
+		// No transactions have been prepared by an older version of the driver
+		Mockito.when(mockXAQuery(connection, "SELECT_LEGACY_PREPARED").next()).thenReturn(false);
+	}
+
+	private static CloudSpannerResultSet mockXAQuery(CloudSpannerConnection connection, String fieldName)
+			throws SQLException
+	{
+		String sql = null;
 		try
 		{
-			Field field = CloudSpannerXAConnection.class.getDeclaredField("CHECK_TABLE_EXISTENCE");
+			Field field = CloudSpannerXAConnection.class.getDeclaredField(fieldName);
 			field.setAccessible(true);
-			checkTable = (String) field.get(null);
+			sql = (String) field.get(null);
 		}
 		catch (Exception e)
 		{
@@ -85,8 +108,9 @@ public class CloudSpannerTestObjects
 		CloudSpannerPreparedStatement ps = Mockito.mock(CloudSpannerPreparedStatement.class);
 		CloudSpannerResultSet rs = Mockito.mock(CloudSpannerResultSet.class);
 		Mockito.when(rs.next()).thenReturn(true, false);
-		Mockito.when(connection.prepareStatement(checkTable)).thenAnswer(new Returns(ps));
+		Mockito.when(connection.prepareStatement(sql)).thenAnswer(new Returns(ps));
 		Mockito.when(ps.executeQuery()).thenAnswer(new Returns(rs));
+		return rs;
 	}
 
 	private static CloudSpannerDatabaseMetaData createMetaData() throws SQLException
@@ -156,9 +180,72 @@ public class CloudSpannerTestObjects
 					}
 				});
 
+		mockSchemaMetaData(metadata);
+
 		return metadata;
 	}
 
+	/**
+	 * Mocks the meta data queries for all tables that are used to load a
+	 * {@link SchemaSnapshot}
+	 */
+	private static void mockSchemaMetaData(CloudSpannerDatabaseMetaData metadata) throws SQLException
+	{
+		Mockito.when(metadata.getColumns(Mockito.any(), Mockito.any(), Mockito.isNull(), Mockito.any()))
+				.thenAnswer(new Answer<ResultSet>()
+				{
+
+					@Override
+					public ResultSet answer(InvocationOnMock invocation) throws Throwable
+					{
+						CloudSpannerResultSet columns = Mockito.mock(CloudSpannerResultSet.class);
+						Mockito.when(columns.next()).thenReturn(true, true, true, true, true, false);
+						Mockito.when(columns.getString("TABLE_NAME")).thenReturn("FOO", "FOO", "FOO", "BAR", "BAR");
+						Mockito.when(columns.getString("COLUMN_NAME")).thenReturn("ID", "COL1", "COL2", "ID1", "ID2");
+						Mockito.when(columns.getString("TYPE_NAME")).thenReturn("INT64", "STRING(50)", "STRING(100)",
+								"INT64", "INT64");
+						Mockito.when(columns.getInt("COLUMN_SIZE")).thenReturn(8, 50, 100, 8, 8);
+						Mockito.when(columns.getInt("DATA_TYPE")).thenReturn(Types.BIGINT, Types.NVARCHAR,
+								Types.NVARCHAR, Types.BIGINT, Types.BIGINT);
+						Mockito.when(columns.getInt("NULLABLE")).thenReturn(ResultSetMetaData.columnNoNulls,
+								ResultSetMetaData.columnNoNulls, ResultSetMetaData.columnNullable,
+								ResultSetMetaData.columnNoNulls, ResultSetMetaData.columnNoNulls);
+						return columns;
+					}
+				});
+
+		Mockito.when(metadata.getIndexInfo(Mockito.any(), Mockito.any(), Mockito.isNull(), Mockito.anyBoolean(),
+				Mockito.anyBoolean())).thenAnswer(new Answer<ResultSet>()
+				{
+
+					@Override
+					public ResultSet answer(InvocationOnMock invocation) throws Throwable
+					{
+						CloudSpannerResultSet indices = Mockito.mock(CloudSpannerResultSet.class);
+						Mockito.when(indices.next()).thenReturn(true, true, true, false);
+						Mockito.when(indices.getString("TABLE_NAME")).thenReturn("FOO", "BAR", "BAR");
+						Mockito.when(indices.getString("INDEX_NAME")).thenReturn("PRIMARY_KEY", "PRIMARY_KEY",
+								"PRIMARY_KEY");
+						Mockito.when(indices.getString("COLUMN_NAME")).thenReturn("ID", "ID1", "ID2");
+						Mockito.when(indices.getInt("ORDINAL_POSITION")).thenReturn(1, 1, 2);
+						return indices;
+					}
+				});
+
+		Mockito.when(metadata.getImportedKeys(Mockito.any(), Mockito.any(), Mockito.isNull()))
+				.thenAnswer(new Answer<ResultSet>()
+				{
+
+					@Override
+					public ResultSet answer(InvocationOnMock invocation) throws Throwable
+					{
+						CloudSpannerResultSet keys = Mockito.mock(CloudSpannerResultSet.class);
+						Mockito.when(keys.next()).thenReturn(false);
+						return keys;
+					}
+				});
+	}
+
 	public static CloudSpannerPreparedStatement createPreparedStatement(String sql) throws SQLException
 	{
 		return new CloudSpannerPreparedStatement(sql, createConnection(), null);
@@ -0,0 +1,94 @@
+package nl.topicus.jdbc.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class ChecksumResultSetTest
+{
+	private static final Type TYPE = Type.struct(StructField.of("ID", Type.int64()),
+			StructField.of("NAME", Type.string()), StructField.of("TAGS", Type.array(Type.string())));
+
+	private static ResultSet createResultSet(String... names)
+	{
+		Struct[] rows = new Struct[names.length];
+		for (int i = 0; i < names.length; i++)
+		{
+			rows[i] = Struct.newBuilder().set("ID").to((long) i).set("NAME").to(names[i]).set("TAGS")
+					.toStringArray(Arrays.asList("a", names[i])).build();
+		}
+		return ResultSets.forRows(TYPE, Arrays.asList(rows));
+	}
+
+	private static ChecksumResultSet createSubject(String... names)
+	{
+		return new ChecksumResultSet(Statement.of("SELECT * FROM FOO"), createResultSet(names));
+	}
+
+	@Test
+	public void testVerifySameRows()
+	{
+		ChecksumResultSet subject = createSubject("one", "two", "three");
+		while (subject.next())
+		{
+			// consume all rows
+		}
+		assertEquals(3L, subject.getRowsConsumed());
+		assertTrue(subject.isEndReached());
+		assertTrue(subject.verify(createResultSet("one", "two", "three")));
+	}
+
+	@Test
+	public void testVerifyDifferentRows()
+	{
+		ChecksumResultSet subject = createSubject("one", "two", "three");
+		while (subject.next())
+		{
+			// consume all rows
+		}
+		assertFalse(subject.verify(createResultSet("one", "TWO", "three")));
+	}
+
+	@Test
+	public void testVerifyAdditionalRows()
+	{
+		ChecksumResultSet subject = createSubject("one", "two");
+		while (subject.next())
+		{
+			// consume all rows
+		}
+		assertFalse(subject.verify(createResultSet("one", "two", "three")));
+		assertFalse(subject.verify(createResultSet("one")));
+	}
+
+	@Test
+	public void testVerifyPartiallyConsumed()
+	{
+		ChecksumResultSet subject = createSubject("one", "two", "three");
+		assertTrue(subject.next());
+		assertFalse(subject.isEndReached());
+		// Only the consumed rows need to be equal
+		assertTrue(subject.verify(createResultSet("one", "TWO")));
+		assertFalse(subject.verify(createResultSet("ONE", "two", "three")));
+		// Rows consumed after the checksum was frozen are not included
+		assertTrue(subject.next());
+		assertEquals(1L, subject.getRowsConsumed());
+		assertTrue(subject.verify(createResultSet("one")));
+	}
+
+}
@@ -0,0 +1,190 @@
+package nl.topicus.jdbc.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.BatchTransactionId;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Options;
+import com.google.cloud.spanner.Options.QueryOption;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.PartitionOptions;
+import com.google.cloud.spanner.Statement;
+import com.google.protobuf.ByteString;
+
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class CloudSpannerPartitionTokenTest
+{
+	private static final String SQL = "SELECT * FROM FOO WHERE ID>@id";
+
+	public static BatchTransactionId createBatchTransactionId() throws ReflectiveOperationException
+	{
+		Constructor<BatchTransactionId> constructor = BatchTransactionId.class.getDeclaredConstructor(String.class,
+				ByteString.class, Timestamp.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance("projects/p/instances/i/databases/d/sessions/s",
+				ByteString.copyFromUtf8("transaction"), Timestamp.parseTimestamp("2018-03-01T10:15:00Z"));
+	}
+
+	public static Partition createPartition(String token) throws ReflectiveOperationException
+	{
+		return createPartition(token, Statement.newBuilder(SQL).bind("id").to(100L).build());
+	}
+
+	private static Partition createPartition(String token, Statement statement) throws ReflectiveOperationException
+	{
+		return createPartition(token, PartitionOptions.getDefaultInstance(), statement, null);
+	}
+
+	private static Partition createPartition(String token, PartitionOptions partitionOptions, Statement statement,
+			Options options) throws ReflectiveOperationException
+	{
+		Method method = Partition.class.getDeclaredMethod("createQueryPartition", ByteString.class,
+				PartitionOptions.class, Statement.class, Options.class);
+		method.setAccessible(true);
+		return (Partition) method.invoke(null, ByteString.copyFromUtf8(token), partitionOptions, statement, options);
+	}
+
+	private static Options createQueryOptions(QueryOption... options) throws ReflectiveOperationException
+	{
+		Method method = Options.class.getDeclaredMethod("fromQueryOptions", QueryOption[].class);
+		method.setAccessible(true);
+		return (Options) method.invoke(null, (Object) options);
+	}
+
+	@Test
+	public void testSerializeDeserialize() throws SQLException, ReflectiveOperationException
+	{
+		CloudSpannerPartitionToken token = new CloudSpannerPartitionToken(createBatchTransactionId(),
+				createPartition("partition1"), SQL);
+		String serialized = token.serialize();
+		CloudSpannerPartitionToken deserialized = CloudSpannerPartitionToken.deserialize(serialized);
+		assertEquals(token.getTransactionId(), deserialized.getTransactionId());
+		assertEquals(token.getPartition(), deserialized.getPartition());
+		assertEquals(SQL, deserialized.getSql());
+	}
+
+	@Test
+	public void testSerializeDeserializeParameters() throws SQLException, ReflectiveOperationException
+	{
+		Statement statement = Statement.newBuilder(SQL).bind("bool").to(true).bind("int64").to((Long) null)
+				.bind("float64").to(1.5d).bind("string").to("test").bind("bytes").to(ByteArray.copyFrom("test"))
+				.bind("date").to(Date.fromYearMonthDay(2018, 3, 1))
+				.bind("timestamp").to(Timestamp.parseTimestamp("2018-03-01T10:15:00Z")).bind("boolArray")
+				.toBoolArray(Arrays.asList(true, null)).bind("int64Array").toInt64Array(new long[] { 1L, 2L })
+				.bind("float64Array").toFloat64Array(Arrays.asList(1d, null)).bind("stringArray")
+				.toStringArray(Arrays.asList("a", null)).bind("dateArray")
+				.toDateArray(Arrays.asList(Date.fromYearMonthDay(2018, 3, 1))).build();
+		CloudSpannerPartitionToken token = new CloudSpannerPartitionToken(createBatchTransactionId(),
+				createPartition("partition1", statement), SQL);
+		CloudSpannerPartitionToken deserialized = CloudSpannerPartitionToken.deserialize(token.serialize());
+		assertEquals(token.getPartition(), deserialized.getPartition());
+
+		token = new CloudSpannerPartitionToken(createBatchTransactionId(),
+				createPartition("partition2", Statement.of("SELECT * FROM FOO")), SQL);
+		deserialized = CloudSpannerPartitionToken.deserialize(token.serialize());
+		assertEquals(token.getPartition(), deserialized.getPartition());
+	}
+
+	@Test
+	public void testSerializeDeserializeOptions() throws SQLException, ReflectiveOperationException
+	{
+		Partition partition = createPartition("partition1",
+				PartitionOptions.newBuilder().setMaxPartitions(10L).setPartitionSizeBytes(1000L).build(),
+				Statement.of(SQL), createQueryOptions(Options.prefetchChunks(5)));
+		CloudSpannerPartitionToken token = new CloudSpannerPartitionToken(createBatchTransactionId(), partition,
+				null);
+		CloudSpannerPartitionToken deserialized = CloudSpannerPartitionToken.deserialize(token.serialize());
+		assertEquals(partition, deserialized.getPartition());
+		assertNull(deserialized.getSql());
+
+		partition = createPartition("partition2", PartitionOptions.getDefaultInstance(), Statement.of(SQL),
+				createQueryOptions());
+		token = new CloudSpannerPartitionToken(createBatchTransactionId(), partition, SQL);
+		assertEquals(partition, CloudSpannerPartitionToken.deserialize(token.serialize()).getPartition());
+	}
+
+	@Test(expected = SQLException.class)
+	public void testSerializeReadPartition() throws SQLException, ReflectiveOperationException
+	{
+		Method method = Partition.class.getDeclaredMethod("createReadPartition", ByteString.class,
+				PartitionOptions.class, String.class, String.class, KeySet.class, Iterable.class, Options.class);
+		method.setAccessible(true);
+		Partition partition = (Partition) method.invoke(null, ByteString.copyFromUtf8("partition1"),
+				PartitionOptions.getDefaultInstance(), "FOO", null, KeySet.all(), Arrays.asList("ID"), null);
+		new CloudSpannerPartitionToken(createBatchTransactionId(), partition, null).serialize();
+	}
+
+	@Test(expected = SQLException.class)
+	public void testDeserializeJavaSerializedObject() throws SQLException, IOException
+	{
+		try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				ObjectOutputStream stream = new ObjectOutputStream(bos))
+		{
+			stream.writeObject(new HashMap<>());
+			stream.flush();
+			CloudSpannerPartitionToken.deserialize(Base64.getEncoder().encodeToString(bos.toByteArray()));
+		}
+	}
+
+	@Test
+	public void testDeserializeUnsupportedVersion() throws SQLException, ReflectiveOperationException
+	{
+		CloudSpannerPartitionToken token = new CloudSpannerPartitionToken(createBatchTransactionId(),
+				createPartition("partition1"), SQL);
+		byte[] bytes = Base64.getDecoder().decode(token.serialize());
+		bytes[1] = (byte) (CloudSpannerPartitionToken.CURRENT_VERSION + 1);
+		try
+		{
+			CloudSpannerPartitionToken.deserialize(Base64.getEncoder().encodeToString(bytes));
+			fail("missing expected exception");
+		}
+		catch (SQLException e)
+		{
+			assertTrue(e.getMessage().contains("Unsupported partition token version"));
+		}
+	}
+
+	@Test(expected = SQLException.class)
+	public void testDeserializeTruncatedToken() throws SQLException, ReflectiveOperationException
+	{
+		CloudSpannerPartitionToken token = new CloudSpannerPartitionToken(createBatchTransactionId(),
+				createPartition("partition1"), SQL);
+		byte[] bytes = Base64.getDecoder().decode(token.serialize());
+		CloudSpannerPartitionToken.deserialize(
+				Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, bytes.length - 10)));
+	}
+
+	@Test(expected = SQLException.class)
+	public void testDeserializeInvalidBase64() throws SQLException
+	{
+		CloudSpannerPartitionToken.deserialize("not a token");
+	}
+
+	@Test(expected = SQLException.class)
+	public void testDeserializeInvalidToken() throws SQLException
+	{
+		CloudSpannerPartitionToken.deserialize("cm9ndWUgdG9rZW4=");
+	}
+
+}
@@ -1,11 +1,24 @@
 package nl.topicus.jdbc.transaction;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import java.sql.SQLException;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.TransactionRunner;
 
 import nl.topicus.jdbc.CloudSpannerConnection;
 import nl.topicus.jdbc.test.category.UnitTest;
@@ -65,4 +78,59 @@ public class CloudSpannerTransactionTest
 		}
 	}
 
+	private static Mutation createMutationWithCells(long id, int cells)
+	{
+		Mutation.WriteBuilder builder = Mutation.newInsertBuilder("FOO").set("ID").to(id);
+		for (int i = 1; i < cells; i++)
+			builder.set("COL" + i).to(i);
+		return builder.build();
+	}
+
+	private static CloudSpannerTransaction createTransaction(CloudSpannerConnection connection,
+			MutationLimitPolicy policy)
+	{
+		when(connection.getMutationLimitPolicy()).thenReturn(policy);
+		DatabaseClient dbClient = mock(DatabaseClient.class);
+		when(dbClient.readWriteTransaction()).thenReturn(mock(TransactionRunner.class));
+		return new CloudSpannerTransaction(dbClient, null, connection);
+	}
+
+	@Test
+	public void testRejectMutationsExceedingLimits() throws SQLException
+	{
+		CloudSpannerConnection connection = CloudSpannerTestObjects.createConnection();
+		CloudSpannerTransaction tx = createTransaction(connection, MutationLimitPolicy.REJECT);
+		tx.buffer(createMutationWithCells(1L, 15000));
+		try
+		{
+			tx.buffer(createMutationWithCells(2L, 6000));
+			fail("Expected exception not thrown");
+		}
+		catch (SpannerException e)
+		{
+			assertEquals(ErrorCode.INVALID_ARGUMENT, e.getErrorCode());
+		}
+		assertEquals(1, tx.getNumberOfBufferedMutations());
+		assertEquals(15000L, tx.getNumberOfBufferedMutationCells());
+		tx.buffer(createMutationWithCells(3L, 5000));
+		assertEquals(20000L, tx.getNumberOfBufferedMutationCells());
+	}
+
+	@Test
+	public void testWarnMutationsApproachingLimits() throws SQLException
+	{
+		CloudSpannerConnection connection = CloudSpannerTestObjects.createConnection();
+		CloudSpannerTransaction tx = createTransaction(connection, MutationLimitPolicy.WARN);
+		tx.buffer(createMutationWithCells(1L, 15000));
+		verify(connection, never()).addWarning(any());
+		tx.buffer(createMutationWithCells(2L, 2000));
+		verify(connection, times(1)).addWarning(any());
+		tx.buffer(createMutationWithCells(3L, 1000));
+		verify(connection, times(1)).addWarning(any());
+		tx.buffer(createMutationWithCells(4L, 3000));
+		verify(connection, times(2)).addWarning(any());
+		assertEquals(4, tx.getNumberOfBufferedMutations());
+		assertEquals(21000L, tx.getNumberOfBufferedMutationCells());
+	}
+
 }
@@ -0,0 +1,242 @@
+package nl.topicus.jdbc.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeyRange;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Value;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class MutationBufferTest
+{
+	private static MutationBuffer createCoalescingBuffer()
+	{
+		return new MutationBuffer(table -> {
+			if (table.equalsIgnoreCase("FOO"))
+				return Arrays.asList("ID");
+			if (table.equalsIgnoreCase("BAR"))
+				return Arrays.asList("ID", "SEQ");
+			if (table.equalsIgnoreCase("ERROR"))
+				throw new CloudSpannerSQLException("Table not found", Code.NOT_FOUND);
+			return Collections.emptyList();
+		});
+	}
+
+	private static Mutation insert(long id, String name)
+	{
+		return Mutation.newInsertBuilder("FOO").set("ID").to(id).set("NAME").to(name).build();
+	}
+
+	private static Mutation update(long id, String column, String value)
+	{
+		return Mutation.newUpdateBuilder("FOO").set("ID").to(id).set(column).to(value).build();
+	}
+
+	private static Mutation delete(long id)
+	{
+		return Mutation.delete("FOO", Key.of(id));
+	}
+
+	@Test
+	public void testNoCoalescing()
+	{
+		MutationBuffer buffer = new MutationBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(update(1L, "NAME", "two"));
+		buffer.add(delete(1L));
+		assertEquals(3, buffer.size());
+		assertEquals(3, buffer.getMutations().size());
+	}
+
+	@Test
+	public void testMergeUpdates()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(update(1L, "NAME", "two"));
+		buffer.add(update(1L, "DESCRIPTION", "description"));
+		buffer.add(insert(2L, "three"));
+		assertEquals(2, buffer.size());
+		List<Mutation> mutations = buffer.getMutations();
+		Mutation merged = mutations.get(0);
+		assertEquals(Op.INSERT, merged.getOperation());
+		assertEquals(Value.int64(1L), merged.asMap().get("ID"));
+		assertEquals(Value.string("two"), merged.asMap().get("NAME"));
+		assertEquals(Value.string("description"), merged.asMap().get("DESCRIPTION"));
+		assertEquals(insert(2L, "three"), mutations.get(1));
+	}
+
+	@Test
+	public void testMergeIsCaseInsensitive()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(Mutation.newUpdateBuilder("foo").set("id").to(1L).set("name").to("two").build());
+		assertEquals(1, buffer.size());
+		Mutation merged = buffer.getMutations().get(0);
+		assertEquals(2, merged.asMap().size());
+		assertEquals(Value.string("two"), merged.asMap().get("NAME"));
+	}
+
+	@Test
+	public void testDoNotMergeInsertAfterWrite()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(update(1L, "NAME", "one"));
+		buffer.add(insert(1L, "two"));
+		assertEquals(2, buffer.size());
+	}
+
+	@Test
+	public void testMergeCompositeKey()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(Mutation.newInsertBuilder("BAR").set("ID").to(1L).set("SEQ").to("a").set("VAL").to(1L).build());
+		buffer.add(Mutation.newUpdateBuilder("BAR").set("ID").to(1L).set("SEQ").to("b").set("VAL").to(2L).build());
+		buffer.add(Mutation.newUpdateBuilder("BAR").set("ID").to(1L).set("SEQ").to("a").set("VAL").to(3L).build());
+		assertEquals(2, buffer.size());
+		assertEquals(Value.int64(3L), buffer.getMutations().get(0).asMap().get("VAL"));
+	}
+
+	@Test
+	public void testDoNotMergeWithoutKey()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		// Missing key column
+		buffer.add(Mutation.newUpdateBuilder("BAR").set("ID").to(1L).set("VAL").to(1L).build());
+		buffer.add(Mutation.newUpdateBuilder("BAR").set("ID").to(1L).set("VAL").to(2L).build());
+		// Unknown table
+		buffer.add(Mutation.newUpdateBuilder("BAZ").set("ID").to(1L).build());
+		buffer.add(Mutation.newUpdateBuilder("BAZ").set("ID").to(1L).build());
+		// Error while getting key columns
+		buffer.add(Mutation.newUpdateBuilder("ERROR").set("ID").to(1L).build());
+		buffer.add(Mutation.newUpdateBuilder("ERROR").set("ID").to(1L).build());
+		assertEquals(6, buffer.size());
+	}
+
+	@Test
+	public void testCollapseWriteFollowedByDelete()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(update(1L, "NAME", "two"));
+		buffer.add(delete(1L));
+		assertEquals(1, buffer.size());
+		assertEquals(delete(1L), buffer.getMutations().get(0));
+		// A write after a delete is not merged with the delete
+		buffer.add(insert(1L, "three"));
+		buffer.add(update(1L, "NAME", "four"));
+		assertEquals(2, buffer.size());
+		assertEquals(Op.DELETE, buffer.getMutations().get(0).getOperation());
+		assertEquals(Value.string("four"), buffer.getMutations().get(1).asMap().get("NAME"));
+	}
+
+	@Test
+	public void testDoNotCollapseWriteWithOtherTableInBetween()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(Mutation.newInsertBuilder("BAR").set("ID").to(1L).set("SEQ").to("a").build());
+		buffer.add(delete(1L));
+		assertEquals(3, buffer.size());
+	}
+
+	@Test
+	public void testComplexDeleteIsBarrier()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(Mutation.delete("FOO", KeySet.range(KeyRange.closedClosed(Key.of(1L), Key.of(10L)))));
+		buffer.add(update(1L, "NAME", "two"));
+		buffer.add(Mutation.delete("FOO", KeySet.all()));
+		buffer.add(delete(1L));
+		assertEquals(5, buffer.size());
+	}
+
+	@Test
+	public void testSavepoints()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		buffer.add(insert(2L, "two"));
+		int mark = buffer.mark();
+		// Not merged with mutations before the mark
+		buffer.add(update(1L, "NAME", "three"));
+		buffer.add(update(1L, "NAME", "four"));
+		buffer.add(delete(2L));
+		assertEquals(4, buffer.size());
+		buffer.rollback(mark);
+		assertEquals(2, buffer.size());
+		assertEquals(Arrays.asList(insert(1L, "one"), insert(2L, "two")), buffer.getMutations());
+	}
+
+	@Test
+	public void testRollbackWithRemovedMutations()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		int first = buffer.mark();
+		buffer.add(insert(1L, "one"));
+		buffer.add(delete(1L));
+		assertEquals(1, buffer.size());
+		int second = buffer.mark();
+		buffer.add(insert(2L, "two"));
+		buffer.rollback(second);
+		assertEquals(1, buffer.size());
+		buffer.rollback(first);
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	public void testTotalSize()
+	{
+		MutationBuffer buffer = createCoalescingBuffer();
+		buffer.add(insert(1L, "one"));
+		assertEquals(2L, buffer.getTotalSize().getCells());
+		// Merged into the insert
+		buffer.add(update(1L, "DESCRIPTION", "description"));
+		assertEquals(3L, buffer.getTotalSize().getCells());
+		int mark = buffer.mark();
+		buffer.add(insert(2L, "two"));
+		assertEquals(5L, buffer.getTotalSize().getCells());
+		buffer.add(delete(2L));
+		assertEquals(4L, buffer.getTotalSize().getCells());
+		buffer.rollback(mark);
+		assertEquals(3L, buffer.getTotalSize().getCells());
+		assertEquals(new MutationSizeEstimator(null).estimate(buffer.getMutations()).getBytes(),
+				buffer.getTotalSize().getBytes());
+	}
+
+	@Test
+	public void testSplit()
+	{
+		MutationBuffer buffer = new MutationBuffer();
+		assertEquals(Arrays.asList(Collections.emptyList()), buffer.split(4L, 1000L));
+		for (long id = 1L; id <= 5L; id++)
+			buffer.add(insert(id, "name"));
+		List<List<Mutation>> batches = buffer.split(4L, 1000L);
+		assertEquals(3, batches.size());
+		assertEquals(Arrays.asList(insert(1L, "name"), insert(2L, "name")), batches.get(0));
+		assertEquals(Arrays.asList(insert(3L, "name"), insert(4L, "name")), batches.get(1));
+		assertEquals(Arrays.asList(insert(5L, "name")), batches.get(2));
+		// A mutation that exceeds the limits on its own is put in a separate
+		// batch
+		assertEquals(5, buffer.split(1L, 1000L).size());
+		assertEquals(1, buffer.split(100L, 1000L).size());
+	}
+
+}
@@ -0,0 +1,151 @@
+package nl.topicus.jdbc.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeyRange;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.test.category.UnitTest;
+
+@Category(UnitTest.class)
+public class MutationCodecTest
+{
+
+	private static void assertRoundTrip(Mutation original) throws SQLException
+	{
+		byte[] encoded = MutationCodec.encode(original);
+		assertTrue(MutationCodec.isEncoded(encoded));
+		assertEquals(original, MutationCodec.decode(encoded));
+	}
+
+	@Test
+	public void testWrites() throws SQLException
+	{
+		assertRoundTrip(Mutation.newInsertBuilder("FOO").set("ID").to(1L).set("NAME").to("one").build());
+		assertRoundTrip(Mutation.newUpdateBuilder("FOO").set("ID").to(1L).set("NAME").to("\u00e9\u00e8").build());
+		assertRoundTrip(Mutation.newInsertOrUpdateBuilder("FOO").set("ID").to(1L).build());
+		assertRoundTrip(Mutation.newReplaceBuilder("FOO").set("ID").to(1L).build());
+	}
+
+	@Test
+	public void testTypes() throws SQLException
+	{
+		assertRoundTrip(Mutation.newInsertBuilder("FOO").set("BOOL").to(true).set("INT64").to(Long.MIN_VALUE)
+				.set("FLOAT64").to(Math.PI).set("STRING").to("test").set("BYTES")
+				.to(ByteArray.copyFrom(new byte[] { 0, 1, -1 })).set("TIMESTAMP")
+				.to(Timestamp.ofTimeSecondsAndNanos(1500000000L, 123456789)).set("DATE")
+				.to(Date.fromYearMonthDay(2017, 12, 31)).build());
+		assertRoundTrip(Mutation.newInsertBuilder("FOO").set("BOOL").to((Boolean) null).set("INT64").to((Long) null)
+				.set("FLOAT64").to((Double) null).set("STRING").to((String) null).set("BYTES").to((ByteArray) null)
+				.set("TIMESTAMP").to((Timestamp) null).set("DATE").to((Date) null).build());
+	}
+
+	@Test
+	public void testArrays() throws SQLException
+	{
+		assertRoundTrip(Mutation.newInsertBuilder("FOO").set("BOOL").toBoolArray(Arrays.asList(true, null, false))
+				.set("INT64").toInt64Array(Arrays.asList(1L, null)).set("FLOAT64")
+				.toFloat64Array(Arrays.asList(1.5d, null)).set("STRING").toStringArray(Arrays.asList("a", null))
+				.set("BYTES").toBytesArray(Arrays.asList(ByteArray.copyFrom("a"), null)).set("TIMESTAMP")
+				.toTimestampArray(Arrays.asList(Timestamp.ofTimeSecondsAndNanos(1L, 2), null)).set("DATE")
+				.toDateArray(Arrays.asList(Date.fromYearMonthDay(2000, 1, 1), null)).build());
+		assertRoundTrip(Mutation.newInsertBuilder("FOO").set("EMPTY").toStringArray(Arrays.asList()).set("NULL")
+				.toInt64Array((Iterable<Long>) null).build());
+	}
+
+	@Test
+	public void testDeletes() throws SQLException
+	{
+		assertRoundTrip(Mutation.delete("FOO", Key.of(1L, "one", null)));
+		assertRoundTrip(Mutation.delete("FOO", KeySet.all()));
+		assertRoundTrip(Mutation.delete("FOO",
+				KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(2L))
+						.addRange(KeyRange.closedOpen(Key.of(10L), Key.of(20L)))
+						.addRange(KeyRange.openClosed(Key.of(30L), Key.of(40L))).build()));
+		assertRoundTrip(Mutation.delete("FOO",
+				Key.of(true, 1.5d, ByteArray.copyFrom("a"), Timestamp.ofTimeSecondsAndNanos(1L, 2),
+						Date.fromYearMonthDay(2000, 1, 1))));
+	}
+
+	@Test
+	public void testDecodeAll() throws SQLException
+	{
+		List<Mutation> mutations = Arrays.asList(Mutation.newInsertBuilder("FOO").set("ID").to(1L).build(),
+				Mutation.delete("FOO", Key.of(2L)), Mutation.newUpdateBuilder("BAR").set("ID").to(3L).build());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		for (Mutation mutation : mutations)
+		{
+			byte[] encoded = MutationCodec.encode(mutation);
+			bos.write(encoded, 0, encoded.length);
+		}
+		assertEquals(mutations, MutationCodec.decodeAll(bos.toByteArray()));
+		try
+		{
+			MutationCodec.decode(bos.toByteArray());
+			fail("Expected exception");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			// ok
+		}
+	}
+
+	@Test
+	public void testInvalidData() throws SQLException
+	{
+		assertFalse(MutationCodec.isEncoded(null));
+		assertFalse(MutationCodec.isEncoded(new byte[0]));
+		byte[] encoded = MutationCodec.encode(Mutation.newInsertBuilder("FOO").set("ID").to(1L).build());
+		try
+		{
+			MutationCodec.decode(Arrays.copyOf(encoded, encoded.length - 4));
+			fail("Expected exception");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			// ok
+		}
+		encoded[1] = 99;
+		try
+		{
+			MutationCodec.decode(encoded);
+			fail("Expected exception");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			// ok
+		}
+	}
+
+	/**
+	 * The binary encoding should be a lot smaller than the Base64 encoded Java
+	 * serialization that was used before
+	 */
+	@Test
+	public void testEncodedSizeComparedToLegacy() throws SQLException
+	{
+		Mutation mutation = Mutation.newInsertBuilder("FOO").set("ID").to(1L).set("NAME").to("one").set("ACTIVE")
+				.to(true).build();
+		int encoded = MutationCodec.encode(mutation).length;
+		int legacy = XATransaction.serializeLegacyMutation(mutation).length();
+		assertTrue("encoded=" + encoded + ", legacy=" + legacy, encoded * 10 < legacy);
+	}
+
+}
@@ -0,0 +1,87 @@
+package nl.topicus.jdbc.transaction;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeyRange;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.rpc.Code;
+
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.test.category.UnitTest;
+import nl.topicus.jdbc.transaction.MutationSizeEstimator.MutationSize;
+
+@Category(UnitTest.class)
+public class MutationSizeEstimatorTest
+{
+	private static MutationSizeEstimator createEstimator()
+	{
+		return new MutationSizeEstimator(table -> {
+			if (table.equalsIgnoreCase("FOO"))
+				return Arrays.asList(new HashSet<>(Arrays.asList("NAME")),
+						new HashSet<>(Arrays.asList("NAME", "DESCRIPTION")));
+			if (table.equalsIgnoreCase("ERROR"))
+				throw new CloudSpannerSQLException("Table not found", Code.NOT_FOUND);
+			return Collections.emptyList();
+		});
+	}
+
+	@Test
+	public void testEstimateWrite()
+	{
+		Mutation mutation = Mutation.newInsertBuilder("BAR").set("ID").to(1L).set("NAME").to("\u00e9\u00e9n")
+				.set("DATA").to(ByteArray.copyFrom(new byte[10])).set("EMPTY").to((String) null).build();
+		MutationSize size = createEstimator().estimate(mutation);
+		assertEquals(4L, size.getCells());
+		// table name + column names + values
+		assertEquals(3L + 15L + 8L + 5L + 10L + 0L, size.getBytes());
+	}
+
+	@Test
+	public void testEstimateWriteWithIndices()
+	{
+		MutationSizeEstimator estimator = createEstimator();
+		Mutation mutation = Mutation.newUpdateBuilder("FOO").set("ID").to(1L).set("NAME").to("foo").set("description")
+				.to("bar").build();
+		// 3 columns, NAME is in two indices, DESCRIPTION in one
+		assertEquals(6L, estimator.estimate(mutation).getCells());
+		// Without index information
+		assertEquals(3L, new MutationSizeEstimator(null).estimate(mutation).getCells());
+		// Errors while getting index information are ignored
+		assertEquals(1L,
+				estimator.estimate(Mutation.newUpdateBuilder("ERROR").set("ID").to(1L).build()).getCells());
+	}
+
+	@Test
+	public void testEstimateDelete()
+	{
+		MutationSizeEstimator estimator = createEstimator();
+		assertEquals(1L, estimator.estimate(Mutation.delete("BAR", Key.of(1L))).getCells());
+		assertEquals(3L, estimator.estimate(Mutation.delete("FOO", Key.of(1L))).getCells());
+		KeySet keySet = KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(2L))
+				.addRange(KeyRange.closedOpen(Key.of(10L), Key.of(20L))).build();
+		assertEquals(3L, estimator.estimate(Mutation.delete("BAR", keySet)).getCells());
+		assertEquals(3L + 8L + 8L + 16L, estimator.estimate(Mutation.delete("BAR", keySet)).getBytes());
+		assertEquals(1L, estimator.estimate(Mutation.delete("BAR", KeySet.all())).getCells());
+	}
+
+	@Test
+	public void testEstimateArrays()
+	{
+		Mutation mutation = Mutation.newInsertBuilder("BAR").set("A").toInt64Array(new long[] { 1L, 2L, 3L })
+				.set("B").toStringArray(Arrays.asList("ab", null, "c")).set("C").toInt64Array((long[]) null).build();
+		MutationSize size = createEstimator().estimate(mutation);
+		assertEquals(3L, size.getCells());
+		assertEquals(3L + 3L + 24L + 3L, size.getBytes());
+	}
+
+}
@@ -4,6 +4,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +15,7 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.TransactionContext;
@@ -94,22 +96,22 @@ class TransactionContextMock
 
 	private ResultSet mockPreparedWithMutationsResultSet() throws SQLException
 	{
-		List<String> mutations = createSerializedMutations();
 		ResultSet rs = mock(ResultSet.class);
-		when(rs.next()).thenReturn(true, true, true, false);
-		when(rs.getLong(0)).thenReturn(1l, 2l, 3l);
-		when(rs.getString(1)).thenReturn(mutations.get(0), mutations.get(1), mutations.get(2));
+		when(rs.next()).thenReturn(true, true, false);
+		when(rs.getLong(0)).thenReturn(0l, 1l);
+		// The first row contains a chunk of two mutations, the second row was
+		// prepared by an older version of the driver
+		when(rs.isNull(2)).thenReturn(false, true);
+		ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+		for (long id = 1L; id <= 2L; id++)
+		{
+			byte[] encoded = MutationCodec.encode(Mutation.newInsertBuilder("FOO").set("ID").to(id).build());
+			chunk.write(encoded, 0, encoded.length);
+		}
+		when(rs.getBytes(2)).thenReturn(ByteArray.copyFrom(chunk.toByteArray()));
+		when(rs.getString(1)).thenReturn(
+				XATransaction.serializeLegacyMutation(Mutation.newInsertBuilder("FOO").set("ID").to(3L).build()));
 		return rs;
 	}
 
-	private List<String> createSerializedMutations() throws SQLException
-	{
-		List<String> res = new ArrayList<>(3);
-		res.add(XATransaction.serializeMutation(Mutation.newInsertBuilder("FOO").set("ID").to(1L).build()));
-		res.add(XATransaction.serializeMutation(Mutation.newInsertBuilder("FOO").set("ID").to(2L).build()));
-		res.add(XATransaction.serializeMutation(Mutation.newInsertBuilder("FOO").set("ID").to(3L).build()));
-
-		return res;
-	}
-
 }
@@ -1,7 +1,12 @@
 package nl.topicus.jdbc.transaction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.SQLException;
@@ -14,9 +19,22 @@ import org.mockito.internal.stubbing.answers.Returns;
 
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
 import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.TransactionContext;
 import com.google.cloud.spanner.TransactionRunner;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.rpc.Code;
 
+import nl.topicus.jdbc.exception.CloudSpannerPartialCommitException;
+import nl.topicus.jdbc.exception.CloudSpannerSQLException;
 import nl.topicus.jdbc.test.category.UnitTest;
 import nl.topicus.jdbc.transaction.TransactionThread.TransactionStatus;
 
@@ -148,13 +166,16 @@ public class TransactionThreadTest
 	@Test
 	public void testRunSimpleRollbackPrepared() throws SQLException
 	{
-		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITHOUT_MUTATIONS.toString()));
+		// The prepared mutations are deleted by xid without reading them first
+		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITHOUT_MUTATIONS.toString()),
+				(test, subject) -> 1);
 	}
 
 	@Test
 	public void testRunMultipleRollbackPrepared() throws SQLException
 	{
-		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITHOUT_MUTATIONS.toString()), 3);
+		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITHOUT_MUTATIONS.toString()), 3,
+				(test, subject) -> 1);
 	}
 
 	private void testRunAction(ConsumerWithSQLException<TransactionThread> action) throws SQLException
@@ -241,22 +262,23 @@ public class TransactionThreadTest
 	@Test
 	public void testRunPrepareWithMutations() throws SQLException
 	{
+		// The 3 mutations are packed into one prepared mutations row
 		testRunAction(t -> t.prepareTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()),
-				(test, subject) -> test.testRunWithMutationsCallback(subject, 3));
+				(test, subject) -> test.testRunWithMutationsCallback(subject, 1));
 	}
 
 	@Test
 	public void testRunMultiplePrepareWithMutations() throws SQLException
 	{
 		testRunAction(t -> t.prepareTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()), 3,
-				(test, subject) -> test.testRunWithMutationsCallback(subject, 3));
+				(test, subject) -> test.testRunWithMutationsCallback(subject, 1));
 	}
 
 	@Test
 	public void testRunCommitPreparedWithMutations() throws SQLException
 	{
-		// Apply 3 mutations and delete 3 prepared mutations. The delete is
-		// performed in one mutation with a key set containing 3 keys.
+		// Apply 3 mutations and delete the prepared mutations. The delete is
+		// performed in one mutation with a key range on the xid.
 		testRunAction(t -> t.commitPreparedTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()),
 				(test, subject) -> test.testRunWithMutationsCallback(subject, 4));
 	}
@@ -264,8 +286,8 @@ public class TransactionThreadTest
 	@Test
 	public void testRunMultipleCommitPreparedWithMutations() throws SQLException
 	{
-		// Apply 3 mutations and delete 3 prepared mutations. The delete is
-		// performed in one mutation with a key set containing 3 keys.
+		// Apply 3 mutations and delete the prepared mutations. The delete is
+		// performed in one mutation with a key range on the xid.
 		testRunAction(t -> t.commitPreparedTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()), 2,
 				(test, subject) -> test.testRunWithMutationsCallback(subject, 4));
 	}
@@ -273,8 +295,8 @@ public class TransactionThreadTest
 	@Test
 	public void testRunRollbackPreparedWithMutations() throws SQLException
 	{
-		// Apply 0 mutations and delete 3 prepared mutations. The delete is
-		// performed in one mutation with a key set containing 3 keys.
+		// Apply 0 mutations and delete the prepared mutations. The delete is
+		// performed in one mutation with a key range on the xid.
 		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()),
 				(test, subject) -> test.testRunWithMutationsCallback(subject, 1));
 	}
@@ -282,10 +304,209 @@ public class TransactionThreadTest
 	@Test
 	public void testRunMultipleRollbackPreparedWithMutations() throws SQLException
 	{
-		// Apply 0 mutations and delete 3 prepared mutations. The delete is
-		// performed in one mutation with a key set containing 3 keys.
+		// Apply 0 mutations and delete the prepared mutations. The delete is
+		// performed in one mutation with a key range on the xid.
 		testRunAction(t -> t.rollbackPreparedTransaction(TransactionContextMock.XID_WITH_MUTATIONS.toString()), 2,
 				(test, subject) -> test.testRunWithMutationsCallback(subject, 1));
 	}
 
+	private static Mutation createMutationWithCells(long id, int cells)
+	{
+		Mutation.WriteBuilder builder = Mutation.newInsertBuilder("FOO").set("ID").to(id);
+		for (int i = 1; i < cells; i++)
+			builder.set("COL" + i).to(i);
+		return builder.build();
+	}
+
+	@Test
+	public void testCommitWithSplit() throws SQLException
+	{
+		MockTransactionRunner runner = new MockTransactionRunner();
+		DatabaseClient dbClient = mock(DatabaseClient.class);
+		when(dbClient.readWriteTransaction()).then(new Returns(runner));
+		Timestamp lastCommit = Timestamp.ofTimeMicroseconds(1000L);
+		when(dbClient.write(any())).thenReturn(lastCommit);
+		TransactionThread thread = new TransactionThread(dbClient, new TransactionRetryMetrics(), new MutationBuffer(),
+				MutationLimitPolicy.SPLIT);
+		thread.start();
+		thread.buffer(createMutationWithCells(1L, 15000));
+		thread.buffer(createMutationWithCells(2L, 15000));
+		assertEquals(30000L, thread.getBufferedMutationsSize().getCells());
+		assertEquals(lastCommit, thread.commit());
+		assertEquals(TransactionStatus.SUCCESS, thread.getTransactionStatus());
+		assertEquals(1, runner.mock.getMutations().size());
+		verify(dbClient).write(Arrays.asList(createMutationWithCells(2L, 15000)));
+	}
+
+	@Test
+	public void testCommitWithSplitFailsAfterFirstBatch()
+	{
+		MockTransactionRunner runner = new MockTransactionRunner();
+		DatabaseClient dbClient = mock(DatabaseClient.class);
+		when(dbClient.readWriteTransaction()).then(new Returns(runner));
+		Timestamp secondCommit = Timestamp.ofTimeMicroseconds(1000L);
+		when(dbClient.write(any())).thenReturn(secondCommit)
+				.thenThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.DEADLINE_EXCEEDED, "Timeout"));
+		TransactionThread thread = new TransactionThread(dbClient, new TransactionRetryMetrics(), new MutationBuffer(),
+				MutationLimitPolicy.SPLIT);
+		thread.start();
+		thread.buffer(createMutationWithCells(1L, 15000));
+		thread.buffer(createMutationWithCells(2L, 15000));
+		thread.buffer(createMutationWithCells(3L, 15000));
+		thread.buffer(createMutationWithCells(4L, 15000));
+		try
+		{
+			thread.commit();
+			fail("missing expected exception");
+		}
+		catch (SQLException e)
+		{
+			assertTrue(e instanceof CloudSpannerPartialCommitException);
+			CloudSpannerPartialCommitException partial = (CloudSpannerPartialCommitException) e;
+			assertEquals(Code.DEADLINE_EXCEEDED, partial.getCode());
+			assertEquals(2, partial.getCommittedBatches());
+			assertEquals(4, partial.getTotalBatches());
+			assertEquals(secondCommit, partial.getCommitTimestamp());
+		}
+		assertEquals(TransactionStatus.FAIL, thread.getTransactionStatus());
+	}
+
+	@Test
+	public void testCommitWithSplitKeepsCommittedBatches()
+	{
+		MockTransactionRunner runner = new MockTransactionRunner();
+		DatabaseClient dbClient = mock(DatabaseClient.class);
+		when(dbClient.readWriteTransaction()).then(new Returns(runner));
+		when(dbClient.write(any())).thenReturn(Timestamp.ofTimeMicroseconds(1000L))
+				.thenThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.DEADLINE_EXCEEDED, "Timeout"));
+		TransactionThread thread = new TransactionThread(dbClient, new TransactionRetryMetrics(), new MutationBuffer(),
+				MutationLimitPolicy.SPLIT);
+		thread.start();
+		for (long id = 1L; id <= 4L; id++)
+			thread.buffer(createMutationWithCells(id, 15000));
+		try
+		{
+			thread.commit();
+			fail("missing expected exception");
+		}
+		catch (SQLException e)
+		{
+			assertTrue(e instanceof CloudSpannerPartialCommitException);
+		}
+		// The first batch was committed by the read/write transaction and the
+		// second batch by a separate write. These remain committed. The third
+		// batch failed and the fourth batch was never written.
+		assertEquals(Arrays.asList(createMutationWithCells(1L, 15000)), runner.mock.getMutations());
+		verify(dbClient).write(Arrays.asList(createMutationWithCells(2L, 15000)));
+		verify(dbClient).write(Arrays.asList(createMutationWithCells(3L, 15000)));
+		verify(dbClient, never()).write(Arrays.asList(createMutationWithCells(4L, 15000)));
+	}
+
+	/**
+	 * Transaction runner that simulates an abort of the first attempt of a
+	 * transaction. Each attempt will return the given value for all queries.
+	 */
+	private static class AbortingTransactionRunner implements TransactionRunner
+	{
+		private final String[] values;
+
+		private Timestamp commitTimestamp;
+
+		private AbortingTransactionRunner(String... values)
+		{
+			this.values = values;
+		}
+
+		@Override
+		public <T> T run(TransactionCallable<T> callable)
+		{
+			T res = null;
+			try
+			{
+				for (String value : values)
+				{
+					TransactionContext context = mock(TransactionContext.class);
+					when(context.executeQuery(any(Statement.class))).then(invocation -> createResultSet(value));
+					res = callable.run(context);
+				}
+				commitTimestamp = Timestamp.now();
+			}
+			catch (SpannerException e)
+			{
+				throw e;
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e.getMessage(), e);
+			}
+			return res;
+		}
+
+		@Override
+		public Timestamp getCommitTimestamp()
+		{
+			return commitTimestamp;
+		}
+
+		private static ResultSet createResultSet(String value)
+		{
+			return ResultSets.forRows(Type.struct(StructField.of("VALUE", Type.string())),
+					Arrays.asList(Struct.newBuilder().set("VALUE").to(value).build()));
+		}
+	}
+
+	private TransactionThread createAbortingTestSubject(String... values)
+	{
+		DatabaseClient dbClient = mock(DatabaseClient.class);
+		when(dbClient.readWriteTransaction()).then(new Returns(new AbortingTransactionRunner(values)));
+		return new TransactionThread(dbClient);
+	}
+
+	@Test
+	public void testRetryWithSameResults() throws SQLException
+	{
+		TransactionThread thread = createAbortingTestSubject("foo", "foo");
+		thread.start();
+		try (ResultSet rs = thread.executeQuery(Statement.of("SELECT VALUE FROM BAR")))
+		{
+			while (rs.next())
+			{
+				assertEquals("foo", rs.getString(0));
+			}
+		}
+		thread.commit();
+		assertEquals(TransactionStatus.SUCCESS, thread.getTransactionStatus());
+		assertEquals(1L, thread.getRetryMetrics().getRetryCount());
+		assertEquals(1L, thread.getRetryMetrics().getSuccessfulRetryCount());
+		assertEquals(0L, thread.getRetryMetrics().getFailedRetryCount());
+	}
+
+	@Test
+	public void testRetryWithDifferentResults() throws SQLException
+	{
+		TransactionThread thread = createAbortingTestSubject("foo", "bar");
+		thread.start();
+		try (ResultSet rs = thread.executeQuery(Statement.of("SELECT VALUE FROM BAR")))
+		{
+			while (rs.next())
+			{
+				assertEquals("foo", rs.getString(0));
+			}
+		}
+		try
+		{
+			thread.commit();
+			fail("Expected exception not thrown");
+		}
+		catch (CloudSpannerSQLException e)
+		{
+			assertEquals(Code.ABORTED, e.getCode());
+			assertTrue(e.getMessage().contains("modified by another transaction"));
+		}
+		assertEquals(TransactionStatus.FAIL, thread.getTransactionStatus());
+		assertEquals(1L, thread.getRetryMetrics().getRetryCount());
+		assertEquals(0L, thread.getRetryMetrics().getSuccessfulRetryCount());
+		assertEquals(1L, thread.getRetryMetrics().getFailedRetryCount());
+	}
+
 }
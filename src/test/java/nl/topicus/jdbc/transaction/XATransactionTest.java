@@ -1,20 +1,29 @@
 package nl.topicus.jdbc.transaction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.Key;
 import com.google.cloud.spanner.KeyRange;
 import com.google.cloud.spanner.KeySet;
 import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.TransactionContext;
+import com.google.cloud.spanner.Value;
 
 import nl.topicus.jdbc.test.category.UnitTest;
+import nl.topicus.jdbc.xa.CloudSpannerXAConnection;
 
 @Category(UnitTest.class)
 public class XATransactionTest
@@ -45,14 +54,64 @@ public class XATransactionTest
 		assertEquals(original, deserialized);
 	}
 
+	@Test
+	public void testLegacyMutationSerialization() throws NoSuchMethodException, SecurityException,
+			IllegalAccessException, IllegalArgumentException, InvocationTargetException
+	{
+		Mutation original = Mutation.newInsertBuilder("FOO").set("BAR").to("test").build();
+		assertEquals(original, serializeDeserialize(original, "serializeLegacyMutation", "deserializeLegacyMutation",
+				String.class));
+
+		original = Mutation.delete("FOO", KeySet.range(KeyRange.closedClosed(Key.of("foo"), Key.of("bar"))));
+		assertEquals(original, serializeDeserialize(original, "serializeLegacyMutation", "deserializeLegacyMutation",
+				String.class));
+	}
+
+	@Test
+	public void testPrepareMutationsInChunks() throws SQLException
+	{
+		TransactionContextMock mock = new TransactionContextMock();
+		TransactionContext context = mock.createTransactionContextMock();
+		List<Mutation> mutations = new ArrayList<>();
+		for (long id = 0L; id < 5000L; id++)
+			mutations.add(Mutation.newInsertBuilder("FOO").set("ID").to(id).set("NAME").to("name " + id).build());
+		XATransaction.prepareMutations(context, "xid", mutations);
+		assertEquals(1, mock.getMutations().size());
+		assertEquals(mutations, MutationCodec.decodeAll(
+				mock.getMutations().get(0).asMap().get(CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN).getBytes()
+						.toByteArray()));
+
+		// Large mutations are divided over multiple rows
+		mock.clearMutations();
+		char[] chars = new char[XATransaction.MAX_CHUNK_BYTES / 3];
+		Arrays.fill(chars, 'a');
+		Mutation large = Mutation.newInsertBuilder("FOO").set("NAME").to(new String(chars)).build();
+		XATransaction.prepareMutations(context, "xid", Arrays.asList(large, large, large));
+		assertEquals(2, mock.getMutations().size());
+		// Only the first row is marked for recovery
+		assertEquals(Value.string("xid"),
+				mock.getMutations().get(0).asMap().get(CloudSpannerXAConnection.XA_PREPARED_XID_COLUMN));
+		assertFalse(mock.getMutations().get(1).asMap().containsKey(CloudSpannerXAConnection.XA_PREPARED_XID_COLUMN));
+		XATransaction.prepareMutations(context, "xid", Arrays.asList(large, large, large, large, large));
+		assertEquals(5, mock.getMutations().size());
+		assertEquals(Value.int64(2L), mock.getMutations().get(4).asMap().get(CloudSpannerXAConnection.XA_NUMBER_COLUMN));
+	}
+
 	private Mutation serializeDeserialize(Mutation original) throws NoSuchMethodException, SecurityException,
 			IllegalAccessException, IllegalArgumentException, InvocationTargetException
 	{
-		Method serialize = XATransaction.class.getDeclaredMethod("serializeMutation", Mutation.class);
+		return serializeDeserialize(original, "serializeMutation", "deserializeMutation", ByteArray.class);
+	}
+
+	private Mutation serializeDeserialize(Mutation original, String serializeMethod, String deserializeMethod,
+			Class<?> serializedType) throws NoSuchMethodException, SecurityException, IllegalAccessException,
+			IllegalArgumentException, InvocationTargetException
+	{
+		Method serialize = XATransaction.class.getDeclaredMethod(serializeMethod, Mutation.class);
 		serialize.setAccessible(true);
-		String serialized = (String) serialize.invoke(null, original);
+		Object serialized = serialize.invoke(null, original);
 
-		Method deserialize = XATransaction.class.getDeclaredMethod("deserializeMutation", String.class);
+		Method deserialize = XATransaction.class.getDeclaredMethod(deserializeMethod, serializedType);
 		deserialize.setAccessible(true);
 		Mutation deserialized = (Mutation) deserialize.invoke(null, serialized);
 
@@ -5,8 +5,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
 import java.util.Random;
 
 import javax.transaction.xa.XAException;
@@ -18,10 +20,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+
+import com.google.cloud.spanner.DatabaseId;
 
 import nl.topicus.jdbc.CloudSpannerConnection;
 import nl.topicus.jdbc.ICloudSpannerConnection;
 import nl.topicus.jdbc.exception.CloudSpannerSQLException;
+import nl.topicus.jdbc.resultset.CloudSpannerResultSet;
+import nl.topicus.jdbc.statement.CloudSpannerPreparedStatement;
+import nl.topicus.jdbc.statement.CloudSpannerStatement;
 import nl.topicus.jdbc.test.category.UnitTest;
 import nl.topicus.jdbc.test.util.CloudSpannerTestObjects;
 
@@ -84,32 +92,205 @@ public class CloudSpannerXAConnectionTest
 	@Test
 	public void testPrepare() throws SQLException, XAException
 	{
-		CloudSpannerXAConnection subject = createSubject();
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getTransaction().hasBufferedMutations()).thenReturn(true);
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
 		Xid xid = createXid();
 		subject.start(xid, XAResource.TMNOFLAGS);
 		subject.end(xid, XAResource.TMSUCCESS);
-		subject.prepare(xid);
+		assertEquals(XAResource.XA_OK, subject.prepare(xid));
+		Mockito.verify(conn).prepareTransaction(RecoveredXid.xidToString(xid));
+	}
+
+	@Test
+	public void testPrepareReadOnly() throws SQLException, XAException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
+		Xid xid = createXid();
+		subject.start(xid, XAResource.TMNOFLAGS);
+		subject.end(xid, XAResource.TMSUCCESS);
+		assertEquals(XAResource.XA_RDONLY, subject.prepare(xid));
+		Mockito.verify(conn, Mockito.never()).prepareTransaction(Mockito.anyString());
+		Mockito.verify(conn).rollback();
 	}
 
 	@Test
 	public void testCommitOnePhase() throws SQLException, XAException
 	{
-		CloudSpannerXAConnection subject = createSubject();
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getTransaction().hasBufferedMutations()).thenReturn(true);
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
 		Xid xid = createXid();
 		subject.start(xid, XAResource.TMNOFLAGS);
 		subject.end(xid, XAResource.TMSUCCESS);
 		subject.commit(xid, true);
+		Mockito.verify(conn).commit();
+		Mockito.verify(conn, Mockito.never()).prepareTransaction(Mockito.anyString());
+	}
+
+	@Test
+	public void testCommitOnePhaseReadOnly() throws SQLException, XAException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
+		Xid xid = createXid();
+		subject.start(xid, XAResource.TMNOFLAGS);
+		subject.end(xid, XAResource.TMSUCCESS);
+		subject.commit(xid, true);
+		Mockito.verify(conn, Mockito.never()).commit();
+		Mockito.verify(conn).rollback();
 	}
 
 	@Test
 	public void testCommitTwoPhase() throws SQLException, XAException
 	{
-		CloudSpannerXAConnection subject = createSubject();
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		// The transaction contains mutations when it is prepared
+		Mockito.when(conn.getTransaction().hasBufferedMutations()).thenReturn(true, false);
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
 		Xid xid = createXid();
 		subject.start(xid, XAResource.TMNOFLAGS);
 		subject.end(xid, XAResource.TMSUCCESS);
-		subject.prepare(xid);
+		assertEquals(XAResource.XA_OK, subject.prepare(xid));
 		subject.commit(xid, false);
+		Mockito.verify(conn).commitPreparedTransaction(RecoveredXid.xidToString(xid));
+	}
+
+	@Test
+	public void testRecover() throws SQLException, XAException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Xid xid = createXid();
+		String sql = mockRecover(conn, xid);
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
+		Xid[] recovered = subject.recover(XAResource.TMSTARTRSCAN);
+		assertEquals(1, recovered.length);
+		assertEquals(xid, recovered[0]);
+		assertEquals(0, subject.recover(XAResource.TMENDRSCAN).length);
+		// The recovery query uses the index on the prepared xid column
+		Mockito.verify(conn.createStatement()).executeQuery(sql);
+		assertTrue(sql.contains("FORCE_INDEX"));
+	}
+
+	@Test
+	public void testRecoverWithoutCheckedTable() throws SQLException, XAException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getDatabaseId()).thenReturn(DatabaseId.of("test-project", "test-instance", "unchecked"));
+		Xid xid = createXid();
+		String sql = mockRecover(conn, xid);
+		// The table has not been checked for this database, so the index
+		// might not exist
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn, false);
+		assertEquals(1, subject.recover(XAResource.TMSTARTRSCAN).length);
+		Mockito.verify(conn.createStatement(), Mockito.never()).executeQuery(sql);
+		Mockito.verify(conn.createStatement()).executeQuery("SELECT DISTINCT XID FROM XA_PREPARED_MUTATIONS");
+	}
+
+	@Test
+	public void testCreateTable() throws SQLException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getDatabaseId()).thenReturn(DatabaseId.of("test-project", "test-instance", "new"));
+		CloudSpannerPreparedStatement statement = Mockito.mock(CloudSpannerPreparedStatement.class);
+		CloudSpannerResultSet rs = Mockito.mock(CloudSpannerResultSet.class);
+		Mockito.when(statement.executeQuery()).thenReturn(rs);
+		Mockito.when(conn.prepareStatement(Mockito.anyString())).thenReturn(statement);
+		new CloudSpannerXAConnection(conn);
+		// The table and index are created synchronously in one schema update
+		Mockito.verify(conn).executeDDLAndWait(Arrays.asList(
+				"CREATE TABLE XA_PREPARED_MUTATIONS (XID STRING(150) NOT NULL, NUMBER INT64 NOT NULL, MUTATION STRING(MAX) NOT NULL, MUTATION_BYTES BYTES(MAX), PREPARED_XID STRING(150)) PRIMARY KEY (XID, NUMBER)",
+				"CREATE NULL_FILTERED INDEX IDX_XA_PREPARED_MUTATIONS_PREPARED_XID ON XA_PREPARED_MUTATIONS (PREPARED_XID)"));
+	}
+
+	@Test
+	public void testUpgradeTable() throws SQLException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getDatabaseId()).thenReturn(DatabaseId.of("test-project", "test-instance", "old"));
+		CloudSpannerPreparedStatement statement = Mockito.mock(CloudSpannerPreparedStatement.class);
+		CloudSpannerResultSet rs = Mockito.mock(CloudSpannerResultSet.class);
+		Mockito.when(rs.next()).thenReturn(true, true, false, false);
+		Mockito.when(rs.getString(1)).thenReturn(CloudSpannerXAConnection.XA_XID_COLUMN,
+				CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN);
+		Mockito.when(statement.executeQuery()).thenReturn(rs);
+		Mockito.when(conn.prepareStatement(Mockito.anyString())).thenReturn(statement);
+		new CloudSpannerXAConnection(conn);
+		Mockito.verify(conn).executeDDLAndWait(Arrays.asList(
+				"ALTER TABLE XA_PREPARED_MUTATIONS ADD COLUMN PREPARED_XID STRING(150)",
+				"CREATE NULL_FILTERED INDEX IDX_XA_PREPARED_MUTATIONS_PREPARED_XID ON XA_PREPARED_MUTATIONS (PREPARED_XID)"));
+	}
+
+	@Test
+	public void testUpgradeTableWithLegacyTransaction() throws SQLException, XAException
+	{
+		CloudSpannerConnection conn = CloudSpannerTestObjects.createConnection();
+		Mockito.when(conn.getDatabaseId()).thenReturn(DatabaseId.of("test-project", "test-instance", "legacy"));
+		// A transaction that was prepared by an older version of the driver
+		// has no value in the prepared xid column
+		Xid xid = createXid();
+		String legacyXid = RecoveredXid.xidToString(xid);
+		CloudSpannerPreparedStatement columns = Mockito.mock(CloudSpannerPreparedStatement.class);
+		CloudSpannerResultSet columnsRs = Mockito.mock(CloudSpannerResultSet.class);
+		Mockito.when(columnsRs.next()).thenReturn(true, true, false);
+		Mockito.when(columnsRs.getString(1)).thenReturn(CloudSpannerXAConnection.XA_XID_COLUMN,
+				CloudSpannerXAConnection.XA_MUTATION_BYTES_COLUMN);
+		Mockito.when(columns.executeQuery()).thenReturn(columnsRs);
+		CloudSpannerPreparedStatement index = Mockito.mock(CloudSpannerPreparedStatement.class);
+		Mockito.when(index.executeQuery()).thenReturn(Mockito.mock(CloudSpannerResultSet.class));
+		CloudSpannerPreparedStatement legacy = Mockito.mock(CloudSpannerPreparedStatement.class);
+		CloudSpannerResultSet legacyRs = Mockito.mock(CloudSpannerResultSet.class);
+		Mockito.when(legacyRs.next()).thenReturn(true, false);
+		Mockito.when(legacyRs.getString(1)).thenReturn(legacyXid);
+		Mockito.when(legacy.executeQuery()).thenReturn(legacyRs);
+		CloudSpannerPreparedStatement backfill = Mockito.mock(CloudSpannerPreparedStatement.class);
+		Mockito.when(conn.prepareStatement(Mockito.anyString())).then(invocation ->
+		{
+			String sql = invocation.getArgument(0);
+			if (sql.startsWith("SELECT COLUMN_NAME"))
+				return columns;
+			if (sql.startsWith("SELECT INDEX_NAME"))
+				return index;
+			if (sql.startsWith("SELECT XID"))
+				return legacy;
+			return backfill;
+		});
+		String recover = mockRecover(conn, xid);
+
+		CloudSpannerXAConnection subject = new CloudSpannerXAConnection(conn);
+		// The first row of the legacy transaction is marked for recovery
+		Mockito.verify(conn).prepareStatement(
+				"UPDATE XA_PREPARED_MUTATIONS SET PREPARED_XID=? WHERE XID=? AND NUMBER=?");
+		Mockito.verify(backfill).setString(1, legacyXid);
+		Mockito.verify(backfill).setString(2, legacyXid);
+		Mockito.verify(backfill).setLong(3, 0L);
+		Mockito.verify(backfill).executeBatch();
+		// And can then be found through the index
+		Xid[] recovered = subject.recover(XAResource.TMSTARTRSCAN);
+		assertEquals(1, recovered.length);
+		assertEquals(xid, recovered[0]);
+		Mockito.verify(conn.createStatement()).executeQuery(recover);
+	}
+
+	private String mockRecover(CloudSpannerConnection conn, Xid xid) throws SQLException
+	{
+		CloudSpannerStatement statement = Mockito.mock(CloudSpannerStatement.class);
+		CloudSpannerResultSet rs = Mockito.mock(CloudSpannerResultSet.class);
+		Mockito.when(rs.next()).thenReturn(true, false);
+		Mockito.when(rs.getString(1)).thenReturn(RecoveredXid.xidToString(xid));
+		Mockito.when(statement.executeQuery(Mockito.anyString())).thenReturn(rs);
+		Mockito.when(conn.createStatement()).thenReturn(statement);
+		try
+		{
+			Field field = CloudSpannerXAConnection.class.getDeclaredField("RECOVER");
+			field.setAccessible(true);
+			return (String) field.get(null);
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
 	}
 
 	@FunctionalInterface